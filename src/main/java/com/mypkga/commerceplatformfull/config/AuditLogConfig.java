@@ -0,0 +1,60 @@
+package com.mypkga.commerceplatformfull.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.audit")
+@Data
+public class AuditLogConfig {
+
+    public enum Backpressure {
+        // Discard events while the buffer is full
+        DROP,
+        // Keep one in sample-rate routine events once the buffer passes sample-threshold; drop when full
+        SAMPLE,
+        // Make the publishing thread wait for space, up to block-timeout; drop after that
+        BLOCK
+    }
+
+    private boolean enabled = true;
+
+    // Ring buffer slots, rounded up to a power of two
+    private int bufferSize = 8192;
+
+    // Maximum events encoded and written per file write
+    private int batchSize = 512;
+
+    private Backpressure backpressure = Backpressure.BLOCK;
+
+    // Longest a publisher waits for space under BLOCK before its event is dropped
+    private Duration blockTimeout = Duration.ofMillis(50);
+
+    private int sampleRate = 10;
+
+    // Buffer fill ratio above which SAMPLE starts thinning routine events
+    private double sampleThreshold = 0.75;
+
+    // Directory holding the audit segment files
+    private String directory = "logs/audit";
+
+    // Time partition of a segment; a segment is also sealed early once it reaches maxSegmentSize
+    private Duration segmentDuration = Duration.ofHours(1);
+    private DataSize maxSegmentSize = DataSize.ofMegabytes(64);
+
+    // Segments whose newest event is older than this are deleted
+    private Duration retention = Duration.ofDays(90);
+
+    // Upper bound on events returned by one audit trail query
+    private int maxQueryResults = 1000;
+
+    // Consumer sleep when the buffer is empty
+    private long idleWaitMicros = 1000L;
+
+    // Time one publish in this many for the audit.publish.latency timer (0 disables)
+    private int latencySampleEvery = 1024;
+}
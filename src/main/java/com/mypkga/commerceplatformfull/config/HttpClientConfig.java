@@ -0,0 +1,155 @@
+package com.mypkga.commerceplatformfull.config;
+
+import com.mypkga.commerceplatformfull.monitoring.OutboundHttpMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Shared outbound HTTP gateway: one pooled HttpClient 5 with per-host connection limits and
+ * connect, response and total timeouts, exposed as the application's RestTemplate.
+ * GHN, Groq and address lookups all go through it, so keep-alive connections are reused
+ * and every call is measured by {@link OutboundHttpMetrics}.
+ */
+@Configuration
+@Slf4j
+public class HttpClientConfig {
+
+    @Bean
+    public PoolingHttpClientConnectionManager outboundConnectionManager(OutboundHttpConfig config,
+                                                                        MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxConnections())
+                .setMaxConnPerRoute(config.getMaxConnectionsPerHost())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(config.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(config.getResponseTimeout()))
+                        .setTimeToLive(TimeValue.of(config.getConnectionTtl()))
+                        .build())
+                .build();
+
+        for (Map.Entry<String, Integer> entry : config.getMaxPerHost().entrySet()) {
+            // A route of a plain HttpHost never matches the pool key, which carries port and TLS flag
+            URI uri = URI.create(entry.getKey());
+            boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+            int port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+            HttpHost host = new HttpHost(uri.getScheme(), uri.getHost(), port);
+            manager.setMaxPerRoute(new HttpRoute(host, null, secure), entry.getValue());
+        }
+
+        registerPoolGauge(meterRegistry, manager, "leased", PoolStats::getLeased);
+        registerPoolGauge(meterRegistry, manager, "available", PoolStats::getAvailable);
+        registerPoolGauge(meterRegistry, manager, "pending", PoolStats::getPending);
+        registerPoolGauge(meterRegistry, manager, "max", PoolStats::getMax);
+        return manager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient outboundHttpClient(PoolingHttpClientConnectionManager outboundConnectionManager,
+                                                  OutboundHttpConfig config) {
+        CloseableHttpClient pooled = HttpClients.custom()
+                .setConnectionManager(outboundConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(config.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(config.getResponseTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.of(config.getIdleTimeout()))
+                .evictExpiredConnections()
+                .build();
+        return new DeadlineHttpClient(pooled, config.getTotalTimeout().toMillis());
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient outboundHttpClient, OutboundHttpMetrics outboundHttpMetrics) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(outboundHttpClient));
+        restTemplate.getInterceptors().add(outboundHttpMetrics);
+        return restTemplate;
+    }
+
+    private static void registerPoolGauge(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager manager,
+                                          String state, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder("http.client.pool.connections", manager, m -> value.applyAsDouble(m.getTotalStats()))
+                .description("Outbound HTTP connection pool")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Aborts a call that has not received response headers within the total timeout,
+     * covering the pool wait, connect, TLS and any retries the client makes.
+     */
+    static final class DeadlineHttpClient extends CloseableHttpClient {
+
+        private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "http-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final CloseableHttpClient delegate;
+        private final long totalTimeoutMillis;
+
+        DeadlineHttpClient(CloseableHttpClient delegate, long totalTimeoutMillis) {
+            this.delegate = delegate;
+            this.totalTimeoutMillis = totalTimeoutMillis;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, ClassicHttpRequest request, HttpContext context)
+                throws IOException {
+            if (totalTimeoutMillis <= 0 || !(request instanceof Cancellable cancellable)) {
+                return (CloseableHttpResponse) delegate.executeOpen(target, request, context);
+            }
+            ScheduledFuture<?> deadline = TIMER.schedule(() -> {
+                if (cancellable.cancel()) {
+                    log.warn("Outbound {} {} aborted after {} ms", request.getMethod(), request.getRequestUri(),
+                            totalTimeoutMillis);
+                }
+            }, totalTimeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                return (CloseableHttpResponse) delegate.executeOpen(target, request, context);
+            } finally {
+                deadline.cancel(false);
+            }
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+            delegate.close(closeMode);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
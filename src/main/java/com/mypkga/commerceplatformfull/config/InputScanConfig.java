@@ -0,0 +1,20 @@
+package com.mypkga.commerceplatformfull.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.input-scan")
+@Data
+public class InputScanConfig {
+
+    private boolean enabled = true;
+
+    // Checks skipped per endpoint, keyed by Controller.method, e.g. allow[ChatbotController.chat]=sql
+    private Map<String, List<String>> allow = new HashMap<>();
+}
@@ -3,7 +3,6 @@ package com.mypkga.commerceplatformfull.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 
 import java.util.Properties;
@@ -27,7 +26,7 @@ public class MailConfig {
     private String password;
 
     @Bean
-    public JavaMailSender javaMailSender() {
+    public JavaMailSenderImpl javaMailSender() {
         JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
         mailSender.setHost(host);
         mailSender.setPort(port);
@@ -48,10 +47,8 @@ public class MailConfig {
         props.put("mail.smtp.ssl.checkserveridentity", "false");
         props.put("mail.smtp.ssl.enable", "false");
         props.put("mail.debug", "false");
-        
-        // Connection pooling
-        props.put("mail.smtp.connectionpoolsize", "10");
-        props.put("mail.smtp.connectionpooltimeout", "300000");
+
+        // SMTP connections are pooled by SmtpTransportPool for the email outbox
 
         return mailSender;
     }
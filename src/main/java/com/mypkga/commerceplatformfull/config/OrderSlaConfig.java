@@ -0,0 +1,27 @@
+package com.mypkga.commerceplatformfull.config;
+
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.sla")
+@Data
+public class OrderSlaConfig {
+
+    private boolean enabled = true;
+
+    // How often breached orders are looked for (only the breached prefix of each index is visited)
+    private long checkIntervalMs = 60000L;
+
+    // Maximum time an order may stay in a status before an alert is raised
+    private Map<OrderStatus, Duration> thresholds = new EnumMap<>(OrderStatus.class);
+
+    // Maximum number of breached orders returned per status by the actuator endpoint
+    private int maxListedOrders = 100;
+}
@@ -0,0 +1,36 @@
+package com.mypkga.commerceplatformfull.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.http")
+@Data
+public class OutboundHttpConfig {
+
+    // TCP connect, waiting for a pooled connection, and gap between response packets
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+    private Duration responseTimeout = Duration.ofSeconds(30);
+
+    // Hard deadline for a call from pool lease to response headers
+    private Duration totalTimeout = Duration.ofSeconds(45);
+
+    private int maxConnections = 100;
+
+    // Concurrent connections per host, unless overridden below
+    private int maxConnectionsPerHost = 20;
+
+    // Per-host overrides keyed by scheme and host, e.g. max-per-host[https\://api.groq.com]=4
+    // (the colon must be escaped in application.properties)
+    private Map<String, Integer> maxPerHost = new LinkedHashMap<>();
+
+    // Idle keep-alive connections are closed after this, and any connection after its TTL
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private Duration connectionTtl = Duration.ofMinutes(5);
+}
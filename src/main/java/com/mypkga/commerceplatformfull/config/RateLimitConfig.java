@@ -0,0 +1,78 @@
+package com.mypkga.commerceplatformfull.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Data
+public class RateLimitConfig {
+
+    // Off by default: behind a load balancer every client shares the balancer's IP
+    // unless trustedProxies is set
+    private boolean enabled = false;
+
+    // Limit for requests that match no route policy
+    private int requestsPerMinute = 60;
+    private int burst = 60;
+
+    // Route policies, matched in order; the first match wins
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    // Clients tracked per policy; least recently seen clients are evicted first
+    private long maxClients = 100_000L;
+
+    // Clients idle for this long are forgotten (their bucket would be full again anyway)
+    private Duration idleTtl = Duration.ofMinutes(10);
+
+    // Proxies (IPs or CIDRs) whose X-Forwarded-For header is trusted
+    private List<String> trustedProxies = new ArrayList<>();
+
+    private Cluster cluster = new Cluster();
+
+    @Data
+    public static class Policy {
+
+        // Exact paths, or prefixes ending in /**
+        private List<String> paths = new ArrayList<>();
+
+        // HTTP methods the policy applies to; empty means all
+        private List<String> methods = new ArrayList<>();
+
+        private int permitsPerMinute = 60;
+
+        // Requests allowed back to back before the rate applies
+        private int burst = 10;
+    }
+
+    /**
+     * Cluster-wide limits: nodes lease permits in batches from a shared store
+     */
+    @Data
+    public static class Cluster {
+
+        private boolean enabled = false;
+
+        // Policies whose limits are enforced across all nodes
+        private List<String> policies = new ArrayList<>(List.of("login", "register", "otp"));
+
+        // Shared store: jdbc (rate_limit_buckets table) or memory (single-process stand-in)
+        private String store = "jdbc";
+
+        // Permits taken from the shared bucket per store call
+        private int leaseSize = 3;
+
+        // Unused leased permits are dropped after this long so nodes cannot hoard them
+        private Duration leaseTtl = Duration.ofSeconds(2);
+
+        // Shared buckets idle for this long are deleted
+        private Duration bucketRetention = Duration.ofHours(1);
+    }
+}
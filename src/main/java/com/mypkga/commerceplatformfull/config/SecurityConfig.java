@@ -1,5 +1,8 @@
 package com.mypkga.commerceplatformfull.config;
 
+import com.mypkga.commerceplatformfull.service.CartService;
+import com.mypkga.commerceplatformfull.service.GuestCartStore;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -17,6 +20,7 @@ import java.io.IOException;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
+@Slf4j
 public class SecurityConfig {
 
     @Bean
@@ -25,7 +29,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, CartService cartService,
+            GuestCartStore guestCartStore) throws Exception {
         http
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/css/**", "/js/**", "/images/**", "/webjars/**").permitAll()
@@ -39,12 +44,24 @@ public class SecurityConfig {
                         .requestMatchers("/checkout/**", "/cart/**").permitAll() // Allow cart and checkout access
                         .requestMatchers("/staff/**").hasAnyRole("STAFF", "MODERATOR", "ADMIN")
                         .requestMatchers("/admin/**").hasAnyRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN") // Metrics and SLA data list order ids
                         .requestMatchers("/api/ghn/**").permitAll() // Allow GHN webhooks and master data APIs
                         .requestMatchers("/api/chatbot/**").permitAll() // Allow public access to chatbot API
                         .anyRequest().authenticated())
                 .formLogin(form -> form
                         .loginPage("/login")
                         .successHandler((request, response, authentication) -> {
+                            // Merge the anonymous cart into the user's cart
+                            String guestToken = guestCartStore.resolveToken(request);
+                            if (guestToken != null) {
+                                try {
+                                    cartService.mergeGuestCart(authentication.getName(), guestToken);
+                                    guestCartStore.clearCookie(response);
+                                } catch (Exception e) {
+                                    log.warn("Guest cart merge failed for {}: {}", authentication.getName(), e.getMessage());
+                                }
+                            }
+
                             // Lấy tất cả authorities và tìm role
                             String redirectUrl = "/";
 
@@ -5,6 +5,7 @@ import com.mypkga.commerceplatformfull.entity.User;
 import com.mypkga.commerceplatformfull.exception.CartUpdateException;
 import com.mypkga.commerceplatformfull.exception.OutOfStockException;
 import com.mypkga.commerceplatformfull.service.CartService;
+import com.mypkga.commerceplatformfull.service.GuestCartStore;
 import com.mypkga.commerceplatformfull.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,19 +29,16 @@ public class CartController {
 
     private final CartService cartService;
     private final UserService userService;
+    private final GuestCartStore guestCartStore;
 
     @GetMapping
-    public String viewCart(Authentication authentication, Model model, RedirectAttributes redirectAttributes) {
-        // Guest user handling - redirect to login
-        if (authentication == null || !authentication.isAuthenticated()) {
-            log.info("Guest user attempted to access cart - redirecting to login");
-            redirectAttributes.addFlashAttribute("error", "Vui lòng đăng nhập để xem giỏ hàng");
-            return "redirect:/login";
-        }
-
+    public String viewCart(Authentication authentication, Model model, RedirectAttributes redirectAttributes,
+            HttpServletRequest request) {
         try {
-            User user = getCurrentUser(authentication);
-            Cart cart = cartService.getCartByUser(user);
+            // Guest user handling - in-memory cart keyed by cookie
+            Cart cart = isGuest(authentication)
+                    ? cartService.getGuestCart(guestCartStore.resolveToken(request))
+                    : cartService.getCartByUser(getCurrentUser(authentication));
             model.addAttribute("cart", cart);
             return "cart/view";
         } catch (Exception e) {
@@ -55,27 +54,21 @@ public class CartController {
             @RequestParam(required = false) String returnUrl,
             Authentication authentication,
             RedirectAttributes redirectAttributes,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            HttpServletResponse response) {
 
-        // Guest user handling - redirect to login
-        if (authentication == null || !authentication.isAuthenticated()) {
-            log.info("Guest user attempted to add to cart - redirecting to login");
-            
-            // Handle AJAX requests
-            if (isAjaxRequest(request)) {
-                return "redirect:/login"; // AJAX will handle this
+        try {
+            if (isGuest(authentication)) {
+                // Guest user handling - in-memory cart, merged into the user's cart on login
+                cartService.addToGuestCart(guestCartStore.resolveOrIssueToken(request, response), productId, quantity);
+                log.debug("Product {} added to guest cart", productId);
+            } else {
+                User user = getCurrentUser(authentication);
+                cartService.addToCart(user, productId, quantity);
+                log.info("Product {} added to cart for user {}", productId, user.getUsername());
             }
-            
-            redirectAttributes.addFlashAttribute("error", "Vui lòng đăng nhập để thêm sản phẩm vào giỏ hàng");
-            return "redirect:/login";
-        }
 
-        try {
-            User user = getCurrentUser(authentication);
-            cartService.addToCart(user, productId, quantity);
-            
             String successMessage = "Đã thêm sản phẩm vào giỏ hàng!";
-            log.info("Product {} added to cart for user {}", productId, user.getUsername());
             
             // Handle AJAX requests
             if (isAjaxRequest(request)) {
@@ -143,17 +136,16 @@ public class CartController {
     public String updateCartItem(@PathVariable Long itemId,
             @RequestParam Integer quantity,
             Authentication authentication,
-            RedirectAttributes redirectAttributes) {
-
-        // Guest user handling
-        if (authentication == null || !authentication.isAuthenticated()) {
-            log.info("Guest user attempted to update cart - redirecting to login");
-            redirectAttributes.addFlashAttribute("error", "Vui lòng đăng nhập");
-            return "redirect:/login";
-        }
+            RedirectAttributes redirectAttributes,
+            HttpServletRequest request) {
 
         try {
-            cartService.updateCartItemQuantity(itemId, quantity);
+            // Guest cart item ids are product ids
+            if (isGuest(authentication)) {
+                cartService.updateGuestCartItemQuantity(guestCartStore.resolveToken(request), itemId, quantity);
+            } else {
+                cartService.updateCartItemQuantity(itemId, quantity);
+            }
             if (quantity > 0) {
                 redirectAttributes.addFlashAttribute("success", "Đã cập nhật số lượng!");
                 log.info("Cart item {} updated to quantity {}", itemId, quantity);
@@ -176,17 +168,15 @@ public class CartController {
     @PostMapping("/remove/{itemId}")
     public String removeFromCart(@PathVariable Long itemId,
             Authentication authentication,
-            RedirectAttributes redirectAttributes) {
-
-        // Guest user handling
-        if (authentication == null || !authentication.isAuthenticated()) {
-            log.info("Guest user attempted to remove from cart - redirecting to login");
-            redirectAttributes.addFlashAttribute("error", "Vui lòng đăng nhập");
-            return "redirect:/login";
-        }
+            RedirectAttributes redirectAttributes,
+            HttpServletRequest request) {
 
         try {
-            cartService.removeFromCart(itemId);
+            if (isGuest(authentication)) {
+                cartService.removeFromGuestCart(guestCartStore.resolveToken(request), itemId);
+            } else {
+                cartService.removeFromCart(itemId);
+            }
             redirectAttributes.addFlashAttribute("success", "Đã xóa sản phẩm khỏi giỏ hàng!");
             log.info("Cart item {} removed", itemId);
         } catch (Exception e) {
@@ -197,6 +187,10 @@ public class CartController {
         return "redirect:/cart";
     }
 
+    private boolean isGuest(Authentication authentication) {
+        return authentication == null || !authentication.isAuthenticated();
+    }
+
     private User getCurrentUser(Authentication authentication) {
         // authentication.getName() returns email (from CustomUserDetailsService)
         return userService.findByEmail(authentication.getName())
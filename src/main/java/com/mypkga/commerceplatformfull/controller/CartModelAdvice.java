@@ -0,0 +1,45 @@
+package com.mypkga.commerceplatformfull.controller;
+
+import com.mypkga.commerceplatformfull.dto.CartSummary;
+import com.mypkga.commerceplatformfull.service.CartService;
+import com.mypkga.commerceplatformfull.service.GuestCartStore;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+
+/**
+ * Adds the cart badge ({@code cartItemCount}, {@code cartSummary}) to storefront pages.
+ * Logged-in users are served from the cart summary cache and guests from their
+ * in-memory cart, so rendering a page normally costs no cart queries.
+ */
+@ControllerAdvice(assignableTypes = {HomeController.class, ProductController.class, CartController.class})
+@RequiredArgsConstructor
+@Slf4j
+public class CartModelAdvice {
+
+    private final CartService cartService;
+    private final GuestCartStore guestCartStore;
+
+    @ModelAttribute
+    public void addCartSummary(Model model, Authentication authentication, HttpServletRequest request) {
+        CartSummary summary = CartSummary.EMPTY;
+        try {
+            if (authentication != null && authentication.isAuthenticated()) {
+                summary = cartService.getCartSummary(authentication.getName());
+            } else {
+                GuestCartStore.GuestCart guestCart = guestCartStore.get(guestCartStore.resolveToken(request));
+                if (guestCart != null) {
+                    summary = new CartSummary(guestCart.totalItems(), null);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load cart summary: {}", e.getMessage());
+        }
+        model.addAttribute("cartSummary", summary);
+        model.addAttribute("cartItemCount", summary.getItemCount());
+    }
+}
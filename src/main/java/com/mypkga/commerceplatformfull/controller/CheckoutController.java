@@ -1,9 +1,11 @@
 package com.mypkga.commerceplatformfull.controller;
 
+import com.mypkga.commerceplatformfull.dto.CheckoutPreflightResult;
 import com.mypkga.commerceplatformfull.entity.Cart;
 import com.mypkga.commerceplatformfull.entity.Order;
 import com.mypkga.commerceplatformfull.entity.User;
 import com.mypkga.commerceplatformfull.service.CartService;
+import com.mypkga.commerceplatformfull.service.CheckoutPreflightService;
 import com.mypkga.commerceplatformfull.service.OrderService;
 import com.mypkga.commerceplatformfull.service.UserService;
 import com.mypkga.commerceplatformfull.service.VNPayService;
@@ -23,10 +25,26 @@ public class CheckoutController {
     private final UserService userService;
     private final CartService cartService;
     private final VNPayService vnPayService;
+    private final CheckoutPreflightService checkoutPreflightService;
 
     @GetMapping
     public String checkoutPage(Authentication authentication, Model model) {
+        // Guests log in first; their guest cart is merged on login
+        if (authentication == null) {
+            return "redirect:/login";
+        }
         User user = getCurrentUser(authentication);
+
+        // Revalidate stock and prices of the whole cart before showing the order summary
+        CheckoutPreflightResult preflight = checkoutPreflightService.check(user.getId());
+        if (!preflight.getPriceChanged().isEmpty()) {
+            checkoutPreflightService.refreshCartPrices(preflight.getCartId());
+            model.addAttribute("priceNotice", preflight.describePriceChanges());
+        }
+        if (!preflight.getOutOfStock().isEmpty()) {
+            model.addAttribute("stockNotice", preflight.describeOutOfStock());
+        }
+
         Cart cart = cartService.getCartByUser(user);
 
         // Check if cart is empty
@@ -36,7 +54,7 @@ public class CheckoutController {
         }
 
         model.addAttribute("cart", cart);
-        model.addAttribute("cartTotal", cartService.getCartTotal(user.getId()));
+        model.addAttribute("cartTotal", preflight.getTotal());
         return "checkout/checkout";
     }
 
@@ -2,6 +2,7 @@ package com.mypkga.commerceplatformfull.controller;
 
 import com.mypkga.commerceplatformfull.dto.ghn.*;
 import com.mypkga.commerceplatformfull.service.GHNMasterDataService;
+import com.mypkga.commerceplatformfull.service.address.AddressAutocomplete;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +22,7 @@ import java.util.List;
 public class GHNMasterDataController {
 
     private final GHNMasterDataService ghnMasterDataService;
+    private final AddressAutocomplete addressAutocomplete;
 
     /**
      * Get all provinces
@@ -120,4 +122,19 @@ public class GHNMasterDataController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * Typeahead over all provinces, districts and wards, e.g. "ben nghe q1" or "Q.12 TP HCM".
+     * Each suggestion carries every id needed to fill the address, so one request replaces
+     * the province, district and ward drill-down.
+     *
+     * @param q     free text, with or without diacritics
+     * @param limit maximum number of suggestions
+     */
+    @GetMapping("/address-suggestions")
+    public ResponseEntity<List<AddressSuggestion>> suggestAddresses(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(addressAutocomplete.suggest(q, limit));
+    }
 }
@@ -1,9 +1,10 @@
 package com.mypkga.commerceplatformfull.controller;
 
 import com.mypkga.commerceplatformfull.dto.ghn.GHNWebhookPayload;
-import com.mypkga.commerceplatformfull.service.GHNService;
+import com.mypkga.commerceplatformfull.service.ghn.GhnWebhookInbox;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,29 +18,36 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class GHNWebhookController {
     
-    private final GHNService ghnService;
+    private final GhnWebhookInbox webhookInbox;
     
     /**
      * Handle status update webhook from GHN
-     * This endpoint receives notifications when shipment status changes
+     * The update is stored in the webhook inbox and applied asynchronously,
+     * so GHN is acknowledged without waiting for database or email work
      */
     @PostMapping("/status-update")
     public ResponseEntity<String> handleStatusUpdate(@RequestBody GHNWebhookPayload payload) {
         log.info("Received GHN webhook for order: {} with status: {}", 
             payload.getOrderCode(), payload.getStatus());
         
+        if (payload.getOrderCode() == null || payload.getOrderCode().isBlank()
+                || payload.getStatus() == null || payload.getStatus().isBlank()) {
+            log.warn("Ignoring GHN webhook without order code or status: {}", payload);
+            return ResponseEntity.ok("IGNORED");
+        }
+        
         try {
-            // Process the status update
-            ghnService.processStatusUpdate(payload);
-            
-            log.info("Successfully processed GHN webhook for order: {}", payload.getOrderCode());
+            if (!webhookInbox.append(payload)) {
+                log.info("Duplicate GHN webhook for order: {} with status: {}",
+                    payload.getOrderCode(), payload.getStatus());
+                return ResponseEntity.ok("DUPLICATE");
+            }
             return ResponseEntity.ok("OK");
             
         } catch (Exception e) {
-            log.error("Error processing GHN webhook for order: {}", payload.getOrderCode(), e);
-            // Return OK to prevent GHN from retrying
-            // Log the error for manual investigation
-            return ResponseEntity.ok("ERROR_LOGGED");
+            log.error("Error storing GHN webhook for order: {}", payload.getOrderCode(), e);
+            // Not stored: let GHN deliver it again
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("RETRY");
         }
     }
     
@@ -1,10 +1,6 @@
 package com.mypkga.commerceplatformfull.controller;
 
-import com.mypkga.commerceplatformfull.entity.Cart;
-import com.mypkga.commerceplatformfull.entity.User;
-import com.mypkga.commerceplatformfull.service.CartService;
 import com.mypkga.commerceplatformfull.service.ProductService;
-import com.mypkga.commerceplatformfull.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -17,8 +13,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 public class HomeController {
 
     private final ProductService productService;
-    private final CartService cartService;
-    private final UserService userService;
 
     @GetMapping({ "/", "/home" })
     public String home(Model model, Authentication authentication) {
@@ -34,20 +28,7 @@ public class HomeController {
             }
         }
 
-        // Add cart information for authenticated users
-        if (authentication != null && authentication.isAuthenticated()) {
-            try {
-                User user = userService.findByEmail(authentication.getName()).orElse(null);
-                if (user != null) {
-                    Cart cart = cartService.getCartByUser(user);
-                    model.addAttribute("cartItemCount", cart != null ? cart.getTotalItems() : 0);
-                }
-            } catch (Exception e) {
-                model.addAttribute("cartItemCount", 0);
-            }
-        } else {
-            model.addAttribute("cartItemCount", 0);
-        }
+        // cartItemCount is added by CartModelAdvice
 
         // For CUSTOMER or anonymous users, show home page
         model.addAttribute("featuredProducts", productService.getFeaturedProducts());
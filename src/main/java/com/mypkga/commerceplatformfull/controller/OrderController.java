@@ -4,6 +4,7 @@ import com.mypkga.commerceplatformfull.entity.DeliveryConfirmation;
 import com.mypkga.commerceplatformfull.entity.Order;
 import com.mypkga.commerceplatformfull.entity.OrderTimelineEntry;
 import com.mypkga.commerceplatformfull.entity.User;
+import com.mypkga.commerceplatformfull.security.AuthenticatedUser;
 import com.mypkga.commerceplatformfull.service.DeliveryConfirmationService;
 import com.mypkga.commerceplatformfull.service.OrderService;
 import com.mypkga.commerceplatformfull.service.OrderTimelineService;
@@ -32,8 +33,7 @@ public class OrderController {
 
     @GetMapping
     public String myOrders(Authentication authentication, Model model) {
-        User user = getCurrentUser(authentication);
-        List<Order> orders = orderService.getUserOrders(user.getId());
+        List<Order> orders = orderService.getUserOrders(getCurrentUserId(authentication));
 
         model.addAttribute("orders", orders);
         return "orders/list";
@@ -43,7 +43,7 @@ public class OrderController {
     public String orderDetail(@PathVariable Long id,
             Authentication authentication,
             Model model) {
-        User user = getCurrentUser(authentication);
+        Long userId = getCurrentUserId(authentication);
         Order order = orderService.getOrderById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
@@ -52,7 +52,7 @@ public class OrderController {
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN") || 
                                 auth.getAuthority().equals("ROLE_STAFF"));
         
-        if (!isAdminOrStaff && !order.getUser().getId().equals(user.getId())) {
+        if (!isAdminOrStaff && !order.getUser().getId().equals(userId)) {
             throw new RuntimeException("Access denied");
         }
 
@@ -69,9 +69,14 @@ public class OrderController {
         return "orders/detail";
     }
 
-    private User getCurrentUser(Authentication authentication) {
-        // authentication.getName() returns email (from CustomUserDetailsService)
+    private Long getCurrentUserId(Authentication authentication) {
+        // The principal carries the user id; sessions from before that fall back to a lookup
+        Long userId = AuthenticatedUser.idOf(authentication);
+        if (userId != null) {
+            return userId;
+        }
         return userService.findByEmail(authentication.getName())
+                .map(User::getId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 }
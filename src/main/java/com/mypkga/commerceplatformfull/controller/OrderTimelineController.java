@@ -5,6 +5,7 @@ import com.mypkga.commerceplatformfull.entity.OrderStatus;
 import com.mypkga.commerceplatformfull.entity.OrderTimelineEntry;
 import com.mypkga.commerceplatformfull.entity.Order;
 import com.mypkga.commerceplatformfull.entity.User;
+import com.mypkga.commerceplatformfull.security.AuthenticatedUser;
 import com.mypkga.commerceplatformfull.service.OrderTimelineService;
 import com.mypkga.commerceplatformfull.service.OrderService;
 import com.mypkga.commerceplatformfull.service.UserService;
@@ -42,12 +43,12 @@ public class OrderTimelineController {
         try {
             // Security check for customers
             if (auth != null && !hasAdminOrStaffRole(auth)) {
-                User user = getCurrentUser(auth);
+                Long userId = getCurrentUserId(auth);
                 Order order = orderService.getOrderById(orderId)
                         .orElseThrow(() -> new RuntimeException("Order not found"));
                 
                 // Ensure user can only view their own orders
-                if (!order.getUser().getId().equals(user.getId())) {
+                if (!order.getUser().getId().equals(userId)) {
                     throw new RuntimeException("Access denied");
                 }
                 
@@ -236,9 +237,14 @@ public class OrderTimelineController {
         }
     }
 
-    private User getCurrentUser(Authentication authentication) {
-        // authentication.getName() returns email (from CustomUserDetailsService)
+    private Long getCurrentUserId(Authentication authentication) {
+        // The principal carries the user id; sessions from before that fall back to a lookup
+        Long userId = AuthenticatedUser.idOf(authentication);
+        if (userId != null) {
+            return userId;
+        }
         return userService.findByEmail(authentication.getName())
+                .map(User::getId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
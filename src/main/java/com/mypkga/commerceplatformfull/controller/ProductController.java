@@ -1,10 +1,9 @@
 package com.mypkga.commerceplatformfull.controller;
 
-import com.mypkga.commerceplatformfull.entity.Cart;
 import com.mypkga.commerceplatformfull.entity.Product;
 import com.mypkga.commerceplatformfull.entity.Review;
 import com.mypkga.commerceplatformfull.entity.User;
-import com.mypkga.commerceplatformfull.service.CartService;
+import com.mypkga.commerceplatformfull.security.AuthenticatedUser;
 import com.mypkga.commerceplatformfull.service.CategoryService;
 import com.mypkga.commerceplatformfull.service.ProductService;
 import com.mypkga.commerceplatformfull.service.ReviewService;
@@ -25,14 +24,13 @@ public class ProductController {
 
     private final ProductService productService;
     private final CategoryService categoryService;
-    private final CartService cartService;
     private final UserService userService;
     private final ReviewService reviewService;
 
     @GetMapping("/products")
     public String productList(@RequestParam(required = false) String search,
             @RequestParam(required = false) Long categoryId,
-            Model model, Authentication authentication) {
+            Model model) {
         List<Product> products;
 
         if (search != null && !search.trim().isEmpty()) {
@@ -43,20 +41,7 @@ public class ProductController {
             products = productService.getAllProducts();
         }
 
-        // Add cart information for authenticated users
-        if (authentication != null && authentication.isAuthenticated()) {
-            try {
-                User user = userService.findByEmail(authentication.getName()).orElse(null);
-                if (user != null) {
-                    Cart cart = cartService.getCartByUser(user);
-                    model.addAttribute("cartItemCount", cart != null ? cart.getTotalItems() : 0);
-                }
-            } catch (Exception e) {
-                model.addAttribute("cartItemCount", 0);
-            }
-        } else {
-            model.addAttribute("cartItemCount", 0);
-        }
+        // cartItemCount is added by CartModelAdvice
 
         model.addAttribute("products", products);
         model.addAttribute("categories", categoryService.getAllCategories());
@@ -82,10 +67,13 @@ public class ProductController {
         boolean canEdit = false;
 
         if (authentication != null && authentication.isAuthenticated()) {
-            User user = userService.findByEmail(authentication.getName()).orElse(null);
-            if (user != null) {
-                canReview = reviewService.hasPurchasedProduct(user.getId(), id);
-                userExistingReview = reviewService.findUserReviewForProduct(user.getId(), id).orElse(null);
+            Long userId = AuthenticatedUser.idOf(authentication);
+            if (userId == null) {
+                userId = userService.findByEmail(authentication.getName()).map(User::getId).orElse(null);
+            }
+            if (userId != null) {
+                canReview = reviewService.hasPurchasedProduct(userId, id);
+                userExistingReview = reviewService.findUserReviewForProduct(userId, id).orElse(null);
                 canEdit = userExistingReview != null && userExistingReview.isEditable();
             }
         }
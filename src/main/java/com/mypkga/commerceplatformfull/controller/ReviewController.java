@@ -1,6 +1,7 @@
 package com.mypkga.commerceplatformfull.controller;
 
 import com.mypkga.commerceplatformfull.entity.User;
+import com.mypkga.commerceplatformfull.security.AuthenticatedUser;
 import com.mypkga.commerceplatformfull.service.ReviewService;
 import com.mypkga.commerceplatformfull.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -33,11 +34,10 @@ public class ReviewController {
             return "redirect:/login";
         }
 
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = getCurrentUserId(authentication);
 
         try {
-            reviewService.submitReview(user.getId(), productId, rating, comment);
+            reviewService.submitReview(userId, productId, rating, comment);
             redirectAttributes.addFlashAttribute("message", "Đã gửi đánh giá của bạn. Cảm ơn bạn!");
         } catch (IllegalArgumentException | IllegalStateException | SecurityException e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
@@ -61,11 +61,10 @@ public class ReviewController {
             return "redirect:/login";
         }
 
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = getCurrentUserId(authentication);
 
         try {
-            reviewService.editReview(reviewId, user.getId(), rating, comment);
+            reviewService.editReview(reviewId, userId, rating, comment);
             redirectAttributes.addFlashAttribute("message", "Đã cập nhật đánh giá của bạn.");
         } catch (IllegalArgumentException | IllegalStateException | SecurityException e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
@@ -73,4 +72,15 @@ public class ReviewController {
 
         return "redirect:/products/" + productId + "#reviews";
     }
+
+    private Long getCurrentUserId(Authentication authentication) {
+        // The principal carries the user id; sessions from before that fall back to a lookup
+        Long userId = AuthenticatedUser.idOf(authentication);
+        if (userId != null) {
+            return userId;
+        }
+        return userService.findByEmail(authentication.getName())
+                .map(User::getId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
 }
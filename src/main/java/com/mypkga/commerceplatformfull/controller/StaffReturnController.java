@@ -1,6 +1,7 @@
 package com.mypkga.commerceplatformfull.controller;
 
 import com.mypkga.commerceplatformfull.dto.ghn.GHNFeeResponse;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNShipmentStatus;
 import com.mypkga.commerceplatformfull.entity.ReturnRequest;
 import com.mypkga.commerceplatformfull.entity.ReturnRequestHistory;
 import com.mypkga.commerceplatformfull.entity.User;
@@ -9,6 +10,7 @@ import com.mypkga.commerceplatformfull.service.UserService;
 import com.mypkga.commerceplatformfull.service.EmailService;
 import com.mypkga.commerceplatformfull.service.GHNReturnService;
 import com.mypkga.commerceplatformfull.service.WalletService;
+import com.mypkga.commerceplatformfull.service.ghn.GhnShipmentQueue;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.multipart.MultipartFile;
 import lombok.extern.slf4j.Slf4j;
@@ -37,6 +39,7 @@ public class StaffReturnController {
     private final EmailService emailService;
     private final GHNReturnService ghnReturnService;
     private final WalletService walletService;
+    private final GhnShipmentQueue ghnShipmentQueue;
 
     /**
      * Staff return requests dashboard
@@ -155,6 +158,29 @@ public class StaffReturnController {
         }
     }
 
+    /**
+     * Progress of the background GHN order creation (AJAX endpoint, polled by the detail page)
+     */
+    @GetMapping("/{requestId}/ghn-shipment")
+    @ResponseBody
+    public ResponseEntity<GHNShipmentStatus> getGHNShipmentStatus(@PathVariable Long requestId) {
+        return ghnShipmentQueue.status(requestId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Retry GHN order creation after it failed
+     */
+    @PostMapping("/{requestId}/ghn-shipment/retry")
+    @ResponseBody
+    public ResponseEntity<String> retryGHNShipment(@PathVariable Long requestId) {
+        if (!ghnShipmentQueue.retry(requestId)) {
+            return ResponseEntity.badRequest().body("Không có đơn vận chuyển GHN lỗi để tạo lại");
+        }
+        return ResponseEntity.ok("OK");
+    }
+
     /**
      * Approve return request
      */
@@ -171,7 +197,7 @@ public class StaffReturnController {
 
             redirectAttributes.addFlashAttribute("success",
                     "Đã duyệt yêu cầu hoàn tiền #" + approved.getId()
-                            + " thành công! Đã gửi email thông báo cho khách hàng.");
+                            + " thành công! Đã gửi email thông báo cho khách hàng. Đơn vận chuyển GHN đang được tạo.");
 
         } catch (Exception e) {
             log.error("Error approving return request {}: {}", requestId, e.getMessage());
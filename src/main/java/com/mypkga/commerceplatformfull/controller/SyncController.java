@@ -1,14 +1,26 @@
 package com.mypkga.commerceplatformfull.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mypkga.commerceplatformfull.entity.JobCheckpoint;
 import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import com.mypkga.commerceplatformfull.service.AuditLogService;
 import com.mypkga.commerceplatformfull.service.DataSynchronizationService;
+import com.mypkga.commerceplatformfull.service.OrderConsistencyScanner;
+import com.mypkga.commerceplatformfull.service.OrderStatusStreamService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -22,6 +34,28 @@ import java.util.Map;
 public class SyncController {
 
     private final DataSynchronizationService dataSynchronizationService;
+    private final OrderStatusStreamService orderStatusStreamService;
+    private final OrderConsistencyScanner orderConsistencyScanner;
+    private final AuditLogService auditLogService;
+
+    /**
+     * Subscribe to live status and timeline changes for an order (Server-Sent Events).
+     * Replaces polling of the status endpoints; the first event is the current status.
+     */
+    @GetMapping(value = "/order/{orderId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderStatus(@PathVariable Long orderId, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(orderStatusStreamService.subscribe(orderId, authentication));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (SecurityException e) {
+            log.warn("Rejected status stream for order {} by {}", orderId, authentication.getName());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } catch (IllegalStateException e) {
+            log.warn("Status stream limit reached for order {}: {}", orderId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
 
     /**
      * Get current synchronized status for an order
@@ -143,17 +177,19 @@ public class SyncController {
     }
 
     /**
-     * Bulk synchronization for all orders (Admin only)
+     * Bulk synchronization for all orders (Admin only).
+     * Starts the background consistency scanner (resuming a paused pass) and returns immediately.
      */
     @PostMapping("/bulk-sync")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> bulkSync() {
         try {
-            dataSynchronizationService.syncAllOrders();
-            
+            boolean started = orderConsistencyScanner.startScan();
+
             return ResponseEntity.ok(Map.of(
                 "success", true,
-                "message", "Bulk synchronization completed successfully",
+                "started", started,
+                "message", started ? "Bulk synchronization started" : "Bulk synchronization is already running",
                 "timestamp", LocalDateTime.now()
             ));
         } catch (Exception e) {
@@ -165,6 +201,78 @@ public class SyncController {
         }
     }
 
+    /**
+     * Pause a running bulk synchronization; the next run resumes from its checkpoint (Admin only)
+     */
+    @PostMapping("/bulk-sync/stop")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> stopBulkSync() {
+        orderConsistencyScanner.requestStop();
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "running", orderConsistencyScanner.isRunning(),
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+
+    /**
+     * Progress of the current or last bulk synchronization (Admin only)
+     */
+    @GetMapping("/bulk-sync/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> bulkSyncStatus() {
+        JobCheckpoint checkpoint = orderConsistencyScanner.getCheckpoint();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("running", orderConsistencyScanner.isRunning());
+        body.put("inProgress", checkpoint.getInProgress());
+        body.put("lastProcessedOrderId", checkpoint.getLastProcessedId());
+        body.put("processed", checkpoint.getProcessedCount());
+        body.put("fixed", checkpoint.getFixedCount());
+        body.put("errors", checkpoint.getErrorCount());
+        body.put("startedAt", checkpoint.getStartedAt());
+        body.put("completedAt", checkpoint.getCompletedAt());
+        body.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Audit trail of an order from the audit store, newest first (Admin/Staff only)
+     */
+    @GetMapping("/order/{orderId}/audit")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    public ResponseEntity<Map<String, Object>> getOrderAuditTrail(
+            @PathVariable Long orderId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "200") int limit) {
+        List<JsonNode> events = auditLogService.getOrderAuditTrail(orderId, from, to, limit);
+        return ResponseEntity.ok(Map.of(
+            "orderId", orderId,
+            "count", events.size(),
+            "events", events,
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+
+    /**
+     * Audit events recorded for an actor, e.g. "who changed what" for a staff email (Admin only)
+     */
+    @GetMapping("/audit/actor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getActorAuditTrail(
+            @RequestParam String updatedBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "200") int limit) {
+        List<JsonNode> events = auditLogService.getActorAuditTrail(updatedBy, from, to, limit);
+        return ResponseEntity.ok(Map.of(
+            "updatedBy", updatedBy,
+            "count", events.size(),
+            "events", events,
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+
     /**
      * Health check for synchronization service
      */
@@ -0,0 +1,17 @@
+package com.mypkga.commerceplatformfull.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Item count and total of a cart, as shown in the header badge.
+ */
+@Value
+public class CartSummary {
+
+    public static final CartSummary EMPTY = new CartSummary(0, BigDecimal.ZERO);
+
+    int itemCount;
+    BigDecimal total;
+}
@@ -0,0 +1,83 @@
+package com.mypkga.commerceplatformfull.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Stock and current price of every line of a cart, read in one query at checkout.
+ * Reused by order creation so the cart is not re-read product by product.
+ */
+@Getter
+public class CheckoutPreflightResult {
+
+    private final Long cartId;
+    private final List<Line> lines;
+    private final List<Line> outOfStock;
+    private final List<Line> priceChanged;
+
+    public CheckoutPreflightResult(Long cartId, List<Line> lines) {
+        this.cartId = cartId;
+        this.lines = lines;
+        this.outOfStock = lines.stream().filter(line -> !line.isInStock()).toList();
+        this.priceChanged = lines.stream().filter(Line::isPriceChanged).toList();
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /**
+     * Total at current product prices
+     */
+    public BigDecimal getTotal() {
+        return lines.stream()
+                .map(Line::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public String describeOutOfStock() {
+        return "Không đủ hàng trong kho: " + outOfStock.stream()
+                .map(line -> line.getProductName() + " (còn " + line.getStock()
+                        + ", yêu cầu " + line.getQuantity() + ")")
+                .collect(Collectors.joining("; "));
+    }
+
+    public String describePriceChanges() {
+        return "Giá sản phẩm đã thay đổi, vui lòng kiểm tra lại đơn hàng: " + priceChanged.stream()
+                .map(line -> line.getProductName() + " " + format(line.getCartPrice())
+                        + "đ → " + format(line.getCurrentPrice()) + "đ")
+                .collect(Collectors.joining("; "));
+    }
+
+    private static String format(BigDecimal amount) {
+        return amount.stripTrailingZeros().toPlainString();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Line {
+        private final Long cartItemId;
+        private final Long productId;
+        private final String productName;
+        private final int quantity;
+        private final int stock;
+        private final BigDecimal cartPrice;
+        private final BigDecimal currentPrice;
+
+        public boolean isInStock() {
+            return stock >= quantity;
+        }
+
+        public boolean isPriceChanged() {
+            return cartPrice.compareTo(currentPrice) != 0;
+        }
+
+        public BigDecimal getSubtotal() {
+            return currentPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+}
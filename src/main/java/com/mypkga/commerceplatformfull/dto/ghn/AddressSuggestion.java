@@ -0,0 +1,20 @@
+package com.mypkga.commerceplatformfull.dto.ghn;
+
+import lombok.Value;
+
+/**
+ * One typeahead match over the GHN tree, with every id needed to fill the
+ * province, district and ward fields at once. Ids below the matched level are null.
+ */
+@Value
+public class AddressSuggestion {
+
+    String level;
+    String label;
+    Integer provinceId;
+    String provinceName;
+    Integer districtId;
+    String districtName;
+    String wardCode;
+    String wardName;
+}
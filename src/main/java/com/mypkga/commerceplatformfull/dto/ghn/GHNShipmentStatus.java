@@ -0,0 +1,20 @@
+package com.mypkga.commerceplatformfull.dto.ghn;
+
+import lombok.Value;
+
+/**
+ * Progress of the background GHN order creation for one return request,
+ * polled by the staff return detail page.
+ */
+@Value
+public class GHNShipmentStatus {
+
+    String state;
+    int attempts;
+    // Seconds until the next attempt while pending
+    long retryInSeconds;
+    String lastError;
+    String ghnOrderCode;
+    // GHN calls are paused by the circuit breaker
+    boolean ghnUnavailable;
+}
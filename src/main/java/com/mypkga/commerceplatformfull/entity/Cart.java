@@ -13,7 +13,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", indexes = {
+    @Index(name = "idx_carts_updated_date", columnList = "updated_date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,58 @@
+package com.mypkga.commerceplatformfull.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Daily rollup of carts purged by the abandoned cart sweeper, keyed by the day
+ * of the cart's last activity.
+ */
+@Entity
+@Table(name = "cart_abandonment_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartAbandonmentStat {
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Column(name = "cart_count", nullable = false)
+    private Long cartCount = 0L;
+
+    // Purged carts that still held at least one item
+    @Column(name = "non_empty_cart_count", nullable = false)
+    private Long nonEmptyCartCount = 0L;
+
+    @Column(name = "line_count", nullable = false)
+    private Long lineCount = 0L;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount = 0L;
+
+    // Value of the abandoned items at the prices saved in the carts
+    @Column(name = "total_value", nullable = false, precision = 18, scale = 2)
+    private BigDecimal totalValue = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public CartAbandonmentStat(LocalDate statDate) {
+        this.statDate = statDate;
+    }
+
+    public void add(CartAbandonmentStat other) {
+        this.cartCount += other.cartCount;
+        this.nonEmptyCartCount += other.nonEmptyCartCount;
+        this.lineCount += other.lineCount;
+        this.itemCount += other.itemCount;
+        this.totalValue = this.totalValue.add(other.totalValue);
+    }
+}
@@ -0,0 +1,103 @@
+package com.mypkga.commerceplatformfull.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email waiting in the outbox. Rows are written in the sender's transaction and delivered
+ * by the dispatcher, so a message survives restarts and SMTP outages until it is sent
+ * or dead-lettered.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at, id"),
+    @Index(name = "idx_email_outbox_claim", columnList = "claim_token"),
+    @Index(name = "idx_email_outbox_coalesce", columnList = "coalesce_key, status")
+})
+@Data
+@NoArgsConstructor
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 320)
+    private String recipient;
+
+    // Lower-cased domain of the recipient, used for per-domain throttling
+    @Column(name = "recipient_domain", nullable = false, length = 255)
+    private String recipientDomain;
+
+    @Column(nullable = false, columnDefinition = "NVARCHAR(500)")
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "NVARCHAR(MAX)")
+    private String body;
+
+    @Column(nullable = false)
+    private Boolean html = false;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Dispatcher run that currently owns the row, and until when
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    // Topic whose pending messages are merged into one digest, e.g. return-request:42
+    @Column(name = "coalesce_key", length = 100)
+    private String coalesceKey;
+
+    // One line per update merged into this message, oldest first
+    @Column(name = "digest", columnDefinition = "NVARCHAR(2000)")
+    private String digest;
+
+    // Body carries a one-time code or link: it is blanked once the message is sent or dropped
+    @Column(name = "secret")
+    private Boolean secret = false;
+
+    // Not delivered after this time, e.g. when the code in it has expired; null = no limit
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @Column(name = "last_error", columnDefinition = "NVARCHAR(1000)")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public EmailOutboxMessage(String recipient, String subject, String body, boolean html) {
+        this.recipient = recipient;
+        this.recipientDomain = recipient.substring(recipient.indexOf('@') + 1).toLowerCase();
+        this.subject = subject;
+        this.body = body;
+        this.html = html;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    public boolean isSecret() {
+        return Boolean.TRUE.equals(secret);
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,13 @@
+package com.mypkga.commerceplatformfull.entity;
+
+/**
+ * Delivery state of an outbox email
+ */
+public enum EmailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD,
+    // Merged into a later message of the same topic before it was sent
+    SUPERSEDED
+}
@@ -0,0 +1,68 @@
+package com.mypkga.commerceplatformfull.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * GHN return shipment to be created for an approved return request. Written in the
+ * approval transaction and worked off in the background, so approving never waits on GHN.
+ */
+@Entity
+@Table(name = "ghn_shipment_jobs", indexes = {
+    @Index(name = "idx_ghn_shipment_job_due", columnList = "state, next_attempt_at, id"),
+    @Index(name = "idx_ghn_shipment_job_claim", columnList = "claim_token")
+})
+@Data
+@NoArgsConstructor
+public class GhnShipmentJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "return_request_id", nullable = false, unique = true)
+    private Long returnRequestId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private GhnShipmentJobStatus state = GhnShipmentJobStatus.PENDING;
+
+    // GHN calls made so far; deferrals by the circuit breaker or retry budget do not count
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Dispatcher run that currently owns the row, and until when
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    // Set when the last attempt may have reached GHN, so the order could exist already
+    @Column(name = "outcome_unknown", nullable = false)
+    private Boolean outcomeUnknown = false;
+
+    @Column(name = "last_error", columnDefinition = "NVARCHAR(1000)")
+    private String lastError;
+
+    @Column(name = "ghn_order_code", length = 50)
+    private String ghnOrderCode;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public GhnShipmentJob(Long returnRequestId) {
+        this.returnRequestId = returnRequestId;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mypkga.commerceplatformfull.entity;
+
+/**
+ * State of a background GHN return shipment creation
+ */
+public enum GhnShipmentJobStatus {
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
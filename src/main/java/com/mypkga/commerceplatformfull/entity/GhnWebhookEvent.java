@@ -0,0 +1,79 @@
+package com.mypkga.commerceplatformfull.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * GHN status callback waiting in the webhook inbox. The raw payload is stored before GHN
+ * is acknowledged; the unique key drops redelivered callbacks, and events of one order
+ * code are applied in arrival order.
+ */
+@Entity
+@Table(name = "ghn_webhook_inbox",
+    uniqueConstraints = @UniqueConstraint(name = "uk_ghn_webhook_event",
+        columnNames = {"order_code", "status", "event_time"}),
+    indexes = {
+        @Index(name = "idx_ghn_webhook_due", columnList = "state, next_attempt_at, id"),
+        @Index(name = "idx_ghn_webhook_order", columnList = "order_code, state, id"),
+        @Index(name = "idx_ghn_webhook_claim", columnList = "claim_token")
+    })
+@Data
+@NoArgsConstructor
+public class GhnWebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_code", nullable = false, length = 50)
+    private String orderCode;
+
+    // GHN shipment status, e.g. picked or delivered
+    @Column(nullable = false, length = 50)
+    private String status;
+
+    // GHN's own timestamp of the status change, as sent; empty when missing
+    @Column(name = "event_time", nullable = false, length = 50)
+    private String eventTime;
+
+    @Column(nullable = false, columnDefinition = "NVARCHAR(MAX)")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false, length = 20)
+    private GhnWebhookEventStatus state = GhnWebhookEventStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Dispatcher run that currently owns the row, and until when
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "last_error", columnDefinition = "NVARCHAR(1000)")
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public GhnWebhookEvent(String orderCode, String status, String eventTime, String payload) {
+        this.orderCode = orderCode;
+        this.status = status;
+        this.eventTime = eventTime != null ? eventTime : "";
+        this.payload = payload;
+        this.receivedAt = LocalDateTime.now();
+        this.nextAttemptAt = this.receivedAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mypkga.commerceplatformfull.entity;
+
+/**
+ * Processing state of a GHN webhook inbox event
+ */
+public enum GhnWebhookEventStatus {
+    PENDING,
+    PROCESSING,
+    PROCESSED,
+    FAILED
+}
@@ -0,0 +1,67 @@
+package com.mypkga.commerceplatformfull.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress marker for long-running background jobs that walk a table in keyset order.
+ * A job that is interrupted resumes after {@code lastProcessedId} on its next run.
+ */
+@Entity
+@Table(name = "job_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    // Highest key below which every row has been processed in the current pass
+    @Column(name = "last_processed_id", nullable = false)
+    private Long lastProcessedId = 0L;
+
+    @Column(name = "in_progress", nullable = false)
+    private Boolean inProgress = false;
+
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+
+    @Column(name = "fixed_count", nullable = false)
+    private Long fixedCount = 0L;
+
+    @Column(name = "error_count", nullable = false)
+    private Long errorCount = 0L;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public JobCheckpoint(String jobName) {
+        this.jobName = jobName;
+    }
+
+    /**
+     * Reset counters and cursor for a fresh pass over the table
+     */
+    public void startNewPass() {
+        this.lastProcessedId = 0L;
+        this.processedCount = 0L;
+        this.fixedCount = 0L;
+        this.errorCount = 0L;
+        this.inProgress = true;
+        this.startedAt = LocalDateTime.now();
+        this.updatedAt = this.startedAt;
+        this.completedAt = null;
+    }
+}
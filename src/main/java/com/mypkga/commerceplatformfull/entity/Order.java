@@ -15,12 +15,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_auto_confirm_at", columnList = "auto_confirm_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
+    /** Hours a customer has to confirm delivery before the system does it for them */
+    public static final int AUTO_CONFIRM_AFTER_HOURS = 24;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -97,6 +102,10 @@ public class Order {
     @OneToOne(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private ReturnRequest returnRequest;
 
+    // Deadline for automatic delivery confirmation; set only while AWAITING_CONFIRMATION
+    @Column(name = "auto_confirm_at")
+    private LocalDateTime autoConfirmAt;
+
     // Delivery issue tracking
     @Column(name = "has_delivery_issue", nullable = false)
     private Boolean hasDeliveryIssue = false;
@@ -127,6 +136,11 @@ public class Order {
      * This avoids CHECK constraint violations for return-related statuses
      */
     public void updateCurrentStatus(OrderStatus newStatus) {
+        if (newStatus == OrderStatus.AWAITING_CONFIRMATION && this.currentStatus != newStatus) {
+            this.autoConfirmAt = LocalDateTime.now().plusHours(AUTO_CONFIRM_AFTER_HOURS);
+        } else if (newStatus != OrderStatus.AWAITING_CONFIRMATION) {
+            this.autoConfirmAt = null;
+        }
         this.currentStatus = newStatus;
         // Don't update the legacy status field to avoid CHECK constraint issues
         // The currentStatus field is the source of truth for order state
@@ -1,5 +1,9 @@
 package com.mypkga.commerceplatformfull.entity;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+
 /**
  * Enum representing the status of an order in the timeline system.
  * This enum defines the standard order statuses used throughout the application.
@@ -62,6 +66,26 @@ public enum OrderStatus {
         };
     }
     
+    /**
+     * Check if the given status can be reached from this one through valid transitions
+     */
+    public boolean canReach(OrderStatus target) {
+        EnumSet<OrderStatus> seen = EnumSet.of(this);
+        Deque<OrderStatus> queue = new ArrayDeque<>();
+        queue.add(this);
+        while (!queue.isEmpty()) {
+            for (OrderStatus next : queue.poll().getValidNextStatuses()) {
+                if (next == target) {
+                    return true;
+                }
+                if (seen.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Check if transition to new status is valid
      */
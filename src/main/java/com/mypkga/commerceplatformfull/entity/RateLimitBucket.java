@@ -0,0 +1,28 @@
+package com.mypkga.commerceplatformfull.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Shared rate limit bucket for one policy and client, leased from by every node.
+ * The bucket is stored as its GCRA theoretical arrival time in epoch milliseconds.
+ */
+@Entity
+@Table(name = "rate_limit_buckets", indexes = {
+    @Index(name = "idx_rate_limit_buckets_tat", columnList = "tat_millis")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitBucket {
+
+    // policy + ":" + client
+    @Id
+    @Column(name = "bucket_key", length = 200)
+    private String bucketKey;
+
+    @Column(name = "tat_millis", nullable = false)
+    private Long tatMillis;
+}
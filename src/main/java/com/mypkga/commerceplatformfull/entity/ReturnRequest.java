@@ -64,6 +64,10 @@ public class ReturnRequest {
     @Column(name = "ghn_status", length = 50)
     private String ghnStatus;
 
+    // GHN's time of the status in ghn_status; events older than this are ignored
+    @Column(name = "ghn_status_at")
+    private LocalDateTime ghnStatusAt;
+
     @Column(name = "ghn_fee")
     private Integer ghnFee;
 
@@ -65,13 +65,27 @@ public class ReturnRequestHistory {
         history.setPreviousStatus(ReturnStatus.REFUND_REQUESTED);
         history.setNewStatus(ReturnStatus.RETURN_APPROVED);
         history.setActionType("APPROVE");
-        history.setNotes("Yêu cầu hoàn hàng đã được duyệt. Đơn vận chuyển GHN: " + ghnOrderCode);
+        history.setNotes(ghnOrderCode != null
+                ? "Yêu cầu hoàn hàng đã được duyệt. Đơn vận chuyển GHN: " + ghnOrderCode
+                : "Yêu cầu hoàn hàng đã được duyệt. Đơn vận chuyển GHN đang được tạo.");
         history.setPerformedBy(staff);
         history.setGhnOrderCode(ghnOrderCode);
         history.setGhnFee(ghnFee);
         return history;
     }
     
+    public static ReturnRequestHistory createGhnOrderHistory(ReturnRequest returnRequest, String ghnOrderCode, Integer ghnFee) {
+        ReturnRequestHistory history = new ReturnRequestHistory();
+        history.setReturnRequest(returnRequest);
+        history.setPreviousStatus(returnRequest.getStatus());
+        history.setNewStatus(returnRequest.getStatus());
+        history.setActionType("GHN_ORDER");
+        history.setNotes("Đã tạo đơn vận chuyển GHN: " + ghnOrderCode);
+        history.setGhnOrderCode(ghnOrderCode);
+        history.setGhnFee(ghnFee);
+        return history;
+    }
+    
     public static ReturnRequestHistory createRejectionHistory(ReturnRequest returnRequest, User staff, String reason) {
         ReturnRequestHistory history = new ReturnRequestHistory();
         history.setReturnRequest(returnRequest);
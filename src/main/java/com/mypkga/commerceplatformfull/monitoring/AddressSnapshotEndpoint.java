@@ -0,0 +1,46 @@
+package com.mypkga.commerceplatformfull.monitoring;
+
+import com.mypkga.commerceplatformfull.service.address.AddressSnapshot;
+import com.mypkga.commerceplatformfull.service.address.AddressSnapshotStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the GHN address snapshot.
+ * GET  /actuator/ghnaddress - snapshot size, age and the last refresh
+ * POST /actuator/ghnaddress - crawl GHN now
+ */
+@Component
+@Endpoint(id = "ghnaddress")
+@RequiredArgsConstructor
+public class AddressSnapshotEndpoint {
+
+    private final AddressSnapshotStore addressSnapshotStore;
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        AddressSnapshot snapshot = addressSnapshotStore.current();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("provinces", snapshot.provinceCount());
+        result.put("districts", snapshot.districtCount());
+        result.put("wards", snapshot.wardCount());
+        result.put("changedAt", snapshot.isEmpty() ? null : Instant.ofEpochMilli(snapshot.changedAt()).toString());
+        result.put("verifiedAt", snapshot.isEmpty() ? null : Instant.ofEpochMilli(snapshot.verifiedAt()).toString());
+        result.put("refreshing", addressSnapshotStore.isRefreshing());
+        result.put("lastRefresh", addressSnapshotStore.getLastRefresh());
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> refresh() {
+        return Map.of("started", addressSnapshotStore.startRefresh());
+    }
+}
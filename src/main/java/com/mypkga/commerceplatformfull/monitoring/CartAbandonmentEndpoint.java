@@ -0,0 +1,50 @@
+package com.mypkga.commerceplatformfull.monitoring;
+
+import com.mypkga.commerceplatformfull.entity.CartAbandonmentStat;
+import com.mypkga.commerceplatformfull.service.AbandonedCartSweeper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the abandoned cart sweeper.
+ * GET  /actuator/cartabandonment?days=30 - last sweep and the daily abandonment rollup
+ * POST /actuator/cartabandonment         - start a sweep now
+ */
+@Component
+@Endpoint(id = "cartabandonment")
+@RequiredArgsConstructor
+public class CartAbandonmentEndpoint {
+
+    private final AbandonedCartSweeper abandonedCartSweeper;
+
+    @ReadOperation
+    public Map<String, Object> summary(@Nullable Integer days) {
+        List<CartAbandonmentStat> stats = abandonedCartSweeper.getStats(
+                LocalDate.now().minusDays(days != null ? days : 30));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("running", abandonedCartSweeper.isRunning());
+        result.put("lastRun", abandonedCartSweeper.getLastRun());
+        result.put("carts", stats.stream().mapToLong(CartAbandonmentStat::getCartCount).sum());
+        result.put("items", stats.stream().mapToLong(CartAbandonmentStat::getItemCount).sum());
+        result.put("value", stats.stream().map(CartAbandonmentStat::getTotalValue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        result.put("daily", stats);
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> sweep() {
+        return Map.of("started", abandonedCartSweeper.startSweep());
+    }
+}
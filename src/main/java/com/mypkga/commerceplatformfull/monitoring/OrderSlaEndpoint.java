@@ -0,0 +1,47 @@
+package com.mypkga.commerceplatformfull.monitoring;
+
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for order SLA state.
+ * GET /actuator/ordersla           - per-status counts, oldest age and dwell-time percentiles
+ * GET /actuator/ordersla/{status}  - orders currently breaching the SLA for a status
+ */
+@Component
+@Endpoint(id = "ordersla")
+@RequiredArgsConstructor
+public class OrderSlaEndpoint {
+
+    private final OrderSlaMonitor orderSlaMonitor;
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        return orderSlaMonitor.summary();
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> breached(@Selector String status) {
+        return orderSlaMonitor.breachedOrders(parseStatus(status));
+    }
+
+    // Unknown status -> 400 instead of an IllegalArgumentException
+    private static OrderStatus parseStatus(String status) {
+        String name = status.trim().toUpperCase(Locale.ROOT);
+        return Arrays.stream(OrderStatus.values())
+                .filter(candidate -> candidate.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new InvalidEndpointRequestException("Unknown order status: " + status,
+                        "Unknown order status"));
+    }
+}
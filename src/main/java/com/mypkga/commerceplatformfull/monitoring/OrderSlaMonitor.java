@@ -0,0 +1,353 @@
+package com.mypkga.commerceplatformfull.monitoring;
+
+import com.mypkga.commerceplatformfull.config.OrderSlaConfig;
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import com.mypkga.commerceplatformfull.repository.OrderRepository;
+import com.mypkga.commerceplatformfull.repository.OrderTimelineRepository;
+import com.mypkga.commerceplatformfull.service.AuditLogService;
+import com.mypkga.commerceplatformfull.service.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streaming SLA monitor for orders stuck in a status.
+ * Keeps, per non-final status, an index of orders ordered by when they entered it and a
+ * dwell-time histogram fed by {@link OrderStatusChangedEvent}. Breach checks only visit
+ * the not-yet-alerted prefix of each index, so their cost follows new breaches rather
+ * than the number of open orders. Metrics are published through Micrometer/actuator.
+ * DELIVERED is not watched: an order rests there until the customer confirms or returns it.
+ * Alert state lives in memory, so only thresholds crossed after startup raise alerts; orders
+ * that were already past theirs are counted and listed as breached without alerting again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSlaMonitor {
+
+    private static final int BOOTSTRAP_CHUNK_SIZE = 1000;
+
+    private static final Comparator<TrackedOrder> ENTRY_ORDER = Comparator
+            .comparingLong((TrackedOrder t) -> t.enteredAt)
+            .thenComparingLong(t -> t.orderId);
+
+    private final OrderRepository orderRepository;
+    private final OrderTimelineRepository orderTimelineRepository;
+    private final AuditLogService auditLogService;
+    private final OrderSlaConfig slaConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, TrackedOrder> trackedOrders = new ConcurrentHashMap<>();
+    private final Map<OrderStatus, StatusIndex> indexes = new EnumMap<>(OrderStatus.class);
+    private volatile boolean bootstrapped = false;
+    // Breaches from before this instant were alerted by an earlier run, if at all
+    private volatile long startedAt;
+
+    @PostConstruct
+    void registerMeters() {
+        for (OrderStatus status : OrderStatus.values()) {
+            if (!isWatched(status)) {
+                continue;
+            }
+            StatusIndex index = new StatusIndex();
+            index.dwellTimer = Timer.builder("order.status.dwell")
+                    .description("Time orders spent in a status before leaving it")
+                    .tag("status", status.name())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMinutes(1))
+                    .maximumExpectedValue(Duration.ofDays(30))
+                    .register(meterRegistry);
+            index.alertCounter = Counter.builder("order.sla.alerts")
+                    .description("SLA breach alerts raised")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+            Gauge.builder("order.sla.active", index.active, AtomicInteger::get)
+                    .description("Orders currently in this status")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+            Gauge.builder("order.sla.breached", index.breached, AtomicInteger::get)
+                    .description("Orders currently past the SLA threshold for this status")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+            Gauge.builder("order.sla.oldest.age", index, StatusIndex::oldestAgeSeconds)
+                    .description("Age in seconds of the longest-waiting order in this status")
+                    .baseUnit("seconds")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+            indexes.put(status, index);
+        }
+        slaConfig.getThresholds().keySet().stream()
+                .filter(status -> !isWatched(status))
+                .forEach(status -> log.warn("Ignoring SLA threshold for {}: orders may stay in it indefinitely", status));
+    }
+
+    /**
+     * Load the current status and entry time of every open order once at startup.
+     * After this the monitor is kept up to date by status-change events only.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        startedAt = System.currentTimeMillis();
+        List<OrderStatus> openStatuses = new ArrayList<>(indexes.keySet());
+        long afterId = 0L;
+        int loaded = 0;
+
+        try {
+            while (true) {
+                List<Object[]> rows = orderRepository.findIdAndStatusAfterWithStatusIn(afterId, openStatuses,
+                        PageRequest.of(0, BOOTSTRAP_CHUNK_SIZE));
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                List<Long> orderIds = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    orderIds.add((Long) row[0]);
+                }
+                Map<Long, Object[]> latestEntries = new HashMap<>();
+                for (Object[] entry : orderTimelineRepository.findLatestStatusByOrderIds(orderIds)) {
+                    latestEntries.put((Long) entry[0], entry);
+                }
+
+                for (Object[] row : rows) {
+                    Long orderId = (Long) row[0];
+                    OrderStatus status = (OrderStatus) row[1];
+                    Object[] latest = latestEntries.get(orderId);
+                    LocalDateTime enteredAt = latest != null && latest[1] == status
+                            ? (LocalDateTime) latest[2]
+                            : (LocalDateTime) row[2];
+                    track(orderId, status, toEpochMillis(enteredAt), false);
+                    loaded++;
+                }
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+            log.info("Order SLA monitor tracking {} open orders", loaded);
+        } catch (Exception e) {
+            log.error("Order SLA monitor bootstrap failed, tracking only new status changes: {}", e.getMessage());
+        } finally {
+            bootstrapped = true;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        LocalDateTime at = event.getUpdatedAt() != null ? event.getUpdatedAt() : LocalDateTime.now();
+        track(event.getOrderId(), event.getStatus(), toEpochMillis(at), true);
+    }
+
+    /**
+     * Raise alerts for orders that crossed their status threshold since the last check.
+     */
+    @Scheduled(fixedDelayString = "${app.sla.check-interval-ms:60000}")
+    public void checkBreaches() {
+        if (!slaConfig.isEnabled() || !bootstrapped) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        slaConfig.getThresholds().forEach((status, threshold) -> {
+            StatusIndex index = indexes.get(status);
+            if (index == null || threshold == null) {
+                return;
+            }
+
+            TrackedOrder cutoff = new TrackedOrder(Long.MAX_VALUE, status, now - threshold.toMillis());
+            TrackedOrder watermark = index.alertWatermark;
+            NavigableMap<TrackedOrder, Boolean> candidates = watermark == null
+                    ? index.byEntryTime.headMap(cutoff, false)
+                    : index.byEntryTime.subMap(watermark, false, cutoff, false);
+
+            int alreadyBreached = 0;
+            for (TrackedOrder tracked : candidates.keySet()) {
+                if (index.markBreached(tracked)) {
+                    if (tracked.enteredAt + threshold.toMillis() >= startedAt) {
+                        raiseAlert(tracked, threshold, now);
+                        index.alertCounter.increment();
+                    } else {
+                        alreadyBreached++;
+                    }
+                }
+                index.alertWatermark = tracked;
+            }
+            if (alreadyBreached > 0) {
+                log.warn("{} orders were already past the {} SLA at startup; see /actuator/ordersla/{}",
+                        alreadyBreached, status, status);
+            }
+        });
+    }
+
+    /**
+     * Per-status summary for the actuator endpoint.
+     */
+    public Map<String, Object> summary() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        indexes.forEach((status, index) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            Duration threshold = slaConfig.getThresholds().get(status);
+            stats.put("active", index.active.get());
+            stats.put("breached", index.breached.get());
+            stats.put("oldestAgeSeconds", (long) index.oldestAgeSeconds());
+            stats.put("thresholdSeconds", threshold != null ? threshold.getSeconds() : null);
+            stats.put("dwellCount", index.dwellTimer.count());
+            stats.put("dwellMeanSeconds", index.dwellTimer.mean(TimeUnit.SECONDS));
+            stats.put("dwellMaxSeconds", index.dwellTimer.max(TimeUnit.SECONDS));
+            Arrays.stream(index.dwellTimer.takeSnapshot().percentileValues()).forEach(p ->
+                    stats.put("dwellP" + Math.round(p.percentile() * 100) + "Seconds", p.value(TimeUnit.SECONDS)));
+            result.put(status.name(), stats);
+        });
+        return result;
+    }
+
+    /**
+     * Breached orders in a status, longest-waiting first.
+     */
+    public List<Map<String, Object>> breachedOrders(OrderStatus status) {
+        StatusIndex index = indexes.get(status);
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (index == null) {
+            return result;
+        }
+
+        long now = System.currentTimeMillis();
+        for (TrackedOrder tracked : index.byEntryTime.keySet()) {
+            if (result.size() >= slaConfig.getMaxListedOrders()) {
+                break;
+            }
+            if (!tracked.alerted) {
+                break;
+            }
+            result.add(Map.of(
+                    "orderId", tracked.orderId,
+                    "enteredAt", LocalDateTime.ofInstant(Instant.ofEpochMilli(tracked.enteredAt),
+                            ZoneId.systemDefault()).toString(),
+                    "ageSeconds", (now - tracked.enteredAt) / 1000));
+        }
+        return result;
+    }
+
+    private void track(Long orderId, OrderStatus status, long enteredAt, boolean fromEvent) {
+        trackedOrders.compute(orderId, (id, previous) -> {
+            if (previous != null) {
+                if (!fromEvent || previous.enteredAt > enteredAt || previous.status == status) {
+                    // Bootstrap never overrides live data; stale or repeated events are ignored
+                    return previous;
+                }
+                StatusIndex previousIndex = indexes.get(previous.status);
+                previousIndex.remove(previous);
+                previousIndex.dwellTimer.record(enteredAt - previous.enteredAt, TimeUnit.MILLISECONDS);
+            }
+
+            StatusIndex index = indexes.get(status);
+            if (index == null) {
+                return null; // final state: nothing left to watch
+            }
+            TrackedOrder tracked = new TrackedOrder(id, status, enteredAt);
+            index.add(tracked);
+            return tracked;
+        });
+    }
+
+    private static boolean isWatched(OrderStatus status) {
+        return !status.isFinalState() && status != OrderStatus.DELIVERED;
+    }
+
+    private void raiseAlert(TrackedOrder tracked, Duration threshold, long now) {
+        Duration age = Duration.ofMillis(now - tracked.enteredAt);
+        String message = String.format("Order %d has been %s for %d hours (SLA %d hours)",
+                tracked.orderId, tracked.status, age.toHours(), threshold.toHours());
+        log.warn("SLA breach: {}", message);
+        auditLogService.logSystemError("ORDER_SLA_BREACH", tracked.orderId, message);
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class TrackedOrder {
+        final long orderId;
+        final OrderStatus status;
+        final long enteredAt;
+        boolean alerted;
+        boolean removed;
+
+        TrackedOrder(long orderId, OrderStatus status, long enteredAt) {
+            this.orderId = orderId;
+            this.status = status;
+            this.enteredAt = enteredAt;
+        }
+    }
+
+    private static final class StatusIndex {
+        final ConcurrentSkipListMap<TrackedOrder, Boolean> byEntryTime = new ConcurrentSkipListMap<>(ENTRY_ORDER);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger breached = new AtomicInteger();
+        // Last entry already examined by checkBreaches; later checks start after it
+        volatile TrackedOrder alertWatermark;
+        Timer dwellTimer;
+        Counter alertCounter;
+
+        void add(TrackedOrder tracked) {
+            if (byEntryTime.put(tracked, Boolean.TRUE) == null) {
+                active.incrementAndGet();
+            }
+        }
+
+        void remove(TrackedOrder tracked) {
+            synchronized (tracked) {
+                tracked.removed = true;
+                if (byEntryTime.remove(tracked) != null) {
+                    active.decrementAndGet();
+                    if (tracked.alerted) {
+                        breached.decrementAndGet();
+                    }
+                }
+            }
+        }
+
+        boolean markBreached(TrackedOrder tracked) {
+            synchronized (tracked) {
+                if (tracked.removed || tracked.alerted) {
+                    return false;
+                }
+                tracked.alerted = true;
+                breached.incrementAndGet();
+                return true;
+            }
+        }
+
+        double oldestAgeSeconds() {
+            Map.Entry<TrackedOrder, Boolean> oldest = byEntryTime.firstEntry();
+            return oldest == null ? 0 : (System.currentTimeMillis() - oldest.getKey().enteredAt) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.mypkga.commerceplatformfull.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Latency histogram and error counters for every outbound call made through the shared
+ * RestTemplate, tagged by host and a normalized endpoint (query dropped, numeric and
+ * id-like path segments collapsed) so GHN, Groq and address lookups stay low-cardinality.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboundHttpMetrics implements ClientHttpRequestInterceptor {
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("\\d+|[0-9a-fA-F-]{16,}");
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        URI uri = request.getURI();
+        String host = uri.getHost() != null ? uri.getHost() : "unknown";
+        String endpoint = normalize(uri.getPath());
+        String method = request.getMethod().name();
+
+        long started = System.nanoTime();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getStatusCode().value();
+            String outcome = status >= 500 ? "SERVER_ERROR" : status >= 400 ? "CLIENT_ERROR" : "SUCCESS";
+            record(host, endpoint, method, String.valueOf(status), outcome, started);
+            if (status >= 400) {
+                countError(host, endpoint, status >= 500 ? "5xx" : "4xx");
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            record(host, endpoint, method, "IO_ERROR", "ERROR", started);
+            countError(host, endpoint, e.getClass().getSimpleName());
+            throw e;
+        }
+    }
+
+    private void record(String host, String endpoint, String method, String status, String outcome, long started) {
+        Timer.builder("http.client.outbound")
+                .description("Outbound HTTP calls by host and endpoint")
+                .tag("host", host)
+                .tag("endpoint", endpoint)
+                .tag("method", method)
+                .tag("status", status)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    private void countError(String host, String endpoint, String type) {
+        Counter.builder("http.client.outbound.errors")
+                .description("Failed outbound HTTP calls by host, endpoint and error type")
+                .tag("host", host)
+                .tag("endpoint", endpoint)
+                .tag("type", type)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    static String normalize(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder normalized = new StringBuilder(path.length());
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            normalized.append('/').append(ID_SEGMENT.matcher(segment).matches() ? "{id}" : segment);
+        }
+        return normalized.isEmpty() ? "/" : normalized.toString();
+    }
+}
@@ -0,0 +1,14 @@
+package com.mypkga.commerceplatformfull.repository;
+
+import com.mypkga.commerceplatformfull.entity.CartAbandonmentStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CartAbandonmentStatRepository extends JpaRepository<CartAbandonmentStat, LocalDate> {
+
+    List<CartAbandonmentStat> findByStatDateGreaterThanEqualOrderByStatDateAsc(LocalDate from);
+}
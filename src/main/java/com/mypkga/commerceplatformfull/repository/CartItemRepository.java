@@ -4,8 +4,12 @@ import com.mypkga.commerceplatformfull.entity.Cart;
 import com.mypkga.commerceplatformfull.entity.CartItem;
 import com.mypkga.commerceplatformfull.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +25,35 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
 
     void deleteByCartId(Long cartId);
+
+    /**
+     * [totalQuantity, totalAmount] of a user's cart in one aggregate query
+     */
+    @Query("SELECT COALESCE(SUM(ci.quantity), 0), COALESCE(SUM(ci.price * ci.quantity), 0) " +
+           "FROM CartItem ci WHERE ci.cart.user.email = :email")
+    List<Object[]> summarizeByUserEmail(@Param("email") String email);
+
+    /**
+     * Checkout lines of a user's cart with current product stock and price:
+     * [cartId, cartItemId, productId, productName, stockQuantity, currentPrice, quantity, cartPrice]
+     */
+    @Query("SELECT ci.cart.id, ci.id, p.id, p.name, p.stockQuantity, p.price, ci.quantity, ci.price " +
+           "FROM CartItem ci JOIN ci.product p WHERE ci.cart.user.id = :userId ORDER BY ci.id")
+    List<Object[]> findCheckoutLinesByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.price = " +
+           "(SELECT p.price FROM Product p WHERE p.id = ci.product.id) WHERE ci.cart.id = :cartId")
+    int refreshPricesByCartId(@Param("cartId") Long cartId);
+
+    // Per-cart [cartId, lineCount, itemCount, value] for the abandoned cart sweeper
+    @Query("SELECT ci.cart.id, COUNT(ci), SUM(ci.quantity), SUM(ci.price * ci.quantity) " +
+           "FROM CartItem ci WHERE ci.cart.id IN :cartIds AND ci.cart.updatedDate < :cutoff GROUP BY ci.cart.id")
+    List<Object[]> summarizeIdleByCartIds(@Param("cartIds") List<Long> cartIds,
+                                          @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN " +
+           "(SELECT c.id FROM Cart c WHERE c.id IN :cartIds AND c.updatedDate < :cutoff)")
+    int deleteIdleByCartIds(@Param("cartIds") List<Long> cartIds, @Param("cutoff") LocalDateTime cutoff);
 }
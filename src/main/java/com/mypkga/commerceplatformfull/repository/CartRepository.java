@@ -2,9 +2,15 @@ package com.mypkga.commerceplatformfull.repository;
 
 import com.mypkga.commerceplatformfull.entity.Cart;
 import com.mypkga.commerceplatformfull.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +19,22 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUser(User user);
 
     Optional<Cart> findByUserId(Long userId);
+
+    // Keyset walk over idle carts in (updatedDate, id) order: [id, updatedDate, userEmail]
+    @Query("SELECT c.id, c.updatedDate, c.user.email FROM Cart c WHERE c.updatedDate < :cutoff " +
+           "AND (c.updatedDate > :afterDate OR (c.updatedDate = :afterDate AND c.id > :afterId)) " +
+           "ORDER BY c.updatedDate ASC, c.id ASC")
+    List<Object[]> findIdleAfter(@Param("cutoff") LocalDateTime cutoff,
+                                 @Param("afterDate") LocalDateTime afterDate,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    // Carts of the given ids that still exist, e.g. after a purge that skipped touched carts
+    @Query("SELECT c.id FROM Cart c WHERE c.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") List<Long> ids);
+
+    // Batched purge; carts touched since they were selected are left alone
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.id IN :ids AND c.updatedDate < :cutoff")
+    int deleteIdleByIds(@Param("ids") List<Long> ids, @Param("cutoff") LocalDateTime cutoff);
 }
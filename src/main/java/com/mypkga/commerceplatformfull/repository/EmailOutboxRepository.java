@@ -0,0 +1,75 @@
+package com.mypkga.commerceplatformfull.repository;
+
+import com.mypkga.commerceplatformfull.entity.EmailOutboxMessage;
+import com.mypkga.commerceplatformfull.entity.EmailOutboxStatus;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    @Query("SELECT m.id FROM EmailOutboxMessage m " +
+           "WHERE m.status = com.mypkga.commerceplatformfull.entity.EmailOutboxStatus.PENDING " +
+           "AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt, m.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claim due rows for one dispatcher run; rows claimed by another node are skipped.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.mypkga.commerceplatformfull.entity.EmailOutboxStatus.SENDING, " +
+           "m.claimToken = :token, m.claimedUntil = :until " +
+           "WHERE m.id IN :ids AND m.status = com.mypkga.commerceplatformfull.entity.EmailOutboxStatus.PENDING")
+    int claim(@Param("ids") List<Long> ids, @Param("token") String token, @Param("until") LocalDateTime until);
+
+    List<EmailOutboxMessage> findByClaimToken(String claimToken);
+
+    /**
+     * Return rows of crashed or stalled runs to the queue.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.mypkga.commerceplatformfull.entity.EmailOutboxStatus.PENDING, " +
+           "m.claimToken = null, m.claimedUntil = null " +
+           "WHERE m.status = com.mypkga.commerceplatformfull.entity.EmailOutboxStatus.SENDING AND m.claimedUntil < :now")
+    int releaseExpiredClaims(@Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.mypkga.commerceplatformfull.entity.EmailOutboxStatus.SENT, " +
+           "m.sentAt = :sentAt, m.attempts = m.attempts + 1, m.lastError = null, " +
+           "m.claimToken = null, m.claimedUntil = null WHERE m.id IN :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Blank the bodies of sent one-time messages so no code or link stays in the table.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.body = '' WHERE m.id IN :ids AND m.secret = true")
+    int clearSecretBodies(@Param("ids") List<Long> ids);
+
+    // Locks the rows so the dispatcher cannot claim them while they are merged
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM EmailOutboxMessage m WHERE m.coalesceKey = :key AND m.recipient = :recipient " +
+           "AND m.status = com.mypkga.commerceplatformfull.entity.EmailOutboxStatus.PENDING ORDER BY m.id")
+    List<EmailOutboxMessage> findPendingForCoalescing(@Param("key") String key, @Param("recipient") String recipient);
+
+    long countByStatus(EmailOutboxStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = :status AND m.createdAt < :cutoff")
+    int deleteByStatusBefore(@Param("status") EmailOutboxStatus status, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,51 @@
+package com.mypkga.commerceplatformfull.repository;
+
+import com.mypkga.commerceplatformfull.entity.GhnShipmentJob;
+import com.mypkga.commerceplatformfull.entity.GhnShipmentJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GhnShipmentJobRepository extends JpaRepository<GhnShipmentJob, Long> {
+
+    Optional<GhnShipmentJob> findByReturnRequestId(Long returnRequestId);
+
+    @Query("SELECT j.id FROM GhnShipmentJob j " +
+           "WHERE j.state = com.mypkga.commerceplatformfull.entity.GhnShipmentJobStatus.PENDING " +
+           "AND j.nextAttemptAt <= :now ORDER BY j.nextAttemptAt, j.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claim due jobs for one dispatcher run; jobs claimed by another node are skipped.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE GhnShipmentJob j SET j.state = com.mypkga.commerceplatformfull.entity.GhnShipmentJobStatus.RUNNING, " +
+           "j.claimToken = :token, j.claimedUntil = :until " +
+           "WHERE j.id IN :ids AND j.state = com.mypkga.commerceplatformfull.entity.GhnShipmentJobStatus.PENDING")
+    int claim(@Param("ids") List<Long> ids, @Param("token") String token, @Param("until") LocalDateTime until);
+
+    List<GhnShipmentJob> findByClaimToken(String claimToken);
+
+    /**
+     * Return jobs of crashed or stalled runs to the queue. The GHN call may have gone
+     * through, so the next attempt looks the order up before creating it again.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE GhnShipmentJob j SET j.state = com.mypkga.commerceplatformfull.entity.GhnShipmentJobStatus.PENDING, " +
+           "j.claimToken = null, j.claimedUntil = null, j.outcomeUnknown = true " +
+           "WHERE j.state = com.mypkga.commerceplatformfull.entity.GhnShipmentJobStatus.RUNNING AND j.claimedUntil < :now")
+    int releaseExpiredClaims(@Param("now") LocalDateTime now);
+
+    long countByState(GhnShipmentJobStatus state);
+}
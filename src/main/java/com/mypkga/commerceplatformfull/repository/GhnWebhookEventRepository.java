@@ -0,0 +1,73 @@
+package com.mypkga.commerceplatformfull.repository;
+
+import com.mypkga.commerceplatformfull.entity.GhnWebhookEvent;
+import com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface GhnWebhookEventRepository extends JpaRepository<GhnWebhookEvent, Long> {
+
+    boolean existsByOrderCodeAndStatusAndEventTime(String orderCode, String status, String eventTime);
+
+    /**
+     * Due events in arrival order. Events queued behind an earlier event of the same order
+     * code that is in flight or waiting for a retry are left for a later run.
+     */
+    @Query("SELECT e.id FROM GhnWebhookEvent e " +
+           "WHERE e.state = com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus.PENDING " +
+           "AND e.nextAttemptAt <= :now AND NOT EXISTS (SELECT p.id FROM GhnWebhookEvent p " +
+           "WHERE p.orderCode = e.orderCode AND p.id < e.id " +
+           "AND (p.state = com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus.PROCESSING " +
+           "OR (p.state = com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus.PENDING " +
+           "AND p.nextAttemptAt > :now))) ORDER BY e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claim due events for one dispatcher run. Events already claimed, or queued behind an
+     * event another node is processing, are skipped.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE GhnWebhookEvent e SET e.state = com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus.PROCESSING, " +
+           "e.claimToken = :token, e.claimedUntil = :until " +
+           "WHERE e.id IN :ids AND e.state = com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus.PENDING " +
+           "AND NOT EXISTS (SELECT p.id FROM GhnWebhookEvent p WHERE p.orderCode = e.orderCode AND p.id < e.id " +
+           "AND p.state = com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus.PROCESSING)")
+    int claim(@Param("ids") List<Long> ids, @Param("token") String token, @Param("until") LocalDateTime until);
+
+    @Query("SELECT e FROM GhnWebhookEvent e WHERE e.claimToken = :token ORDER BY e.id")
+    List<GhnWebhookEvent> findClaimed(@Param("token") String token);
+
+    /**
+     * Return events of crashed or stalled runs to the queue.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE GhnWebhookEvent e SET e.state = com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus.PENDING, " +
+           "e.claimToken = null, e.claimedUntil = null " +
+           "WHERE e.state = com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus.PROCESSING AND e.claimedUntil < :now")
+    int releaseExpiredClaims(@Param("now") LocalDateTime now);
+
+    // Runs in the transaction that applied the events
+    @Modifying
+    @Query("UPDATE GhnWebhookEvent e SET e.state = com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus.PROCESSED, " +
+           "e.processedAt = :processedAt, e.attempts = e.attempts + 1, e.lastError = null, " +
+           "e.claimToken = null, e.claimedUntil = null WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") List<Long> ids, @Param("processedAt") LocalDateTime processedAt);
+
+    long countByState(GhnWebhookEventStatus state);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GhnWebhookEvent e WHERE e.state = :state AND e.receivedAt < :cutoff")
+    int deleteByStateBefore(@Param("state") GhnWebhookEventStatus state, @Param("cutoff") LocalDateTime cutoff);
+}
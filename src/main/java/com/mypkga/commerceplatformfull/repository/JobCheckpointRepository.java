@@ -0,0 +1,9 @@
+package com.mypkga.commerceplatformfull.repository;
+
+import com.mypkga.commerceplatformfull.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -43,6 +44,7 @@ public interface OTPRepository extends JpaRepository<OTPVerification, Long> {
     Optional<OTPVerification> findByEmailAndVerifiedTrue(String email);
 
     // Delete expired OTPs (cleanup)
+    @Transactional
     @Modifying
     @Query("DELETE FROM OTPVerification o WHERE o.expiresAt < :currentTime")
     void deleteExpiredOTPs(@Param("currentTime") LocalDateTime currentTime);
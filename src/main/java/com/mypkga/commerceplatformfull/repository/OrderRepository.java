@@ -6,10 +6,13 @@ import com.mypkga.commerceplatformfull.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -65,4 +68,37 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // Get the first delivered orderId containing product (for review anti-spam)
     @Query("SELECT o.id FROM Order o JOIN o.items i WHERE o.user.id = :userId AND i.product.id = :productId AND (o.currentStatus = com.mypkga.commerceplatformfull.entity.OrderStatus.DELIVERED OR o.currentStatus = com.mypkga.commerceplatformfull.entity.OrderStatus.CONFIRMED_BY_CUSTOMER) ORDER BY o.updatedDate DESC")
     List<Long> findDeliveredOrderIdsContainingProduct(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    // Lightweight lookup for live status subscriptions: [currentStatus, owner email]
+    @Query("SELECT o.currentStatus, o.user.email FROM Order o WHERE o.id = :id")
+    List<Object[]> findStatusAndOwnerEmailById(@Param("id") Long id);
+
+    // Due-time index for delivery auto-confirmation: only rows whose deadline has passed
+    @Query("SELECT o.id FROM Order o WHERE o.autoConfirmAt <= :now " +
+           "AND o.currentStatus = com.mypkga.commerceplatformfull.entity.OrderStatus.AWAITING_CONFIRMATION " +
+           "ORDER BY o.autoConfirmAt ASC")
+    List<Long> findDueAutoConfirmOrderIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Push back the deadline of an order whose auto-confirmation failed, so it doesn't block the chunk
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.autoConfirmAt = :retryAt WHERE o.id = :id")
+    int postponeAutoConfirm(@Param("id") Long id, @Param("retryAt") LocalDateTime retryAt);
+
+    // Orders awaiting confirmation that predate the autoConfirmAt column
+    @Query("SELECT o.id FROM Order o WHERE o.autoConfirmAt IS NULL " +
+           "AND o.currentStatus = com.mypkga.commerceplatformfull.entity.OrderStatus.AWAITING_CONFIRMATION " +
+           "AND o.id > :afterId ORDER BY o.id ASC")
+    List<Long> findAwaitingConfirmationWithoutDeadline(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Keyset walk for background scanners: [id, currentStatus, updatedDate] after the given id
+    @Query("SELECT o.id, o.currentStatus, o.updatedDate FROM Order o WHERE o.id > :afterId ORDER BY o.id ASC")
+    List<Object[]> findIdAndStatusAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Keyset walk restricted to the given statuses: [id, currentStatus, updatedDate]
+    @Query("SELECT o.id, o.currentStatus, o.updatedDate FROM Order o WHERE o.id > :afterId " +
+           "AND o.currentStatus IN :statuses ORDER BY o.id ASC")
+    List<Object[]> findIdAndStatusAfterWithStatusIn(@Param("afterId") Long afterId,
+                                                    @Param("statuses") List<OrderStatus> statuses,
+                                                    Pageable pageable);
 }
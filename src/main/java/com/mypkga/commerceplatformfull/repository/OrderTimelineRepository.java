@@ -232,4 +232,15 @@ public interface OrderTimelineRepository extends JpaRepository<OrderTimelineEntr
            "AND ote.id = (SELECT MAX(ote2.id) FROM OrderTimelineEntry ote2 WHERE ote2.order.id = ote.order.id)")
     List<OrderTimelineEntry> findOrdersStuckInStatus(@Param("status") OrderStatus status, 
                                                      @Param("cutoffTime") LocalDateTime cutoffTime);
-}
\ No newline at end of file
+
+    /**
+     * Latest timeline status for each of the given orders in a single query.
+     * Orders without any timeline entry are absent from the result.
+     *
+     * @param orderIds list of order IDs
+     * @return list of [orderId, status, updatedAt, entryId] rows
+     */
+    @Query("SELECT ote.order.id, ote.status, ote.updatedAt, ote.id FROM OrderTimelineEntry ote WHERE ote.id IN " +
+           "(SELECT MAX(ote2.id) FROM OrderTimelineEntry ote2 WHERE ote2.order.id IN :orderIds GROUP BY ote2.order.id)")
+    List<Object[]> findLatestStatusByOrderIds(@Param("orderIds") List<Long> orderIds);
+}
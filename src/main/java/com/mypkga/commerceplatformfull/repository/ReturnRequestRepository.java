@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -90,12 +91,26 @@ public interface ReturnRequestRepository extends JpaRepository<ReturnRequest, Lo
      */
     Optional<ReturnRequest> findByGhnOrderCode(String ghnOrderCode);
 
+    /**
+     * Find return requests by GHN order codes, with the customer loaded for notifications
+     */
+    @Query("SELECT rr FROM ReturnRequest rr JOIN FETCH rr.order o JOIN FETCH o.user WHERE rr.ghnOrderCode IN :codes")
+    List<ReturnRequest> findByGhnOrderCodeIn(@Param("codes") Collection<String> codes);
+
     /**
      * Find return requests with GHN tracking numbers
      */
     @Query("SELECT rr FROM ReturnRequest rr WHERE rr.ghnOrderCode IS NOT NULL ORDER BY rr.updatedAt DESC")
     List<ReturnRequest> findWithGHNTracking();
 
+    /**
+     * Return requests whose GHN shipment is still on its way, i.e. not yet received or failed
+     */
+    @Query("SELECT rr FROM ReturnRequest rr WHERE rr.ghnOrderCode IS NOT NULL " +
+           "AND rr.status IN (com.mypkga.commerceplatformfull.entity.ReturnStatus.RETURN_APPROVED, " +
+           "com.mypkga.commerceplatformfull.entity.ReturnStatus.RETURNING)")
+    List<ReturnRequest> findInFlightGHNTracking();
+
     /**
      * Find return requests by GHN status
      */
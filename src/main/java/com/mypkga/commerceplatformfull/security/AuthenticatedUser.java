@@ -0,0 +1,40 @@
+package com.mypkga.commerceplatformfull.security;
+
+import lombok.Getter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Security principal that carries the resolved user id and role name,
+ * so request handlers that only need those do not query the users table.
+ * The username is the login email.
+ */
+@Getter
+public class AuthenticatedUser extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long userId;
+    private final String roleName;
+
+    public AuthenticatedUser(Long userId, String email, String password, boolean enabled,
+                             String roleName, Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, enabled, true, true, true, authorities);
+        this.userId = userId;
+        this.roleName = roleName;
+    }
+
+    /**
+     * User id of the authenticated principal, or null if the request is anonymous
+     * or was authenticated before principals carried an id.
+     */
+    public static Long idOf(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getUserId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,98 @@
+package com.mypkga.commerceplatformfull.security;
+
+import com.mypkga.commerceplatformfull.config.RateLimitConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves the client IP of a request.
+ * X-Forwarded-For is only honoured when the connection comes from a configured trusted
+ * proxy; the header is then read right to left and the first address that is not itself
+ * a trusted proxy is the client. Anything else could be forged by the client.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ClientIpResolver {
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final RateLimitConfig config;
+
+    private List<IpAddressMatcher> trustedProxies = List.of();
+
+    @PostConstruct
+    void init() {
+        List<IpAddressMatcher> matchers = new ArrayList<>();
+        for (String proxy : config.getTrustedProxies()) {
+            if (proxy != null && !proxy.isBlank()) {
+                matchers.add(new IpAddressMatcher(proxy.trim()));
+            }
+        }
+        trustedProxies = List.copyOf(matchers);
+        if (config.isEnabled() && trustedProxies.isEmpty()) {
+            log.warn("Rate limiting is enabled without app.rate-limit.trusted-proxies; behind a proxy "
+                    + "or load balancer all clients will share the proxy's IP and one bucket");
+        }
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (remoteAddr == null) {
+            return "unknown";
+        }
+        if (trustedProxies.isEmpty() || !isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        String forwardedFor = request.getHeader(FORWARDED_FOR);
+        if (forwardedFor == null || forwardedFor.isEmpty()) {
+            return remoteAddr;
+        }
+        int end = forwardedFor.length();
+        while (end > 0) {
+            int start = forwardedFor.lastIndexOf(',', end - 1);
+            String candidate = forwardedFor.substring(start + 1, end).trim();
+            end = start < 0 ? 0 : start;
+            if (!isIpLiteral(candidate)) {
+                // Malformed hop: stop trusting the chain here
+                break;
+            }
+            if (!isTrusted(candidate)) {
+                return candidate;
+            }
+        }
+        return remoteAddr;
+    }
+
+    private boolean isTrusted(String address) {
+        for (IpAddressMatcher matcher : trustedProxies) {
+            if (matcher.matches(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Only IP literals are matched, so no header value can trigger a DNS lookup
+    private static boolean isIpLiteral(String value) {
+        if (value.isEmpty() || value.length() > 45) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean hex = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            if (!hex && c != '.' && c != ':') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,30 @@
+package com.mypkga.commerceplatformfull.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-process stand-in for the shared rate limit store, for tests and local runs.
+ */
+@Component
+@ConditionalOnExpression("${app.rate-limit.cluster.enabled:false} and '${app.rate-limit.cluster.store:jdbc}' == 'memory'")
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private final ConcurrentHashMap<String, Long> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public Lease lease(String bucketKey, int requested, long intervalMillis, long toleranceMillis) {
+        long[] result = new long[2];
+        buckets.compute(bucketKey, (key, tat) -> {
+            long now = System.currentTimeMillis();
+            long[] taken = RateLimitStore.take(tat != null ? tat : now, now, requested,
+                    intervalMillis, toleranceMillis);
+            result[0] = taken[0];
+            result[1] = taken[1];
+            return taken[0] > 0 ? taken[1] : tat;
+        });
+        return result[0] > 0 ? new Lease((int) result[0], 0L) : new Lease(0, result[1]);
+    }
+}
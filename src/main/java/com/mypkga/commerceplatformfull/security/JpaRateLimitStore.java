@@ -0,0 +1,73 @@
+package com.mypkga.commerceplatformfull.security;
+
+import com.mypkga.commerceplatformfull.config.RateLimitConfig;
+import com.mypkga.commerceplatformfull.entity.RateLimitBucket;
+import com.mypkga.commerceplatformfull.repository.RateLimitBucketRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Rate limit store on the rate_limit_buckets table.
+ * A lease is one short transaction: lock the bucket row, advance its arrival time by the
+ * permits granted, commit. Node clocks are assumed to be NTP-synchronized.
+ */
+@Component
+@ConditionalOnExpression("${app.rate-limit.cluster.enabled:false} and '${app.rate-limit.cluster.store:jdbc}' == 'jdbc'")
+@RequiredArgsConstructor
+@Slf4j
+public class JpaRateLimitStore implements RateLimitStore {
+
+    private final RateLimitBucketRepository bucketRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RateLimitConfig config;
+
+    @Override
+    public Lease lease(String bucketKey, int requested, long intervalMillis, long toleranceMillis) {
+        try {
+            return leaseOnce(bucketKey, requested, intervalMillis, toleranceMillis);
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the bucket concurrently; it exists now
+            return leaseOnce(bucketKey, requested, intervalMillis, toleranceMillis);
+        }
+    }
+
+    private Lease leaseOnce(String bucketKey, int requested, long intervalMillis, long toleranceMillis) {
+        return transactionTemplate.execute(tx -> {
+            long now = System.currentTimeMillis();
+            RateLimitBucket bucket = bucketRepository.findForUpdate(bucketKey).orElse(null);
+            long tat = bucket != null ? bucket.getTatMillis() : now;
+
+            long[] taken = RateLimitStore.take(tat, now, requested, intervalMillis, toleranceMillis);
+            if (taken[0] == 0) {
+                return new Lease(0, taken[1]);
+            }
+            if (bucket == null) {
+                bucketRepository.saveAndFlush(new RateLimitBucket(bucketKey, taken[1]));
+            } else {
+                bucket.setTatMillis(taken[1]);
+            }
+            return new Lease((int) taken[0], 0L);
+        });
+    }
+
+    @Scheduled(fixedDelay = 600_000L, initialDelay = 600_000L)
+    public void purgeIdleBuckets() {
+        if (!config.getCluster().isEnabled()) {
+            return;
+        }
+        try {
+            int deleted = bucketRepository.deleteIdleBefore(
+                    System.currentTimeMillis() - config.getCluster().getBucketRetention().toMillis());
+            if (deleted > 0) {
+                log.debug("Deleted {} idle rate limit buckets", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge idle rate limit buckets: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.mypkga.commerceplatformfull.security;
+
+/**
+ * Shared store of cluster-wide rate limit buckets.
+ * Nodes take permits in batches and serve requests from the lease locally, so the store
+ * sees one call per lease instead of one per request.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Take up to {@code requested} permits from the shared bucket.
+     *
+     * @param intervalMillis time to earn one permit
+     * @param toleranceMillis burst allowance (interval times burst minus one)
+     */
+    Lease lease(String bucketKey, int requested, long intervalMillis, long toleranceMillis);
+
+    /**
+     * Permits granted, and when the next one becomes available if none were
+     */
+    record Lease(int granted, long retryAfterMillis) {
+    }
+
+    /**
+     * GCRA over a batch: the largest n such that the n-th permit conforms, capped at requested.
+     *
+     * @return {granted, newTat or retryAfter}
+     */
+    static long[] take(long tat, long now, int requested, long intervalMillis, long toleranceMillis) {
+        long start = Math.max(tat, now);
+        long slack = now + toleranceMillis - start;
+        if (slack < 0) {
+            return new long[]{0, -slack};
+        }
+        long available = slack / intervalMillis + 1;
+        int granted = (int) Math.min(requested, available);
+        return new long[]{granted, start + granted * intervalMillis};
+    }
+}
@@ -0,0 +1,282 @@
+package com.mypkga.commerceplatformfull.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mypkga.commerceplatformfull.config.RateLimitConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets for each route policy.
+ * A bucket is a single theoretical-arrival-time value updated with one CAS (GCRA), which
+ * behaves exactly like a token bucket of size {@code burst} refilled at the policy rate.
+ * Clients live in a bounded Caffeine table per policy with LRU and idle-time eviction.
+ * Policies listed under {@code app.rate-limit.cluster.policies} are additionally limited
+ * across nodes: permits are leased in small batches from the shared {@link RateLimitStore}
+ * and served locally until used up or expired.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimiter {
+
+    public static final String DEFAULT_POLICY = "default";
+
+    private final RateLimitConfig config;
+    private final MeterRegistry meterRegistry;
+    // Only present when cluster-wide limiting is enabled
+    private final Optional<RateLimitStore> rateLimitStore;
+
+    private Policy[] policies = new Policy[0];
+    @Getter
+    private Policy defaultPolicy;
+
+    @PostConstruct
+    void init() {
+        if (config.getCluster().isEnabled() && rateLimitStore.isEmpty()) {
+            throw new IllegalStateException("Unknown app.rate-limit.cluster.store: " + config.getCluster().getStore());
+        }
+        List<Policy> compiled = new ArrayList<>();
+        for (Map.Entry<String, RateLimitConfig.Policy> entry : config.getPolicies().entrySet()) {
+            RateLimitConfig.Policy policy = entry.getValue();
+            compiled.add(new Policy(entry.getKey(), policy.getPaths(), policy.getMethods(),
+                    policy.getPermitsPerMinute(), policy.getBurst()));
+        }
+        policies = compiled.toArray(new Policy[0]);
+        defaultPolicy = new Policy(DEFAULT_POLICY, List.of(), List.of(),
+                config.getRequestsPerMinute(), config.getBurst());
+        log.info("Rate limiter initialized with {} route policies{}", policies.length,
+                config.getCluster().isEnabled() ? ", cluster-wide for " + config.getCluster().getPolicies() : "");
+    }
+
+    /**
+     * Policy for a request: the first route policy whose method and path match, else the default.
+     */
+    public Policy resolve(String method, String path) {
+        for (Policy policy : policies) {
+            if (policy.matches(method, path)) {
+                return policy;
+            }
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * Take one permit for a client.
+     *
+     * @return 0 if the request is allowed, otherwise nanoseconds until a permit is available
+     */
+    public long tryAcquire(Policy policy, String client) {
+        long wait = takeLocal(policy, client);
+        // The local bucket also shields the shared store from floods
+        if (wait == 0L && policy.leases != null) {
+            wait = takeClustered(policy, client);
+        }
+        (wait == 0L ? policy.allowed : policy.rejected).increment();
+        return wait;
+    }
+
+    private long takeLocal(Policy policy, String client) {
+        long now = System.nanoTime();
+        AtomicLong bucket = policy.buckets.get(client, key -> new AtomicLong(now));
+        while (true) {
+            long tat = bucket.get();
+            long allowAt = tat - policy.toleranceNanos;
+            if (now - allowAt < 0) {
+                return allowAt - now;
+            }
+            long next = (tat - now > 0 ? tat : now) + policy.intervalNanos;
+            if (bucket.compareAndSet(tat, next)) {
+                return 0L;
+            }
+        }
+    }
+
+    private long takeClustered(Policy policy, String client) {
+        LocalLease lease = policy.leases.get(client, key -> new LocalLease());
+        if (lease.tryTake()) {
+            return 0L;
+        }
+        synchronized (lease) {
+            // Another request of this client may have refilled the lease meanwhile
+            if (lease.tryTake()) {
+                return 0L;
+            }
+            try {
+                RateLimitStore.Lease granted = rateLimitStore.get().lease(policy.bucketPrefix + client,
+                        policy.leaseSize, Math.max(1L, TimeUnit.NANOSECONDS.toMillis(policy.intervalNanos)),
+                        TimeUnit.NANOSECONDS.toMillis(policy.toleranceNanos));
+                policy.storeCalls.increment();
+                if (granted.granted() == 0) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(1L, granted.retryAfterMillis()));
+                }
+                lease.refill(granted.granted() - 1, System.nanoTime() + leaseTtlNanos());
+                return 0L;
+            } catch (Exception e) {
+                // Fail open to the local limit, which already admitted the request
+                policy.storeErrors.increment();
+                log.warn("Rate limit store unavailable for policy {}: {}", policy.name, e.getMessage());
+                return 0L;
+            }
+        }
+    }
+
+    private long leaseTtlNanos() {
+        return config.getCluster().getLeaseTtl().toNanos();
+    }
+
+    /**
+     * Permits leased from the shared store and not yet used by this node.
+     */
+    private static final class LocalLease {
+
+        private final AtomicInteger remaining = new AtomicInteger();
+        private volatile long expiresAt = System.nanoTime();
+
+        boolean tryTake() {
+            if (System.nanoTime() - expiresAt >= 0) {
+                return false;
+            }
+            while (true) {
+                int current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void refill(int permits, long expiresAtNanos) {
+            remaining.set(permits);
+            expiresAt = expiresAtNanos;
+        }
+    }
+
+    /**
+     * Compiled route policy with its client table and meters.
+     */
+    public final class Policy {
+
+        @Getter
+        private final String name;
+        @Getter
+        private final int permitsPerMinute;
+        private final String[] exactPaths;
+        private final String[] pathPrefixes;
+        private final String[] methods;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final Cache<String, AtomicLong> buckets;
+        private final Counter allowed;
+        private final Counter rejected;
+
+        // Cluster-wide limiting; null leases when the policy is node-local
+        private final String bucketPrefix;
+        private final int leaseSize;
+        private final Cache<String, LocalLease> leases;
+        private final Counter storeCalls;
+        private final Counter storeErrors;
+
+        Policy(String name, List<String> paths, List<String> methods, int permitsPerMinute, int burst) {
+            this.name = name;
+            this.permitsPerMinute = Math.max(1, permitsPerMinute);
+            List<String> exact = new ArrayList<>();
+            List<String> prefixes = new ArrayList<>();
+            for (String path : paths) {
+                if (path.endsWith("/**")) {
+                    prefixes.add(path.substring(0, path.length() - 2));
+                    exact.add(path.substring(0, path.length() - 3));
+                } else {
+                    exact.add(path);
+                }
+            }
+            this.exactPaths = exact.toArray(new String[0]);
+            this.pathPrefixes = prefixes.toArray(new String[0]);
+            this.methods = methods.stream().map(m -> m.toUpperCase(Locale.ROOT)).toArray(String[]::new);
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / this.permitsPerMinute;
+            this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1L);
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(config.getMaxClients())
+                    .expireAfterAccess(config.getIdleTtl())
+                    .build();
+
+            this.allowed = Counter.builder("ratelimit.requests")
+                    .description("Requests checked by the rate limiter")
+                    .tag("policy", name).tag("outcome", "allowed")
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("ratelimit.requests")
+                    .description("Requests checked by the rate limiter")
+                    .tag("policy", name).tag("outcome", "rejected")
+                    .register(meterRegistry);
+            Gauge.builder("ratelimit.clients", buckets, Cache::estimatedSize)
+                    .description("Clients currently tracked by the rate limiter")
+                    .tag("policy", name)
+                    .register(meterRegistry);
+
+            RateLimitConfig.Cluster cluster = config.getCluster();
+            this.bucketPrefix = name + ":";
+            this.leaseSize = Math.max(1, Math.min(cluster.getLeaseSize(), Math.max(1, burst)));
+            if (cluster.isEnabled() && cluster.getPolicies().contains(name)) {
+                this.leases = Caffeine.newBuilder()
+                        .maximumSize(config.getMaxClients())
+                        .expireAfterAccess(config.getIdleTtl())
+                        .build();
+                this.storeCalls = Counter.builder("ratelimit.store.calls")
+                        .description("Permit leases taken from the shared rate limit store")
+                        .tag("policy", name)
+                        .register(meterRegistry);
+                this.storeErrors = Counter.builder("ratelimit.store.errors")
+                        .description("Shared rate limit store calls that failed")
+                        .tag("policy", name)
+                        .register(meterRegistry);
+            } else {
+                this.leases = null;
+                this.storeCalls = null;
+                this.storeErrors = null;
+            }
+        }
+
+        boolean matches(String method, String path) {
+            if (methods.length > 0) {
+                boolean methodMatch = false;
+                for (String m : methods) {
+                    if (m.equals(method)) {
+                        methodMatch = true;
+                        break;
+                    }
+                }
+                if (!methodMatch) {
+                    return false;
+                }
+            }
+            for (String exact : exactPaths) {
+                if (exact.equals(path)) {
+                    return true;
+                }
+            }
+            for (String prefix : pathPrefixes) {
+                if (path.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
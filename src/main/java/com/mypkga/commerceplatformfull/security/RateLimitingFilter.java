@@ -1,8 +1,12 @@
 package com.mypkga.commerceplatformfull.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mypkga.commerceplatformfull.config.RateLimitConfig;
 import com.mypkga.commerceplatformfull.exception.ErrorResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -14,102 +18,65 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Rejects requests over their route's rate limit with 429 before security and MVC run.
+ * Limits are per client IP and per policy; see {@link RateLimiter}.
+ */
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
 @Slf4j
 public class RateLimitingFilter extends OncePerRequestFilter {
 
-    private static final int MAX_REQUESTS_PER_MINUTE = 120;
-    private static final int MAX_LOGIN_ATTEMPTS_PER_MINUTE = 20;
-    private static final long WINDOW_SIZE_MILLIS = 60 * 1000; // 1 minute
-
-    private final ConcurrentHashMap<String, RequestWindow> requestCounts = new ConcurrentHashMap<>();
+    private final RateLimitConfig config;
+    private final RateLimiter rateLimiter;
+    private final ClientIpResolver clientIpResolver;
     private final ObjectMapper objectMapper;
 
-    public RateLimitingFilter() {
-        this.objectMapper = new ObjectMapper();
-    }
-
     @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
-        // Temporarily disable rate limiting to fix login/logout issues
-        filterChain.doFilter(request, response);
-        return;
-        
-        /*
-        String clientId = getClientIdentifier(request);
         String requestUri = request.getRequestURI();
-        
+
         // Skip rate limiting for static resources
-        if (isStaticResource(requestUri)) {
+        if (!config.isEnabled() || isStaticResource(requestUri)) {
             filterChain.doFilter(request, response);
             return;
         }
-        
+
         // Different limits for different endpoints
-        int maxRequests = getMaxRequestsForEndpoint(requestUri);
-        
-        if (isRateLimited(clientId, maxRequests)) {
-            handleRateLimitExceeded(request, response, clientId);
+        RateLimiter.Policy policy = rateLimiter.resolve(request.getMethod(), requestUri);
+        String clientId = clientIpResolver.resolve(request);
+
+        long waitNanos = rateLimiter.tryAcquire(policy, clientId);
+        if (waitNanos > 0) {
+            handleRateLimitExceeded(request, response, clientId, policy, waitNanos);
             return;
         }
 
         filterChain.doFilter(request, response);
-        */
     }
 
     private boolean isStaticResource(String uri) {
-        return uri.startsWith("/css/") || 
-               uri.startsWith("/js/") || 
-               uri.startsWith("/images/") || 
+        return uri.startsWith("/css/") ||
+               uri.startsWith("/js/") ||
+               uri.startsWith("/images/") ||
                uri.startsWith("/files/") ||
                uri.equals("/favicon.ico") ||
                uri.startsWith("/logout") ||
                uri.startsWith("/error");
     }
 
-    private String getClientIdentifier(HttpServletRequest request) {
-        // Use IP address as client identifier
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        String remoteAddr = request.getRemoteAddr();
-        return remoteAddr != null ? remoteAddr : "unknown";
-    }
+    private void handleRateLimitExceeded(HttpServletRequest request, HttpServletResponse response,
+            String clientId, RateLimiter.Policy policy, long waitNanos) throws IOException {
 
-    private int getMaxRequestsForEndpoint(String uri) {
-        if (uri.contains("/login") || uri.contains("/register")) {
-            return MAX_LOGIN_ATTEMPTS_PER_MINUTE;
-        }
-        return MAX_REQUESTS_PER_MINUTE;
-    }
-
-    private boolean isRateLimited(String clientId, int maxRequests) {
-        long currentTime = System.currentTimeMillis();
-        
-        requestCounts.compute(clientId, (key, window) -> {
-            if (window == null || currentTime - window.windowStart > WINDOW_SIZE_MILLIS) {
-                return new RequestWindow(currentTime, new AtomicInteger(1));
-            } else {
-                window.requestCount.incrementAndGet();
-                return window;
-            }
-        });
-
-        RequestWindow window = requestCounts.get(clientId);
-        return window != null && window.requestCount.get() > maxRequests;
-    }
-
-    private void handleRateLimitExceeded(HttpServletRequest request, HttpServletResponse response, 
-            String clientId) throws IOException {
-        
-        log.warn("Rate limit exceeded for client: {} on path: {}", clientId, request.getRequestURI());
+        log.warn("Rate limit exceeded for client: {} on path: {} (policy {})",
+                clientId, request.getRequestURI(), policy.getName());
 
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
         try {
             ErrorResponse errorResponse = ErrorResponse.builder()
                     .timestamp(LocalDateTime.now().toString())
@@ -122,8 +89,9 @@ public class RateLimitingFilter extends OncePerRequestFilter {
 
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-            response.setHeader("Retry-After", "60");
-            
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            response.setHeader("X-RateLimit-Limit", policy.getPermitsPerMinute() + ";w=60");
+
             objectMapper.writeValue(response.getWriter(), errorResponse);
         } catch (Exception e) {
             log.error("Error writing rate limit response", e);
@@ -131,14 +99,4 @@ public class RateLimitingFilter extends OncePerRequestFilter {
             response.getWriter().write("{\"error\":\"Rate limit exceeded\"}");
         }
     }
-
-    private static class RequestWindow {
-        final long windowStart;
-        final AtomicInteger requestCount;
-
-        RequestWindow(long windowStart, AtomicInteger requestCount) {
-            this.windowStart = windowStart;
-            this.requestCount = requestCount;
-        }
-    }
-}
\ No newline at end of file
+}
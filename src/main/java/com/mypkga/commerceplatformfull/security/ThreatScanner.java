@@ -0,0 +1,222 @@
+package com.mypkga.commerceplatformfull.security;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+
+/**
+ * Single-pass scanner for SQL injection and XSS markers.
+ * All keywords are compiled into one Aho-Corasick automaton over ASCII folded to lower case,
+ * so an input is read once, left to right, with no backtracking and no allocation.
+ * SQL keywords must stand as whole tokens and only count when their statement partner is one
+ * of the two words before them (union select, select * from, update users set...), so ordinary
+ * text such as "vui lòng update địa chỉ" or "select a color from the list" passes.
+ * XSS markers match anywhere.
+ */
+public final class ThreatScanner {
+
+    public static final int SQL = 1;
+    public static final int XSS = 2;
+    public static final int ALL = SQL | XSS;
+
+    private static final int ALPHABET = 128;
+
+    private static final ThreatScanner DEFAULT = defaults();
+
+    private final int[] transitions;
+    private final int[][] outputs;
+    private final Keyword[] keywords;
+
+    private ThreatScanner(List<Keyword> keywordList) {
+        this.keywords = keywordList.toArray(new Keyword[0]);
+
+        // Trie
+        List<int[]> gotos = new ArrayList<>();
+        List<List<Integer>> out = new ArrayList<>();
+        gotos.add(newRow());
+        out.add(new ArrayList<>());
+        for (int k = 0; k < keywords.length; k++) {
+            int state = 0;
+            for (char c : keywords[k].text.toCharArray()) {
+                int next = gotos.get(state)[c];
+                if (next < 0) {
+                    next = gotos.size();
+                    gotos.get(state)[c] = next;
+                    gotos.add(newRow());
+                    out.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            out.get(state).add(k);
+        }
+
+        // Failure links folded into a full DFA, breadth first
+        int states = gotos.size();
+        int[] fail = new int[states];
+        transitions = new int[states * ALPHABET];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = gotos.get(0)[c];
+            if (next < 0) {
+                transitions[c] = 0;
+            } else {
+                transitions[c] = next;
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            out.get(state).addAll(out.get(fail[state]));
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = gotos.get(state)[c];
+                if (next < 0) {
+                    transitions[state * ALPHABET + c] = transitions[fail[state] * ALPHABET + c];
+                } else {
+                    transitions[state * ALPHABET + c] = next;
+                    fail[next] = transitions[fail[state] * ALPHABET + c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        outputs = new int[states][];
+        for (int s = 0; s < states; s++) {
+            outputs[s] = out.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public static ThreatScanner getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Scan an input for the enabled checks.
+     *
+     * @param checks bit set of {@link #SQL} and {@link #XSS}
+     * @return the category of the first threat found, or 0 if the input is clean
+     */
+    public int scan(CharSequence input, int checks) {
+        if (input == null || checks == 0) {
+            return 0;
+        }
+        int length = input.length();
+        int state = 0;
+        // SQL keywords found in the current word and in the two words before it
+        long current = 0L;
+        long previous = 0L;
+        long beforePrevious = 0L;
+        boolean inWord = false;
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            boolean word = isWordChar(c);
+            if (word && !inWord) {
+                beforePrevious = previous;
+                previous = current;
+                current = 0L;
+            }
+            inWord = word;
+            if (c >= ALPHABET) {
+                // Keywords are ASCII; any other character breaks a partial match
+                state = 0;
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            state = transitions[state * ALPHABET + c];
+            for (int k : outputs[state]) {
+                Keyword keyword = keywords[k];
+                if ((keyword.category & checks) == 0) {
+                    continue;
+                }
+                if (keyword.token && !isToken(input, i - keyword.text.length() + 1, i + 1)) {
+                    continue;
+                }
+                if (keyword.immediate || ((previous | beforePrevious) & keyword.after) != 0L) {
+                    return keyword.category;
+                }
+                current |= keyword.bit;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isToken(CharSequence input, int start, int end) {
+        return (start == 0 || !isWordChar(input.charAt(start - 1)))
+                && (end == input.length() || !isWordChar(input.charAt(end)));
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static ThreatScanner defaults() {
+        Builder builder = new Builder();
+        // SQL statements: a keyword is a threat only right after one of its partners
+        builder.sql("union").sql("select", "union")
+                .sql("insert").sql("into", "insert")
+                .sql("delete").sql("from", "select", "delete")
+                .sql("update").sql("set", "update")
+                .sql("drop").sql("truncate").sql("create").sql("alter")
+                .sql("table", "drop", "truncate", "create", "alter")
+                .sql("database", "drop", "create", "alter")
+                .sql("procedure", "drop", "create", "alter")
+                .sql("exec").sql("execute").sql("xp_cmdshell", "exec", "execute").sql("sp_executesql", "exec", "execute")
+                .sql("waitfor").sql("delay", "waitfor");
+        // Script injection
+        builder.xss("<script").xss("</script").xss("<iframe")
+                .xss("javascript:").xss("vbscript:")
+                .xss("onload=").xss("onerror=").xss("onclick=").xss("onmouseover=");
+        return builder.build();
+    }
+
+    private record Keyword(String text, int category, boolean token, boolean immediate, long bit, long after) {
+    }
+
+    /**
+     * Collects keywords; SQL keywords may name the partners they must closely follow.
+     */
+    public static final class Builder {
+
+        private final List<String> names = new ArrayList<>();
+        private final List<Keyword> keywords = new ArrayList<>();
+
+        public Builder sql(String keyword, String... after) {
+            String text = keyword.toLowerCase(Locale.ROOT);
+            long afterMask = 0L;
+            for (String partner : after) {
+                int index = names.indexOf(partner.toLowerCase(Locale.ROOT));
+                if (index < 0) {
+                    throw new IllegalArgumentException("Unknown SQL keyword: " + partner);
+                }
+                afterMask |= 1L << index;
+            }
+            if (names.size() == Long.SIZE) {
+                throw new IllegalStateException("Too many SQL keywords");
+            }
+            long bit = 1L << names.size();
+            names.add(text);
+            keywords.add(new Keyword(text, SQL, true, false, bit, afterMask));
+            return this;
+        }
+
+        public Builder xss(String marker) {
+            keywords.add(new Keyword(marker.toLowerCase(Locale.ROOT), XSS, false, true, 0L, 0L));
+            return this;
+        }
+
+        public ThreatScanner build() {
+            return new ThreatScanner(keywords);
+        }
+    }
+}
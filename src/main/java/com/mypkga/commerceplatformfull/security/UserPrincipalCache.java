@@ -0,0 +1,131 @@
+package com.mypkga.commerceplatformfull.security;
+
+import com.mypkga.commerceplatformfull.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Login principals in the "users" cache, reachable by email and by username.
+ * Entries are immutable snapshots; every lookup builds a fresh {@link AuthenticatedUser}
+ * because Spring Security erases the credentials of the principal it authenticates.
+ * Writes to a user evict its entries once their transaction commits.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserPrincipalCache {
+
+    private static final String CACHE_NAME = "users";
+    private static final String EMAIL_KEY = "email:";
+    private static final String USERNAME_KEY = "username:";
+
+    @Qualifier("userCacheManager")
+    private final CacheManager userCacheManager;
+
+    public Entry getByEmail(String email) {
+        return cache().get(EMAIL_KEY + email, Entry.class);
+    }
+
+    public Entry getByUsername(String username) {
+        return cache().get(USERNAME_KEY + username, Entry.class);
+    }
+
+    public Entry put(User user) {
+        Entry entry = Entry.of(user);
+        Cache cache = cache();
+        cache.put(EMAIL_KEY + entry.email(), entry);
+        if (entry.username() != null) {
+            cache.put(USERNAME_KEY + entry.username(), entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Drop every entry of a user (including ones under a previous email or username)
+     * after the current transaction commits, or immediately if there is none.
+     */
+    public void evictAfterCommit(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> nativeCache().values().removeIf(value ->
+                value instanceof Entry entry && userId.equals(entry.userId())));
+    }
+
+    /**
+     * Drop all entries after commit; used when a role's permissions change.
+     */
+    public void evictAllAfterCommit() {
+        afterCommit(() -> cache().clear());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Cache cache() {
+        Cache cache = userCacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            throw new IllegalStateException("Cache '" + CACHE_NAME + "' is not configured");
+        }
+        return cache;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Object, Object> nativeCache() {
+        return ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache().getNativeCache()).asMap();
+    }
+
+    /**
+     * What authentication needs from a user row, resolved once.
+     */
+    public record Entry(Long userId, String email, String username, String password, boolean enabled,
+                        String roleName, List<String> authorities) {
+
+        static Entry of(User user) {
+            List<String> authorities = new ArrayList<>();
+            if (user.getRole() != null) {
+                authorities.add("ROLE_" + user.getRole().getName());
+                for (String permission : user.getRole().getPermissionsList()) {
+                    if (!"ALL".equals(permission)) {
+                        authorities.add("PERMISSION_" + permission);
+                    }
+                }
+                if (user.getRole().hasPermission("ALL")) {
+                    authorities.add("PERMISSION_ALL");
+                }
+            }
+            return new Entry(user.getId(), user.getEmail(), user.getUsername(), user.getPassword(),
+                    Boolean.TRUE.equals(user.getEnabled()), user.getRoleName(), List.copyOf(authorities));
+        }
+
+        public AuthenticatedUser toPrincipal() {
+            List<GrantedAuthority> granted = new ArrayList<>(authorities.size());
+            for (String authority : authorities) {
+                granted.add(new SimpleGrantedAuthority(authority));
+            }
+            return new AuthenticatedUser(userId, email, password, enabled, roleName, granted);
+        }
+    }
+}
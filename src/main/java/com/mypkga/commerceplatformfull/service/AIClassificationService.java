@@ -4,17 +4,14 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -22,6 +19,9 @@ import java.util.Map;
 @Slf4j
 public class AIClassificationService {
 
+    @Autowired
+    private RestTemplate restTemplate;
+
     @Value("${groq.api-key}")
     private String apiKey;
 
@@ -91,71 +91,61 @@ public class AIClassificationService {
     }
 
     private String classifyWithAI(String productName, String description) throws Exception {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost request = new HttpPost(apiUrl);
-            request.addHeader("Content-Type", "application/json");
-            request.addHeader("Authorization", "Bearer " + apiKey);
-
-            // Build request body
-            JsonObject requestBody = new JsonObject();
-            requestBody.addProperty("model", model);
-
-            JsonArray messages = new JsonArray();
-
-            JsonObject systemMessage = new JsonObject();
-            systemMessage.addProperty("role", "system");
-            systemMessage.addProperty("content",
-                    "You are a product classification assistant. Classify products into one of these categories: Electronics, Fashion, Home & Garden, Sports, Books, Toys, Beauty, Food & Beverage, General. Respond with only the category name.");
-            messages.add(systemMessage);
-
-            JsonObject userMessage = new JsonObject();
-            userMessage.addProperty("role", "user");
-            userMessage.addProperty("content",
-                    "Classify this product:\nName: " + productName + "\nDescription: " + description);
-            messages.add(userMessage);
-
-            requestBody.add("messages", messages);
-            requestBody.addProperty("max_tokens", 50);
-            requestBody.addProperty("temperature", 0.3);
-
-            request.setEntity(new StringEntity(requestBody.toString(), StandardCharsets.UTF_8));
-
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8));
-                StringBuilder result = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    result.append(line);
-                }
-
-                log.debug("OpenAI API response: {}", result.toString());
-
-                Gson gson = new Gson();
-                JsonObject responseJson = gson.fromJson(result.toString(), JsonObject.class);
-
-                // Check if response has error
-                if (responseJson.has("error")) {
-                    JsonObject error = responseJson.getAsJsonObject("error");
-                    log.error("OpenAI API error: {}", error.get("message").getAsString());
-                    throw new RuntimeException("OpenAI API error: " + error.get("message").getAsString());
-                }
+        // Build request body
+        JsonObject requestBody = new JsonObject();
+        requestBody.addProperty("model", model);
+
+        JsonArray messages = new JsonArray();
+
+        JsonObject systemMessage = new JsonObject();
+        systemMessage.addProperty("role", "system");
+        systemMessage.addProperty("content",
+                "You are a product classification assistant. Classify products into one of these categories: Electronics, Fashion, Home & Garden, Sports, Books, Toys, Beauty, Food & Beverage, General. Respond with only the category name.");
+        messages.add(systemMessage);
+
+        JsonObject userMessage = new JsonObject();
+        userMessage.addProperty("role", "user");
+        userMessage.addProperty("content",
+                "Classify this product:\nName: " + productName + "\nDescription: " + description);
+        messages.add(userMessage);
+
+        requestBody.add("messages", messages);
+        requestBody.addProperty("max_tokens", 50);
+        requestBody.addProperty("temperature", 0.3);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(apiKey);
+
+        // Pooled gateway client; timeouts and metrics come from HttpClientConfig
+        String result = restTemplate.postForObject(apiUrl,
+                new HttpEntity<>(requestBody.toString(), headers), String.class);
+
+        log.debug("OpenAI API response: {}", result);
+
+        Gson gson = new Gson();
+        JsonObject responseJson = gson.fromJson(result, JsonObject.class);
+
+        // Check if response has error
+        if (responseJson.has("error")) {
+            JsonObject error = responseJson.getAsJsonObject("error");
+            log.error("OpenAI API error: {}", error.get("message").getAsString());
+            throw new RuntimeException("OpenAI API error: " + error.get("message").getAsString());
+        }
 
-                // Check if choices array exists and is not empty
-                JsonArray choices = responseJson.getAsJsonArray("choices");
-                if (choices == null || choices.size() == 0) {
-                    log.error("OpenAI API returned no choices. Response: {}", result.toString());
-                    throw new RuntimeException("OpenAI API returned no choices");
-                }
+        // Check if choices array exists and is not empty
+        JsonArray choices = responseJson.getAsJsonArray("choices");
+        if (choices == null || choices.size() == 0) {
+            log.error("OpenAI API returned no choices. Response: {}", result);
+            throw new RuntimeException("OpenAI API returned no choices");
+        }
 
-                String category = choices
-                        .get(0).getAsJsonObject()
-                        .getAsJsonObject("message")
-                        .get("content").getAsString().trim();
+        String category = choices
+                .get(0).getAsJsonObject()
+                .getAsJsonObject("message")
+                .get("content").getAsString().trim();
 
-                log.info("AI classified product '{}' as: {}", productName, category);
-                return category;
-            }
-        }
+        log.info("AI classified product '{}' as: {}", productName, category);
+        return category;
     }
 }
@@ -0,0 +1,248 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.mypkga.commerceplatformfull.entity.CartAbandonmentStat;
+import com.mypkga.commerceplatformfull.repository.CartAbandonmentStatRepository;
+import com.mypkga.commerceplatformfull.repository.CartItemRepository;
+import com.mypkga.commerceplatformfull.repository.CartRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background sweeper that purges carts idle for longer than {@code app.cart-sweep.idle-after}.
+ * Idle carts are walked oldest first in (updatedDate, id) keyset chunks; each chunk is
+ * summarized, deleted with two bulk statements and folded into the daily
+ * {@link CartAbandonmentStat} rollup in one short transaction. Chunks are paced and a run
+ * is capped so the sweep stays within its DB budget.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AbandonedCartSweeper {
+
+    private static final LocalDateTime WALK_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartAbandonmentStatRepository cartAbandonmentStatRepository;
+    private final CartSummaryCache cartSummaryCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.cart-sweep.idle-after:30d}")
+    private Duration idleAfter;
+
+    @Value("${app.cart-sweep.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.cart-sweep.max-chunks-per-second:2}")
+    private double maxChunksPerSecond;
+
+    @Value("${app.cart-sweep.max-carts-per-run:20000}")
+    private int maxCartsPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    @Scheduled(cron = "${app.cart-sweep.cron:0 0 4 * * *}")
+    public void scheduledSweep() {
+        if (!startSweep()) {
+            log.info("Abandoned cart sweep already running, skipping");
+        }
+    }
+
+    /**
+     * Start a sweep on a background thread.
+     *
+     * @return false if a sweep is already running
+     */
+    public boolean startSweep() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofVirtual().name("cart-sweep").start(() -> {
+            try {
+                sweep();
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+
+    /**
+     * Daily abandonment rollup from the given day on
+     */
+    public List<CartAbandonmentStat> getStats(LocalDate from) {
+        return cartAbandonmentStatRepository.findByStatDateGreaterThanEqualOrderByStatDateAsc(from);
+    }
+
+    /**
+     * Run one sweep on the calling thread.
+     */
+    public void runSweep() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Abandoned cart sweep already running, skipping");
+            return;
+        }
+        try {
+            sweep();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void sweep() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime cutoff = startedAt.minus(idleAfter);
+        long pacingNanos = maxChunksPerSecond > 0 ? (long) (1_000_000_000L / maxChunksPerSecond) : 0L;
+        long examined = 0;
+        long purged = 0;
+        long errors = 0;
+
+        try {
+            LocalDateTime afterDate = WALK_START;
+            long afterId = 0L;
+
+            while (examined < maxCartsPerRun) {
+                long chunkStartedAt = System.nanoTime();
+                List<Object[]> rows = cartRepository.findIdleAfter(cutoff, afterDate, afterId,
+                        PageRequest.of(0, chunkSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                // Purged rows disappear and failed chunks are retried on the next run,
+                // so the cursor always moves past the chunk
+                Object[] last = rows.get(rows.size() - 1);
+                afterDate = (LocalDateTime) last[1];
+                afterId = (Long) last[0];
+                examined += rows.size();
+
+                try {
+                    Integer deleted = transactionTemplate.execute(tx -> purgeChunk(rows, cutoff));
+                    purged += deleted != null ? deleted : 0;
+                } catch (Exception e) {
+                    errors += rows.size();
+                    log.error("Abandoned cart sweep chunk ending at cart {} failed: {}", afterId, e.getMessage());
+                }
+
+                if (rows.size() < chunkSize) {
+                    break;
+                }
+
+                long remaining = pacingNanos - (System.nanoTime() - chunkStartedAt);
+                if (remaining > 0) {
+                    Thread.sleep(remaining / 1_000_000L, (int) (remaining % 1_000_000L));
+                }
+            }
+            log.info("Abandoned cart sweep finished: {} idle carts examined, {} purged, {} errors",
+                    examined, purged, errors);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Abandoned cart sweep interrupted after {} carts", examined);
+        } catch (Exception e) {
+            log.error("Abandoned cart sweep failed: {}", e.getMessage());
+        } finally {
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("startedAt", startedAt.toString());
+            run.put("finishedAt", LocalDateTime.now().toString());
+            run.put("cutoff", cutoff.toString());
+            run.put("examined", examined);
+            run.put("purged", purged);
+            run.put("errors", errors);
+            lastRun = run;
+        }
+    }
+
+    /**
+     * Summarize, delete and roll up one chunk; runs inside a transaction.
+     *
+     * @param rows [cartId, updatedDate, userEmail] rows for the chunk
+     * @return number of carts deleted
+     */
+    private int purgeChunk(List<Object[]> rows, LocalDateTime cutoff) {
+        List<Long> cartIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            cartIds.add((Long) row[0]);
+        }
+
+        Map<Long, Object[]> contents = new HashMap<>();
+        for (Object[] row : cartItemRepository.summarizeIdleByCartIds(cartIds, cutoff)) {
+            contents.put((Long) row[0], row);
+        }
+
+        cartItemRepository.deleteIdleByCartIds(cartIds, cutoff);
+        int deleted = cartRepository.deleteIdleByIds(cartIds, cutoff);
+        if (deleted == 0) {
+            return 0;
+        }
+
+        // A cart touched between the keyset read and the deletes survives; only the
+        // deleted ones go into the rollup
+        Set<Long> survivors = deleted < cartIds.size()
+                ? new HashSet<>(cartRepository.findExistingIds(cartIds))
+                : Set.of();
+        Map<LocalDate, CartAbandonmentStat> rollup = new HashMap<>();
+        for (Object[] row : rows) {
+            if (survivors.contains((Long) row[0])) {
+                continue;
+            }
+            LocalDate day = ((LocalDateTime) row[1]).toLocalDate();
+            CartAbandonmentStat stat = rollup.computeIfAbsent(day, CartAbandonmentStat::new);
+            stat.setCartCount(stat.getCartCount() + 1);
+
+            Object[] content = contents.get((Long) row[0]);
+            if (content != null) {
+                stat.setNonEmptyCartCount(stat.getNonEmptyCartCount() + 1);
+                stat.setLineCount(stat.getLineCount() + ((Number) content[1]).longValue());
+                stat.setItemCount(stat.getItemCount() + ((Number) content[2]).longValue());
+                stat.setTotalValue(stat.getTotalValue().add(toBigDecimal(content[3])));
+            }
+            cartSummaryCache.evictAfterCommit((String) row[2]);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<CartAbandonmentStat> updated = new ArrayList<>(rollup.size());
+        rollup.forEach((day, delta) -> {
+            CartAbandonmentStat stat = cartAbandonmentStatRepository.findById(day)
+                    .orElseGet(() -> new CartAbandonmentStat(day));
+            stat.add(delta);
+            stat.setUpdatedAt(now);
+            updated.add(stat);
+        });
+        cartAbandonmentStatRepository.saveAll(updated);
+        return deleted;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal amount ? amount : new BigDecimal(value.toString());
+    }
+}
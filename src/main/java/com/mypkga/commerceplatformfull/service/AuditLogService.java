@@ -1,47 +1,44 @@
 package com.mypkga.commerceplatformfull.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import com.mypkga.commerceplatformfull.service.audit.AuditEvent;
+import com.mypkga.commerceplatformfull.service.audit.AuditEventType;
+import com.mypkga.commerceplatformfull.service.audit.AuditJournal;
+import com.mypkga.commerceplatformfull.service.audit.AuditSegmentStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Service for structured audit logging of order status changes
- * Implements JSON-formatted logging for better parsing and analysis
+ * Events are handed to the {@link AuditJournal} ring buffer and written as JSON lines
+ * by its consumer thread into the {@link AuditSegmentStore}, so callers only pay for
+ * copying a few references. Audit trails are read back from the store's indexes.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuditLogService {
 
+    private final AuditJournal auditJournal;
+    private final AuditSegmentStore auditSegmentStore;
     private final ObjectMapper objectMapper;
 
     /**
-     * Log order status change with structured JSON format
+     * Log order status change
      */
-    public void logOrderStatusChange(Long orderId, OrderStatus oldStatus, OrderStatus newStatus, 
+    public void logOrderStatusChange(Long orderId, OrderStatus oldStatus, OrderStatus newStatus,
                                    String updatedBy, String reason) {
-        try {
-            Map<String, Object> auditLog = new HashMap<>();
-            auditLog.put("eventType", "ORDER_STATUS_CHANGE");
-            auditLog.put("timestamp", LocalDateTime.now().toString());
-            auditLog.put("orderId", orderId);
-            auditLog.put("oldStatus", oldStatus != null ? oldStatus.name() : null);
-            auditLog.put("newStatus", newStatus.name());
-            auditLog.put("updatedBy", updatedBy);
-            auditLog.put("reason", reason);
-            auditLog.put("sessionId", getCurrentSessionId());
-            
-            String jsonLog = objectMapper.writeValueAsString(auditLog);
-            log.info("AUDIT_LOG: {}", jsonLog);
-            
-        } catch (Exception e) {
-            log.error("Failed to create audit log for order status change", e);
+        AuditEvent event = auditJournal.claim(AuditEventType.ORDER_STATUS_CHANGE);
+        if (event != null) {
+            auditJournal.publish(event.orderId(orderId).fromStatus(oldStatus).toStatus(newStatus)
+                    .actor(updatedBy).detail(reason));
         }
     }
 
@@ -49,21 +46,10 @@ public class AuditLogService {
      * Log delivery confirmation events
      */
     public void logDeliveryConfirmation(Long orderId, String action, String customerId, String reason) {
-        try {
-            Map<String, Object> auditLog = new HashMap<>();
-            auditLog.put("eventType", "DELIVERY_CONFIRMATION");
-            auditLog.put("timestamp", LocalDateTime.now().toString());
-            auditLog.put("orderId", orderId);
-            auditLog.put("action", action); // CONFIRMED, REJECTED
-            auditLog.put("customerId", customerId);
-            auditLog.put("reason", reason);
-            auditLog.put("sessionId", getCurrentSessionId());
-            
-            String jsonLog = objectMapper.writeValueAsString(auditLog);
-            log.info("AUDIT_LOG: {}", jsonLog);
-            
-        } catch (Exception e) {
-            log.error("Failed to create audit log for delivery confirmation", e);
+        AuditEvent event = auditJournal.claim(AuditEventType.DELIVERY_CONFIRMATION);
+        if (event != null) {
+            // action: CONFIRMED, REJECTED
+            auditJournal.publish(event.orderId(orderId).category(action).actor(customerId).detail(reason));
         }
     }
 
@@ -71,21 +57,9 @@ public class AuditLogService {
      * Log timeline entry creation
      */
     public void logTimelineEntryCreation(Long orderId, OrderStatus status, String updatedBy, String notes) {
-        try {
-            Map<String, Object> auditLog = new HashMap<>();
-            auditLog.put("eventType", "TIMELINE_ENTRY_CREATED");
-            auditLog.put("timestamp", LocalDateTime.now().toString());
-            auditLog.put("orderId", orderId);
-            auditLog.put("status", status.name());
-            auditLog.put("updatedBy", updatedBy);
-            auditLog.put("notes", notes);
-            auditLog.put("sessionId", getCurrentSessionId());
-            
-            String jsonLog = objectMapper.writeValueAsString(auditLog);
-            log.info("AUDIT_LOG: {}", jsonLog);
-            
-        } catch (Exception e) {
-            log.error("Failed to create audit log for timeline entry creation", e);
+        AuditEvent event = auditJournal.claim(AuditEventType.TIMELINE_ENTRY_CREATED);
+        if (event != null) {
+            auditJournal.publish(event.orderId(orderId).toStatus(status).actor(updatedBy).detail(notes));
         }
     }
 
@@ -93,21 +67,9 @@ public class AuditLogService {
      * Log data synchronization events
      */
     public void logDataSynchronization(String syncType, Long orderId, String details, boolean success) {
-        try {
-            Map<String, Object> auditLog = new HashMap<>();
-            auditLog.put("eventType", "DATA_SYNCHRONIZATION");
-            auditLog.put("timestamp", LocalDateTime.now().toString());
-            auditLog.put("syncType", syncType);
-            auditLog.put("orderId", orderId);
-            auditLog.put("details", details);
-            auditLog.put("success", success);
-            auditLog.put("sessionId", getCurrentSessionId());
-            
-            String jsonLog = objectMapper.writeValueAsString(auditLog);
-            log.info("AUDIT_LOG: {}", jsonLog);
-            
-        } catch (Exception e) {
-            log.error("Failed to create audit log for data synchronization", e);
+        AuditEvent event = auditJournal.claim(AuditEventType.DATA_SYNCHRONIZATION);
+        if (event != null) {
+            auditJournal.publish(event.category(syncType).orderId(orderId).detail(details).success(success));
         }
     }
 
@@ -115,23 +77,12 @@ public class AuditLogService {
      * Log system errors and conflicts
      */
     public void logSystemError(String errorType, Long orderId, String errorMessage, Exception exception) {
-        try {
-            Map<String, Object> auditLog = new HashMap<>();
-            auditLog.put("eventType", "SYSTEM_ERROR");
-            auditLog.put("timestamp", LocalDateTime.now().toString());
-            auditLog.put("errorType", errorType);
-            auditLog.put("orderId", orderId);
-            auditLog.put("errorMessage", errorMessage);
-            auditLog.put("exceptionClass", exception != null ? exception.getClass().getSimpleName() : null);
-            auditLog.put("stackTrace", exception != null ? exception.getMessage() : null);
-            auditLog.put("sessionId", getCurrentSessionId());
-            
-            String jsonLog = objectMapper.writeValueAsString(auditLog);
-            log.error("AUDIT_LOG: {}", jsonLog);
-            
-        } catch (Exception e) {
-            log.error("Failed to create audit log for system error", e);
+        AuditEvent event = auditJournal.claim(AuditEventType.SYSTEM_ERROR);
+        if (event != null) {
+            auditJournal.publish(event.category(errorType).orderId(orderId).detail(errorMessage)
+                    .exception(exception));
         }
+        log.error("AUDIT {} order={}: {}", errorType, orderId, errorMessage);
     }
 
     /**
@@ -144,34 +95,39 @@ public class AuditLogService {
     /**
      * Log invalid status transition attempts
      */
-    public void logInvalidStatusTransition(Long orderId, OrderStatus currentStatus, OrderStatus attemptedStatus, 
+    public void logInvalidStatusTransition(Long orderId, OrderStatus currentStatus, OrderStatus attemptedStatus,
                                          String userId, String errorMessage) {
-        try {
-            Map<String, Object> auditLog = new HashMap<>();
-            auditLog.put("eventType", "INVALID_STATUS_TRANSITION");
-            auditLog.put("timestamp", LocalDateTime.now().toString());
-            auditLog.put("orderId", orderId);
-            auditLog.put("currentStatus", currentStatus != null ? currentStatus.name() : null);
-            auditLog.put("attemptedStatus", attemptedStatus != null ? attemptedStatus.name() : null);
-            auditLog.put("userId", userId);
-            auditLog.put("errorMessage", errorMessage);
-            auditLog.put("sessionId", getCurrentSessionId());
-            
-            String jsonLog = objectMapper.writeValueAsString(auditLog);
-            log.warn("AUDIT_LOG: {}", jsonLog);
-            
-        } catch (Exception e) {
-            log.error("Failed to create audit log for invalid status transition", e);
+        AuditEvent event = auditJournal.claim(AuditEventType.INVALID_STATUS_TRANSITION);
+        if (event != null) {
+            auditJournal.publish(event.orderId(orderId).fromStatus(currentStatus).toStatus(attemptedStatus)
+                    .actor(userId).detail(errorMessage));
         }
+        log.warn("AUDIT invalid transition order={} {} -> {} by {}", orderId, currentStatus, attemptedStatus, userId);
     }
 
     /**
-     * Get current session ID for tracking
-     * In a real implementation, this would get the actual session ID
+     * Audit trail of an order, newest first
      */
-    private String getCurrentSessionId() {
-        // For now, return a placeholder
-        // In production, this would integrate with Spring Security to get actual session
-        return "SESSION_" + System.currentTimeMillis();
+    public List<JsonNode> getOrderAuditTrail(Long orderId, LocalDateTime from, LocalDateTime to, int limit) {
+        return parse(auditSegmentStore.findByOrderId(orderId, from, to, limit));
     }
-}
\ No newline at end of file
+
+    /**
+     * Audit events recorded for an actor (email or SYSTEM), newest first
+     */
+    public List<JsonNode> getActorAuditTrail(String actor, LocalDateTime from, LocalDateTime to, int limit) {
+        return parse(auditSegmentStore.findByActor(actor, from, to, limit));
+    }
+
+    private List<JsonNode> parse(List<String> lines) {
+        List<JsonNode> events = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            try {
+                events.add(objectMapper.readTree(line));
+            } catch (Exception e) {
+                log.warn("Skipping unreadable audit record: {}", e.getMessage());
+            }
+        }
+        return events;
+    }
+}
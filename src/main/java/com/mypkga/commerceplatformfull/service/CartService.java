@@ -1,5 +1,6 @@
 package com.mypkga.commerceplatformfull.service;
 
+import com.mypkga.commerceplatformfull.dto.CartSummary;
 import com.mypkga.commerceplatformfull.entity.Cart;
 import com.mypkga.commerceplatformfull.entity.CartItem;
 import com.mypkga.commerceplatformfull.entity.Product;
@@ -23,4 +24,18 @@ public interface CartService {
     void clearCart(Long userId);
 
     BigDecimal getCartTotal(Long userId);
+
+    CartSummary getCartSummary(String userEmail);
+
+    // Guest carts (in-memory, keyed by the guest cart cookie token)
+
+    Cart getGuestCart(String guestToken);
+
+    void addToGuestCart(String guestToken, Long productId, Integer quantity);
+
+    void updateGuestCartItemQuantity(String guestToken, Long productId, Integer quantity);
+
+    void removeFromGuestCart(String guestToken, Long productId);
+
+    void mergeGuestCart(String userEmail, String guestToken);
 }
@@ -1,5 +1,6 @@
 package com.mypkga.commerceplatformfull.service;
 
+import com.mypkga.commerceplatformfull.dto.CartSummary;
 import com.mypkga.commerceplatformfull.entity.Cart;
 import com.mypkga.commerceplatformfull.entity.CartItem;
 import com.mypkga.commerceplatformfull.entity.Product;
@@ -9,12 +10,18 @@ import com.mypkga.commerceplatformfull.exception.OutOfStockException;
 import com.mypkga.commerceplatformfull.repository.CartItemRepository;
 import com.mypkga.commerceplatformfull.repository.CartRepository;
 import com.mypkga.commerceplatformfull.repository.ProductRepository;
+import com.mypkga.commerceplatformfull.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -25,16 +32,29 @@ public class CartServiceImpl implements CartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final GuestCartStore guestCartStore;
+    private final CartSummaryCache cartSummaryCache;
 
+    /**
+     * Cart of a user; a user without one gets an unsaved empty cart so that
+     * viewing pages never inserts into the carts table.
+     */
     @Override
     public Cart getCartByUser(User user) {
-        Optional<Cart> cart = cartRepository.findByUser(user);
-        if (cart.isEmpty()) {
+        return cartRepository.findByUser(user).orElseGet(() -> {
+            Cart emptyCart = new Cart();
+            emptyCart.setUser(user);
+            return emptyCart;
+        });
+    }
+
+    private Cart getOrCreateCart(User user) {
+        return cartRepository.findByUser(user).orElseGet(() -> {
             Cart newCart = new Cart();
             newCart.setUser(user);
             return cartRepository.save(newCart);
-        }
-        return cart.get();
+        });
     }
 
     @Override
@@ -46,7 +66,7 @@ public class CartServiceImpl implements CartService {
     @Override
     @Transactional
     public CartItem addToCart(User user, Long productId, Integer quantity) {
-        Cart cart = getCartByUser(user);
+        Cart cart = getOrCreateCart(user);
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
 
@@ -74,11 +94,12 @@ public class CartServiceImpl implements CartService {
             );
         }
 
+        CartItem saved;
         if (existingItem.isPresent()) {
             CartItem item = existingItem.get();
             item.setQuantity(totalQuantity);
             log.info("Updated cart item quantity - Product: {}, Quantity: {}", product.getName(), totalQuantity);
-            return cartItemRepository.save(item);
+            saved = cartItemRepository.save(item);
         } else {
             CartItem newItem = new CartItem();
             newItem.setCart(cart);
@@ -86,8 +107,11 @@ public class CartServiceImpl implements CartService {
             newItem.setQuantity(quantity);
             newItem.setPrice(product.getPrice());
             log.info("Added new item to cart - Product: {}, Quantity: {}", product.getName(), quantity);
-            return cartItemRepository.save(newItem);
+            saved = cartItemRepository.save(newItem);
         }
+        touch(cart);
+        evictSummary(user.getEmail());
+        return saved;
     }
 
     @Override
@@ -96,10 +120,14 @@ public class CartServiceImpl implements CartService {
         CartItem item = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found: " + cartItemId));
 
+        String email = item.getCart().getUser().getEmail();
+
         // If quantity is 0 or negative, remove item
         if (quantity <= 0) {
             log.info("Removing cart item - Product: {}", item.getProduct().getName());
             cartItemRepository.delete(item);
+            touch(item.getCart());
+            evictSummary(email);
             return null;
         }
 
@@ -118,20 +146,30 @@ public class CartServiceImpl implements CartService {
 
         item.setQuantity(quantity);
         log.info("Updated cart item quantity - Product: {}, New quantity: {}", product.getName(), quantity);
-        return cartItemRepository.save(item);
+        CartItem saved = cartItemRepository.save(item);
+        touch(item.getCart());
+        evictSummary(email);
+        return saved;
     }
 
     @Override
     @Transactional
     public void removeFromCart(Long cartItemId) {
-        cartItemRepository.deleteById(cartItemId);
+        cartItemRepository.findById(cartItemId).ifPresent(item -> {
+            String email = item.getCart().getUser().getEmail();
+            cartItemRepository.delete(item);
+            touch(item.getCart());
+            evictSummary(email);
+        });
     }
 
     @Override
     @Transactional
     public void clearCart(Long userId) {
-        Cart cart = getCartByUserId(userId);
-        cartItemRepository.deleteByCartId(cart.getId());
+        cartRepository.findByUserId(userId).ifPresent(cart -> {
+            cartItemRepository.deleteByCartId(cart.getId());
+            evictSummary(cart.getUser().getEmail());
+        });
     }
 
     @Override
@@ -139,4 +177,167 @@ public class CartServiceImpl implements CartService {
         Cart cart = getCartByUserId(userId);
         return cart.getTotalAmount();
     }
+
+    /**
+     * Header badge summary, served from {@link CartSummaryCache}; a miss costs one aggregate query.
+     */
+    @Override
+    public CartSummary getCartSummary(String userEmail) {
+        return cartSummaryCache.get(userEmail, this::loadSummary);
+    }
+
+    private CartSummary loadSummary(String email) {
+        List<Object[]> rows = cartItemRepository.summarizeByUserEmail(email);
+        if (rows.isEmpty()) {
+            return CartSummary.EMPTY;
+        }
+        Object[] row = rows.get(0);
+        int itemCount = ((Number) row[0]).intValue();
+        BigDecimal total = row[1] instanceof BigDecimal amount ? amount : new BigDecimal(row[1].toString());
+        return new CartSummary(itemCount, total);
+    }
+
+    /**
+     * Mark the cart as active so the abandoned cart sweeper measures idleness from the last change;
+     * item changes alone do not bump the cart's update timestamp.
+     */
+    private void touch(Cart cart) {
+        cart.setUpdatedDate(LocalDateTime.now());
+    }
+
+    /**
+     * Drop the cached summary once the current transaction commits; the next read reloads it.
+     */
+    private void evictSummary(String email) {
+        cartSummaryCache.evictAfterCommit(email);
+    }
+
+    /**
+     * Unsaved cart built from a guest cart for rendering. Item ids are product ids,
+     * which is what the guest update/remove endpoints expect.
+     */
+    @Override
+    public Cart getGuestCart(String guestToken) {
+        Cart cart = new Cart();
+        GuestCartStore.GuestCart guestCart = guestCartStore.get(guestToken);
+        if (guestCart == null || guestCart.isEmpty()) {
+            return cart;
+        }
+
+        Map<Long, Integer> quantities = guestCart.snapshot();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            CartItem item = new CartItem();
+            item.setId(product.getId());
+            item.setCart(cart);
+            item.setProduct(product);
+            item.setQuantity(quantities.get(product.getId()));
+            item.setPrice(product.getPrice());
+            cart.getItems().add(item);
+        }
+        return cart;
+    }
+
+    @Override
+    public void addToGuestCart(String guestToken, Long productId, Integer quantity) {
+        if (quantity <= 0) {
+            throw new CartUpdateException("Quantity must be greater than 0");
+        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
+
+        GuestCartStore.GuestCart guestCart = guestCartStore.getOrCreate(guestToken);
+        int totalQuantity = guestCart.getQuantity(productId) + quantity;
+        checkStock(product, totalQuantity);
+        guestCart.setQuantity(productId, totalQuantity);
+        log.debug("Guest cart: product {} quantity {}", productId, totalQuantity);
+    }
+
+    @Override
+    public void updateGuestCartItemQuantity(String guestToken, Long productId, Integer quantity) {
+        GuestCartStore.GuestCart guestCart = guestCartStore.get(guestToken);
+        if (guestCart == null) {
+            return;
+        }
+        if (quantity > 0) {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
+            checkStock(product, quantity);
+        }
+        guestCart.setQuantity(productId, quantity);
+    }
+
+    @Override
+    public void removeFromGuestCart(String guestToken, Long productId) {
+        GuestCartStore.GuestCart guestCart = guestCartStore.get(guestToken);
+        if (guestCart != null) {
+            guestCart.setQuantity(productId, 0);
+        }
+    }
+
+    /**
+     * Move a guest cart into the user's persistent cart after login: one cart lookup,
+     * one item query, one product query and a single saveAll in one transaction.
+     * Quantities are added to existing lines and capped at available stock.
+     */
+    @Override
+    @Transactional
+    public void mergeGuestCart(String userEmail, String guestToken) {
+        GuestCartStore.GuestCart guestCart = guestCartStore.get(guestToken);
+        if (guestCart == null || guestCart.isEmpty()) {
+            guestCartStore.remove(guestToken);
+            return;
+        }
+
+        User user = userRepository.findByEmail(userEmail).orElse(null);
+        if (user == null) {
+            return;
+        }
+
+        Map<Long, Integer> guestItems = guestCart.snapshot();
+        Cart cart = getOrCreateCart(user);
+        Map<Long, CartItem> existingItems = new HashMap<>();
+        if (cart.getId() != null) {
+            for (CartItem item : cartItemRepository.findByCartId(cart.getId())) {
+                existingItems.put(item.getProduct().getId(), item);
+            }
+        }
+
+        List<CartItem> changed = new ArrayList<>(guestItems.size());
+        for (Product product : productRepository.findAllById(guestItems.keySet())) {
+            if (product.getStockQuantity() <= 0) {
+                continue;
+            }
+            CartItem item = existingItems.get(product.getId());
+            int current = item != null ? item.getQuantity() : 0;
+            int merged = Math.min(current + guestItems.get(product.getId()), product.getStockQuantity());
+            if (item == null) {
+                item = new CartItem();
+                item.setCart(cart);
+                item.setProduct(product);
+                item.setPrice(product.getPrice());
+            } else if (merged == current) {
+                continue;
+            }
+            item.setQuantity(merged);
+            changed.add(item);
+        }
+
+        cartItemRepository.saveAll(changed);
+        touch(cart);
+        evictSummary(userEmail);
+        guestCartStore.remove(guestToken);
+        log.info("Merged guest cart into cart of {} ({} lines)", userEmail, changed.size());
+    }
+
+    private void checkStock(Product product, int requestedQuantity) {
+        if (product.getStockQuantity() < requestedQuantity) {
+            log.warn("Out of stock - Product: {}, Available: {}, Requested: {}",
+                product.getName(), product.getStockQuantity(), requestedQuantity);
+            throw new OutOfStockException(
+                String.format("Không đủ hàng trong kho. Chỉ còn %d sản phẩm", product.getStockQuantity()),
+                product.getStockQuantity(),
+                requestedQuantity
+            );
+        }
+    }
 }
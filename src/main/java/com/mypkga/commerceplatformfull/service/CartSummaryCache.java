@@ -0,0 +1,65 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mypkga.commerceplatformfull.dto.CartSummary;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Per-user cart summary (item count, total) keyed by login email.
+ * Cart mutations evict the entry after their transaction commits and the next page render
+ * reloads it. Caffeine finishes any load already running for the key before the eviction
+ * applies, so a summary read before the commit cannot outlive it.
+ */
+@Component
+public class CartSummaryCache {
+
+    @Value("${app.cart-summary.max-users:10000}")
+    private long maxUsers;
+
+    @Value("${app.cart-summary.ttl:30m}")
+    private Duration ttl;
+
+    private Cache<String, CartSummary> summaries;
+
+    @PostConstruct
+    void init() {
+        summaries = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public CartSummary get(String email, Function<String, CartSummary> loader) {
+        return summaries.get(email, loader);
+    }
+
+    /**
+     * Drop a summary once the surrounding transaction commits (immediately if there is none).
+     * Evicting rather than storing a computed summary keeps two concurrent mutations from
+     * leaving the older one's summary behind.
+     */
+    public void evictAfterCommit(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    summaries.invalidate(email);
+                }
+            });
+        } else {
+            summaries.invalidate(email);
+        }
+    }
+
+    public void evict(String email) {
+        summaries.invalidate(email);
+    }
+}
@@ -6,19 +6,15 @@ import com.google.gson.JsonObject;
 import com.mypkga.commerceplatformfull.entity.Product;
 import com.mypkga.commerceplatformfull.repository.ProductRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -31,6 +27,9 @@ public class ChatbotService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private RestTemplate restTemplate;
+
     @Value("${groq.api-key}")
     private String apiKey;
 
@@ -905,98 +904,88 @@ public class ChatbotService {
     }
 
     private String processMessageWithAI(String userMessage) throws Exception {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost request = new HttpPost(apiUrl);
-            request.addHeader("Content-Type", "application/json");
-            request.addHeader("Authorization", "Bearer " + apiKey);
-
-            // Tìm sản phẩm liên quan đến tin nhắn của user
-            List<Product> relevantProducts = searchProductsFromMessage(userMessage);
-
-            StringBuilder productContext = new StringBuilder();
-            if (!relevantProducts.isEmpty()) {
-                productContext.append("Sản phẩm liên quan:\n");
-                for (Product p : relevantProducts) {
-                    productContext.append("- ").append(p.getName())
-                            .append(" (").append(formatPrice(p.getPrice())).append(")\n");
-
-                    // Thêm thông số kỹ thuật
-                    if (p.getDescription() != null) {
-                        String[] specs = extractSpecs(p.getDescription());
-                        for (String spec : specs) {
-                            if (specs.length <= 3) { // Chỉ hiện 3 specs đầu để không quá dài
-                                productContext.append("  + ").append(spec).append("\n");
-                            }
+        // Tìm sản phẩm liên quan đến tin nhắn của user
+        List<Product> relevantProducts = searchProductsFromMessage(userMessage);
+
+        StringBuilder productContext = new StringBuilder();
+        if (!relevantProducts.isEmpty()) {
+            productContext.append("Sản phẩm liên quan:\n");
+            for (Product p : relevantProducts) {
+                productContext.append("- ").append(p.getName())
+                        .append(" (").append(formatPrice(p.getPrice())).append(")\n");
+
+                // Thêm thông số kỹ thuật
+                if (p.getDescription() != null) {
+                    String[] specs = extractSpecs(p.getDescription());
+                    for (String spec : specs) {
+                        if (specs.length <= 3) { // Chỉ hiện 3 specs đầu để không quá dài
+                            productContext.append("  + ").append(spec).append("\n");
                         }
                     }
                 }
-            } else {
-                // Nếu không tìm thấy sản phẩm liên quan, hiển thị sản phẩm thay thế
-                List<Product> alternativeProducts = getAlternativeProducts();
-                productContext.append("Sản phẩm có sẵn:\n");
-                for (Product p : alternativeProducts.subList(0, Math.min(5, alternativeProducts.size()))) {
-                    productContext.append("- ").append(p.getName())
-                            .append(" (").append(formatPrice(p.getPrice())).append(")\n");
-                }
             }
-
-            JsonObject requestBody = new JsonObject();
-            requestBody.addProperty("model", model);
-
-            JsonArray messages = new JsonArray();
-
-            JsonObject systemMessage = new JsonObject();
-            systemMessage.addProperty("role", "system");
-            systemMessage.addProperty("content",
-                    "Bạn là trợ lý mua sắm thông minh của cửa hàng thương mại điện tử. " +
-                            "BẮT BUỘC phải trả lời bằng tiếng Việt. " +
-                            "QUAN TRỌNG: CHỈ sử dụng thông tin sản phẩm có trong danh sách bên dưới. " +
-                            "TUYỆT ĐỐI KHÔNG tự tạo ra tên sản phẩm, giá cả, hoặc thông số kỹ thuật không có trong dữ liệu.\n"
-                            +
-                            "DANH SÁCH SẢN PHẨM CỬA HÀNG:\n" +
-                            productContext.toString() + "\n" +
-                            "Nếu không có sản phẩm phù hợp trong danh sách trên:\n" +
-                            "- Nói rõ 'Rất tiếc, chúng tôi hiện không có sản phẩm phù hợp'\n" +
-                            "- Chỉ gợi ý các sản phẩm có trong danh sách trên\n" +
-                            "- KHÔNG được tạo ra sản phẩm mới\n\n" +
-                            "Chính sách cửa hàng:\n" +
-                            "- 🚚 Miễn phí vận chuyển đơn hàng trên 500.000đ\n" +
-                            "- 🔄 Đổi trả trong 7 ngày, không cần lý do\n" +
-                            "- 💳 Thanh toán: COD, chuyển khoản, thẻ tín dụng\n" +
-                            "- 🛡️ Bảo hành chính hãng theo quy định nhà sản xuất\n" +
-                            "- 📞 Hỗ trợ 24/7 qua hotline và chat");
-            messages.add(systemMessage);
-
-            JsonObject userMsg = new JsonObject();
-            userMsg.addProperty("role", "user");
-            userMsg.addProperty("content", userMessage);
-            messages.add(userMsg);
-
-            requestBody.add("messages", messages);
-            requestBody.addProperty("max_tokens", 800);
-            requestBody.addProperty("temperature", 0.7);
-
-            request.setEntity(new StringEntity(requestBody.toString(), StandardCharsets.UTF_8));
-
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8));
-                StringBuilder result = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    result.append(line);
-                }
-
-                Gson gson = new Gson();
-                JsonObject responseJson = gson.fromJson(result.toString(), JsonObject.class);
-
-                return responseJson
-                        .getAsJsonArray("choices")
-                        .get(0).getAsJsonObject()
-                        .getAsJsonObject("message")
-                        .get("content").getAsString().trim();
+        } else {
+            // Nếu không tìm thấy sản phẩm liên quan, hiển thị sản phẩm thay thế
+            List<Product> alternativeProducts = getAlternativeProducts();
+            productContext.append("Sản phẩm có sẵn:\n");
+            for (Product p : alternativeProducts.subList(0, Math.min(5, alternativeProducts.size()))) {
+                productContext.append("- ").append(p.getName())
+                        .append(" (").append(formatPrice(p.getPrice())).append(")\n");
             }
         }
+
+        JsonObject requestBody = new JsonObject();
+        requestBody.addProperty("model", model);
+
+        JsonArray messages = new JsonArray();
+
+        JsonObject systemMessage = new JsonObject();
+        systemMessage.addProperty("role", "system");
+        systemMessage.addProperty("content",
+                "Bạn là trợ lý mua sắm thông minh của cửa hàng thương mại điện tử. " +
+                        "BẮT BUỘC phải trả lời bằng tiếng Việt. " +
+                        "QUAN TRỌNG: CHỈ sử dụng thông tin sản phẩm có trong danh sách bên dưới. " +
+                        "TUYỆT ĐỐI KHÔNG tự tạo ra tên sản phẩm, giá cả, hoặc thông số kỹ thuật không có trong dữ liệu.\n"
+                        +
+                        "DANH SÁCH SẢN PHẨM CỬA HÀNG:\n" +
+                        productContext.toString() + "\n" +
+                        "Nếu không có sản phẩm phù hợp trong danh sách trên:\n" +
+                        "- Nói rõ 'Rất tiếc, chúng tôi hiện không có sản phẩm phù hợp'\n" +
+                        "- Chỉ gợi ý các sản phẩm có trong danh sách trên\n" +
+                        "- KHÔNG được tạo ra sản phẩm mới\n\n" +
+                        "Chính sách cửa hàng:\n" +
+                        "- 🚚 Miễn phí vận chuyển đơn hàng trên 500.000đ\n" +
+                        "- 🔄 Đổi trả trong 7 ngày, không cần lý do\n" +
+                        "- 💳 Thanh toán: COD, chuyển khoản, thẻ tín dụng\n" +
+                        "- 🛡️ Bảo hành chính hãng theo quy định nhà sản xuất\n" +
+                        "- 📞 Hỗ trợ 24/7 qua hotline và chat");
+        messages.add(systemMessage);
+
+        JsonObject userMsg = new JsonObject();
+        userMsg.addProperty("role", "user");
+        userMsg.addProperty("content", userMessage);
+        messages.add(userMsg);
+
+        requestBody.add("messages", messages);
+        requestBody.addProperty("max_tokens", 800);
+        requestBody.addProperty("temperature", 0.7);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(apiKey);
+
+        // Pooled gateway client; timeouts and metrics come from HttpClientConfig
+        String result = restTemplate.postForObject(apiUrl,
+                new HttpEntity<>(requestBody.toString(), headers), String.class);
+
+        Gson gson = new Gson();
+        JsonObject responseJson = gson.fromJson(result, JsonObject.class);
+
+        return responseJson
+                .getAsJsonArray("choices")
+                .get(0).getAsJsonObject()
+                .getAsJsonObject("message")
+                .get("content").getAsString().trim();
     }
 
     public List<Product> getRecommendations() {
@@ -0,0 +1,62 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.mypkga.commerceplatformfull.dto.CheckoutPreflightResult;
+import com.mypkga.commerceplatformfull.repository.CartItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checkout preflight: revalidates stock and prices of a whole cart in one round trip
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutPreflightService {
+
+    private final CartItemRepository cartItemRepository;
+
+    /**
+     * Read every cart line with its product's current stock and price in a single query
+     */
+    @Transactional(readOnly = true)
+    public CheckoutPreflightResult check(Long userId) {
+        List<Object[]> rows = cartItemRepository.findCheckoutLinesByUserId(userId);
+        Long cartId = null;
+        List<CheckoutPreflightResult.Line> lines = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            cartId = (Long) row[0];
+            lines.add(new CheckoutPreflightResult.Line(
+                    (Long) row[1],
+                    (Long) row[2],
+                    (String) row[3],
+                    (Integer) row[6],
+                    row[4] != null ? (Integer) row[4] : 0,
+                    (BigDecimal) row[7],
+                    (BigDecimal) row[5]));
+        }
+
+        CheckoutPreflightResult result = new CheckoutPreflightResult(cartId, lines);
+        if (!result.getOutOfStock().isEmpty() || !result.getPriceChanged().isEmpty()) {
+            log.info("Checkout preflight for user {}: {} out of stock, {} price changes",
+                    userId, result.getOutOfStock().size(), result.getPriceChanged().size());
+        }
+        return result;
+    }
+
+    /**
+     * Bring every cart line's price snapshot up to the current product price in one statement.
+     * Runs in its own transaction so it sticks even when the caller aborts the checkout.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void refreshCartPrices(Long cartId) {
+        int updated = cartItemRepository.refreshPricesByCartId(cartId);
+        log.debug("Refreshed {} cart item prices for cart {}", updated, cartId);
+    }
+}
@@ -10,8 +10,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
 
 /**
  * Service for ensuring data consistency between database and UI
@@ -25,6 +23,7 @@ public class DataSynchronizationService {
     private final OrderRepository orderRepository;
     private final OrderTimelineService orderTimelineService;
     private final AuditLogService auditLogService;
+    private final OrderConsistencyScanner orderConsistencyScanner;
 
     /**
      * Synchronize order status with database - ensures UI consistency
@@ -190,39 +189,12 @@ public class DataSynchronizationService {
     }
 
     /**
-     * Bulk synchronization for all orders - maintenance operation
+     * Bulk synchronization for all orders - maintenance operation.
+     * Delegates to the chunked, checkpointed OrderConsistencyScanner instead of
+     * loading the whole table inside one transaction.
      */
-    @Transactional
     public void syncAllOrders() {
-        try {
-            List<Order> allOrders = orderRepository.findAll();
-            int fixedCount = 0;
-            int errorCount = 0;
-            
-            for (Order order : allOrders) {
-                try {
-                    if (!validateDataConsistency(order.getId())) {
-                        fixDataInconsistency(order.getId());
-                        fixedCount++;
-                    }
-                } catch (Exception e) {
-                    errorCount++;
-                    log.error("Failed to sync order {}: {}", order.getId(), e.getMessage());
-                }
-            }
-            
-            auditLogService.logDataSynchronization("BULK_SYNC", null, 
-                String.format("Bulk sync completed: %d orders processed, %d fixed, %d errors", 
-                    allOrders.size(), fixedCount, errorCount), errorCount == 0);
-            
-            log.info("Bulk synchronization completed: {} orders processed, {} fixed, {} errors", 
-                allOrders.size(), fixedCount, errorCount);
-                
-        } catch (Exception e) {
-            auditLogService.logSystemError("BULK_SYNC_ERROR", null, 
-                "Failed to perform bulk synchronization", e);
-            throw e;
-        }
+        orderConsistencyScanner.runScan(true);
     }
 
     /**
@@ -37,6 +37,16 @@ public interface EmailService {
      * @return true if email was sent successfully, false otherwise
      */
     boolean sendHtmlEmail(String email, String subject, String htmlContent);
+
+    /**
+     * Send HTML email carrying a one-time code or link
+     * @param email The recipient email address
+     * @param subject The email subject
+     * @param htmlContent The HTML content
+     * @param validFor How long the code or link stays valid; the email is not delivered after that
+     * @return true if email was sent successfully, false otherwise
+     */
+    boolean sendSecretHtmlEmail(String email, String subject, String htmlContent, java.time.Duration validFor);
     
     /**
      * Send return approval notification to customer
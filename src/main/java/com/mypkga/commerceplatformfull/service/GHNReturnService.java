@@ -20,10 +20,20 @@ public interface GHNReturnService {
      * Create return shipping order with GHN
      * 
      * @param returnRequest the return request to create shipping for
-     * @return GHN order response with tracking information
+     * @return GHN order response with tracking information; a rejected order comes back
+     *         with its GHN code and message and no data
      */
     GHNCreateOrderResponse createReturnShippingOrder(ReturnRequest returnRequest);
     
+    /**
+     * Look up the GHN return order of a return request by its client order code,
+     * e.g. after a create call whose outcome is unknown
+     * 
+     * @param returnRequest the return request the order was created for
+     * @return order information, or null if GHN has no such order
+     */
+    GHNOrderInfo findReturnShippingOrder(ReturnRequest returnRequest);
+    
     /**
      * Get order status from GHN
      * 
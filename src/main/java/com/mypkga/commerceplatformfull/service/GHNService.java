@@ -3,6 +3,8 @@ package com.mypkga.commerceplatformfull.service;
 import com.mypkga.commerceplatformfull.dto.ghn.*;
 import com.mypkga.commerceplatformfull.entity.ReturnRequest;
 
+import java.util.List;
+
 /**
  * Service interface for Giao Hàng Nhanh (GHN) API integration
  * Handles return shipment creation, tracking, and status updates
@@ -43,6 +45,14 @@ public interface GHNService {
      */
     void processStatusUpdate(GHNWebhookPayload payload);
     
+    /**
+     * Apply webhook status updates in list order, loading the affected return requests
+     * in one query and saving them in one batch. Joins the caller's transaction and
+     * throws if any update cannot be applied.
+     * @param payloads the webhook payloads, oldest first for each order code
+     */
+    void applyStatusUpdates(List<GHNWebhookPayload> payloads);
+    
     /**
      * Map GHN status to internal return status
      * @param ghnStatus the GHN status string
@@ -0,0 +1,194 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mypkga.commerceplatformfull.exception.CartUpdateException;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded in-memory store of anonymous carts keyed by the guest cart cookie.
+ * A guest cart is only productId -> quantity; products and prices are loaded when it is
+ * rendered. Nothing reaches the carts table until the visitor logs in and the cart is merged.
+ */
+@Component
+public class GuestCartStore {
+
+    public static final String COOKIE_NAME = "GUEST_CART";
+
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("[A-Za-z0-9_-]{22}");
+
+    @Value("${app.guest-cart.max-carts:50000}")
+    private long maxCarts;
+
+    @Value("${app.guest-cart.ttl:3d}")
+    private Duration ttl;
+
+    @Value("${app.guest-cart.max-items:50}")
+    private int maxItemsPerCart;
+
+    private final SecureRandom random = new SecureRandom();
+    private Cache<String, GuestCart> carts;
+
+    @PostConstruct
+    void init() {
+        carts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterAccess(ttl)
+                .build();
+    }
+
+    /**
+     * Token from the guest cart cookie, or null if absent or malformed.
+     */
+    public String resolveToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName()) && cookie.getValue() != null
+                    && TOKEN_PATTERN.matcher(cookie.getValue()).matches()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Token of the current visitor, issuing a new cookie if there is none yet.
+     */
+    public String resolveOrIssueToken(HttpServletRequest request, HttpServletResponse response) {
+        String token = resolveToken(request);
+        if (token != null) {
+            return token;
+        }
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        writeCookie(response, token, ttl);
+        return token;
+    }
+
+    public void clearCookie(HttpServletResponse response) {
+        writeCookie(response, "", Duration.ZERO);
+    }
+
+    public GuestCart get(String token) {
+        return token != null ? carts.getIfPresent(token) : null;
+    }
+
+    public GuestCart getOrCreate(String token) {
+        return carts.get(token, t -> new GuestCart(maxItemsPerCart));
+    }
+
+    public GuestCart remove(String token) {
+        return token != null ? carts.asMap().remove(token) : null;
+    }
+
+    public long size() {
+        return carts.estimatedSize();
+    }
+
+    private void writeCookie(HttpServletResponse response, String value, Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+                .path("/")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    /**
+     * Compact guest cart: product ids and quantities in two small parallel arrays.
+     */
+    public static final class GuestCart {
+
+        private final int maxItems;
+        private long[] productIds = new long[4];
+        private int[] quantities = new int[4];
+        private int size;
+
+        GuestCart(int maxItems) {
+            this.maxItems = maxItems;
+        }
+
+        public synchronized int getQuantity(long productId) {
+            int index = indexOf(productId);
+            return index >= 0 ? quantities[index] : 0;
+        }
+
+        /**
+         * Set the quantity of a product; zero or less removes it.
+         */
+        public synchronized void setQuantity(long productId, int quantity) {
+            int index = indexOf(productId);
+            if (quantity <= 0) {
+                if (index >= 0) {
+                    size--;
+                    productIds[index] = productIds[size];
+                    quantities[index] = quantities[size];
+                }
+                return;
+            }
+            if (index >= 0) {
+                quantities[index] = quantity;
+                return;
+            }
+            if (size >= maxItems) {
+                throw new CartUpdateException("Giỏ hàng đã đạt số lượng sản phẩm tối đa");
+            }
+            if (size == productIds.length) {
+                productIds = Arrays.copyOf(productIds, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            productIds[size] = productId;
+            quantities[size] = quantity;
+            size++;
+        }
+
+        public synchronized Map<Long, Integer> snapshot() {
+            Map<Long, Integer> items = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                items.put(productIds[i], quantities[i]);
+            }
+            return items;
+        }
+
+        public synchronized int totalItems() {
+            int total = 0;
+            for (int i = 0; i < size; i++) {
+                total += quantities[i];
+            }
+            return total;
+        }
+
+        public synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int indexOf(long productId) {
+            for (int i = 0; i < size; i++) {
+                if (productIds[i] == productId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.mypkga.commerceplatformfull.entity.JobCheckpoint;
+import com.mypkga.commerceplatformfull.entity.Order;
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import com.mypkga.commerceplatformfull.repository.JobCheckpointRepository;
+import com.mypkga.commerceplatformfull.repository.OrderRepository;
+import com.mypkga.commerceplatformfull.repository.OrderTimelineRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background scanner that compares {@code orders.current_status} with the latest
+ * timeline entry of each order.
+ * Orders are walked in keyset chunks; each chunk costs one id query and one
+ * latest-timeline query. Chunks run in parallel within a configurable DB budget and
+ * progress is checkpointed so an interrupted scan resumes where it stopped.
+ * The nightly pass only reports mismatches; a pass started by an admin also repairs them.
+ * Each mode keeps its own checkpoint, so one never resumes or completes the other's pass.
+ * An order that is ahead of its timeline (e.g. a return recorded before return steps were
+ * written to the timeline) gets the missing timeline entry; any other order is moved to
+ * its timeline status through {@link Order#updateCurrentStatus}, with audit and
+ * {@link OrderStatusChangedEvent} like any other status change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderConsistencyScanner {
+
+    // Repairing passes keep the original checkpoint name, which the bulk-sync status reports
+    static final String JOB_NAME = "order-consistency-scan";
+    static final String REPORT_JOB_NAME = "order-consistency-report";
+
+    private final OrderRepository orderRepository;
+    private final OrderTimelineRepository orderTimelineRepository;
+    private final OrderTimelineService orderTimelineService;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final AuditLogService auditLogService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Qualifier("consistencyScanExecutor")
+    private final Executor consistencyScanExecutor;
+
+    @Value("${app.consistency-scan.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.consistency-scan.parallelism:2}")
+    private int parallelism;
+
+    @Value("${app.consistency-scan.max-chunks-per-second:5}")
+    private double maxChunksPerSecond;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean stopRequested = false;
+
+    /**
+     * Nightly report-only pass; also resumes a report pass that was interrupted by a restart.
+     * An interrupted repair is resumed by the next repairing run.
+     */
+    @Scheduled(cron = "${app.consistency-scan.cron:0 30 3 * * *}")
+    public void scheduledScan() {
+        if (!startScan(false)) {
+            log.info("Order consistency scan already running, skipping");
+        }
+    }
+
+    /**
+     * Start a repairing scan on a background thread.
+     *
+     * @return false if a scan is already running
+     */
+    public boolean startScan() {
+        return startScan(true);
+    }
+
+    private boolean startScan(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofVirtual().name("consistency-scan-coordinator").start(() -> {
+            try {
+                scan(repair);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Ask a running scan to stop after its in-flight chunks; the checkpoint keeps its place.
+     */
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Progress of the current or last repairing pass.
+     */
+    public JobCheckpoint getCheckpoint() {
+        return getCheckpoint(true);
+    }
+
+    private JobCheckpoint getCheckpoint(boolean repair) {
+        String jobName = repair ? JOB_NAME : REPORT_JOB_NAME;
+        return jobCheckpointRepository.findById(jobName).orElseGet(() -> new JobCheckpoint(jobName));
+    }
+
+    /**
+     * Run (or resume) a full pass over the orders table on the calling thread.
+     *
+     * @param repair fix mismatches instead of only reporting them
+     */
+    public void runScan(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Order consistency scan already running, skipping");
+            return;
+        }
+        try {
+            scan(repair);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void scan(boolean repair) {
+        stopRequested = false;
+        String outcome = repair ? "fixed" : "mismatched";
+
+        try {
+            JobCheckpoint checkpoint = getCheckpoint(repair);
+            if (!Boolean.TRUE.equals(checkpoint.getInProgress())) {
+                checkpoint.startNewPass();
+                checkpoint = jobCheckpointRepository.save(checkpoint);
+            } else {
+                log.info("Resuming order consistency scan after order {}", checkpoint.getLastProcessedId());
+            }
+
+            ScanProgress progress = new ScanProgress(checkpoint);
+            Semaphore budget = new Semaphore(parallelism);
+            long pacingNanos = maxChunksPerSecond > 0 ? (long) (1_000_000_000L / maxChunksPerSecond) : 0L;
+            long afterId = checkpoint.getLastProcessedId();
+            long sequence = 0;
+
+            while (!stopRequested) {
+                long chunkStartedAt = System.nanoTime();
+                List<Object[]> rows = orderRepository.findIdAndStatusAfter(afterId, PageRequest.of(0, chunkSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                long chunkSequence = sequence++;
+                long chunkLastId = (Long) rows.get(rows.size() - 1)[0];
+                budget.acquire();
+                try {
+                    consistencyScanExecutor.execute(() -> {
+                        try {
+                            int[] result = processChunk(rows, repair);
+                            progress.chunkDone(chunkSequence, chunkLastId, rows.size(), result[0], result[1]);
+                        } catch (Exception e) {
+                            log.error("Consistency scan chunk ending at order {} failed: {}", chunkLastId, e.getMessage());
+                            progress.chunkDone(chunkSequence, chunkLastId, rows.size(), 0, rows.size());
+                        } finally {
+                            budget.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    budget.release();
+                    throw e;
+                }
+
+                afterId = chunkLastId;
+                if (rows.size() < chunkSize) {
+                    break;
+                }
+
+                long remaining = pacingNanos - (System.nanoTime() - chunkStartedAt);
+                if (remaining > 0) {
+                    Thread.sleep(remaining / 1_000_000L, (int) (remaining % 1_000_000L));
+                }
+            }
+
+            // Wait for in-flight chunks
+            budget.acquire(parallelism);
+            budget.release(parallelism);
+
+            JobCheckpoint finished = progress.finish(!stopRequested);
+            auditLogService.logDataSynchronization("BULK_SYNC", null,
+                String.format("Consistency scan %s: %d orders processed, %d %s, %d errors",
+                    stopRequested ? "paused" : "completed",
+                    finished.getProcessedCount(), finished.getFixedCount(), outcome, finished.getErrorCount()),
+                finished.getErrorCount() == 0);
+            log.info("Order consistency scan {}: {} orders processed, {} {}, {} errors",
+                stopRequested ? "paused" : "completed",
+                finished.getProcessedCount(), finished.getFixedCount(), outcome, finished.getErrorCount());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Order consistency scan interrupted; it will resume from its checkpoint");
+        } catch (Exception e) {
+            auditLogService.logSystemError("BULK_SYNC_ERROR", null,
+                "Failed to perform order consistency scan", e);
+            log.error("Order consistency scan failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Compare one chunk against its latest timeline entries and, when repairing, fix the
+     * mismatches in one transaction.
+     *
+     * @param rows [orderId, currentStatus, updatedDate] rows for the chunk
+     * @return {fixed or mismatched, errors}
+     */
+    private int[] processChunk(List<Object[]> rows, boolean repair) {
+        List<Long> orderIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            orderIds.add((Long) row[0]);
+        }
+
+        Map<Long, Object[]> latestEntries = new HashMap<>();
+        for (Object[] row : orderTimelineRepository.findLatestStatusByOrderIds(orderIds)) {
+            latestEntries.put((Long) row[0], row);
+        }
+
+        Map<Long, OrderStatus> backfills = new HashMap<>();
+        Map<Long, Object[]> statusFixes = new HashMap<>();
+        for (Object[] row : rows) {
+            Long orderId = (Long) row[0];
+            OrderStatus orderStatus = (OrderStatus) row[1];
+            Object[] latest = latestEntries.get(orderId);
+
+            OrderStatus timelineStatus = latest != null ? (OrderStatus) latest[1] : null;
+            if (timelineStatus == orderStatus) {
+                continue;
+            }
+            if (timelineStatus == null || timelineStatus.canReach(orderStatus)) {
+                // The order is ahead of its timeline: record the status it is in
+                backfills.put(orderId, orderStatus);
+            } else {
+                statusFixes.put(orderId, latest);
+            }
+            log.debug("Order {} status {} != timeline status {}", orderId, orderStatus, timelineStatus);
+        }
+
+        int mismatched = backfills.size() + statusFixes.size();
+        if (!repair || mismatched == 0) {
+            return new int[]{mismatched, 0};
+        }
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            backfills.forEach((orderId, status) -> orderTimelineService.createTimelineEntry(orderId, status,
+                    "SYSTEM", "Timeline entry created during consistency fix"));
+
+            for (Order order : orderRepository.findAllById(statusFixes.keySet())) {
+                Object[] latest = statusFixes.get(order.getId());
+                OrderStatus oldStatus = order.getCurrentStatus();
+                OrderStatus newStatus = (OrderStatus) latest[1];
+                order.updateCurrentStatus(newStatus);
+                orderRepository.save(order);
+                auditLogService.logOrderStatusChange(order.getId(), oldStatus, newStatus, "SYSTEM",
+                        "Status restored from timeline during consistency fix");
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), (Long) latest[3], newStatus,
+                        "SYSTEM", "Status restored from timeline during consistency fix", (LocalDateTime) latest[2]));
+            }
+        });
+        return new int[]{mismatched, 0};
+    }
+
+    /**
+     * Tracks completed chunks and advances the checkpoint only past chunks whose
+     * predecessors have all finished, so a resume never skips unprocessed orders.
+     */
+    private class ScanProgress {
+
+        private final JobCheckpoint checkpoint;
+        private final TreeMap<Long, Long> completedChunks = new TreeMap<>();
+        private long nextSequence = 0;
+
+        ScanProgress(JobCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        synchronized void chunkDone(long sequence, long lastId, int processed, int fixed, int errors) {
+            checkpoint.setProcessedCount(checkpoint.getProcessedCount() + processed);
+            checkpoint.setFixedCount(checkpoint.getFixedCount() + fixed);
+            checkpoint.setErrorCount(checkpoint.getErrorCount() + errors);
+
+            completedChunks.put(sequence, lastId);
+            boolean advanced = false;
+            while (completedChunks.containsKey(nextSequence)) {
+                checkpoint.setLastProcessedId(completedChunks.remove(nextSequence));
+                nextSequence++;
+                advanced = true;
+            }
+
+            if (advanced) {
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                jobCheckpointRepository.save(checkpoint);
+            }
+        }
+
+        synchronized JobCheckpoint finish(boolean completed) {
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            if (completed) {
+                checkpoint.setInProgress(false);
+                checkpoint.setCompletedAt(checkpoint.getUpdatedAt());
+            }
+            return jobCheckpointRepository.save(checkpoint);
+        }
+    }
+}
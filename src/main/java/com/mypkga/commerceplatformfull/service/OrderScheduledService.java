@@ -1,15 +1,23 @@
 package com.mypkga.commerceplatformfull.service;
 
-import com.mypkga.commerceplatformfull.entity.Order;
-import com.mypkga.commerceplatformfull.entity.OrderStatus;
 import com.mypkga.commerceplatformfull.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for handling scheduled order operations
@@ -22,29 +30,140 @@ public class OrderScheduledService {
     private final OrderRepository orderRepository;
     private final OrderTimelineService orderTimelineService;
 
+    @Qualifier("autoConfirmExecutor")
+    private final Executor autoConfirmExecutor;
+
+    @Value("${app.auto-confirm.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.auto-confirm.batch-size:25}")
+    private int batchSize;
+
+    @Value("${app.auto-confirm.max-chunks-per-run:50}")
+    private int maxChunksPerRun;
+
+    @Value("${app.auto-confirm.retry-delay-minutes:5}")
+    private long retryDelayMinutes;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
     /**
-     * Auto-confirm delivery for orders that have been awaiting confirmation for more than 24 hours
-     * Runs every hour
+     * Auto-confirm delivery for orders whose autoConfirmAt deadline has passed.
+     * Polls the due-time index every few seconds; an idle tick is a single indexed
+     * query returning no rows, so cost follows due work rather than backlog size.
      */
-    @Scheduled(fixedRate = 3600000) // Run every hour (3600000 ms)
+    @Scheduled(fixedDelayString = "${app.auto-confirm.poll-interval-ms:5000}")
     public void autoConfirmExpiredDeliveries() {
-        log.info("Running auto-confirm delivery task...");
-        
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+
         try {
-            // Find all orders with AWAITING_CONFIRMATION status
-            List<Order> awaitingOrders = orderRepository.findByCurrentStatus(OrderStatus.AWAITING_CONFIRMATION);
-            
-            for (Order order : awaitingOrders) {
-                try {
-                    orderTimelineService.autoConfirmDeliveryIfExpired(order.getId());
-                } catch (Exception e) {
-                    log.error("Error auto-confirming delivery for order {}: {}", order.getId(), e.getMessage());
+            int confirmed = 0;
+            int failed = 0;
+
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> dueIds = orderRepository.findDueAutoConfirmOrderIds(now, PageRequest.of(0, chunkSize));
+                if (dueIds.isEmpty()) {
+                    break;
                 }
+
+                int[] result = processChunk(dueIds);
+                confirmed += result[0];
+                failed += result[1];
+
+                if (dueIds.size() < chunkSize) {
+                    break;
+                }
+            }
+
+            if (confirmed > 0 || failed > 0) {
+                log.info("Auto-confirm delivery task completed. Confirmed {} orders, {} failed", confirmed, failed);
             }
-            
-            log.info("Auto-confirm delivery task completed. Processed {} orders", awaitingOrders.size());
         } catch (Exception e) {
             log.error("Error in auto-confirm delivery task: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Give orders that entered AWAITING_CONFIRMATION before autoConfirmAt existed a deadline.
+     * Runs once at startup, walking the ids in keyset order.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAutoConfirmDeadlines() {
+        long afterId = 0L;
+        int backfilled = 0;
+
+        try {
+            while (true) {
+                List<Long> ids = orderRepository.findAwaitingConfirmationWithoutDeadline(afterId,
+                        PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                for (Long id : ids) {
+                    orderTimelineService.backfillAutoConfirmDeadline(id);
+                    backfilled++;
+                }
+                afterId = ids.get(ids.size() - 1);
+            }
+
+            if (backfilled > 0) {
+                log.info("Backfilled auto-confirm deadline for {} orders", backfilled);
+            }
+        } catch (Exception e) {
+            log.error("Error backfilling auto-confirm deadlines: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Split a chunk into batches and confirm them in parallel, one transaction per order.
+     *
+     * @return {confirmed, failed}
+     */
+    private int[] processChunk(List<Long> dueIds) {
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int from = 0; from < dueIds.size(); from += batchSize) {
+            List<Long> batch = dueIds.subList(from, Math.min(from + batchSize, dueIds.size()));
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (Long orderId : batch) {
+                    boolean ok;
+                    try {
+                        if (orderTimelineService.autoConfirmDeliveryIfDue(orderId)) {
+                            confirmed.incrementAndGet();
+                        }
+                        ok = true;
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        log.error("Error auto-confirming delivery for order {}: {}", orderId, e.getMessage());
+                        ok = false;
+                    }
+                    if (!ok) {
+                        postpone(orderId);
+                    }
+                }
+            }, autoConfirmExecutor));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return new int[]{confirmed.get(), failed.get()};
+    }
+
+    /**
+     * Move a failed order out of the due window so it doesn't head every chunk.
+     * A failure here is logged and the batch goes on; the order is simply retried sooner.
+     */
+    private void postpone(Long orderId) {
+        try {
+            orderRepository.postponeAutoConfirm(orderId, LocalDateTime.now().plusMinutes(retryDelayMinutes));
+        } catch (Exception e) {
+            log.error("Failed to postpone auto-confirm for order {}: {}", orderId, e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,7 @@
 package com.mypkga.commerceplatformfull.service;
 
+import com.mypkga.commerceplatformfull.dto.CheckoutPreflightResult;
 import com.mypkga.commerceplatformfull.entity.*;
-import com.mypkga.commerceplatformfull.repository.CartRepository;
 import com.mypkga.commerceplatformfull.repository.OrderItemRepository;
 import com.mypkga.commerceplatformfull.repository.OrderRepository;
 import com.mypkga.commerceplatformfull.repository.ProductRepository;
@@ -16,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,38 +28,35 @@ public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
-    private final CartRepository cartRepository;
     private final CartService cartService;
     private final ProductRepository productRepository;
     private final OrderTimelineService orderTimelineService;
     private final DeliveryConfirmationService deliveryConfirmationService;
+    private final CheckoutPreflightService checkoutPreflightService;
 
     @Override
     @Transactional
     public Order createOrder(User user, String shippingAddress, String customerName,
             String customerPhone, String paymentMethod) {
-        // Get user's cart
-        Cart cart = cartRepository.findByUserId(user.getId())
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
-
-        if (cart.getItems().isEmpty()) {
+        // Revalidate the whole cart against current stock and prices in one query
+        CheckoutPreflightResult preflight = checkoutPreflightService.check(user.getId());
+        if (preflight.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
-
-        // Validate stock availability before creating order
-        for (CartItem cartItem : cart.getItems()) {
-            Product product = cartItem.getProduct();
-            if (product.getStockQuantity() < cartItem.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName() +
-                        ". Available: " + product.getStockQuantity() + ", Requested: " + cartItem.getQuantity());
-            }
+        if (!preflight.getOutOfStock().isEmpty()) {
+            throw new RuntimeException(preflight.describeOutOfStock());
+        }
+        if (!preflight.getPriceChanged().isEmpty()) {
+            // Update the cart so the customer sees the new total when sent back to checkout
+            checkoutPreflightService.refreshCartPrices(preflight.getCartId());
+            throw new RuntimeException(preflight.describePriceChanges());
         }
 
         // Create order
         Order order = new Order();
         order.setOrderNumber(generateOrderNumber());
         order.setUser(user);
-        order.setTotalAmount(cart.getTotalAmount());
+        order.setTotalAmount(preflight.getTotal());
         order.setStatus(OrderStatus.PENDING);
         order.setCurrentStatus(OrderStatus.PENDING); // Set current status for timeline
         order.setPaymentMethod(paymentMethod);
@@ -73,15 +71,15 @@ public class OrderServiceImpl implements OrderService {
             order.setStatus(OrderStatus.CONFIRMED); // Set to CONFIRMED for COD
             order.setCurrentStatus(OrderStatus.CONFIRMED);
 
-            // Reduce stock immediately for COD orders
-            for (CartItem cartItem : cart.getItems()) {
-                Product product = cartItem.getProduct();
-                int newStock = product.getStockQuantity() - cartItem.getQuantity();
-                product.setStockQuantity(newStock);
-                productRepository.save(product);
-                System.out.println("Reduced stock for product: " + product.getName() +
-                        " from " + (newStock + cartItem.getQuantity()) + " to " + newStock);
+            // Reduce stock immediately for COD orders; the conditional update guards against
+            // concurrent checkouts taking the same units after the preflight
+            for (CheckoutPreflightResult.Line line : preflight.getLines()) {
+                if (productRepository.decrementStock(line.getProductId(), line.getQuantity()) == 0) {
+                    throw new RuntimeException("Không đủ hàng trong kho: " + line.getProductName());
+                }
             }
+            log.info("Reduced stock for {} products of COD order {}", preflight.getLines().size(),
+                    order.getOrderNumber());
 
             // Clear cart immediately for COD orders
             cartService.clearCart(user.getId());
@@ -93,16 +91,18 @@ public class OrderServiceImpl implements OrderService {
 
         Order savedOrder = orderRepository.save(order);
 
-        // Create order items from cart
-        for (CartItem cartItem : cart.getItems()) {
+        // Create order items from the preflight lines without reloading products
+        List<OrderItem> orderItems = new ArrayList<>(preflight.getLines().size());
+        for (CheckoutPreflightResult.Line line : preflight.getLines()) {
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(savedOrder);
-            orderItem.setProduct(cartItem.getProduct());
-            orderItem.setQuantity(cartItem.getQuantity());
-            orderItem.setPrice(cartItem.getPrice());
-            orderItem.setProductName(cartItem.getProduct().getName());
-            orderItemRepository.save(orderItem);
+            orderItem.setProduct(productRepository.getReferenceById(line.getProductId()));
+            orderItem.setQuantity(line.getQuantity());
+            orderItem.setPrice(line.getCurrentPrice());
+            orderItem.setProductName(line.getProductName());
+            orderItems.add(orderItem);
         }
+        orderItemRepository.saveAll(orderItems);
 
         // Don't clear cart here for online payments - will be cleared when payment is
         // confirmed
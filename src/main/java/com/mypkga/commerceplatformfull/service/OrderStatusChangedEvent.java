@@ -0,0 +1,24 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Application event published whenever a timeline entry is written for an order.
+ * Every status change goes through {@link OrderTimelineService#createTimelineEntry},
+ * so listeners see both status and timeline changes from a single source.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+
+    private final Long orderId;
+    private final Long timelineEntryId;
+    private final OrderStatus status;
+    private final String updatedBy;
+    private final String notes;
+    private final LocalDateTime updatedAt;
+}
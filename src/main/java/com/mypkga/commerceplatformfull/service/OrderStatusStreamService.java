@@ -0,0 +1,208 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import com.mypkga.commerceplatformfull.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Push-based order status updates over Server-Sent Events.
+ * Subscriptions are parked servlet async requests, so idle watchers hold no threads;
+ * the status-change write path feeds them through {@link OrderStatusChangedEvent}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatusStreamService {
+
+    private final OrderRepository orderRepository;
+
+    @Qualifier("orderStreamExecutor")
+    private final Executor orderStreamExecutor;
+
+    @Value("${app.order-stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${app.order-stream.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    @Value("${app.order-stream.max-subscribers-per-order:20}")
+    private int maxSubscribersPerOrder;
+
+    private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicBoolean heartbeatRunning = new AtomicBoolean(false);
+
+    /**
+     * Open a subscription for an order. The caller must own the order or be staff/admin.
+     *
+     * @throws IllegalArgumentException if the order does not exist
+     * @throws SecurityException if the caller may not watch this order
+     * @throws IllegalStateException if subscription limits are reached
+     */
+    public SseEmitter subscribe(Long orderId, Authentication authentication) {
+        List<Object[]> rows = orderRepository.findStatusAndOwnerEmailById(orderId);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Order not found with id: " + orderId);
+        }
+        OrderStatus currentStatus = (OrderStatus) rows.get(0)[0];
+        String ownerEmail = (String) rows.get(0)[1];
+
+        if (!isStaff(authentication) && !authentication.getName().equalsIgnoreCase(ownerEmail)) {
+            throw new SecurityException("Not authorized to watch order " + orderId);
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        // Limit check and add happen under the map's lock for this order, so a concurrent
+        // remove() can neither drop the new emitter nor let the per-order limit be exceeded
+        subscribers.compute(orderId, (id, orderSubscribers) -> {
+            Set<SseEmitter> current = orderSubscribers != null ? orderSubscribers : new CopyOnWriteArraySet<>();
+            if (current.size() >= maxSubscribersPerOrder) {
+                throw new IllegalStateException("Too many subscriptions for order " + orderId);
+            }
+            if (subscriberCount.incrementAndGet() > maxSubscribers) {
+                subscriberCount.decrementAndGet();
+                throw new IllegalStateException("Order status stream is at capacity");
+            }
+            current.add(emitter);
+            return current;
+        });
+
+        Runnable cleanup = () -> remove(orderId, emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+
+        // Initial snapshot so the page doesn't need a separate status poll
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("orderId", orderId);
+        snapshot.put("status", currentStatus.name());
+        snapshot.put("displayName", currentStatus.getDisplayName());
+        snapshot.put("isFinalState", currentStatus.isFinalState());
+        snapshot.put("timestamp", LocalDateTime.now().toString());
+        send(orderId, emitter, "status", snapshot);
+
+        log.debug("SSE subscriber added for order {} ({} total)", orderId, subscriberCount.get());
+        return emitter;
+    }
+
+    /**
+     * Push status/timeline changes once the writing transaction has committed,
+     * so subscribers never see a change that was rolled back.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Set<SseEmitter> orderSubscribers = subscribers.get(event.getOrderId());
+        if (orderSubscribers == null || orderSubscribers.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", event.getOrderId());
+        payload.put("status", event.getStatus().name());
+        payload.put("displayName", event.getStatus().getDisplayName());
+        payload.put("isFinalState", event.getStatus().isFinalState());
+        payload.put("timelineEntryId", event.getTimelineEntryId());
+        payload.put("updatedBy", event.getUpdatedBy());
+        payload.put("notes", event.getNotes());
+        payload.put("lastUpdated", event.getUpdatedAt() != null ? event.getUpdatedAt().toString() : null);
+        payload.put("timestamp", LocalDateTime.now().toString());
+
+        orderStreamExecutor.execute(() -> {
+            for (SseEmitter emitter : orderSubscribers) {
+                send(event.getOrderId(), emitter, "status", payload);
+            }
+        });
+    }
+
+    /**
+     * Keep-alive comment so proxies don't cut idle streams and dead clients are detected.
+     * Writes happen on virtual threads, one per subscriber, so a client that stopped reading
+     * holds up neither the scheduler thread nor the other subscribers.
+     */
+    @Scheduled(fixedRateString = "${app.order-stream.heartbeat-ms:25000}")
+    public void sendHeartbeats() {
+        if (subscriberCount.get() == 0 || !heartbeatRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Thread.ofVirtual().name("order-stream-heartbeat").start(this::heartbeatPass);
+        } catch (RuntimeException e) {
+            heartbeatRunning.set(false);
+            throw e;
+        }
+    }
+
+    private void heartbeatPass() {
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("order-stream-heartbeat-", 0).factory())) {
+            subscribers.forEach((orderId, orderSubscribers) -> {
+                for (SseEmitter emitter : orderSubscribers) {
+                    executor.execute(() -> heartbeat(orderId, emitter));
+                }
+            });
+        } finally {
+            heartbeatRunning.set(false);
+        }
+    }
+
+    private void heartbeat(Long orderId, SseEmitter emitter) {
+        try {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+        } catch (IOException | IllegalStateException e) {
+            remove(orderId, emitter);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void send(Long orderId, SseEmitter emitter, String eventName, Map<String, Object> payload) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(payload, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping SSE subscriber for order {}: {}", orderId, e.getMessage());
+            remove(orderId, emitter);
+        }
+    }
+
+    private void remove(Long orderId, SseEmitter emitter) {
+        subscribers.computeIfPresent(orderId, (id, orderSubscribers) -> {
+            if (orderSubscribers.remove(emitter)) {
+                subscriberCount.decrementAndGet();
+            }
+            return orderSubscribers.isEmpty() ? null : orderSubscribers;
+        });
+    }
+
+    private boolean isStaff(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_STAFF".equals(a.getAuthority())
+                        || "ROLE_ADMIN".equals(a.getAuthority())
+                        || "ROLE_MODERATOR".equals(a.getAuthority()));
+    }
+}
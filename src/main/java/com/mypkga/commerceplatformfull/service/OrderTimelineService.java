@@ -7,9 +7,11 @@ import com.mypkga.commerceplatformfull.repository.OrderRepository;
 import com.mypkga.commerceplatformfull.repository.OrderTimelineRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -24,6 +26,7 @@ public class OrderTimelineService {
     private final OrderTimelineRepository orderTimelineRepository;
     private final OrderRepository orderRepository;
     private final AuditLogService auditLogService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a new timeline entry for an order
@@ -46,7 +49,11 @@ public class OrderTimelineService {
         
         // Audit log the timeline entry creation
         auditLogService.logTimelineEntryCreation(orderId, status, updatedBy, notes);
-        
+
+        // Notify live subscribers (delivered after commit by OrderStatusStreamService)
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderId, savedEntry.getId(), status,
+                updatedBy, notes, savedEntry.getUpdatedAt()));
+
         log.info("Created timeline entry for order {}: {} by {}", orderId, status, updatedBy);
         return savedEntry;
     }
@@ -141,44 +148,60 @@ public class OrderTimelineService {
     }
 
     /**
-     * Sync status update across all clients (placeholder for real-time updates)
+     * Sync status update across all clients.
+     * Connected clients are pushed to by OrderStatusStreamService when the
+     * timeline entry is written, so this only records the sync for auditing.
      */
     public void syncStatusUpdate(Long orderId, OrderStatus status) {
         // Log synchronization event
-        auditLogService.logDataSynchronization("STATUS_UPDATE_SYNC", orderId, 
+        auditLogService.logDataSynchronization("STATUS_UPDATE_SYNC", orderId,
             "Status update synchronized: " + status, true);
-        
-        // TODO: Implement real-time synchronization (WebSocket, Server-Sent Events, etc.)
-        // This could broadcast to connected clients about the status change
+
         log.info("Syncing status update for order {}: {}", orderId, status);
     }
 
     /**
-     * Auto-confirm delivery after 24 hours if customer doesn't respond
+     * Auto-confirm delivery if the order's autoConfirmAt deadline has passed.
+     * Re-checked inside the transaction so a customer action that raced the scheduler wins.
+     *
+     * @return true if the order was confirmed
      */
     @Transactional
-    public void autoConfirmDeliveryIfExpired(Long orderId) {
+    public boolean autoConfirmDeliveryIfDue(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found with id: " + orderId));
 
-        if (order.getCurrentStatus() == OrderStatus.AWAITING_CONFIRMATION) {
-            // Check if 24 hours have passed since AWAITING_CONFIRMATION status
-            OrderTimelineEntry latestEntry = getLatestTimelineEntry(orderId);
-            if (latestEntry != null && latestEntry.getStatus() == OrderStatus.AWAITING_CONFIRMATION) {
-                long hoursSinceAwaitingConfirmation = java.time.Duration.between(
-                    latestEntry.getUpdatedAt(), 
-                    java.time.LocalDateTime.now()
-                ).toHours();
-
-                if (hoursSinceAwaitingConfirmation >= 24) {
-                    // Auto-confirm delivery
-                    updateOrderStatus(orderId, OrderStatus.DELIVERED, "SYSTEM", 
-                        "Tự động xác nhận giao hàng sau 24 giờ không có phản hồi từ khách hàng");
-                    
-                    log.info("Auto-confirmed delivery for order {} after 24 hours", orderId);
-                }
-            }
+        LocalDateTime dueAt = order.getAutoConfirmAt();
+        if (order.getCurrentStatus() != OrderStatus.AWAITING_CONFIRMATION
+                || dueAt == null || dueAt.isAfter(LocalDateTime.now())) {
+            return false;
         }
+
+        updateOrderStatus(orderId, OrderStatus.DELIVERED, "SYSTEM",
+            "Tự động xác nhận giao hàng sau " + Order.AUTO_CONFIRM_AFTER_HOURS
+                + " giờ không có phản hồi từ khách hàng");
+        log.info("Auto-confirmed delivery for order {} (due at {})", orderId, dueAt);
+        return true;
+    }
+
+    /**
+     * Set the autoConfirmAt deadline for an order that entered AWAITING_CONFIRMATION
+     * before the column existed, based on when it entered that status.
+     */
+    @Transactional
+    public void backfillAutoConfirmDeadline(Long orderId) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null || order.getCurrentStatus() != OrderStatus.AWAITING_CONFIRMATION
+                || order.getAutoConfirmAt() != null) {
+            return;
+        }
+
+        OrderTimelineEntry latestEntry = orderTimelineRepository.findLatestByOrderId(orderId);
+        LocalDateTime since = latestEntry != null && latestEntry.getStatus() == OrderStatus.AWAITING_CONFIRMATION
+                ? latestEntry.getUpdatedAt()
+                : order.getUpdatedDate();
+        order.setAutoConfirmAt(since.plusHours(Order.AUTO_CONFIRM_AFTER_HOURS));
+        orderRepository.save(order);
     }
 
     /**
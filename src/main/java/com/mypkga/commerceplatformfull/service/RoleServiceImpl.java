@@ -4,6 +4,7 @@ import com.mypkga.commerceplatformfull.entity.Role;
 import com.mypkga.commerceplatformfull.entity.User;
 import com.mypkga.commerceplatformfull.repository.RoleRepository;
 import com.mypkga.commerceplatformfull.repository.UserRepository;
+import com.mypkga.commerceplatformfull.security.UserPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -19,6 +20,7 @@ public class RoleServiceImpl implements RoleService {
 
     private final RoleRepository roleRepository;
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     @Transactional
@@ -49,6 +51,8 @@ public class RoleServiceImpl implements RoleService {
         role.setPermissions(permissions);
         
         Role updatedRole = roleRepository.save(role);
+        // Cached principals carry the role's authorities
+        userPrincipalCache.evictAllAfterCommit();
         log.info("Updated role: {} (ID: {})", name, id);
         return updatedRole;
     }
@@ -78,6 +82,7 @@ public class RoleServiceImpl implements RoleService {
         }
         
         roleRepository.delete(role);
+        userPrincipalCache.evictAllAfterCommit();
         log.info("Deleted role: {} (ID: {})", role.getName(), id);
     }
 
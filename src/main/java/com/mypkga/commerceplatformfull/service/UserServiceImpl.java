@@ -5,6 +5,7 @@ import com.mypkga.commerceplatformfull.entity.Role;
 import com.mypkga.commerceplatformfull.entity.User;
 import com.mypkga.commerceplatformfull.repository.CartRepository;
 import com.mypkga.commerceplatformfull.repository.UserRepository;
+import com.mypkga.commerceplatformfull.security.UserPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -26,6 +27,7 @@ public class UserServiceImpl implements UserService {
     private final CartRepository cartRepository;
     private final PasswordEncoder passwordEncoder;
     private final RoleService roleService;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     @Transactional
@@ -94,12 +96,14 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public User updateUser(User user) {
+        userPrincipalCache.evictAfterCommit(user.getId());
         return userRepository.save(user);
     }
     
     @Override
     @Transactional
     public User saveUser(User user) {
+        userPrincipalCache.evictAfterCommit(user.getId());
         return userRepository.save(user);
     }
 
@@ -107,6 +111,7 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        userPrincipalCache.evictAfterCommit(id);
         log.info("Deleted user with ID: {}", id);
     }
 
@@ -152,6 +157,7 @@ public class UserServiceImpl implements UserService {
         
         user.setRole(role);
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.evictAfterCommit(userId);
         log.info("Assigned role '{}' to user '{}'", role.getName(), user.getUsername());
         return updatedUser;
     }
@@ -167,6 +173,7 @@ public class UserServiceImpl implements UserService {
         
         user.setRole(role);
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.evictAfterCommit(userId);
         log.info("Assigned role '{}' to user '{}'", roleName, user.getUsername());
         return updatedUser;
     }
@@ -183,6 +190,7 @@ public class UserServiceImpl implements UserService {
         user.setEmailVerified(true);
         user.setEmailVerificationDate(java.time.LocalDateTime.now());
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.evictAfterCommit(user.getId());
         log.info("Marked email as verified for user: {}", user.getUsername());
         return updatedUser;
     }
@@ -196,6 +204,7 @@ public class UserServiceImpl implements UserService {
         user.setEmailVerified(true);
         user.setEmailVerificationDate(java.time.LocalDateTime.now());
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.evictAfterCommit(user.getId());
         log.info("Marked email as verified for user: {}", user.getUsername());
         return updatedUser;
     }
@@ -228,6 +237,7 @@ public class UserServiceImpl implements UserService {
             User user = userOpt.get();
             user.setPassword(passwordEncoder.encode(newPassword));
             userRepository.save(user);
+            userPrincipalCache.evictAfterCommit(user.getId());
             
             log.info("Password updated successfully for user: {}", user.getUsername());
             return true;
@@ -0,0 +1,117 @@
+package com.mypkga.commerceplatformfull.service.address;
+
+import com.mypkga.commerceplatformfull.dto.ghn.AddressSuggestion;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNDistrictResponse.DistrictData;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNProvinceResponse.ProvinceData;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWardResponse.WardData;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One-request address picker over the GHN snapshot: ranked province, district and
+ * ward suggestions for free text such as "ben nghe q1" or "Q.12 TP HCM".
+ * The index is rebuilt on a background thread whenever the snapshot content changes;
+ * queries keep using the previous index until the new one is ready.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AddressAutocomplete {
+
+    private final AddressSnapshotStore addressSnapshotStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.address-autocomplete.max-results:20}")
+    private int maxResults;
+
+    private volatile Built built = new Built(-1L, AddressSearchIndex.EMPTY);
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private Timer searchTimer;
+
+    private record Built(long changedAt, AddressSearchIndex index) {
+    }
+
+    @PostConstruct
+    void init() {
+        rebuild(addressSnapshotStore.current());
+        searchTimer = Timer.builder("address.autocomplete.search")
+                .description("Address typeahead lookups")
+                .register(meterRegistry);
+        Gauge.builder("address.autocomplete.units", this, a -> a.built.index().size())
+                .description("Administrative units in the address typeahead index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Best matching units for a query, most relevant first.
+     */
+    public List<AddressSuggestion> suggest(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        AddressSnapshot snapshot = addressSnapshotStore.current();
+        Built current = built;
+        if (current.changedAt() != snapshot.changedAt() && rebuilding.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("address-index-rebuild").start(() -> {
+                try {
+                    rebuild(addressSnapshotStore.current());
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+        int capped = Math.max(1, Math.min(limit, maxResults));
+        long started = System.nanoTime();
+        try {
+            return current.index().search(query, capped);
+        } finally {
+            searchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void rebuild(AddressSnapshot snapshot) {
+        long started = System.nanoTime();
+        List<AddressSearchIndex.Unit> units = new ArrayList<>();
+        for (ProvinceData province : snapshot.provinces()) {
+            AddressSearchIndex.Names provinceNames =
+                    new AddressSearchIndex.Names(province.getProvinceName(), province.getNameExtension());
+            units.add(new AddressSearchIndex.Unit(AddressSearchIndex.PROVINCE, province.getProvinceID(),
+                    provinceNames, null, null, null, null));
+
+            List<DistrictData> districts = snapshot.districts(province.getProvinceID());
+            if (districts == null) {
+                continue;
+            }
+            for (DistrictData district : districts) {
+                AddressSearchIndex.Names districtNames =
+                        new AddressSearchIndex.Names(district.getDistrictName(), district.getNameExtension());
+                units.add(new AddressSearchIndex.Unit(AddressSearchIndex.DISTRICT, province.getProvinceID(),
+                        provinceNames, district.getDistrictID(), districtNames, null, null));
+
+                List<WardData> wards = snapshot.wards(district.getDistrictID());
+                if (wards == null) {
+                    continue;
+                }
+                for (WardData ward : wards) {
+                    units.add(new AddressSearchIndex.Unit(AddressSearchIndex.WARD, province.getProvinceID(),
+                            provinceNames, district.getDistrictID(), districtNames, ward.getWardCode(),
+                            new AddressSearchIndex.Names(ward.getWardName(), ward.getNameExtension())));
+                }
+            }
+        }
+        built = new Built(snapshot.changedAt(), new AddressSearchIndex(units));
+        log.info("Address typeahead index built over {} units in {} ms", units.size(),
+                (System.nanoTime() - started) / 1_000_000L);
+    }
+}
@@ -0,0 +1,442 @@
+package com.mypkga.commerceplatformfull.service.address;
+
+import com.mypkga.commerceplatformfull.dto.ghn.AddressSuggestion;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable typeahead index over administrative units.
+ * Names are folded (lowercase, no diacritics, letters and digits split) into tokens.
+ * Each unit is also indexed under its GHN name extensions, the short form of its type
+ * ("q", "tp", "p"...) and the initials of multi-word names ("hcm"), so "Q.12 TP HCM"
+ * finds Quan 12. Tokens are kept sorted, which turns a query prefix into a contiguous
+ * token id range; the units matching every query token are found by OR-ing postings
+ * into a bitset per token and AND-ing the bitsets.
+ */
+final class AddressSearchIndex {
+
+    static final int PROVINCE = 0;
+    static final int DISTRICT = 1;
+    static final int WARD = 2;
+
+    private static final String[] LEVEL_NAMES = {"PROVINCE", "DISTRICT", "WARD"};
+
+    // Folded unit type prefixes and their usual abbreviation, longest first
+    private static final String[][] UNIT_TYPES = {
+            {"thanh pho", "tp"}, {"thi tran", "tt"}, {"thi xa", "tx"}, {"phuong", "p"},
+            {"huyen", "h"}, {"quan", "q"}, {"tinh", "t"}, {"xa", "x"}};
+
+    // Folded names with well-known nicknames; GHN lists the five central cities without "thanh pho"
+    private static final Map<String, List<String>> NICKNAMES = Map.of(
+            "ho chi minh", List.of("tp", "tphcm", "sai gon", "saigon", "sg"),
+            "ha noi", List.of("tp", "tphn"),
+            "da nang", List.of("tp", "tpdn"),
+            "hai phong", List.of("tp", "tphp"),
+            "can tho", List.of("tp", "tpct"));
+
+    private static final char[] FOLD = buildFoldTable();
+
+    static final AddressSearchIndex EMPTY = new AddressSearchIndex(List.of());
+
+    /**
+     * Name of one level of a unit and GHN's alternative spellings for it.
+     */
+    record Names(String name, List<String> extensions) {
+    }
+
+    /**
+     * Unit to index with the names of its parents; finer levels are null.
+     */
+    record Unit(int level, Integer provinceId, Names province, Integer districtId, Names district,
+                String wardCode, Names ward) {
+    }
+
+    private final String[] tokens;
+    private final int[][] postings;
+    private final Unit[] units;
+    private final String[] labels;
+    private final int[][] ownTokens;
+    private final int[][] parentTokens;
+    private final int words;
+
+    AddressSearchIndex(List<Unit> source) {
+        int n = source.size();
+        units = source.toArray(new Unit[0]);
+        labels = new String[n];
+        words = (n + 63) >>> 6;
+
+        // Tokens of each distinct Names object, shared by all its children
+        Map<Names, Set<String>> tokenCache = new IdentityHashMap<>();
+        List<Set<String>> own = new ArrayList<>(n);
+        List<Set<String>> parents = new ArrayList<>(n);
+        TreeMap<String, List<Integer>> inverted = new TreeMap<>();
+
+        for (int i = 0; i < n; i++) {
+            Unit unit = units[i];
+            Names self = unit.level() == WARD ? unit.ward()
+                    : unit.level() == DISTRICT ? unit.district() : unit.province();
+            Set<String> selfTokens = tokenCache.computeIfAbsent(self, AddressSearchIndex::unitTokens);
+            Set<String> parentSet = new LinkedHashSet<>();
+            if (unit.level() >= DISTRICT && unit.province() != null) {
+                parentSet.addAll(tokenCache.computeIfAbsent(unit.province(), AddressSearchIndex::unitTokens));
+            }
+            if (unit.level() == WARD && unit.district() != null) {
+                parentSet.addAll(tokenCache.computeIfAbsent(unit.district(), AddressSearchIndex::unitTokens));
+            }
+            parentSet.removeAll(selfTokens);
+            own.add(selfTokens);
+            parents.add(parentSet);
+            for (String token : selfTokens) {
+                inverted.computeIfAbsent(token, t -> new ArrayList<>()).add(i);
+            }
+            for (String token : parentSet) {
+                inverted.computeIfAbsent(token, t -> new ArrayList<>()).add(i);
+            }
+            labels[i] = label(unit);
+        }
+
+        tokens = inverted.keySet().toArray(new String[0]);
+        postings = new int[tokens.length][];
+        Map<String, Integer> ids = new HashMap<>(tokens.length * 2);
+        int id = 0;
+        for (List<Integer> list : inverted.values()) {
+            postings[id] = list.stream().mapToInt(Integer::intValue).toArray();
+            ids.put(tokens[id], id);
+            id++;
+        }
+        ownTokens = new int[n][];
+        parentTokens = new int[n][];
+        for (int i = 0; i < n; i++) {
+            ownTokens[i] = own.get(i).stream().mapToInt(ids::get).toArray();
+            parentTokens[i] = parents.get(i).stream().mapToInt(ids::get).toArray();
+        }
+    }
+
+    int size() {
+        return units.length;
+    }
+
+    /**
+     * Best matches for a free-text query; every query token must prefix some token of
+     * the unit or its parents. Matches on the unit's own name and whole-token matches
+     * rank higher, then coarser levels and shorter labels.
+     */
+    List<AddressSuggestion> search(String query, int limit) {
+        // Repeated words are only dropped after compounding: "phuong 3 quan 3" needs both 3s
+        String[] terms = compoundNumbers(tokenize(fold(query))).stream().distinct().toArray(String[]::new);
+        if (terms.length == 0 || units.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        int[] lo = new int[terms.length];
+        int[] hi = new int[terms.length];
+        int[] exact = new int[terms.length];
+        long[] candidates = null;
+        for (int t = 0; t < terms.length; t++) {
+            lo[t] = lowerBound(terms[t]);
+            hi[t] = lowerBound(terms[t] + Character.MAX_VALUE);
+            if (lo[t] == hi[t]) {
+                return List.of();
+            }
+            exact[t] = tokens[lo[t]].equals(terms[t]) ? lo[t] : -1;
+
+            long[] bits = new long[words];
+            for (int id = lo[t]; id < hi[t]; id++) {
+                for (int unit : postings[id]) {
+                    bits[unit >>> 6] |= 1L << unit;
+                }
+            }
+            if (candidates == null) {
+                candidates = bits;
+            } else {
+                boolean any = false;
+                for (int w = 0; w < words; w++) {
+                    candidates[w] &= bits[w];
+                    any |= candidates[w] != 0L;
+                }
+                if (!any) {
+                    return List.of();
+                }
+            }
+        }
+
+        // Min-heap of the best matches so far; the root is the weakest
+        PriorityQueue<long[]> best = new PriorityQueue<>(limit + 1, (a, b) -> compare(b, a));
+        for (int w = 0; w < words; w++) {
+            long word = candidates[w];
+            while (word != 0L) {
+                int unit = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                long[] scored = {score(unit, lo, hi, exact), unit};
+                if (best.size() < limit) {
+                    best.add(scored);
+                } else if (compare(scored, best.peek()) < 0) {
+                    best.poll();
+                    best.add(scored);
+                }
+            }
+        }
+
+        long[][] ranked = best.toArray(new long[0][]);
+        Arrays.sort(ranked, this::compare);
+        List<AddressSuggestion> result = new ArrayList<>(ranked.length);
+        for (long[] scored : ranked) {
+            result.add(toSuggestion((int) scored[1]));
+        }
+        return result;
+    }
+
+    private int score(int unit, int[] lo, int[] hi, int[] exact) {
+        int score = 0;
+        for (int t = 0; t < lo.length; t++) {
+            int termScore = 0;
+            for (int id : ownTokens[unit]) {
+                if (id >= lo[t] && id < hi[t]) {
+                    termScore = Math.max(termScore, id == exact[t] ? 4 : 3);
+                }
+            }
+            if (termScore < 2) {
+                for (int id : parentTokens[unit]) {
+                    if (id >= lo[t] && id < hi[t]) {
+                        termScore = Math.max(termScore, id == exact[t] ? 2 : 1);
+                    }
+                }
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+    /**
+     * Orders stronger matches first.
+     */
+    private int compare(long[] a, long[] b) {
+        if (a[0] != b[0]) {
+            return Long.compare(b[0], a[0]);
+        }
+        int unitA = (int) a[1];
+        int unitB = (int) b[1];
+        if (units[unitA].level() != units[unitB].level()) {
+            return Integer.compare(units[unitA].level(), units[unitB].level());
+        }
+        if (labels[unitA].length() != labels[unitB].length()) {
+            return Integer.compare(labels[unitA].length(), labels[unitB].length());
+        }
+        return Integer.compare(unitA, unitB);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private AddressSuggestion toSuggestion(int index) {
+        Unit unit = units[index];
+        return new AddressSuggestion(LEVEL_NAMES[unit.level()], labels[index],
+                unit.provinceId(), nameOf(unit.province()),
+                unit.level() >= DISTRICT ? unit.districtId() : null,
+                unit.level() >= DISTRICT ? nameOf(unit.district()) : null,
+                unit.level() == WARD ? unit.wardCode() : null,
+                unit.level() == WARD ? nameOf(unit.ward()) : null);
+    }
+
+    private static String label(Unit unit) {
+        StringBuilder label = new StringBuilder();
+        if (unit.level() == WARD) {
+            label.append(nameOf(unit.ward())).append(", ");
+        }
+        if (unit.level() >= DISTRICT) {
+            label.append(nameOf(unit.district())).append(", ");
+        }
+        return label.append(nameOf(unit.province())).toString();
+    }
+
+    private static String nameOf(Names names) {
+        return names != null && names.name() != null ? names.name() : "";
+    }
+
+    /**
+     * Search tokens of one unit name: its words, type abbreviation, initials,
+     * nicknames and the words of every name extension.
+     */
+    private static Set<String> unitTokens(Names names) {
+        Set<String> result = new LinkedHashSet<>();
+        if (names == null) {
+            return result;
+        }
+        addNameTokens(fold(names.name()), result);
+        if (names.extensions() != null) {
+            for (String extension : names.extensions()) {
+                addNameTokens(fold(extension), result);
+            }
+        }
+        return result;
+    }
+
+    private static void addNameTokens(String folded, Set<String> result) {
+        List<String> words = tokenize(folded);
+        if (words.isEmpty()) {
+            return;
+        }
+        result.addAll(words);
+
+        String joined = String.join(" ", words);
+        String typeAbbreviation = null;
+        String rest = joined;
+        for (String[] type : UNIT_TYPES) {
+            // Extensions often already use the short form, as in "Q.12" or "TP. Thu Duc"
+            String prefix = joined.startsWith(type[0] + " ") ? type[0]
+                    : joined.startsWith(type[1] + " ") ? type[1] : null;
+            if (prefix != null) {
+                typeAbbreviation = type[1];
+                rest = joined.substring(prefix.length() + 1);
+                break;
+            }
+        }
+        if (typeAbbreviation != null) {
+            result.add(typeAbbreviation);
+            // Numbered units also get compounds, so "Q.12" does not match ward 12 of Quan 1
+            if (isNumber(rest)) {
+                result.add(typeAbbreviation + rest);
+                result.add(joined.substring(0, joined.length() - rest.length()).replace(" ", "") + rest);
+            }
+        }
+
+        String[] restWords = rest.split(" ");
+        if (restWords.length >= 2) {
+            StringBuilder initials = new StringBuilder();
+            for (String word : restWords) {
+                if (!Character.isDigit(word.charAt(0))) {
+                    initials.append(word.charAt(0));
+                }
+            }
+            if (initials.length() >= 2) {
+                result.add(initials.toString());
+                result.add(String.join("", restWords));
+                if (typeAbbreviation != null) {
+                    result.add(typeAbbreviation + initials);
+                }
+            }
+        }
+        for (String nickname : NICKNAMES.getOrDefault(rest, List.of())) {
+            result.addAll(tokenize(nickname));
+        }
+    }
+
+    /**
+     * Join a single-word unit type with the number after it: "q", "12" becomes "q12".
+     */
+    private static List<String> compoundNumbers(List<String> terms) {
+        List<String> result = new ArrayList<>(terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            if (i + 1 < terms.size() && isNumber(terms.get(i + 1)) && isSingleWordType(term)) {
+                result.add(term + terms.get(++i));
+            } else {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isSingleWordType(String term) {
+        for (String[] type : UNIT_TYPES) {
+            if (type[1].equals(term) || (type[0].equals(term) && type[0].indexOf(' ') < 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNumber(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lowercase without diacritics; d-stroke becomes d.
+     */
+    static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        char[] folded = new char[text.length()];
+        for (int i = 0; i < folded.length; i++) {
+            char c = text.charAt(i);
+            folded[i] = c < FOLD.length ? FOLD[c] : c;
+        }
+        return new String(folded);
+    }
+
+    private static char[] buildFoldTable() {
+        // Latin letters with Vietnamese diacritics all sit below U+1F00
+        char[] table = new char[0x1F00];
+        for (char c = 0; c < table.length; c++) {
+            String base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            char first = base.isEmpty() ? c : base.charAt(0);
+            table[c] = Character.toLowerCase(first < 0x80 ? first : c);
+        }
+        table['đ'] = 'd';
+        table['Đ'] = 'd';
+        return table;
+    }
+
+    /**
+     * Split folded text into letter runs and digit runs, dropping everything else.
+     * Repeated tokens are kept, in order.
+     */
+    static List<String> tokenize(String folded) {
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        boolean digits = false;
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            boolean letter = c >= 'a' && c <= 'z';
+            boolean digit = c >= '0' && c <= '9';
+            if (start >= 0 && (!(letter || digit) || digit != digits)) {
+                String token = folded.substring(start, i);
+                if (digits) {
+                    // "Phuong 01" and "Phuong 1" are the same ward
+                    int zeros = 0;
+                    while (zeros < token.length() - 1 && token.charAt(zeros) == '0') {
+                        zeros++;
+                    }
+                    token = token.substring(zeros);
+                }
+                result.add(token);
+                start = -1;
+            }
+            if (start < 0 && (letter || digit)) {
+                start = i;
+                digits = digit;
+            }
+        }
+        return result;
+    }
+}
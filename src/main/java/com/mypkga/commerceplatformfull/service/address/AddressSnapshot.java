@@ -0,0 +1,196 @@
+package com.mypkga.commerceplatformfull.service.address;
+
+import com.mypkga.commerceplatformfull.dto.ghn.GHNDistrictResponse.DistrictData;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNProvinceResponse.ProvinceData;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWardResponse.WardData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable GHN province/district/ward tree, indexed by parent id.
+ * A parent missing from the index means the snapshot knows nothing about it;
+ * an empty list means GHN reported no children.
+ */
+public final class AddressSnapshot {
+
+    public static final AddressSnapshot EMPTY = new AddressSnapshot(0L, 0L, List.of(), Map.of(), Map.of());
+
+    private final long changedAt;
+    private final long verifiedAt;
+    private final List<ProvinceData> provinces;
+    private final Map<Integer, List<DistrictData>> districtsByProvince;
+    private final Map<Integer, List<WardData>> wardsByDistrict;
+    private final int districtCount;
+    private final int wardCount;
+
+    AddressSnapshot(long changedAt, long verifiedAt, List<ProvinceData> provinces,
+                    Map<Integer, List<DistrictData>> districtsByProvince,
+                    Map<Integer, List<WardData>> wardsByDistrict) {
+        this.changedAt = changedAt;
+        this.verifiedAt = verifiedAt;
+        this.provinces = List.copyOf(provinces);
+        this.districtsByProvince = Map.copyOf(districtsByProvince);
+        this.wardsByDistrict = Map.copyOf(wardsByDistrict);
+        this.districtCount = this.districtsByProvince.values().stream().mapToInt(List::size).sum();
+        this.wardCount = this.wardsByDistrict.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Rebuild the tree from its flat file form.
+     */
+    static AddressSnapshot fromStored(Stored stored, long verifiedAt) {
+        Map<Integer, List<DistrictData>> districts = new HashMap<>();
+        for (DistrictData district : stored.districts()) {
+            districts.computeIfAbsent(district.getProvinceID(), id -> new ArrayList<>()).add(district);
+        }
+        Map<Integer, List<WardData>> wards = new HashMap<>();
+        for (WardData ward : stored.wards()) {
+            wards.computeIfAbsent(ward.getDistrictID(), id -> new ArrayList<>()).add(ward);
+        }
+        // Parents crawled with no children are kept as known-empty
+        for (Integer provinceId : stored.emptyProvinces()) {
+            districts.putIfAbsent(provinceId, List.of());
+        }
+        for (Integer districtId : stored.emptyDistricts()) {
+            wards.putIfAbsent(districtId, List.of());
+        }
+        districts.replaceAll((id, list) -> List.copyOf(list));
+        wards.replaceAll((id, list) -> List.copyOf(list));
+        return new AddressSnapshot(stored.changedAt(), verifiedAt, stored.provinces(), districts, wards);
+    }
+
+    Stored toStored() {
+        List<DistrictData> districts = new ArrayList<>(districtCount);
+        List<Integer> emptyProvinces = new ArrayList<>();
+        districtsByProvince.forEach((id, list) -> {
+            districts.addAll(list);
+            if (list.isEmpty()) {
+                emptyProvinces.add(id);
+            }
+        });
+        List<WardData> wards = new ArrayList<>(wardCount);
+        List<Integer> emptyDistricts = new ArrayList<>();
+        wardsByDistrict.forEach((id, list) -> {
+            wards.addAll(list);
+            if (list.isEmpty()) {
+                emptyDistricts.add(id);
+            }
+        });
+        return new Stored(Stored.VERSION, changedAt, provinces, districts, wards, emptyProvinces, emptyDistricts);
+    }
+
+    /**
+     * Same tree, confirmed unchanged at the given time.
+     */
+    AddressSnapshot verified(long at) {
+        return new AddressSnapshot(changedAt, at, provinces, districtsByProvince, wardsByDistrict);
+    }
+
+    public List<ProvinceData> provinces() {
+        return provinces;
+    }
+
+    /**
+     * Districts of a province, or null if the snapshot has none recorded for it.
+     */
+    public List<DistrictData> districts(Integer provinceId) {
+        return districtsByProvince.get(provinceId);
+    }
+
+    /**
+     * Wards of a district, or null if the snapshot has none recorded for it.
+     */
+    public List<WardData> wards(Integer districtId) {
+        return wardsByDistrict.get(districtId);
+    }
+
+    public boolean isEmpty() {
+        return provinces.isEmpty();
+    }
+
+    public long changedAt() {
+        return changedAt;
+    }
+
+    public long verifiedAt() {
+        return verifiedAt;
+    }
+
+    public int provinceCount() {
+        return provinces.size();
+    }
+
+    public int districtCount() {
+        return districtCount;
+    }
+
+    public int wardCount() {
+        return wardCount;
+    }
+
+    /**
+     * Entries added, removed or changed going from this tree to {@code next}.
+     */
+    Diff diff(AddressSnapshot next) {
+        Map<Object, Object> before = new HashMap<>();
+        Map<Object, Object> after = new HashMap<>();
+        index(this, before);
+        index(next, after);
+
+        int added = 0;
+        int changed = 0;
+        for (Map.Entry<Object, Object> entry : after.entrySet()) {
+            Object previous = before.get(entry.getKey());
+            if (previous == null) {
+                added++;
+            } else if (!Objects.equals(previous, entry.getValue())) {
+                changed++;
+            }
+        }
+        int removed = 0;
+        for (Object key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                removed++;
+            }
+        }
+        return new Diff(added, removed, changed);
+    }
+
+    private static void index(AddressSnapshot snapshot, Map<Object, Object> target) {
+        for (ProvinceData province : snapshot.provinces) {
+            target.put("p:" + province.getProvinceID(), province);
+        }
+        snapshot.districtsByProvince.forEach((provinceId, districts) -> {
+            target.put("pd:" + provinceId, Boolean.TRUE);
+            for (DistrictData district : districts) {
+                target.put("d:" + district.getDistrictID(), district);
+            }
+        });
+        snapshot.wardsByDistrict.forEach((districtId, wards) -> {
+            target.put("dw:" + districtId, Boolean.TRUE);
+            for (WardData ward : wards) {
+                target.put("w:" + districtId + ":" + ward.getWardCode(), ward);
+            }
+        });
+    }
+
+    public record Diff(int added, int removed, int changed) {
+
+        public boolean isEmpty() {
+            return added == 0 && removed == 0 && changed == 0;
+        }
+    }
+
+    /**
+     * File form of the snapshot: flat lists, children carry their parent id.
+     */
+    record Stored(int version, long changedAt, List<ProvinceData> provinces, List<DistrictData> districts,
+                  List<WardData> wards, List<Integer> emptyProvinces, List<Integer> emptyDistricts) {
+
+        static final int VERSION = 1;
+    }
+}
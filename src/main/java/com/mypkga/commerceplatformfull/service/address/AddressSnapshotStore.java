@@ -0,0 +1,346 @@
+package com.mypkga.commerceplatformfull.service.address;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNDistrictResponse.DistrictData;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNProvinceResponse.ProvinceData;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWardResponse.WardData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds the GHN address tree in memory and persists it as a gzipped JSON file, so a
+ * restart serves address pickers from disk instead of re-crawling GHN.
+ * The file's modification time records when GHN last confirmed the tree. A background
+ * crawl runs once that is older than {@code app.address-snapshot.max-age}; the result is
+ * diffed against the current tree and the file is only rewritten when something changed.
+ * Parents whose fetch fails keep their previous children.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AddressSnapshotStore {
+
+    private final GhnMasterDataClient client;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.address-snapshot.file:data/ghn-address-snapshot.json.gz}")
+    private String file;
+
+    @Value("${app.address-snapshot.max-age:24h}")
+    private Duration maxAge;
+
+    @Value("${app.address-snapshot.retry-after:15m}")
+    private Duration retryAfter;
+
+    @Value("${app.address-snapshot.parallelism:4}")
+    private int parallelism;
+
+    private Path path;
+    private volatile AddressSnapshot snapshot = AddressSnapshot.EMPTY;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private volatile long lastAttemptAt;
+    private volatile boolean lastComplete = true;
+    private volatile Map<String, Object> lastRefresh = Map.of();
+    private Counter refreshChanged;
+    private Counter refreshUnchanged;
+    private Counter refreshFailed;
+
+    @PostConstruct
+    void init() {
+        path = Paths.get(file);
+        long started = System.nanoTime();
+        snapshot = load();
+        log.info("GHN address snapshot loaded in {} ms: {} provinces, {} districts, {} wards",
+                (System.nanoTime() - started) / 1_000_000L, snapshot.provinceCount(),
+                snapshot.districtCount(), snapshot.wardCount());
+
+        Gauge.builder("ghn.address.snapshot.entries", this, s -> s.snapshot.provinceCount())
+                .description("Entries in the GHN address snapshot")
+                .tag("level", "province")
+                .register(meterRegistry);
+        Gauge.builder("ghn.address.snapshot.entries", this, s -> s.snapshot.districtCount())
+                .description("Entries in the GHN address snapshot")
+                .tag("level", "district")
+                .register(meterRegistry);
+        Gauge.builder("ghn.address.snapshot.entries", this, s -> s.snapshot.wardCount())
+                .description("Entries in the GHN address snapshot")
+                .tag("level", "ward")
+                .register(meterRegistry);
+        Gauge.builder("ghn.address.snapshot.age", this,
+                        s -> s.snapshot.isEmpty() ? 0 : (System.currentTimeMillis() - s.snapshot.verifiedAt()) / 1000.0)
+                .description("Seconds since GHN last confirmed the address snapshot")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        refreshChanged = refreshCounter("changed");
+        refreshUnchanged = refreshCounter("unchanged");
+        refreshFailed = refreshCounter("failed");
+
+        if (isStale()) {
+            startRefresh();
+        }
+    }
+
+    public AddressSnapshot current() {
+        return snapshot;
+    }
+
+    public boolean isRefreshing() {
+        return refreshing.get();
+    }
+
+    public Map<String, Object> getLastRefresh() {
+        return lastRefresh;
+    }
+
+    @Scheduled(fixedDelayString = "${app.address-snapshot.check-interval:15m}",
+            initialDelayString = "${app.address-snapshot.check-interval:15m}")
+    public void refreshIfStale() {
+        // The crawl takes minutes; keep it off the shared scheduler thread
+        if (isStale()) {
+            startRefresh();
+        }
+    }
+
+    /**
+     * Start a crawl on a background thread.
+     *
+     * @return false if a crawl is already running
+     */
+    public boolean startRefresh() {
+        if (refreshing.get()) {
+            return false;
+        }
+        Thread.ofVirtual().name("ghn-address-refresh").start(this::refresh);
+        return true;
+    }
+
+    /**
+     * Crawl GHN on the calling thread and publish the result if it differs.
+     */
+    public void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            log.info("GHN address snapshot refresh already running, skipping");
+            return;
+        }
+
+        long startedAt = System.currentTimeMillis();
+        AddressSnapshot current = snapshot;
+        AtomicInteger failures = new AtomicInteger();
+        String outcome = "failed";
+        AddressSnapshot.Diff diff = null;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                Thread.ofVirtual().name("ghn-address-crawl-", 0).factory())) {
+            List<ProvinceData> provinces = client.fetchProvinces();
+            if (provinces.isEmpty()) {
+                throw new IllegalStateException("GHN returned no provinces");
+            }
+
+            Map<Integer, List<DistrictData>> districts = new ConcurrentHashMap<>();
+            List<Future<?>> pending = new ArrayList<>();
+            for (ProvinceData province : provinces) {
+                Integer provinceId = province.getProvinceID();
+                if (provinceId == null) {
+                    continue;
+                }
+                pending.add(executor.submit(() -> {
+                    List<DistrictData> fetched = fetchOrKeep(() -> client.fetchDistricts(provinceId),
+                            current.districts(provinceId), failures, "districts of province " + provinceId);
+                    if (fetched != null) {
+                        fetched.forEach(d -> {
+                            if (d.getProvinceID() == null) {
+                                d.setProvinceID(provinceId);
+                            }
+                        });
+                        districts.put(provinceId, fetched);
+                    }
+                }));
+            }
+            awaitAll(pending);
+
+            Map<Integer, List<WardData>> wards = new ConcurrentHashMap<>();
+            pending.clear();
+            for (List<DistrictData> list : districts.values()) {
+                for (DistrictData district : list) {
+                    Integer districtId = district.getDistrictID();
+                    if (districtId == null) {
+                        continue;
+                    }
+                    pending.add(executor.submit(() -> {
+                        List<WardData> fetched = fetchOrKeep(() -> client.fetchWards(districtId),
+                                current.wards(districtId), failures, "wards of district " + districtId);
+                        if (fetched != null) {
+                            fetched.forEach(w -> {
+                                if (w.getDistrictID() == null) {
+                                    w.setDistrictID(districtId);
+                                }
+                            });
+                            wards.put(districtId, fetched);
+                        }
+                    }));
+                }
+            }
+            awaitAll(pending);
+
+            long now = System.currentTimeMillis();
+            AddressSnapshot next = new AddressSnapshot(now, now, provinces, districts, wards);
+            diff = current.diff(next);
+            boolean complete = failures.get() == 0;
+
+            if (diff.isEmpty()) {
+                if (complete) {
+                    snapshot = current.verified(now);
+                    touch(now);
+                }
+                outcome = "unchanged";
+                refreshUnchanged.increment();
+            } else {
+                snapshot = next;
+                try {
+                    save(next);
+                } catch (IOException e) {
+                    // Still serve the new tree; the next successful crawl rewrites the file
+                    log.warn("Could not write GHN address snapshot {}: {}", path, e.getMessage());
+                }
+                outcome = "changed";
+                refreshChanged.increment();
+            }
+            lastComplete = complete;
+            log.info("GHN address snapshot refresh {}: +{} -{} ~{} entries, {} failed fetches, {} ms",
+                    outcome, diff.added(), diff.removed(), diff.changed(), failures.get(),
+                    System.currentTimeMillis() - startedAt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastComplete = false;
+            refreshFailed.increment();
+            log.warn("GHN address snapshot refresh interrupted");
+        } catch (Exception e) {
+            lastComplete = false;
+            refreshFailed.increment();
+            log.warn("GHN address snapshot refresh failed, keeping current snapshot: {}", e.getMessage());
+        } finally {
+            lastAttemptAt = System.currentTimeMillis();
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("startedAt", Instant.ofEpochMilli(startedAt).toString());
+            run.put("finishedAt", Instant.ofEpochMilli(lastAttemptAt).toString());
+            run.put("outcome", outcome);
+            run.put("failedFetches", failures.get());
+            if (diff != null) {
+                run.put("added", diff.added());
+                run.put("removed", diff.removed());
+                run.put("changed", diff.changed());
+            }
+            lastRefresh = run;
+            refreshing.set(false);
+        }
+    }
+
+    private boolean isStale() {
+        long now = System.currentTimeMillis();
+        boolean expired = snapshot.isEmpty() || now - snapshot.verifiedAt() > maxAge.toMillis();
+        // A failed or partial crawl is retried, but not more often than retry-after
+        boolean retryDue = lastAttemptAt == 0L || now - lastAttemptAt > retryAfter.toMillis();
+        return (expired || !lastComplete) && retryDue;
+    }
+
+    private <T> List<T> fetchOrKeep(Callable<List<T>> fetch, List<T> previous,
+                                    AtomicInteger failures, String what) {
+        try {
+            return List.copyOf(fetch.call());
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            log.debug("Fetching {} failed, keeping {} cached entries: {}", what,
+                    previous != null ? previous.size() : 0, e.getMessage());
+            return previous;
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private AddressSnapshot load() {
+        if (!Files.isRegularFile(path)) {
+            return AddressSnapshot.EMPTY;
+        }
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            AddressSnapshot.Stored stored = objectMapper.readValue(in, AddressSnapshot.Stored.class);
+            if (stored.version() != AddressSnapshot.Stored.VERSION) {
+                log.warn("Ignoring GHN address snapshot {} with version {}", path, stored.version());
+                return AddressSnapshot.EMPTY;
+            }
+            return AddressSnapshot.fromStored(stored, Files.getLastModifiedTime(path).toMillis());
+        } catch (Exception e) {
+            log.warn("Could not read GHN address snapshot {}: {}", path, e.getMessage());
+            return AddressSnapshot.EMPTY;
+        }
+    }
+
+    private void save(AddressSnapshot next) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            objectMapper.writeValue(out, next.toStored());
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(next.verifiedAt()));
+    }
+
+    private void touch(long at) {
+        try {
+            if (Files.isRegularFile(path)) {
+                Files.setLastModifiedTime(path, FileTime.fromMillis(at));
+            } else {
+                save(snapshot);
+            }
+        } catch (IOException e) {
+            log.warn("Could not update GHN address snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    private Counter refreshCounter(String outcome) {
+        return Counter.builder("ghn.address.snapshot.refreshes")
+                .description("GHN address snapshot crawls by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
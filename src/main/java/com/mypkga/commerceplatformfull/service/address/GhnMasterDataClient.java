@@ -0,0 +1,80 @@
+package com.mypkga.commerceplatformfull.service.address;
+
+import com.mypkga.commerceplatformfull.dto.ghn.GHNDistrictResponse;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNProvinceResponse;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWardResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Raw GHN master-data calls. Every method either returns GHN's list or throws,
+ * so callers can tell an outage from an empty answer.
+ */
+@Component
+@RequiredArgsConstructor
+public class GhnMasterDataClient {
+
+    private final RestTemplate restTemplate;
+
+    @Value("${ghn.api-url}")
+    private String ghnApiUrl;
+
+    @Value("${ghn.token}")
+    private String ghnToken;
+
+    public List<GHNProvinceResponse.ProvinceData> fetchProvinces() {
+        ResponseEntity<GHNProvinceResponse> response = restTemplate.exchange(
+                ghnApiUrl + "/master-data/province",
+                HttpMethod.GET,
+                new HttpEntity<>(headers()),
+                GHNProvinceResponse.class);
+        GHNProvinceResponse body = response.getBody();
+        if (body == null || body.getCode() == null || body.getCode() != 200 || body.getData() == null) {
+            throw new IllegalStateException("GHN province API returned " + body);
+        }
+        return body.getData();
+    }
+
+    public List<GHNDistrictResponse.DistrictData> fetchDistricts(Integer provinceId) {
+        ResponseEntity<GHNDistrictResponse> response = restTemplate.exchange(
+                ghnApiUrl + "/master-data/district",
+                HttpMethod.POST,
+                new HttpEntity<>(Map.of("province_id", provinceId), headers()),
+                GHNDistrictResponse.class);
+        GHNDistrictResponse body = response.getBody();
+        if (body == null || body.getCode() == null || body.getCode() != 200 || body.getData() == null) {
+            throw new IllegalStateException("GHN district API returned " + body);
+        }
+        return body.getData();
+    }
+
+    public List<GHNWardResponse.WardData> fetchWards(Integer districtId) {
+        ResponseEntity<GHNWardResponse> response = restTemplate.exchange(
+                ghnApiUrl + "/master-data/ward?district_id",
+                HttpMethod.POST,
+                new HttpEntity<>(Map.of("district_id", districtId), headers()),
+                GHNWardResponse.class);
+        GHNWardResponse body = response.getBody();
+        if (body == null || body.getCode() == null || body.getCode() != 200 || body.getData() == null) {
+            throw new IllegalStateException("GHN ward API returned " + body);
+        }
+        return body.getData();
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("token", ghnToken);
+        return headers;
+    }
+}
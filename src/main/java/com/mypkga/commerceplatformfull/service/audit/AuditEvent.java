@@ -0,0 +1,96 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+
+/**
+ * Preallocated, reusable ring buffer slot.
+ * Publishers only copy references into it; all formatting happens on the consumer thread.
+ * Field meaning per event is given by {@link AuditEventType}.
+ */
+public final class AuditEvent {
+
+    // Sequence of the event currently held; written last by the publisher (volatile publish)
+    volatile long sequence = -1L;
+
+    // Set at claim time, read back by the publishing thread only
+    long claimedSequence;
+    long publishStartNanos;
+
+    AuditEventType type;
+    long timestamp;
+    Long orderId;
+    OrderStatus fromStatus;
+    OrderStatus toStatus;
+    String actor;
+    String category;
+    String detail;
+    Boolean success;
+    String exceptionClass;
+    String exceptionMessage;
+
+    public AuditEvent orderId(Long orderId) {
+        this.orderId = orderId;
+        return this;
+    }
+
+    public AuditEvent fromStatus(OrderStatus fromStatus) {
+        this.fromStatus = fromStatus;
+        return this;
+    }
+
+    public AuditEvent toStatus(OrderStatus toStatus) {
+        this.toStatus = toStatus;
+        return this;
+    }
+
+    public AuditEvent actor(String actor) {
+        this.actor = actor;
+        return this;
+    }
+
+    public AuditEvent category(String category) {
+        this.category = category;
+        return this;
+    }
+
+    public AuditEvent detail(String detail) {
+        this.detail = detail;
+        return this;
+    }
+
+    public AuditEvent success(boolean success) {
+        this.success = success;
+        return this;
+    }
+
+    public AuditEvent exception(Exception exception) {
+        if (exception != null) {
+            this.exceptionClass = exception.getClass().getSimpleName();
+            try {
+                this.exceptionMessage = exception.getMessage();
+            } catch (RuntimeException ignored) {
+                // A claimed slot must always be published, so never let this throw
+            }
+        }
+        return this;
+    }
+
+    void reset(AuditEventType type, long timestamp) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.orderId = null;
+        this.fromStatus = null;
+        this.toStatus = null;
+        this.actor = null;
+        this.category = null;
+        this.detail = null;
+        this.success = null;
+        this.exceptionClass = null;
+        this.exceptionMessage = null;
+    }
+
+    // Drop references once consumed so the slot doesn't pin strings until it's reused
+    void release() {
+        reset(null, 0L);
+    }
+}
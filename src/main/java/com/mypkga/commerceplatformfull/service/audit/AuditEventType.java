@@ -0,0 +1,34 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+/**
+ * Audit event kinds and the JSON keys their generic slot fields are written under.
+ * A null key means the field is not part of that event.
+ */
+public enum AuditEventType {
+
+    ORDER_STATUS_CHANGE("oldStatus", "newStatus", "updatedBy", null, "reason", true),
+    DELIVERY_CONFIRMATION(null, null, "customerId", "action", "reason", true),
+    TIMELINE_ENTRY_CREATED(null, "status", "updatedBy", null, "notes", true),
+    DATA_SYNCHRONIZATION(null, null, null, "syncType", "details", true),
+    SYSTEM_ERROR(null, null, null, "errorType", "errorMessage", false),
+    INVALID_STATUS_TRANSITION("currentStatus", "attemptedStatus", "userId", null, "errorMessage", false);
+
+    final String fromStatusKey;
+    final String toStatusKey;
+    final String actorKey;
+    final String categoryKey;
+    final String detailKey;
+
+    // Routine events may be sampled out under backpressure; errors never are
+    final boolean routine;
+
+    AuditEventType(String fromStatusKey, String toStatusKey, String actorKey, String categoryKey,
+                   String detailKey, boolean routine) {
+        this.fromStatusKey = fromStatusKey;
+        this.toStatusKey = toStatusKey;
+        this.actorKey = actorKey;
+        this.categoryKey = categoryKey;
+        this.detailKey = detailKey;
+        this.routine = routine;
+    }
+}
@@ -0,0 +1,221 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import com.mypkga.commerceplatformfull.config.AuditLogConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous audit pipeline.
+ * Request threads {@link #claim} a preallocated slot, fill in references and {@link #publish}
+ * it; a single consumer thread encodes published events in batches and appends them to the
+ * {@link AuditSegmentStore}. When the buffer is full the configured backpressure
+ * policy decides whether the publisher drops, samples or waits; a waiting publisher gives up
+ * and drops its event after the block timeout, so a stalled consumer never hangs requests.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuditJournal {
+
+    private static final long BLOCK_PARK_NANOS = 50_000L;
+    private static final long SHUTDOWN_WAIT_MILLIS = 5000L;
+
+    private final AuditLogConfig config;
+    private final AuditSegmentStore segmentStore;
+    private final MeterRegistry meterRegistry;
+
+    private final LongAdder droppedFull = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+
+    private AuditRingBuffer ringBuffer;
+    private Timer publishLatency;
+    private Counter writeErrors;
+    private int sampleFloor;
+    private long blockTimeoutNanos;
+    private Thread consumer;
+    private volatile boolean running = false;
+
+    @PostConstruct
+    void start() {
+        ringBuffer = new AuditRingBuffer(config.getBufferSize());
+        sampleFloor = (int) (ringBuffer.capacity() * config.getSampleThreshold());
+        blockTimeoutNanos = config.getBlockTimeout().toNanos();
+
+        publishLatency = Timer.builder("audit.publish.latency")
+                .description("Sampled time spent by request threads publishing an audit event")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .minimumExpectedValue(Duration.ofNanos(20))
+                .maximumExpectedValue(Duration.ofMillis(10))
+                .register(meterRegistry);
+        writeErrors = Counter.builder("audit.write.errors")
+                .description("Audit batches that could not be written to disk")
+                .register(meterRegistry);
+        FunctionCounter.builder("audit.events.published", ringBuffer, AuditRingBuffer::claimed)
+                .description("Audit events accepted into the ring buffer")
+                .register(meterRegistry);
+        FunctionCounter.builder("audit.events.dropped", droppedFull, LongAdder::sum)
+                .description("Audit events dropped because the ring buffer was full or stayed full past the block timeout")
+                .tag("reason", "full")
+                .register(meterRegistry);
+        FunctionCounter.builder("audit.events.dropped", sampledOut, LongAdder::sum)
+                .description("Routine audit events skipped by sampling under backpressure")
+                .tag("reason", "sampled")
+                .register(meterRegistry);
+        Gauge.builder("audit.buffer.used", ringBuffer, AuditRingBuffer::used)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+
+        if (!config.isEnabled()) {
+            log.info("Audit journal disabled");
+            return;
+        }
+        running = true;
+        consumer = Thread.ofPlatform().name("audit-journal").daemon(true).start(this::consume);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+            try {
+                consumer.join(SHUTDOWN_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Claim a slot for a new event.
+     * The caller must fill it and hand it to {@link #publish} without doing anything that can throw.
+     *
+     * @return the slot, or null if the event was dropped or sampled out
+     */
+    public AuditEvent claim(AuditEventType type) {
+        if (!running) {
+            return null;
+        }
+        int every = config.getLatencySampleEvery();
+        long startNanos = every > 0 && ThreadLocalRandom.current().nextInt(every) == 0 ? System.nanoTime() : 0L;
+
+        AuditLogConfig.Backpressure backpressure = config.getBackpressure();
+        if (backpressure == AuditLogConfig.Backpressure.SAMPLE && type.routine
+                && ringBuffer.used() >= sampleFloor
+                && ThreadLocalRandom.current().nextInt(config.getSampleRate()) != 0) {
+            sampledOut.increment();
+            return null;
+        }
+
+        long sequence = ringBuffer.tryClaim();
+        if (sequence < 0 && backpressure == AuditLogConfig.Backpressure.BLOCK) {
+            sequence = claimBlocking();
+        }
+        if (sequence < 0) {
+            droppedFull.increment();
+            return null;
+        }
+
+        AuditEvent event = ringBuffer.slot(sequence);
+        event.reset(type, System.currentTimeMillis());
+        event.claimedSequence = sequence;
+        event.publishStartNanos = startNanos;
+        return event;
+    }
+
+    /**
+     * Make a claimed slot visible to the consumer.
+     */
+    public void publish(AuditEvent event) {
+        long startNanos = event.publishStartNanos;
+        // After this write the consumer owns the slot
+        event.sequence = event.claimedSequence;
+        if (startNanos != 0L) {
+            publishLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private long claimBlocking() {
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (running && !Thread.currentThread().isInterrupted() && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            long sequence = ringBuffer.tryClaim();
+            if (sequence >= 0) {
+                return sequence;
+            }
+        }
+        return -1L;
+    }
+
+    private void consume() {
+        AuditJsonEncoder encoder = new AuditJsonEncoder();
+        AuditLineBuffer batch = new AuditLineBuffer(64 * 1024);
+        int batchSize = config.getBatchSize();
+        long idleWaitNanos = TimeUnit.MICROSECONDS.toNanos(config.getIdleWaitMicros());
+        long next = ringBuffer.consumed();
+
+        while (true) {
+            try {
+                int count = 0;
+                AuditEvent event;
+                while (count < batchSize && (event = ringBuffer.poll(next)) != null) {
+                    int start = batch.size();
+                    try {
+                        encoder.encode(event, batch);
+                        segmentStore.stage(event.timestamp, event.orderId, event.actor, start, batch.size() - start);
+                    } catch (RuntimeException e) {
+                        batch.truncate(start);
+                        log.warn("Skipping unencodable audit event {}: {}", event.type, e.getMessage());
+                    }
+                    event.release();
+                    next++;
+                    count++;
+                }
+
+                if (count == 0) {
+                    if (!running) {
+                        break;
+                    }
+                    segmentStore.rollIfDue(System.currentTimeMillis());
+                    LockSupport.parkNanos(idleWaitNanos);
+                    continue;
+                }
+
+                // Slots are copied into the batch, so free them before touching the disk
+                ringBuffer.release(next);
+                write(batch);
+                batch.clear();
+            } catch (Throwable e) {
+                // The consumer must outlive any failure, or BLOCK publishers would wait on it forever
+                writeErrors.increment();
+                log.error("Audit consumer failed, dropping the current batch", e);
+                batch.clear();
+                LockSupport.parkNanos(idleWaitNanos);
+            }
+        }
+    }
+
+    private void write(AuditLineBuffer batch) {
+        try {
+            segmentStore.append(batch);
+        } catch (IOException e) {
+            writeErrors.increment();
+            log.error("Failed to write audit batch: {}", e.getMessage());
+        }
+    }
+}
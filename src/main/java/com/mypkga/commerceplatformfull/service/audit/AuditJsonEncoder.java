@@ -0,0 +1,64 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Writes an {@link AuditEvent} as one JSON line into the batch buffer.
+ * Keys and value formats match what AuditLogService used to log through Jackson.
+ */
+final class AuditJsonEncoder {
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    void encode(AuditEvent event, AuditLineBuffer out) {
+        AuditEventType type = event.type;
+        String timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(event.timestamp), zone).toString();
+
+        out.ascii("{\"eventType\":\"").ascii(type.name()).ascii('"');
+        field(out, "timestamp", timestamp);
+        if (type.categoryKey != null) {
+            field(out, type.categoryKey, event.category);
+        }
+        out.ascii(",\"orderId\":");
+        if (event.orderId != null) {
+            out.number(event.orderId);
+        } else {
+            out.ascii("null");
+        }
+        if (type.fromStatusKey != null) {
+            field(out, type.fromStatusKey, event.fromStatus);
+        }
+        if (type.toStatusKey != null) {
+            field(out, type.toStatusKey, event.toStatus);
+        }
+        if (type.actorKey != null) {
+            field(out, type.actorKey, event.actor);
+        }
+        field(out, type.detailKey, event.detail);
+        if (type == AuditEventType.DATA_SYNCHRONIZATION) {
+            out.ascii(",\"success\":").ascii(String.valueOf(event.success));
+        }
+        if (type == AuditEventType.SYSTEM_ERROR) {
+            field(out, "exceptionClass", event.exceptionClass);
+            field(out, "stackTrace", event.exceptionMessage);
+        }
+        out.ascii(",\"sessionId\":\"SESSION_").number(event.timestamp).ascii("\"}\n");
+    }
+
+    private void field(AuditLineBuffer out, String key, OrderStatus value) {
+        field(out, key, value != null ? value.name() : null);
+    }
+
+    private void field(AuditLineBuffer out, String key, String value) {
+        out.ascii(",\"").ascii(key).ascii("\":");
+        if (value == null) {
+            out.ascii("null");
+        } else {
+            out.ascii('"').jsonEscaped(value).ascii('"');
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import java.util.Arrays;
+
+/**
+ * Growable UTF-8 byte buffer reused by the audit consumer for a whole batch.
+ * Encoding straight to bytes gives exact record offsets for the segment index.
+ */
+final class AuditLineBuffer {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private byte[] bytes;
+    private int size;
+
+    AuditLineBuffer(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void truncate(int newSize) {
+        size = newSize;
+    }
+
+    AuditLineBuffer ascii(char c) {
+        ensure(1);
+        bytes[size++] = (byte) c;
+        return this;
+    }
+
+    AuditLineBuffer ascii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            bytes[size++] = (byte) s.charAt(i);
+        }
+        return this;
+    }
+
+    AuditLineBuffer number(long value) {
+        return ascii(Long.toString(value));
+    }
+
+    /**
+     * Append {@code s} as the contents of a JSON string (without quotes), UTF-8 encoded.
+     */
+    AuditLineBuffer jsonEscaped(String s) {
+        // Worst case is a six-byte control character escape per char
+        ensure(s.length() * 6);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '"' -> escape('"');
+                    case '\\' -> escape('\\');
+                    case '\n' -> escape('n');
+                    case '\r' -> escape('r');
+                    case '\t' -> escape('t');
+                    default -> {
+                        if (c < 0x20) {
+                            ensure(6);
+                            bytes[size++] = '\\';
+                            bytes[size++] = 'u';
+                            bytes[size++] = '0';
+                            bytes[size++] = '0';
+                            bytes[size++] = HEX[c >> 4];
+                            bytes[size++] = HEX[c & 0xF];
+                        } else {
+                            bytes[size++] = (byte) c;
+                        }
+                    }
+                }
+            } else if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                ensure(4);
+                bytes[size++] = (byte) (0xF0 | (cp >> 18));
+                bytes[size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[size++] = '?';
+            } else {
+                bytes[size++] = (byte) (0xE0 | (c >> 12));
+                bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    private void escape(char c) {
+        ensure(2);
+        bytes[size++] = '\\';
+        bytes[size++] = (byte) c;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer / single-consumer ring of preallocated {@link AuditEvent} slots.
+ * Producers claim a sequence with one CAS, fill the slot and publish it by writing the
+ * slot's volatile sequence. The consumer reads slots strictly in sequence order and
+ * frees them by advancing its consumed cursor. No locks on either side.
+ */
+final class AuditRingBuffer {
+
+    private final AuditEvent[] slots;
+    private final int mask;
+
+    // Next sequence to hand out to a producer
+    private final AtomicLong claimCursor = new AtomicLong();
+
+    // Every sequence below this has been consumed and its slot may be reused
+    private volatile long consumedCursor = 0L;
+
+    AuditRingBuffer(int requestedSize) {
+        int size = 1;
+        while (size < requestedSize) {
+            size <<= 1;
+        }
+        this.slots = new AuditEvent[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new AuditEvent();
+        }
+    }
+
+    /**
+     * @return the claimed sequence, or -1 if the buffer is full
+     */
+    long tryClaim() {
+        while (true) {
+            long next = claimCursor.get();
+            if (next - consumedCursor >= slots.length) {
+                return -1L;
+            }
+            if (claimCursor.compareAndSet(next, next + 1)) {
+                return next;
+            }
+        }
+    }
+
+    AuditEvent slot(long sequence) {
+        return slots[(int) (sequence & mask)];
+    }
+
+    /**
+     * Consumer side: the slot for {@code sequence} if it has been published, else null.
+     */
+    AuditEvent poll(long sequence) {
+        AuditEvent slot = slot(sequence);
+        return slot.sequence == sequence ? slot : null;
+    }
+
+    /**
+     * Consumer side: mark every sequence below {@code upTo} as free.
+     */
+    void release(long upTo) {
+        consumedCursor = upTo;
+    }
+
+    long consumed() {
+        return consumedCursor;
+    }
+
+    long claimed() {
+        return claimCursor.get();
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    int used() {
+        return (int) (claimCursor.get() - consumedCursor);
+    }
+}
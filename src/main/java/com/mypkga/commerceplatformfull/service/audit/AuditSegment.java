@@ -0,0 +1,330 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One time partition of the audit store: an append-only JSON-lines data file plus,
+ * once sealed, a sorted index file.
+ * <p>
+ * While active, the index lives in memory as parallel arrays. Sealing writes it as
+ * {@code header | orderId entries | actor entries}, each section sorted by key then
+ * offset, with fixed-width entries {@code key(8) timestamp(8) offset(4) length(4)} so
+ * lookups binary-search the file with positional reads instead of loading it.
+ */
+final class AuditSegment {
+
+    static final String DATA_EXTENSION = ".jsonl";
+    static final String INDEX_EXTENSION = ".idx";
+
+    static final long NO_KEY = Long.MIN_VALUE;
+
+    private static final int INDEX_MAGIC = 0x41554458;
+    private static final int INDEX_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int ENTRY_BYTES = 24;
+    private static final int SCAN_ENTRIES = 128;
+
+    enum Key { ORDER, ACTOR }
+
+    /**
+     * Location of one matching record.
+     */
+    record Match(long timestamp, int offset, int length) {
+    }
+
+    final long id;
+    final Path dataFile;
+    final Path indexFile;
+    final long windowEnd;
+
+    private volatile long minTimestamp = Long.MAX_VALUE;
+    private volatile long maxTimestamp = Long.MIN_VALUE;
+    private volatile boolean sealed;
+
+    // Sealed: section sizes read from the index header
+    private int orderEntries;
+    private int actorEntries;
+
+    // Active: write channel and in-memory index, guarded by this
+    private FileChannel writeChannel;
+    private long size;
+    private int count;
+    private long[] timestamps = new long[0];
+    private int[] offsets = new int[0];
+    private int[] lengths = new int[0];
+    private long[] orderKeys = new long[0];
+    private long[] actorKeys = new long[0];
+
+    private AuditSegment(long id, Path directory, long windowEnd) {
+        this.id = id;
+        this.dataFile = directory.resolve(fileName(id, DATA_EXTENSION));
+        this.indexFile = directory.resolve(fileName(id, INDEX_EXTENSION));
+        this.windowEnd = windowEnd;
+    }
+
+    static String fileName(long id, String extension) {
+        return "audit-" + id + extension;
+    }
+
+    static AuditSegment create(Path directory, long id, long windowEnd) throws IOException {
+        AuditSegment segment = new AuditSegment(id, directory, windowEnd);
+        segment.writeChannel = FileChannel.open(segment.dataFile, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return segment;
+    }
+
+    /**
+     * Open a sealed segment by reading its index header only.
+     */
+    static AuditSegment openSealed(Path directory, long id) throws IOException {
+        AuditSegment segment = new AuditSegment(id, directory, Long.MIN_VALUE);
+        try (FileChannel channel = FileChannel.open(segment.indexFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0L);
+            header.flip();
+            if (header.getInt() != INDEX_MAGIC || header.getInt() != INDEX_VERSION) {
+                throw new IOException("Unrecognised audit index " + segment.indexFile);
+            }
+            segment.minTimestamp = header.getLong();
+            segment.maxTimestamp = header.getLong();
+            segment.orderEntries = header.getInt();
+            segment.actorEntries = header.getInt();
+        }
+        segment.sealed = true;
+        return segment;
+    }
+
+    /**
+     * Reopen a data file whose index was never written (e.g. after a crash) so the
+     * store can rebuild the index with {@link #add} and then {@link #seal}.
+     */
+    static AuditSegment forRebuild(Path directory, long id) {
+        return new AuditSegment(id, directory, Long.MIN_VALUE);
+    }
+
+    long minTimestamp() {
+        return minTimestamp;
+    }
+
+    long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    boolean overlaps(long from, long to) {
+        return maxTimestamp >= from && minTimestamp <= to;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Append a batch and index its records. Offsets in {@code recordOffsets} are relative to the batch.
+     */
+    synchronized void append(AuditLineBuffer batch, int records, long[] recordTimestamps, int[] recordOffsets,
+                             int[] recordLengths, long[] recordOrderKeys, long[] recordActorKeys) throws IOException {
+        int base = (int) size;
+        ByteBuffer buffer = ByteBuffer.wrap(batch.array(), 0, batch.size());
+        while (buffer.hasRemaining()) {
+            size += writeChannel.write(buffer);
+        }
+        for (int i = 0; i < records; i++) {
+            add(recordTimestamps[i], base + recordOffsets[i], recordLengths[i], recordOrderKeys[i], recordActorKeys[i]);
+        }
+    }
+
+    synchronized void add(long timestamp, int offset, int length, long orderKey, long actorKey) {
+        if (count == timestamps.length) {
+            int capacity = Math.max(1024, count * 2);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            orderKeys = Arrays.copyOf(orderKeys, capacity);
+            actorKeys = Arrays.copyOf(actorKeys, capacity);
+        }
+        timestamps[count] = timestamp;
+        offsets[count] = offset;
+        lengths[count] = length;
+        orderKeys[count] = orderKey;
+        actorKeys[count] = actorKey;
+        count++;
+        if (timestamp < minTimestamp) {
+            minTimestamp = timestamp;
+        }
+        if (timestamp > maxTimestamp) {
+            maxTimestamp = timestamp;
+        }
+    }
+
+    /**
+     * Close the data file and write the sorted index; afterwards the segment is read-only.
+     */
+    synchronized void seal() throws IOException {
+        if (sealed) {
+            return;
+        }
+        if (writeChannel != null) {
+            writeChannel.force(false);
+            writeChannel.close();
+            writeChannel = null;
+        }
+
+        Integer[] byOrder = sortedEntries(orderKeys);
+        Integer[] byActor = sortedEntries(actorKeys);
+
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(minTimestamp);
+            out.writeLong(maxTimestamp);
+            out.writeInt(byOrder.length);
+            out.writeInt(byActor.length);
+            writeEntries(out, byOrder, orderKeys);
+            writeEntries(out, byActor, actorKeys);
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        orderEntries = byOrder.length;
+        actorEntries = byActor.length;
+        sealed = true;
+        timestamps = new long[0];
+        offsets = new int[0];
+        lengths = new int[0];
+        orderKeys = new long[0];
+        actorKeys = new long[0];
+    }
+
+    /**
+     * Records for {@code key} within [from, to], in file order.
+     */
+    List<Match> find(Key kind, long key, long from, long to) throws IOException {
+        synchronized (this) {
+            if (!sealed) {
+                long[] keys = kind == Key.ORDER ? orderKeys : actorKeys;
+                List<Match> matches = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    if (keys[i] == key && timestamps[i] >= from && timestamps[i] <= to) {
+                        matches.add(new Match(timestamps[i], offsets[i], lengths[i]));
+                    }
+                }
+                return matches;
+            }
+        }
+        return findSealed(kind, key, from, to);
+    }
+
+    /**
+     * Read the JSON line of a match, without its trailing newline.
+     */
+    String read(FileChannel dataChannel, Match match) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(match.length());
+        readFully(dataChannel, buffer, match.offset());
+        int length = match.length();
+        if (length > 0 && buffer.get(length - 1) == '\n') {
+            length--;
+        }
+        return new String(buffer.array(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(indexFile);
+        Files.deleteIfExists(dataFile);
+    }
+
+    private List<Match> findSealed(Key kind, long key, long from, long to) throws IOException {
+        List<Match> matches = new ArrayList<>();
+        int entries = kind == Key.ORDER ? orderEntries : actorEntries;
+        if (entries == 0) {
+            return matches;
+        }
+        long sectionStart = HEADER_BYTES + (kind == Key.ACTOR ? (long) orderEntries * ENTRY_BYTES : 0L);
+
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            // Lower bound of key
+            ByteBuffer keyBuffer = ByteBuffer.allocate(Long.BYTES);
+            int low = 0;
+            int high = entries;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                keyBuffer.clear();
+                readFully(channel, keyBuffer, sectionStart + (long) mid * ENTRY_BYTES);
+                if (keyBuffer.getLong(0) < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            // Read the run of equal keys in blocks
+            ByteBuffer block = ByteBuffer.allocate(SCAN_ENTRIES * ENTRY_BYTES);
+            for (int i = low; i < entries; i += SCAN_ENTRIES) {
+                int batch = Math.min(SCAN_ENTRIES, entries - i);
+                block.clear().limit(batch * ENTRY_BYTES);
+                readFully(channel, block, sectionStart + (long) i * ENTRY_BYTES);
+                block.flip();
+                for (int j = 0; j < batch; j++) {
+                    long entryKey = block.getLong();
+                    long timestamp = block.getLong();
+                    int offset = block.getInt();
+                    int length = block.getInt();
+                    if (entryKey != key) {
+                        return matches;
+                    }
+                    if (timestamp >= from && timestamp <= to) {
+                        matches.add(new Match(timestamp, offset, length));
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    private Integer[] sortedEntries(long[] keys) {
+        List<Integer> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (keys[i] != NO_KEY) {
+                entries.add(i);
+            }
+        }
+        Integer[] sorted = entries.toArray(new Integer[0]);
+        // Stable sort keeps file order within a key
+        Arrays.sort(sorted, Comparator.comparingLong(i -> keys[i]));
+        return sorted;
+    }
+
+    private void writeEntries(DataOutputStream out, Integer[] entries, long[] keys) throws IOException {
+        for (int i : entries) {
+            out.writeLong(keys[i]);
+            out.writeLong(timestamps[i]);
+            out.writeInt(offsets[i]);
+            out.writeInt(lengths[i]);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of audit file");
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mypkga.commerceplatformfull.config.AuditLogConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Persistent audit store made of time-partitioned {@link AuditSegment}s.
+ * The audit consumer appends batches sequentially to the active segment, which is sealed
+ * (index written) when its time window ends or it reaches the size limit. Queries skip
+ * segments outside the requested time range and seek through each segment's index on
+ * orderId or actor. Retention deletes whole segments.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuditSegmentStore {
+
+    private static final long RETENTION_CHECK_MILLIS = 3_600_000L;
+
+    private final AuditLogConfig config;
+    private final ObjectMapper objectMapper;
+
+    // Sealed segments, oldest first
+    private final List<AuditSegment> sealedSegments = new CopyOnWriteArrayList<>();
+    private volatile AuditSegment active;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private Path directory;
+    private long segmentMillis;
+    private long maxSegmentBytes;
+    private long lastSegmentId;
+    private long nextRetentionCheck;
+
+    // Index entries of the batch being encoded; consumer thread only
+    private int staged;
+    private long[] stagedTimestamps = new long[0];
+    private int[] stagedOffsets = new int[0];
+    private int[] stagedLengths = new int[0];
+    private long[] stagedOrderKeys = new long[0];
+    private long[] stagedActorKeys = new long[0];
+
+    @PostConstruct
+    void open() {
+        directory = Paths.get(config.getDirectory());
+        segmentMillis = config.getSegmentDuration().toMillis();
+        maxSegmentBytes = Math.min(config.getMaxSegmentSize().toBytes(), Integer.MAX_VALUE);
+
+        List<Long> ids = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                    "audit-*" + AuditSegment.DATA_EXTENSION)) {
+                for (Path file : stream) {
+                    String name = file.getFileName().toString();
+                    try {
+                        ids.add(Long.parseLong(name.substring(6, name.length() - AuditSegment.DATA_EXTENSION.length())));
+                    } catch (NumberFormatException ignored) {
+                        // Not a segment file
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("Audit store directory {} is not usable: {}", directory, e.getMessage());
+            return;
+        }
+
+        Collections.sort(ids);
+        for (Long id : ids) {
+            try {
+                Path indexFile = directory.resolve(AuditSegment.fileName(id, AuditSegment.INDEX_EXTENSION));
+                sealedSegments.add(Files.exists(indexFile)
+                        ? AuditSegment.openSealed(directory, id)
+                        : rebuild(id));
+            } catch (IOException e) {
+                log.warn("Skipping unreadable audit segment {}: {}", id, e.getMessage());
+            }
+            lastSegmentId = id;
+        }
+        applyRetention(System.currentTimeMillis());
+        log.info("Audit store opened with {} segments in {}", sealedSegments.size(), directory);
+    }
+
+    @PreDestroy
+    void close() {
+        roll();
+    }
+
+    /**
+     * Record the index entry for an event just encoded into the current batch.
+     */
+    void stage(long timestamp, Long orderId, String actor, int offset, int length) {
+        if (staged == stagedTimestamps.length) {
+            int capacity = Math.max(256, staged * 2);
+            stagedTimestamps = Arrays.copyOf(stagedTimestamps, capacity);
+            stagedOffsets = Arrays.copyOf(stagedOffsets, capacity);
+            stagedLengths = Arrays.copyOf(stagedLengths, capacity);
+            stagedOrderKeys = Arrays.copyOf(stagedOrderKeys, capacity);
+            stagedActorKeys = Arrays.copyOf(stagedActorKeys, capacity);
+        }
+        stagedTimestamps[staged] = timestamp;
+        stagedOffsets[staged] = offset;
+        stagedLengths[staged] = length;
+        stagedOrderKeys[staged] = orderId != null ? orderId : AuditSegment.NO_KEY;
+        stagedActorKeys[staged] = actorKey(actor);
+        staged++;
+    }
+
+    /**
+     * Append the current batch and its staged index entries to the active segment.
+     */
+    void append(AuditLineBuffer batch) throws IOException {
+        if (staged == 0) {
+            return;
+        }
+        try {
+            AuditSegment segment = active;
+            if (segment != null && (stagedTimestamps[0] >= segment.windowEnd
+                    || segment.size() + batch.size() > maxSegmentBytes)) {
+                roll();
+                segment = null;
+            }
+            if (segment == null) {
+                segment = openSegment(stagedTimestamps[0]);
+            }
+            segment.append(batch, staged, stagedTimestamps, stagedOffsets, stagedLengths,
+                    stagedOrderKeys, stagedActorKeys);
+        } catch (IOException e) {
+            // Seal what was indexed so far and start a fresh segment with the next batch
+            roll();
+            throw e;
+        } finally {
+            staged = 0;
+        }
+    }
+
+    /**
+     * Seal the active segment once its window has passed and apply retention; called when idle.
+     */
+    void rollIfDue(long now) {
+        AuditSegment segment = active;
+        if (segment != null && now >= segment.windowEnd) {
+            roll();
+        }
+        if (now >= nextRetentionCheck) {
+            applyRetention(now);
+        }
+    }
+
+    /**
+     * Audit events of an order, newest first.
+     */
+    public List<String> findByOrderId(long orderId, LocalDateTime from, LocalDateTime to, int limit) {
+        return find(AuditSegment.Key.ORDER, orderId, from, to, limit, null);
+    }
+
+    /**
+     * Audit events recorded for an actor (updatedBy / customerId / userId), newest first.
+     */
+    public List<String> findByActor(String actor, LocalDateTime from, LocalDateTime to, int limit) {
+        // The index holds a hash of the actor, so each hit is checked against the record itself
+        return find(AuditSegment.Key.ACTOR, actorKey(actor), from, to, limit, line -> actor.equals(actorOf(line)));
+    }
+
+    private List<String> find(AuditSegment.Key kind, long key, LocalDateTime from, LocalDateTime to, int limit,
+                              Predicate<String> filter) {
+        long fromMillis = from != null ? toEpochMillis(from) : Long.MIN_VALUE;
+        long toMillis = to != null ? toEpochMillis(to) : Long.MAX_VALUE;
+        int max = Math.min(limit, config.getMaxQueryResults());
+
+        List<AuditSegment> segments = new ArrayList<>(sealedSegments);
+        AuditSegment current = active;
+        if (current != null && (segments.isEmpty() || segments.get(segments.size() - 1) != current)) {
+            segments.add(current);
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (int s = segments.size() - 1; s >= 0 && lines.size() < max; s--) {
+            AuditSegment segment = segments.get(s);
+            if (!segment.overlaps(fromMillis, toMillis)) {
+                continue;
+            }
+            try {
+                List<AuditSegment.Match> matches = segment.find(kind, key, fromMillis, toMillis);
+                if (matches.isEmpty()) {
+                    continue;
+                }
+                try (FileChannel data = FileChannel.open(segment.dataFile, StandardOpenOption.READ)) {
+                    for (int i = matches.size() - 1; i >= 0 && lines.size() < max; i--) {
+                        String line = segment.read(data, matches.get(i));
+                        if (filter == null || filter.test(line)) {
+                            lines.add(line);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Typically deleted by retention while being read
+                log.warn("Skipping audit segment {}: {}", segment.id, e.getMessage());
+            }
+        }
+        return lines;
+    }
+
+    private AuditSegment openSegment(long firstTimestamp) throws IOException {
+        long id = Math.max(System.currentTimeMillis(), lastSegmentId + 1);
+        long windowEnd = (Math.floorDiv(firstTimestamp, segmentMillis) + 1) * segmentMillis;
+        AuditSegment segment = AuditSegment.create(directory, id, windowEnd);
+        lastSegmentId = id;
+        active = segment;
+        return segment;
+    }
+
+    private synchronized void roll() {
+        AuditSegment segment = active;
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.seal();
+        } catch (IOException e) {
+            // Still queryable from memory; the index is rebuilt from the data file on restart
+            log.error("Failed to seal audit segment {}: {}", segment.id, e.getMessage());
+        }
+        // Publish as sealed before clearing active so queries never miss it
+        sealedSegments.add(segment);
+        active = null;
+    }
+
+    private void applyRetention(long now) {
+        nextRetentionCheck = now + RETENTION_CHECK_MILLIS;
+        long cutoff = now - config.getRetention().toMillis();
+        for (AuditSegment segment : sealedSegments) {
+            if (segment.maxTimestamp() < cutoff) {
+                sealedSegments.remove(segment);
+                try {
+                    segment.delete();
+                    log.info("Deleted expired audit segment {}", segment.dataFile.getFileName());
+                } catch (IOException e) {
+                    log.warn("Failed to delete audit segment {}: {}", segment.dataFile, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuild the index of a segment that was not sealed, e.g. after a crash.
+     */
+    private AuditSegment rebuild(long id) throws IOException {
+        AuditSegment segment = AuditSegment.forRebuild(directory, id);
+        byte[] data = Files.readAllBytes(segment.dataFile);
+        int start = 0;
+        int recovered = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != '\n') {
+                continue;
+            }
+            try {
+                JsonNode node = objectMapper.readTree(data, start, i - start);
+                AuditEventType type = AuditEventType.valueOf(node.path("eventType").asText());
+                long timestamp = toEpochMillis(LocalDateTime.parse(node.path("timestamp").asText()));
+                JsonNode orderId = node.get("orderId");
+                String actor = type.actorKey != null ? node.path(type.actorKey).asText(null) : null;
+                segment.add(timestamp, start, i + 1 - start,
+                        orderId != null && orderId.isNumber() ? orderId.asLong() : AuditSegment.NO_KEY,
+                        actorKey(actor));
+                recovered++;
+            } catch (Exception e) {
+                log.debug("Skipping damaged audit record at {} in {}", start, segment.dataFile);
+            }
+            start = i + 1;
+        }
+        segment.seal();
+        log.info("Rebuilt index of audit segment {} ({} records)", segment.dataFile.getFileName(), recovered);
+        return segment;
+    }
+
+    private String actorOf(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            AuditEventType type = AuditEventType.valueOf(node.path("eventType").asText());
+            return type.actorKey != null ? node.path(type.actorKey).asText(null) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private long toEpochMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the actor name. Only narrows the search; {@link #findByActor}
+     * re-checks the actor of every hit.
+     */
+    static long actorKey(String actor) {
+        if (actor == null) {
+            return AuditSegment.NO_KEY;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < actor.length(); i++) {
+            hash ^= actor.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == AuditSegment.NO_KEY ? hash + 1 : hash;
+    }
+}
@@ -0,0 +1,135 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker for background calls to the GHN API.
+ * After {@code failure-threshold} consecutive failures the circuit opens and callers are
+ * turned away for {@code open-duration}; then a single probe call is let through, which
+ * closes the circuit on success or opens it again on failure.
+ * Every call admitted by {@link #tryAcquire()} must be ended with {@link #onSuccess()},
+ * {@link #onFailure()} or {@link #release()}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GhnCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ghn.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${ghn.circuit-breaker.open-duration:30s}")
+    private Duration openDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("ghn.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("GHN circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true if the call may go to GHN now
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDuration.toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                return false;
+            }
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    /**
+     * GHN answered, even if it rejected the request.
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            log.info("GHN circuit closed");
+            state = State.CLOSED;
+        }
+    }
+
+    /**
+     * GHN was unreachable, timed out or failed on its side.
+     */
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            log.warn("GHN circuit opened for {} s after {} consecutive failures",
+                    openDuration.toSeconds(), consecutiveFailures);
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * The admitted call was not made after all.
+     */
+    public synchronized void release() {
+        probeInFlight = false;
+    }
+
+    /**
+     * Whether a failed call means GHN itself is in trouble: unreachable, timing out,
+     * failing with 5xx or throttling. Other errors are answers and close the circuit.
+     */
+    public static boolean isOutage(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpClientErrorException clientError) {
+                return clientError.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+            }
+            if (cause instanceof HttpServerErrorException || cause instanceof ResourceAccessException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Time until an open circuit lets a probe through; zero otherwise.
+     */
+    public synchronized Duration remainingOpen() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        long remaining = openDuration.toNanos() - (System.nanoTime() - openedAt);
+        return Duration.ofNanos(Math.max(0L, remaining));
+    }
+}
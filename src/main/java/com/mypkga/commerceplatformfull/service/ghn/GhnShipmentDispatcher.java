@@ -0,0 +1,411 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import com.mypkga.commerceplatformfull.config.GHNConfig;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNCreateOrderResponse;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNFeeResponse;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNOrderInfo;
+import com.mypkga.commerceplatformfull.entity.GhnShipmentJob;
+import com.mypkga.commerceplatformfull.entity.GhnShipmentJobStatus;
+import com.mypkga.commerceplatformfull.entity.Order;
+import com.mypkga.commerceplatformfull.entity.ReturnRequest;
+import com.mypkga.commerceplatformfull.entity.ReturnRequestHistory;
+import com.mypkga.commerceplatformfull.repository.GhnShipmentJobRepository;
+import com.mypkga.commerceplatformfull.repository.ReturnRequestHistoryRepository;
+import com.mypkga.commerceplatformfull.repository.ReturnRequestRepository;
+import com.mypkga.commerceplatformfull.service.GHNReturnService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates GHN return orders for approved return requests in the background.
+ * Each run claims due jobs and works them on {@code concurrency} virtual threads. A failed
+ * job is retried with exponential backoff and jitter, starting at {@code ghn.retry-delay-ms},
+ * for up to {@code ghn.max-retries} retries; GHN rejecting the order fails it at once.
+ * Retries draw on a shared {@link RetryBudget} and every call passes the
+ * {@link GhnCircuitBreaker}; jobs turned away by either are deferred without using up an
+ * attempt. When an attempt may have reached GHN, the next one looks the order up by its
+ * client order code before creating it again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GhnShipmentDispatcher {
+
+    private final GhnShipmentJobRepository jobRepository;
+    private final ReturnRequestRepository returnRequestRepository;
+    private final ReturnRequestHistoryRepository historyRepository;
+    private final GHNReturnService ghnReturnService;
+    private final GhnCircuitBreaker circuitBreaker;
+    private final GHNConfig ghnConfig;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ghn.shipment-jobs.batch-size:20}")
+    private int batchSize;
+
+    @Value("${ghn.shipment-jobs.concurrency:2}")
+    private int concurrency;
+
+    @Value("${ghn.shipment-jobs.claim-timeout:5m}")
+    private Duration claimTimeout;
+
+    @Value("${ghn.shipment-jobs.retry-max:30m}")
+    private Duration retryMax;
+
+    @Value("${ghn.shipment-jobs.retry-budget.ratio:0.2}")
+    private double budgetRatio;
+
+    @Value("${ghn.shipment-jobs.retry-budget.min-per-second:0.1}")
+    private double budgetMinPerSecond;
+
+    @Value("${ghn.shipment-jobs.retry-budget.max:10}")
+    private double budgetMax;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean wakeRequested = new AtomicBoolean(false);
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private RetryBudget retryBudget;
+
+    private Counter succeededCounter;
+    private Counter retryCounter;
+    private Counter failedCounter;
+    private Counter circuitDeferredCounter;
+    private Counter budgetDeferredCounter;
+    private Timer creationLatency;
+
+    @PostConstruct
+    void init() {
+        retryBudget = new RetryBudget(budgetRatio, budgetMinPerSecond, budgetMax);
+
+        Gauge.builder("ghn.shipment.jobs.pending", pendingCount, AtomicLong::get)
+                .description("GHN return orders waiting to be created")
+                .register(meterRegistry);
+        Gauge.builder("ghn.shipment.jobs.failed", failedCount, AtomicLong::get)
+                .description("GHN return orders given up on, waiting for staff")
+                .register(meterRegistry);
+        Gauge.builder("ghn.shipment.retry.budget", retryBudget, RetryBudget::available)
+                .description("Retries GHN order creation may make right now")
+                .register(meterRegistry);
+        succeededCounter = Counter.builder("ghn.shipment.jobs").tag("outcome", "succeeded").register(meterRegistry);
+        retryCounter = Counter.builder("ghn.shipment.jobs").tag("outcome", "retry").register(meterRegistry);
+        failedCounter = Counter.builder("ghn.shipment.jobs").tag("outcome", "failed").register(meterRegistry);
+        circuitDeferredCounter = Counter.builder("ghn.shipment.jobs").tag("outcome", "deferred_circuit")
+                .register(meterRegistry);
+        budgetDeferredCounter = Counter.builder("ghn.shipment.jobs").tag("outcome", "deferred_budget")
+                .register(meterRegistry);
+        creationLatency = Timer.builder("ghn.shipment.creation.latency")
+                .description("Time from approval to the GHN order being created")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start a run right away, e.g. after a return was approved.
+     */
+    public void wake() {
+        wakeRequested.set(true);
+        if (!running.get()) {
+            Thread.ofVirtual().name("ghn-shipment-dispatch").start(this::dispatch);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ghn.shipment-jobs.poll-ms:5000}")
+    public void poll() {
+        try {
+            jobRepository.releaseExpiredClaims(LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("Failed to release stale GHN shipment job claims: {}", e.getMessage());
+        }
+        wake();
+        try {
+            pendingCount.set(jobRepository.countByState(GhnShipmentJobStatus.PENDING));
+            failedCount.set(jobRepository.countByState(GhnShipmentJobStatus.FAILED));
+        } catch (Exception e) {
+            log.debug("Failed to refresh GHN shipment job gauges: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Work off due jobs; a wake-up that arrives mid-run triggers one more pass.
+     */
+    public void dispatch() {
+        while (wakeRequested.get() && running.compareAndSet(false, true)) {
+            try {
+                wakeRequested.set(false);
+                while (dispatchBatch() >= batchSize) {
+                    // Keep draining full batches
+                }
+            } catch (Exception e) {
+                log.error("GHN shipment dispatch failed: {}", e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    private int dispatchBatch() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = jobRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String token = UUID.randomUUID().toString();
+        if (jobRepository.claim(ids, token, now.plus(claimTimeout)) == 0) {
+            return ids.size();
+        }
+        List<GhnShipmentJob> claimed = jobRepository.findByClaimToken(token);
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, concurrency),
+                Thread.ofVirtual().name("ghn-shipment-worker-", 0).factory())) {
+            List<Future<?>> futures = new ArrayList<>(claimed.size());
+            for (GhnShipmentJob job : claimed) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        runJob(job);
+                    } catch (Exception e) {
+                        // Left claimed; the job is picked up again once the claim expires
+                        log.error("GHN shipment job {} aborted: {}", job.getId(), e.getMessage());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return ids.size();
+    }
+
+    private void runJob(GhnShipmentJob job) {
+        ReturnRequest returnRequest = transactionTemplate.execute(status -> loadForShipment(job.getReturnRequestId()));
+        if (returnRequest == null) {
+            finishFailed(job, "Return request not found");
+            return;
+        }
+        if (returnRequest.getGhnOrderCode() != null) {
+            // Created by an earlier run whose job update was lost
+            finishSucceeded(job, returnRequest.getGhnOrderCode());
+            return;
+        }
+
+        boolean retry = job.getAttempts() > 0;
+        if (!circuitBreaker.tryAcquire()) {
+            circuitDeferredCounter.increment();
+            defer(job, circuitBreaker.remainingOpen().toMillis());
+            return;
+        }
+        if (retry && !retryBudget.tryRetry()) {
+            circuitBreaker.release();
+            budgetDeferredCounter.increment();
+            defer(job, ghnConfig.getRetryDelayMs());
+            return;
+        }
+        if (!retry) {
+            retryBudget.onFirstAttempt();
+        }
+        job.setAttempts(job.getAttempts() + 1);
+
+        String orderCode = null;
+        String sortCode = null;
+        Integer fee = null;
+        boolean lookedUp = false;
+        try {
+            if (job.getOutcomeUnknown()) {
+                GHNOrderInfo existing = ghnReturnService.findReturnShippingOrder(returnRequest);
+                lookedUp = true;
+                if (existing != null) {
+                    orderCode = existing.getData().getOrderCode();
+                    sortCode = existing.getData().getSortCode();
+                    log.info("Found GHN order {} already created for return request {}",
+                            orderCode, returnRequest.getId());
+                }
+            }
+            if (orderCode == null) {
+                GHNCreateOrderResponse created = ghnReturnService.createReturnShippingOrder(returnRequest);
+                if (created.getCode() == null || created.getCode() != 200 || created.getData() == null) {
+                    circuitBreaker.onSuccess();
+                    job.setOutcomeUnknown(false);
+                    fail(job, "GHN rejected the order: " + created.getMessage(), true);
+                    return;
+                }
+                orderCode = created.getData().getOrderCode();
+                sortCode = created.getData().getSortCode();
+                fee = created.getData().getTotalFee();
+            }
+            circuitBreaker.onSuccess();
+        } catch (Exception e) {
+            Failure failure = classify(e);
+            if (GhnCircuitBreaker.isOutage(e)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            if (lookedUp || !job.getOutcomeUnknown()) {
+                job.setOutcomeUnknown(failure.outcomeUnknown());
+            }
+            fail(job, rootMessage(e), failure.permanent());
+            return;
+        }
+
+        if (fee == null) {
+            fee = quotedFee(returnRequest);
+        }
+        try {
+            complete(job, orderCode, sortCode, fee);
+        } catch (Exception e) {
+            // The order exists at GHN; the next attempt will find it
+            job.setOutcomeUnknown(true);
+            fail(job, "Failed to save GHN order " + orderCode + ": " + e.getMessage(), false);
+        }
+    }
+
+    /**
+     * Read the return request with everything the GHN request is built from,
+     * so GHN is called outside any transaction.
+     */
+    private ReturnRequest loadForShipment(Long returnRequestId) {
+        ReturnRequest returnRequest = returnRequestRepository.findById(returnRequestId).orElse(null);
+        if (returnRequest != null) {
+            Order order = returnRequest.getOrder();
+            order.getUser().getFullName();
+            order.getItems().forEach(item -> item.getProduct().getCategory().getName());
+        }
+        return returnRequest;
+    }
+
+    private Integer quotedFee(ReturnRequest returnRequest) {
+        try {
+            GHNFeeResponse quote = ghnReturnService.calculateReturnShippingFee(returnRequest);
+            return quote.getData().getTotal();
+        } catch (Exception e) {
+            log.warn("No GHN fee for return request {}: {}", returnRequest.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void complete(GhnShipmentJob job, String orderCode, String sortCode, Integer fee) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ReturnRequest returnRequest = returnRequestRepository.findById(job.getReturnRequestId()).orElseThrow();
+            if (returnRequest.getGhnOrderCode() == null) {
+                returnRequest.setGhnOrderCode(orderCode);
+                returnRequest.setGhnTrackingNumber(sortCode);
+                returnRequest.setGhnFee(fee);
+                returnRequestRepository.save(returnRequest);
+                historyRepository.save(ReturnRequestHistory.createGhnOrderHistory(returnRequest, orderCode, fee));
+            }
+            finishSucceeded(job, orderCode);
+        });
+        creationLatency.record(Duration.between(job.getCreatedAt(), job.getCompletedAt()));
+        log.info("Created GHN order {} for return request {} after {} attempt(s)",
+                orderCode, job.getReturnRequestId(), job.getAttempts());
+    }
+
+    private void finishSucceeded(GhnShipmentJob job, String orderCode) {
+        job.setState(GhnShipmentJobStatus.SUCCEEDED);
+        job.setGhnOrderCode(orderCode);
+        job.setOutcomeUnknown(false);
+        job.setLastError(null);
+        job.setCompletedAt(LocalDateTime.now());
+        save(job);
+        succeededCounter.increment();
+    }
+
+    private void finishFailed(GhnShipmentJob job, String error) {
+        job.setState(GhnShipmentJobStatus.FAILED);
+        job.setLastError(abbreviate(error));
+        job.setCompletedAt(LocalDateTime.now());
+        save(job);
+        failedCounter.increment();
+    }
+
+    private void defer(GhnShipmentJob job, long delayMillis) {
+        job.setState(GhnShipmentJobStatus.PENDING);
+        job.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(jitter(Math.max(1000L, delayMillis)))));
+        save(job);
+    }
+
+    private void fail(GhnShipmentJob job, String error, boolean permanent) {
+        int attempts = job.getAttempts();
+        if (permanent || attempts > ghnConfig.getMaxRetries()) {
+            log.error("GHN order for return request {} failed after {} attempt(s): {}",
+                    job.getReturnRequestId(), attempts, error);
+            finishFailed(job, error);
+            return;
+        }
+        long backoff = ghnConfig.getRetryDelayMs() << Math.min(attempts - 1, 20);
+        backoff = jitter(Math.min(backoff, retryMax.toMillis()));
+        job.setState(GhnShipmentJobStatus.PENDING);
+        job.setLastError(abbreviate(error));
+        job.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoff)));
+        save(job);
+        retryCounter.increment();
+        log.warn("GHN order for return request {} failed (attempt {}), retrying in {} s: {}",
+                job.getReturnRequestId(), attempts, backoff / 1000, error);
+    }
+
+    private void save(GhnShipmentJob job) {
+        job.setClaimToken(null);
+        job.setClaimedUntil(null);
+        jobRepository.save(job);
+    }
+
+    /**
+     * Whether a failed call is worth retrying and whether GHN may have created the order.
+     */
+    private static Failure classify(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpClientErrorException clientError) {
+                return new Failure(clientError.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS, false);
+            }
+            if (cause instanceof HttpServerErrorException || cause instanceof ResourceAccessException) {
+                return new Failure(false, true);
+            }
+        }
+        return new Failure(false, false);
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getClass().getSimpleName() + ": " + root.getMessage();
+    }
+
+    private static long jitter(long millis) {
+        return (long) (millis * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+
+    private static String abbreviate(String text) {
+        return text == null || text.length() <= 1000 ? text : text.substring(0, 1000);
+    }
+
+    private record Failure(boolean permanent, boolean outcomeUnknown) {
+    }
+}
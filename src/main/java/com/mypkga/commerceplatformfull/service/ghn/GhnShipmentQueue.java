@@ -0,0 +1,83 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import com.mypkga.commerceplatformfull.dto.ghn.GHNShipmentStatus;
+import com.mypkga.commerceplatformfull.entity.GhnShipmentJob;
+import com.mypkga.commerceplatformfull.entity.GhnShipmentJobStatus;
+import com.mypkga.commerceplatformfull.repository.GhnShipmentJobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Entry point of background GHN return order creation. A job is stored in the caller's
+ * transaction and the dispatcher is woken once it commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class GhnShipmentQueue {
+
+    private final GhnShipmentJobRepository jobRepository;
+    private final GhnShipmentDispatcher dispatcher;
+    private final GhnCircuitBreaker circuitBreaker;
+
+    /**
+     * Queue creation of the GHN return order; a return request has at most one job.
+     */
+    @Transactional
+    public GhnShipmentJob enqueue(Long returnRequestId) {
+        GhnShipmentJob job = jobRepository.findByReturnRequestId(returnRequestId).orElse(null);
+        if (job != null && job.getState() != GhnShipmentJobStatus.FAILED) {
+            return job;
+        }
+        job = jobRepository.save(job != null ? restart(job) : new GhnShipmentJob(returnRequestId));
+        wakeAfterCommit();
+        return job;
+    }
+
+    /**
+     * Try a failed job again with a fresh set of attempts.
+     *
+     * @return false if there is no failed job for the return request
+     */
+    @Transactional
+    public boolean retry(Long returnRequestId) {
+        GhnShipmentJob job = jobRepository.findByReturnRequestId(returnRequestId).orElse(null);
+        if (job == null || job.getState() != GhnShipmentJobStatus.FAILED) {
+            return false;
+        }
+        jobRepository.save(restart(job));
+        wakeAfterCommit();
+        return true;
+    }
+
+    public Optional<GHNShipmentStatus> status(Long returnRequestId) {
+        boolean ghnUnavailable = circuitBreaker.getState() == GhnCircuitBreaker.State.OPEN;
+        return jobRepository.findByReturnRequestId(returnRequestId)
+                .map(job -> new GHNShipmentStatus(job.getState().name(), job.getAttempts(),
+                        Math.max(0L, Duration.between(LocalDateTime.now(), job.getNextAttemptAt()).toSeconds()),
+                        job.getLastError(), job.getGhnOrderCode(), ghnUnavailable));
+    }
+
+    private static GhnShipmentJob restart(GhnShipmentJob job) {
+        job.setState(GhnShipmentJobStatus.PENDING);
+        job.setAttempts(0);
+        job.setNextAttemptAt(LocalDateTime.now());
+        job.setCompletedAt(null);
+        return job;
+    }
+
+    private void wakeAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.wake();
+            }
+        });
+    }
+}
@@ -0,0 +1,344 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import com.mypkga.commerceplatformfull.dto.ghn.GHNOrderInfo;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNOrderInfo.GHNLogEntry;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWebhookPayload;
+import com.mypkga.commerceplatformfull.entity.ReturnRequest;
+import com.mypkga.commerceplatformfull.repository.ReturnRequestRepository;
+import com.mypkga.commerceplatformfull.service.GHNService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pulls GHN tracking for in-flight return shipments, so a missed webhook cannot leave a
+ * return in RETURNING forever.
+ * Each shipment is polled again after a fraction ({@code interval-factor}) of the time since
+ * its status last changed, clamped to [{@code min-interval}, {@code max-interval}]: a parcel
+ * that just moved is checked often, one idle for days rarely. Due shipments are fetched on
+ * {@code parallelism} virtual threads through the shared RestTemplate and the
+ * {@link GhnCircuitBreaker}. Transitions GHN reports that we have not applied are appended
+ * to the {@link GhnWebhookInbox} as if the webhook had delivered them; one that arrives after
+ * a newer webhook is ignored when applied, by the event time kept on the return request.
+ * A pass runs on its own virtual thread, so a slow GHN does not hold up the scheduler.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GhnTrackingReconciler {
+
+    private final ReturnRequestRepository returnRequestRepository;
+    private final GHNService ghnService;
+    private final GhnWebhookInbox webhookInbox;
+    private final GhnCircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ghn.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ghn.reconcile.parallelism:8}")
+    private int parallelism;
+
+    @Value("${ghn.reconcile.max-per-run:500}")
+    private int maxPerRun;
+
+    @Value("${ghn.reconcile.min-interval:10m}")
+    private Duration minInterval;
+
+    @Value("${ghn.reconcile.max-interval:6h}")
+    private Duration maxInterval;
+
+    @Value("${ghn.reconcile.interval-factor:0.25}")
+    private double intervalFactor;
+
+    // Poll schedule per GHN order code; rebuilt from the database after a restart
+    private final Map<String, Shipment> shipments = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private Counter checkedCounter;
+    private Counter errorCounter;
+    private Counter skippedCounter;
+    private Counter missedCounter;
+    private Timer detectionLag;
+    private Timer passTimer;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("ghn.reconcile.inflight", shipments, Map::size)
+                .description("GHN return shipments being tracked")
+                .register(meterRegistry);
+        Gauge.builder("ghn.reconcile.staleness.max", this, GhnTrackingReconciler::maxStalenessSeconds)
+                .description("Seconds since the least recently confirmed in-flight shipment was checked")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        checkedCounter = Counter.builder("ghn.reconcile.polls").tag("outcome", "ok").register(meterRegistry);
+        errorCounter = Counter.builder("ghn.reconcile.polls").tag("outcome", "error").register(meterRegistry);
+        skippedCounter = Counter.builder("ghn.reconcile.polls").tag("outcome", "circuit_open").register(meterRegistry);
+        missedCounter = Counter.builder("ghn.reconcile.missed.updates")
+                .description("Status changes found by polling that no webhook had delivered")
+                .register(meterRegistry);
+        detectionLag = Timer.builder("ghn.reconcile.detection.lag")
+                .description("Time from a GHN status change to the reconciler picking it up")
+                .register(meterRegistry);
+        passTimer = Timer.builder("ghn.reconcile.pass")
+                .description("Duration of one reconcile pass")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ghn.reconcile.tick-ms:60000}",
+               initialDelayString = "${ghn.reconcile.initial-delay-ms:60000}")
+    public void reconcile() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Thread.ofVirtual().name("ghn-reconcile-pass").start(this::pass);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private void pass() {
+        long started = System.nanoTime();
+        try {
+            List<Shipment> due = refreshSchedule();
+            if (!due.isEmpty()) {
+                pollAll(due);
+            }
+        } catch (Exception e) {
+            log.error("GHN tracking reconcile failed: {}", e.getMessage());
+        } finally {
+            passTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            running.set(false);
+        }
+    }
+
+    /**
+     * Sync the schedule with the in-flight returns and pick the shipments due now.
+     */
+    private List<Shipment> refreshSchedule() {
+        long now = System.currentTimeMillis();
+        Map<String, ReturnRequest> inFlight = new HashMap<>();
+        for (ReturnRequest returnRequest : returnRequestRepository.findInFlightGHNTracking()) {
+            inFlight.put(returnRequest.getGhnOrderCode(), returnRequest);
+        }
+        shipments.keySet().retainAll(inFlight.keySet());
+
+        for (ReturnRequest returnRequest : inFlight.values()) {
+            // GHN's own time of the last applied status; older rows only have their update time
+            LocalDateTime statusAt = returnRequest.getGhnStatusAt() != null
+                    ? returnRequest.getGhnStatusAt() : returnRequest.getUpdatedAt();
+            long updatedAt = statusAt != null
+                    ? statusAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : now;
+            Shipment shipment = shipments.computeIfAbsent(returnRequest.getGhnOrderCode(),
+                    code -> new Shipment(code, returnRequest.getGhnStatus(), updatedAt, now));
+            if (!Objects.equals(shipment.status, returnRequest.getGhnStatus()) && updatedAt > shipment.changedAt) {
+                // A webhook moved it since we last looked
+                shipment.status = returnRequest.getGhnStatus();
+                shipment.changedAt = updatedAt;
+                shipment.nextCheckAt = now + interval(now, updatedAt);
+            }
+        }
+
+        List<Shipment> due = new ArrayList<>();
+        for (Shipment shipment : shipments.values()) {
+            if (shipment.nextCheckAt <= now) {
+                due.add(shipment);
+            }
+        }
+        due.sort(Comparator.comparingLong(shipment -> shipment.nextCheckAt));
+        return due.size() > maxPerRun ? due.subList(0, maxPerRun) : due;
+    }
+
+    private void pollAll(List<Shipment> due) {
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                Thread.ofVirtual().name("ghn-reconcile-", 0).factory())) {
+            for (Shipment shipment : due) {
+                executor.submit(() -> poll(shipment));
+            }
+        }
+    }
+
+    private void poll(Shipment shipment) {
+        if (!circuitBreaker.tryAcquire()) {
+            skippedCounter.increment();
+            // Otherwise the shipment stays due and is retried, and counted, on every run
+            shipment.nextCheckAt = System.currentTimeMillis() + jitter(minInterval.toMillis());
+            return;
+        }
+        long now;
+        GHNOrderInfo info;
+        try {
+            info = ghnService.getOrderInfo(shipment.orderCode);
+            circuitBreaker.onSuccess();
+            now = System.currentTimeMillis();
+        } catch (Exception e) {
+            if (GhnCircuitBreaker.isOutage(e)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            errorCounter.increment();
+            shipment.nextCheckAt = System.currentTimeMillis() + jitter(minInterval.toMillis());
+            log.warn("GHN tracking poll failed for order {}: {}", shipment.orderCode, e.getMessage());
+            return;
+        }
+        checkedCounter.increment();
+        shipment.checkedAt = now;
+
+        if (info != null && info.getData() != null && info.getData().getStatus() != null
+                && !info.getData().getStatus().equalsIgnoreCase(shipment.status)) {
+            List<GHNWebhookPayload> missed = missedUpdates(shipment, info.getData());
+            for (GHNWebhookPayload payload : missed) {
+                try {
+                    if (webhookInbox.append(payload)) {
+                        missedCounter.increment();
+                        Long changedAt = parseMillis(payload.getTime());
+                        if (changedAt != null) {
+                            detectionLag.record(Math.max(0L, now - changedAt), TimeUnit.MILLISECONDS);
+                        }
+                    }
+                } catch (Exception e) {
+                    // Left unchanged so the next poll finds the update again
+                    log.warn("Failed to queue GHN update {} for order {}: {}",
+                            payload.getStatus(), shipment.orderCode, e.getMessage());
+                    shipment.nextCheckAt = now + jitter(minInterval.toMillis());
+                    return;
+                }
+            }
+            log.info("GHN order {} moved from {} to {} without a webhook; {} update(s) queued",
+                    shipment.orderCode, shipment.status, info.getData().getStatus(), missed.size());
+            Long changedAt = parseMillis(info.getData().getUpdatedDate());
+            shipment.status = info.getData().getStatus();
+            shipment.changedAt = changedAt != null ? Math.min(changedAt, now) : now;
+        }
+        shipment.nextCheckAt = now + interval(now, shipment.changedAt);
+    }
+
+    /**
+     * Transitions after the last one we know of, oldest first; just the current status
+     * when GHN's log does not reach back to it.
+     */
+    static List<GHNWebhookPayload> missedUpdates(Shipment shipment, GHNOrderInfo.GHNOrderInfoData data) {
+        List<GHNLogEntry> logs = new ArrayList<>();
+        if (data.getLogs() != null) {
+            for (GHNLogEntry entry : data.getLogs()) {
+                if (entry.getStatus() != null) {
+                    logs.add(entry);
+                }
+            }
+        }
+        logs.sort(Comparator.comparing(entry -> {
+            Long at = parseMillis(entry.getUpdatedDate());
+            return at != null ? at : Long.MIN_VALUE;
+        }));
+
+        int known = -1;
+        for (int i = 0; i < logs.size(); i++) {
+            if (logs.get(i).getStatus().equalsIgnoreCase(shipment.status)) {
+                known = i;
+            }
+        }
+        List<GHNWebhookPayload> missed = new ArrayList<>();
+        if (known >= 0) {
+            for (GHNLogEntry entry : logs.subList(known + 1, logs.size())) {
+                missed.add(payload(shipment.orderCode, entry.getStatus(), entry.getUpdatedDate(),
+                        entry.getReason(), entry.getReasonCode()));
+            }
+        }
+        if (missed.isEmpty() || !missed.get(missed.size() - 1).getStatus().equalsIgnoreCase(data.getStatus())) {
+            missed.add(payload(shipment.orderCode, data.getStatus(), data.getUpdatedDate(), null, null));
+        }
+        return missed;
+    }
+
+    private static GHNWebhookPayload payload(String orderCode, String status, String time,
+                                             String reason, String reasonCode) {
+        GHNWebhookPayload payload = new GHNWebhookPayload();
+        payload.setOrderCode(orderCode);
+        payload.setStatus(status);
+        payload.setTime(time);
+        payload.setReason(reason);
+        payload.setReasonCode(reasonCode);
+        return payload;
+    }
+
+    long interval(long now, long changedAt) {
+        long sinceChange = Math.max(0L, now - changedAt);
+        long interval = (long) (sinceChange * intervalFactor);
+        interval = Math.max(minInterval.toMillis(), Math.min(maxInterval.toMillis(), interval));
+        return jitter(interval);
+    }
+
+    private double maxStalenessSeconds() {
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        for (Shipment shipment : shipments.values()) {
+            oldest = Math.min(oldest, shipment.checkedAt);
+        }
+        return (now - oldest) / 1000d;
+    }
+
+    private static Long parseMillis(String time) {
+        if (time == null || time.isBlank()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(time).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static long jitter(long millis) {
+        return (long) (millis * ThreadLocalRandom.current().nextDouble(0.9, 1.1));
+    }
+
+    /**
+     * Poll state of one GHN shipment; fields are only written by one pass at a time.
+     */
+    static final class Shipment {
+
+        final String orderCode;
+        volatile String status;
+        volatile long changedAt;
+        // Last successful poll; the time it was first tracked until then
+        volatile long checkedAt;
+        volatile long nextCheckAt;
+
+        Shipment(String orderCode, String status, long changedAt, long now) {
+            this.orderCode = orderCode;
+            this.status = status;
+            this.changedAt = changedAt;
+            this.checkedAt = now;
+            this.nextCheckAt = now;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWebhookPayload;
+import com.mypkga.commerceplatformfull.entity.GhnWebhookEvent;
+import com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus;
+import com.mypkga.commerceplatformfull.repository.GhnWebhookEventRepository;
+import com.mypkga.commerceplatformfull.service.GHNService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies the GHN webhook inbox.
+ * Each run claims a batch of due events and groups them by order code in arrival order.
+ * Order codes are spread over {@code workers} virtual threads by hash, so one order's events
+ * are always applied by one worker and in sequence. A worker applies its events in one
+ * transaction: the return requests are read in one query and written in one batch. If that
+ * fails, the worker falls back to one event per transaction and stops an order at its first
+ * failing event, which is retried with exponential backoff and jitter until
+ * {@code max-attempts}; later events of that order wait behind it. A payload that cannot be
+ * read is failed at once, since retrying it cannot help. Runs happen on their own thread,
+ * so the scheduler thread never waits for the workers.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GhnWebhookDispatcher {
+
+    private final GhnWebhookEventRepository eventRepository;
+    private final GHNService ghnService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ghn.webhook-inbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${ghn.webhook-inbox.workers:4}")
+    private int workers;
+
+    @Value("${ghn.webhook-inbox.claim-timeout:5m}")
+    private Duration claimTimeout;
+
+    @Value("${ghn.webhook-inbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${ghn.webhook-inbox.retry-base:10s}")
+    private Duration retryBase;
+
+    @Value("${ghn.webhook-inbox.retry-max:1h}")
+    private Duration retryMax;
+
+    @Value("${ghn.webhook-inbox.processed-retention:14d}")
+    private Duration processedRetention;
+
+    @Value("${ghn.webhook-inbox.failed-retention:60d}")
+    private Duration failedRetention;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean wakeRequested = new AtomicBoolean(false);
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private Counter processedCounter;
+    private Counter retryCounter;
+    private Counter failedCounter;
+    private Timer processingLag;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("ghn.webhook.inbox.queue.depth", queueDepth, AtomicLong::get)
+                .description("GHN webhook events waiting to be applied")
+                .register(meterRegistry);
+        Gauge.builder("ghn.webhook.inbox.failed", failedCount, AtomicLong::get)
+                .description("GHN webhook events given up after max-attempts")
+                .register(meterRegistry);
+        processedCounter = Counter.builder("ghn.webhook.inbox.processed").register(meterRegistry);
+        retryCounter = Counter.builder("ghn.webhook.inbox.retries").register(meterRegistry);
+        failedCounter = Counter.builder("ghn.webhook.inbox.failed.events").register(meterRegistry);
+        processingLag = Timer.builder("ghn.webhook.inbox.lag")
+                .description("Time from webhook receipt to the event being applied")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start a run right away, e.g. after a webhook was stored.
+     */
+    public void wake() {
+        wakeRequested.set(true);
+        if (!running.get()) {
+            Thread.ofVirtual().name("ghn-webhook-dispatch").start(this::dispatch);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ghn.webhook-inbox.poll-ms:5000}")
+    public void poll() {
+        try {
+            eventRepository.releaseExpiredClaims(LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("Failed to release stale GHN webhook claims: {}", e.getMessage());
+        }
+        wake();
+        try {
+            queueDepth.set(eventRepository.countByState(GhnWebhookEventStatus.PENDING));
+            failedCount.set(eventRepository.countByState(GhnWebhookEventStatus.FAILED));
+        } catch (Exception e) {
+            log.debug("Failed to refresh GHN webhook inbox gauges: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${ghn.webhook-inbox.purge-cron:0 45 3 * * *}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int processed = eventRepository.deleteByStateBefore(GhnWebhookEventStatus.PROCESSED, now.minus(processedRetention));
+        int failed = eventRepository.deleteByStateBefore(GhnWebhookEventStatus.FAILED, now.minus(failedRetention));
+        log.info("GHN webhook inbox purge: {} processed and {} failed events deleted", processed, failed);
+    }
+
+    /**
+     * Drain due events; a wake-up that arrives mid-run triggers one more pass.
+     */
+    public void dispatch() {
+        while (wakeRequested.get() && running.compareAndSet(false, true)) {
+            try {
+                wakeRequested.set(false);
+                while (dispatchBatch() >= batchSize) {
+                    // Keep draining full batches
+                }
+            } catch (Exception e) {
+                log.error("GHN webhook inbox dispatch failed: {}", e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    private int dispatchBatch() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = eventRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String token = UUID.randomUUID().toString();
+        if (eventRepository.claim(ids, token, now.plus(claimTimeout)) == 0) {
+            return ids.size();
+        }
+        List<GhnWebhookEvent> claimed = eventRepository.findClaimed(token);
+
+        // Whole orders per worker, in arrival order
+        int workerCount = Math.max(1, Math.min(workers, claimed.size()));
+        List<Map<String, List<GhnWebhookEvent>>> partitions = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            partitions.add(new LinkedHashMap<>());
+        }
+        for (GhnWebhookEvent event : claimed) {
+            int worker = Math.floorMod(event.getOrderCode().hashCode(), workerCount);
+            partitions.get(worker).computeIfAbsent(event.getOrderCode(), code -> new ArrayList<>()).add(event);
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(workerCount,
+                Thread.ofVirtual().name("ghn-webhook-worker-", 0).factory())) {
+            List<Future<?>> futures = new ArrayList<>(workerCount);
+            for (Map<String, List<GhnWebhookEvent>> partition : partitions) {
+                if (!partition.isEmpty()) {
+                    futures.add(executor.submit(() -> applyPartition(partition)));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Processed events were closed in their transaction; retried and failed ones are merged
+        List<GhnWebhookEvent> others = new ArrayList<>();
+        for (GhnWebhookEvent event : claimed) {
+            if (event.getState() != GhnWebhookEventStatus.PROCESSED) {
+                event.setClaimToken(null);
+                event.setClaimedUntil(null);
+                others.add(event);
+            }
+        }
+        if (!others.isEmpty()) {
+            eventRepository.saveAll(others);
+        }
+        return ids.size();
+    }
+
+    private void applyPartition(Map<String, List<GhnWebhookEvent>> partition) {
+        List<GhnWebhookEvent> events = new ArrayList<>();
+        partition.values().forEach(events::addAll);
+        try {
+            applyInTransaction(events);
+            return;
+        } catch (Exception e) {
+            log.warn("GHN webhook batch of {} events failed, applying one by one: {}", events.size(), e.getMessage());
+        }
+        for (List<GhnWebhookEvent> orderEvents : partition.values()) {
+            applyOneByOne(orderEvents);
+        }
+    }
+
+    private void applyOneByOne(List<GhnWebhookEvent> orderEvents) {
+        GhnWebhookEvent blocker = null;
+        for (GhnWebhookEvent event : orderEvents) {
+            if (blocker != null) {
+                // Stay behind the failed event so the order's updates keep their sequence
+                event.setState(GhnWebhookEventStatus.PENDING);
+                event.setNextAttemptAt(blocker.getNextAttemptAt());
+                continue;
+            }
+            try {
+                applyInTransaction(List.of(event));
+            } catch (Exception e) {
+                fail(event, e);
+                if (event.getState() == GhnWebhookEventStatus.PENDING) {
+                    blocker = event;
+                }
+            }
+        }
+    }
+
+    private void applyInTransaction(List<GhnWebhookEvent> events) throws Exception {
+        List<GHNWebhookPayload> payloads = new ArrayList<>(events.size());
+        List<Long> ids = new ArrayList<>(events.size());
+        for (GhnWebhookEvent event : events) {
+            payloads.add(objectMapper.readValue(event.getPayload(), GHNWebhookPayload.class));
+            ids.add(event.getId());
+        }
+        LocalDateTime processedAt = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            ghnService.applyStatusUpdates(payloads);
+            eventRepository.markProcessed(ids, processedAt);
+        });
+        for (GhnWebhookEvent event : events) {
+            event.setState(GhnWebhookEventStatus.PROCESSED);
+            processedCounter.increment();
+            processingLag.record(Duration.between(event.getReceivedAt(), processedAt));
+        }
+    }
+
+    private void fail(GhnWebhookEvent event, Exception e) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(abbreviate(e.getClass().getSimpleName() + ": " + e.getMessage()));
+        if (e instanceof JsonProcessingException || attempts >= maxAttempts) {
+            // An unreadable payload stays unreadable; it no longer holds up the order
+            event.setState(GhnWebhookEventStatus.FAILED);
+            failedCounter.increment();
+            log.error("GHN webhook event {} for order {} ({}) failed after {} attempts: {}",
+                    event.getId(), event.getOrderCode(), event.getStatus(), attempts, e.getMessage());
+            return;
+        }
+        long backoff = retryBase.toMillis() << Math.min(attempts - 1, 20);
+        backoff = Math.min(backoff, retryMax.toMillis());
+        backoff = (long) (backoff * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+        event.setState(GhnWebhookEventStatus.PENDING);
+        event.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoff)));
+        retryCounter.increment();
+        log.warn("GHN webhook event {} for order {} failed (attempt {}), retrying in {} s: {}",
+                event.getId(), event.getOrderCode(), attempts, backoff / 1000, e.getMessage());
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() <= 1000 ? text : text.substring(0, 1000);
+    }
+}
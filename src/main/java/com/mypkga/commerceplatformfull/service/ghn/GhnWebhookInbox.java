@@ -0,0 +1,75 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWebhookPayload;
+import com.mypkga.commerceplatformfull.entity.GhnWebhookEvent;
+import com.mypkga.commerceplatformfull.repository.GhnWebhookEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+
+/**
+ * Entry point of the GHN webhook inbox. A callback is stored as-is and the dispatcher is
+ * woken; the status change itself is applied later. A callback GHN already delivered,
+ * same order code, status and time, is dropped.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GhnWebhookInbox {
+
+    private final GhnWebhookEventRepository eventRepository;
+    private final GhnWebhookDispatcher dispatcher;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private Counter receivedCounter;
+    private Counter duplicateCounter;
+
+    @PostConstruct
+    void init() {
+        receivedCounter = Counter.builder("ghn.webhook.inbox.received").register(meterRegistry);
+        duplicateCounter = Counter.builder("ghn.webhook.inbox.duplicates").register(meterRegistry);
+    }
+
+    /**
+     * Store a callback for processing.
+     *
+     * @return false if the same callback was already stored
+     */
+    public boolean append(GHNWebhookPayload payload) {
+        String orderCode = payload.getOrderCode().trim();
+        String status = payload.getStatus().trim().toLowerCase(Locale.ROOT);
+        String time = payload.getTime() != null ? payload.getTime().trim() : "";
+
+        // Cheap check first; the unique key settles concurrent redeliveries
+        if (eventRepository.existsByOrderCodeAndStatusAndEventTime(orderCode, status, time)) {
+            duplicateCounter.increment();
+            return false;
+        }
+        try {
+            eventRepository.save(new GhnWebhookEvent(orderCode, status, time, serialize(payload)));
+        } catch (DataIntegrityViolationException e) {
+            duplicateCounter.increment();
+            return false;
+        }
+        receivedCounter.increment();
+        dispatcher.wake();
+        return true;
+    }
+
+    private String serialize(GHNWebhookPayload payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unserializable GHN webhook payload", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+/**
+ * Caps retries at a fraction of first attempts, so retrying cannot multiply the load on
+ * a struggling API. Each first attempt deposits {@code ratio} tokens and each retry spends
+ * one; a small steady refill keeps a trickle of retries going when there is no new work.
+ */
+final class RetryBudget {
+
+    private final double ratio;
+    private final double refillPerNano;
+    private final double maxTokens;
+
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    RetryBudget(double ratio, double minRetriesPerSecond, double maxTokens) {
+        this.ratio = ratio;
+        this.refillPerNano = minRetriesPerSecond / 1_000_000_000d;
+        this.maxTokens = Math.max(1d, maxTokens);
+        this.tokens = this.maxTokens;
+    }
+
+    synchronized void onFirstAttempt() {
+        refill();
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * @return true if a retry may be made now
+     */
+    synchronized boolean tryRetry() {
+        refill();
+        if (tokens < 1d) {
+            return false;
+        }
+        tokens -= 1d;
+        return true;
+    }
+
+    synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(maxTokens, tokens + (now - refilledAt) * refillPerNano);
+        refilledAt = now;
+    }
+}
@@ -1,24 +1,35 @@
 package com.mypkga.commerceplatformfull.service.impl;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.mypkga.commerceplatformfull.dto.ghn.*;
 import com.mypkga.commerceplatformfull.service.GHNMasterDataService;
+import com.mypkga.commerceplatformfull.service.address.AddressSnapshotStore;
+import com.mypkga.commerceplatformfull.service.address.GhnMasterDataClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
 @Service
 @Slf4j
 public class GHNMasterDataServiceImpl implements GHNMasterDataService {
 
     private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AddressSnapshotStore addressSnapshotStore;
+    private final GhnMasterDataClient ghnMasterDataClient;
 
     @Value("${ghn.api-url}")
     private String ghnApiUrl;
@@ -29,37 +40,48 @@ public class GHNMasterDataServiceImpl implements GHNMasterDataService {
     @Value("${ghn.shop-id}")
     private Integer ghnShopId;
 
-    public GHNMasterDataServiceImpl(RestTemplate restTemplate) {
+    @Value("${ghn.services-cache.ttl:7d}")
+    private Duration servicesTtl;
+
+    @Value("${ghn.services-cache.refresh-after:12h}")
+    private Duration servicesRefreshAfter;
+
+    // Services offered per district pair; stale entries are served while GHN is re-asked
+    private LoadingCache<DistrictPair, List<GHNAvailableServicesResponse.ServiceData>> availableServices;
+
+    public GHNMasterDataServiceImpl(RestTemplate restTemplate, MeterRegistry meterRegistry,
+                                    AddressSnapshotStore addressSnapshotStore,
+                                    GhnMasterDataClient ghnMasterDataClient) {
         this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.addressSnapshotStore = addressSnapshotStore;
+        this.ghnMasterDataClient = ghnMasterDataClient;
+    }
+
+    @PostConstruct
+    void init() {
+        availableServices = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(servicesTtl)
+                .refreshAfterWrite(servicesRefreshAfter)
+                .executor(Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name("ghn-services-refresh-", 0).factory()))
+                .recordStats()
+                .build(this::fetchAvailableServices);
+        CaffeineCacheMetrics.monitor(meterRegistry, availableServices, "ghnAvailableServices");
     }
 
     @Override
-    @Cacheable(value = "ghnProvinces", unless = "#result == null || #result.isEmpty()")
     public List<GHNProvinceResponse.ProvinceData> getProvinces() {
-        try {
-            String url = ghnApiUrl + "/master-data/province";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("token", ghnToken);
-
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
+        List<GHNProvinceResponse.ProvinceData> provinces = addressSnapshotStore.current().provinces();
+        if (!provinces.isEmpty()) {
+            return provinces;
+        }
 
+        // No snapshot yet (first start, crawl still running or GHN unreachable)
+        try {
             log.info("Fetching provinces from GHN API");
-            ResponseEntity<GHNProvinceResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    GHNProvinceResponse.class);
-
-            if (response.getBody() != null && response.getBody().getCode() == 200) {
-                log.info("Successfully fetched {} provinces from GHN", response.getBody().getData().size());
-                return response.getBody().getData();
-            } else {
-                log.warn("GHN province API returned non-200 code: {}", response.getBody());
-                return getMockProvinces();
-            }
-
+            return ghnMasterDataClient.fetchProvinces();
         } catch (Exception e) {
             log.error("Error fetching provinces from GHN: {}", e.getMessage());
             log.info("Using mock province data for development");
@@ -94,36 +116,15 @@ public class GHNMasterDataServiceImpl implements GHNMasterDataService {
     }
 
     @Override
-    @Cacheable(value = "ghnDistricts", key = "#provinceId", unless = "#result == null || #result.isEmpty()")
     public List<GHNDistrictResponse.DistrictData> getDistricts(Integer provinceId) {
-        try {
-            String url = ghnApiUrl + "/master-data/district";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("token", ghnToken);
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("province_id", provinceId);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+        List<GHNDistrictResponse.DistrictData> districts = addressSnapshotStore.current().districts(provinceId);
+        if (districts != null) {
+            return districts;
+        }
 
+        try {
             log.info("Fetching districts for province {} from GHN API", provinceId);
-            ResponseEntity<GHNDistrictResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    entity,
-                    GHNDistrictResponse.class);
-
-            if (response.getBody() != null && response.getBody().getCode() == 200) {
-                log.info("Successfully fetched {} districts for province {}",
-                        response.getBody().getData().size(), provinceId);
-                return response.getBody().getData();
-            } else {
-                log.warn("GHN district API returned non-200 code: {}", response.getBody());
-                return getMockDistricts(provinceId);
-            }
-
+            return ghnMasterDataClient.fetchDistricts(provinceId);
         } catch (Exception e) {
             log.error("Error fetching districts for province {}: {}", provinceId, e.getMessage());
             log.info("Using mock district data for development");
@@ -165,36 +166,15 @@ public class GHNMasterDataServiceImpl implements GHNMasterDataService {
     }
 
     @Override
-    @Cacheable(value = "ghnWards", key = "#districtId", unless = "#result == null || #result.isEmpty()")
     public List<GHNWardResponse.WardData> getWards(Integer districtId) {
-        try {
-            String url = ghnApiUrl + "/master-data/ward?district_id";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("token", ghnToken);
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("district_id", districtId);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+        List<GHNWardResponse.WardData> wards = addressSnapshotStore.current().wards(districtId);
+        if (wards != null) {
+            return wards;
+        }
 
+        try {
             log.info("Fetching wards for district {} from GHN API", districtId);
-            ResponseEntity<GHNWardResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    entity,
-                    GHNWardResponse.class);
-
-            if (response.getBody() != null && response.getBody().getCode() == 200) {
-                log.info("Successfully fetched {} wards for district {}",
-                        response.getBody().getData().size(), districtId);
-                return response.getBody().getData();
-            } else {
-                log.warn("GHN ward API returned non-200 code: {}", response.getBody());
-                return getMockWards(districtId);
-            }
-
+            return ghnMasterDataClient.fetchWards(districtId);
         } catch (Exception e) {
             log.error("Error fetching wards for district {}: {}", districtId, e.getMessage());
             log.info("Using mock ward data for development");
@@ -225,39 +205,48 @@ public class GHNMasterDataServiceImpl implements GHNMasterDataService {
     public List<GHNAvailableServicesResponse.ServiceData> getAvailableServices(Integer fromDistrictId,
             Integer toDistrictId) {
         try {
-            String url = ghnApiUrl + "/v2/shipping-order/available-services";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("token", ghnToken);
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("shop_id", ghnShopId);
-            requestBody.put("from_district", fromDistrictId);
-            requestBody.put("to_district", toDistrictId);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            log.info("Fetching available services from district {} to {} from GHN API",
-                    fromDistrictId, toDistrictId);
-            ResponseEntity<GHNAvailableServicesResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    entity,
-                    GHNAvailableServicesResponse.class);
-
-            if (response.getBody() != null && response.getBody().getCode() == 200) {
-                log.info("Successfully fetched {} available services", response.getBody().getData().size());
-                return response.getBody().getData();
-            } else {
-                log.warn("GHN available services API returned non-200 code: {}", response.getBody());
-                return Collections.emptyList();
-            }
-
+            return availableServices.get(new DistrictPair(fromDistrictId, toDistrictId));
         } catch (Exception e) {
             log.error("Error fetching available services from {} to {}: {}",
                     fromDistrictId, toDistrictId, e.getMessage());
             return Collections.emptyList();
         }
     }
+
+    /**
+     * One available-services round-trip; throws instead of returning an empty list so
+     * failures are never cached and a failed refresh keeps the previous entry.
+     */
+    private List<GHNAvailableServicesResponse.ServiceData> fetchAvailableServices(DistrictPair route) {
+        String url = ghnApiUrl + "/v2/shipping-order/available-services";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("token", ghnToken);
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("shop_id", ghnShopId);
+        requestBody.put("from_district", route.fromDistrictId());
+        requestBody.put("to_district", route.toDistrictId());
+
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+
+        log.info("Fetching available services from district {} to {} from GHN API",
+                route.fromDistrictId(), route.toDistrictId());
+        ResponseEntity<GHNAvailableServicesResponse> response = restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                entity,
+                GHNAvailableServicesResponse.class);
+
+        if (response.getBody() == null || response.getBody().getCode() == null
+                || response.getBody().getCode() != 200 || response.getBody().getData() == null) {
+            throw new IllegalStateException("GHN available services API returned " + response.getBody());
+        }
+        log.info("Successfully fetched {} available services", response.getBody().getData().size());
+        return List.copyOf(response.getBody().getData());
+    }
+
+    private record DistrictPair(Integer fromDistrictId, Integer toDistrictId) {
+    }
 }
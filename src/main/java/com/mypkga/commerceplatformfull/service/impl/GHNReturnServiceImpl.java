@@ -1,19 +1,28 @@
 package com.mypkga.commerceplatformfull.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.mypkga.commerceplatformfull.dto.ghn.*;
 import com.mypkga.commerceplatformfull.entity.Order;
 import com.mypkga.commerceplatformfull.entity.ReturnRequest;
 import com.mypkga.commerceplatformfull.entity.User;
 import com.mypkga.commerceplatformfull.service.GHNReturnService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,8 +30,13 @@ import java.util.stream.Collectors;
 @Slf4j
 public class GHNReturnServiceImpl implements GHNReturnService {
 
+    private static final int WEIGHT_STEP_GRAMS = 500;
+    private static final int SIZE_STEP_CM = 10;
+    private static final int INSURANCE_STEP_VND = 500_000;
+
     private final RestTemplate restTemplate;
     private final com.mypkga.commerceplatformfull.service.GHNMasterDataService ghnMasterDataService;
+    private final MeterRegistry meterRegistry;
 
     @Value("${ghn.api-url}")
     private String ghnApiUrl;
@@ -51,75 +65,57 @@ public class GHNReturnServiceImpl implements GHNReturnService {
     @Value("${ghn.default-service-type-id}")
     private Integer defaultServiceTypeId;
 
+    @Value("${ghn.quote-cache.ttl:6h}")
+    private Duration quoteTtl;
+
+    @Value("${ghn.quote-cache.refresh-after:30m}")
+    private Duration quoteRefreshAfter;
+
+    @Value("${ghn.quote-cache.max-entries:5000}")
+    private long quoteMaxEntries;
+
+    // Fee quotes per route and parcel class; stale quotes are served while GHN is re-asked
+    private LoadingCache<QuoteKey, GHNFeeResponse> quotes;
+
+    @PostConstruct
+    void init() {
+        quotes = Caffeine.newBuilder()
+                .maximumSize(quoteMaxEntries)
+                .expireAfterWrite(quoteTtl)
+                .refreshAfterWrite(quoteRefreshAfter)
+                .executor(Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name("ghn-quote-refresh-", 0).factory()))
+                .recordStats()
+                .build(this::requestQuote);
+        CaffeineCacheMetrics.monitor(meterRegistry, quotes, "ghnShippingQuotes");
+    }
+
     @Override
     public GHNFeeResponse calculateReturnShippingFee(ReturnRequest returnRequest) {
         try {
             Order order = returnRequest.getOrder();
             User customer = order.getUser();
 
-            // Debug: Log customer location data
-            log.info("Customer location - DistrictId: {}, WardCode: {}",
-                    customer.getDistrictId(), customer.getWardCode());
-
             // Use customer location with fallback to default if null
             Integer fromDistrictId = customer.getDistrictId() != null ? customer.getDistrictId() : 1454;
             String fromWardCode = customer.getWardCode() != null && !customer.getWardCode().isEmpty()
                     ? customer.getWardCode()
                     : "21208";
 
-            log.info("Using fromDistrictId: {}, fromWardCode: {} for fee calculation",
-                    fromDistrictId, fromWardCode);
-
-            // Auto-fetch service_id from GHN available services API
+            // Auto-fetch service_id from GHN available services (cached per district pair)
             Integer serviceId = getAvailableServiceId(fromDistrictId, warehouseDistrictId);
 
-            // Build fee calculation request with auto-fetched service ID
-            GHNFeeRequest feeRequest = GHNFeeRequest.builder()
-                    .fromDistrictId(fromDistrictId) // Customer location (with fallback)
-                    .fromWardCode(fromWardCode)
-                    .serviceId(serviceId) // Auto-fetched from available services
-                    .serviceTypeId(null) // Set to null as requested
-                    .toDistrictId(1454) // Shop warehouse
-                    .toWardCode("21208")
-                    .height(calculateTotalHeight(order)) // Calculate based on order
-                    .length(calculateTotalLength(order)) // Calculate based on order
-                    .weight(calculateTotalWeight(order)) // Calculate based on order
-                    .width(calculateTotalWidth(order)) // Calculate based on order
-                    .insuranceValue(order.getTotalAmount().intValue())
-                    .codFailedAmount(2000) // Set COD failed amount as in example
-                    .coupon(null)
-                    .items(buildGHNItems(order))
-                    .build();
+            // Parcels are quoted by class: each dimension rounded up, so a quote is never low
+            QuoteKey key = new QuoteKey(fromDistrictId, fromWardCode, 1454, "21208", serviceId,
+                    roundUp(calculateTotalWeight(order), WEIGHT_STEP_GRAMS),
+                    roundUp(calculateTotalLength(order), SIZE_STEP_CM),
+                    roundUp(calculateTotalWidth(order), SIZE_STEP_CM),
+                    roundUp(calculateTotalHeight(order), SIZE_STEP_CM),
+                    roundUp(order.getTotalAmount().intValue(), INSURANCE_STEP_VND));
 
-            // Set headers exactly as GHN documentation
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("token", ghnToken);
-            headers.set("ShopId", ghnShopId);
-
-            HttpEntity<GHNFeeRequest> entity = new HttpEntity<>(feeRequest, headers);
-
-            // Debug logging (show only partial token for security)
-            String tokenPreview = ghnToken != null && ghnToken.length() > 10
-                    ? ghnToken.substring(0, 8) + "..." + ghnToken.substring(ghnToken.length() - 4)
-                    : "NULL_OR_EMPTY";
-            log.info("Calling GHN fee API. Token preview: {}, ShopId: {}", tokenPreview, ghnShopId);
-            log.info("Request body - fromDistrictId: {}, fromWardCode: '{}', toDistrictId: {}, toWardCode: '{}'",
-                    feeRequest.getFromDistrictId(), feeRequest.getFromWardCode(),
-                    feeRequest.getToDistrictId(), feeRequest.getToWardCode());
-
-            // Call GHN API
-            String url = ghnApiUrl + "/v2/shipping-order/fee";
-            ResponseEntity<GHNFeeResponse> response = restTemplate.postForEntity(url, entity, GHNFeeResponse.class);
-
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                GHNFeeResponse feeResponse = response.getBody();
-                log.info("GHN fee calculated for return request {}: {} VND",
-                        returnRequest.getId(), feeResponse.getData().getTotal());
-                return feeResponse;
-            } else {
-                throw new RuntimeException("Failed to calculate GHN shipping fee");
-            }
+            GHNFeeResponse feeResponse = quotes.get(key);
+            log.info("GHN fee for return request {}: {} VND", returnRequest.getId(), feeResponse.getData().getTotal());
+            return feeResponse;
 
         } catch (Exception e) {
             log.error("Error calculating GHN return shipping fee for request {}: {}",
@@ -128,6 +124,55 @@ public class GHNReturnServiceImpl implements GHNReturnService {
         }
     }
 
+    /**
+     * One fee API round-trip for a parcel class; throws on any non-200 answer so
+     * failures are never cached and a failed refresh keeps the previous quote.
+     */
+    private GHNFeeResponse requestQuote(QuoteKey key) {
+        GHNFeeRequest feeRequest = GHNFeeRequest.builder()
+                .fromDistrictId(key.fromDistrictId()) // Customer location (with fallback)
+                .fromWardCode(key.fromWardCode())
+                .serviceId(key.serviceId()) // Auto-fetched from available services
+                .serviceTypeId(null) // Set to null as requested
+                .toDistrictId(key.toDistrictId()) // Shop warehouse
+                .toWardCode(key.toWardCode())
+                .height(key.height())
+                .length(key.length())
+                .weight(key.weight())
+                .width(key.width())
+                .insuranceValue(key.insuranceValue())
+                .codFailedAmount(2000) // Set COD failed amount as in example
+                .coupon(null)
+                .build();
+
+        // Set headers exactly as GHN documentation
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("token", ghnToken);
+        headers.set("ShopId", ghnShopId);
+
+        HttpEntity<GHNFeeRequest> entity = new HttpEntity<>(feeRequest, headers);
+
+        log.info("Calling GHN fee API - fromDistrictId: {}, fromWardCode: '{}', toDistrictId: {}, serviceId: {}, "
+                        + "weight: {}g", key.fromDistrictId(), key.fromWardCode(), key.toDistrictId(),
+                key.serviceId(), key.weight());
+
+        // Call GHN API
+        String url = ghnApiUrl + "/v2/shipping-order/fee";
+        ResponseEntity<GHNFeeResponse> response = restTemplate.postForEntity(url, entity, GHNFeeResponse.class);
+
+        GHNFeeResponse feeResponse = response.getBody();
+        if (response.getStatusCode() != HttpStatus.OK || feeResponse == null || feeResponse.getData() == null
+                || feeResponse.getCode() == null || feeResponse.getCode() != 200) {
+            throw new IllegalStateException("Failed to calculate GHN shipping fee");
+        }
+        return feeResponse;
+    }
+
+    private static int roundUp(int value, int step) {
+        return Math.max(step, (value + step - 1) / step * step);
+    }
+
     private Integer getAvailableServiceId(Integer fromDistrictId, Integer toDistrictId) {
         try {
             List<GHNAvailableServicesResponse.ServiceData> services = ghnMasterDataService
@@ -136,7 +181,7 @@ public class GHNReturnServiceImpl implements GHNReturnService {
             if (services != null && !services.isEmpty()) {
                 // Return the first available service ID
                 Integer serviceId = services.get(0).getServiceId();
-                log.info("Auto-selected service_id {} for route {} to {}",
+                log.debug("Auto-selected service_id {} for route {} to {}",
                         serviceId, fromDistrictId, toDistrictId);
                 return serviceId;
             } else {
@@ -171,7 +216,7 @@ public class GHNReturnServiceImpl implements GHNReturnService {
                     .returnAddress(warehouseAddress)
                     .returnDistrictId(warehouseDistrictId)
                     .returnWardCode(warehouseWardCode)
-                    .clientOrderCode("RET-" + returnRequest.getId())
+                    .clientOrderCode(clientOrderCode(returnRequest))
                     .toName(warehouseName)
                     .toPhone(warehousePhone)
                     .toAddress(warehouseAddress)
@@ -208,6 +253,13 @@ public class GHNReturnServiceImpl implements GHNReturnService {
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 GHNCreateOrderResponse createResponse = response.getBody();
+                if (createResponse.getCode() == null || createResponse.getCode() != 200
+                        || createResponse.getData() == null) {
+                    // Returned as is: the caller fails a rejected order instead of retrying it
+                    log.warn("GHN rejected return order for request {}: code {}, {}",
+                            returnRequest.getId(), createResponse.getCode(), createResponse.getMessage());
+                    return createResponse;
+                }
                 log.info("GHN return order created for request {}: order code {}",
                         returnRequest.getId(), createResponse.getData().getOrderCode());
                 return createResponse;
@@ -222,6 +274,38 @@ public class GHNReturnServiceImpl implements GHNReturnService {
         }
     }
 
+    @Override
+    public GHNOrderInfo findReturnShippingOrder(ReturnRequest returnRequest) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("token", ghnToken);
+        headers.set("ShopId", ghnShopId);
+
+        HttpEntity<Map<String, String>> entity = new HttpEntity<>(
+                Map.of("client_order_code", clientOrderCode(returnRequest)), headers);
+
+        String url = ghnApiUrl + "/v2/shipping-order/detail-by-client-code";
+        try {
+            ResponseEntity<GHNOrderInfo> response = restTemplate.postForEntity(url, entity, GHNOrderInfo.class);
+            GHNOrderInfo info = response.getBody();
+            if (info == null || info.getCode() == null || info.getCode() != 200 || info.getData() == null) {
+                return null;
+            }
+            return info;
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                throw e;
+            }
+            // GHN answers an unknown client order code with a 4xx
+            log.debug("No GHN order for return request {}: {}", returnRequest.getId(), e.getStatusCode());
+            return null;
+        }
+    }
+
+    private static String clientOrderCode(ReturnRequest returnRequest) {
+        return "RET-" + returnRequest.getId();
+    }
+
     @Override
     public String getOrderStatus(String orderCode) {
         try {
@@ -280,19 +364,6 @@ public class GHNReturnServiceImpl implements GHNReturnService {
     }
 
     // Helper methods
-    private List<GHNFeeRequest.GHNItem> buildGHNItems(Order order) {
-        return order.getItems().stream()
-                .map(item -> GHNFeeRequest.GHNItem.builder()
-                        .name(item.getProduct().getName())
-                        .quantity(item.getQuantity())
-                        .height(15) // Realistic height per item in cm
-                        .weight(300) // Realistic weight per item in grams (0.3kg)
-                        .length(20) // Realistic length per item in cm
-                        .width(15) // Realistic width per item in cm
-                        .build())
-                .collect(Collectors.toList());
-    }
-
     private List<GHNCreateReturnOrderRequest.GHNReturnItem> buildGHNReturnItems(Order order) {
         return order.getItems().stream()
                 .map(item -> GHNCreateReturnOrderRequest.GHNReturnItem.builder()
@@ -342,4 +413,11 @@ public class GHNReturnServiceImpl implements GHNReturnService {
                 .sum();
         return Math.min(50, Math.max(15, itemCount * 5)); // Min 15cm, Max 50cm
     }
-}
\ No newline at end of file
+
+    /**
+     * Route and parcel class a fee quote is cached under.
+     */
+    private record QuoteKey(Integer fromDistrictId, String fromWardCode, Integer toDistrictId, String toWardCode,
+                            Integer serviceId, int weight, int length, int width, int height, int insuranceValue) {
+    }
+}
@@ -6,7 +6,7 @@ import com.mypkga.commerceplatformfull.entity.ReturnRequest;
 import com.mypkga.commerceplatformfull.entity.ReturnStatus;
 import com.mypkga.commerceplatformfull.repository.ReturnRequestRepository;
 import com.mypkga.commerceplatformfull.service.GHNService;
-import com.mypkga.commerceplatformfull.service.EmailService;
+import com.mypkga.commerceplatformfull.service.mail.NotificationCoalescer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
@@ -16,10 +16,16 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.RestClientException;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -29,7 +35,7 @@ public class GHNServiceImpl implements GHNService {
     private final GHNConfig ghnConfig;
     private final RestTemplate restTemplate;
     private final ReturnRequestRepository returnRequestRepository;
-    private final EmailService emailService;
+    private final NotificationCoalescer notificationCoalescer;
 
     private static final Map<String, ReturnStatus> GHN_STATUS_MAPPING;
 
@@ -92,7 +98,7 @@ public class GHNServiceImpl implements GHNService {
 
     @Override
     public GHNOrderInfo getOrderInfo(String orderCode) {
-        log.info("Getting GHN order info for order code: {}", orderCode);
+        log.debug("Getting GHN order info for order code: {}", orderCode);
 
         try {
             HttpHeaders headers = new HttpHeaders();
@@ -155,43 +161,110 @@ public class GHNServiceImpl implements GHNService {
                 payload.getOrderCode(), payload.getStatus());
 
         try {
-            // Find return request by GHN order code
-            ReturnRequest returnRequest = returnRequestRepository.findByGhnOrderCode(payload.getOrderCode())
-                    .orElse(null);
+            applyStatusUpdates(List.of(payload));
+        } catch (Exception e) {
+            log.error("Error processing GHN status update for order: {}", payload.getOrderCode(), e);
+        }
+    }
 
+    @Override
+    @Transactional
+    public void applyStatusUpdates(List<GHNWebhookPayload> payloads) {
+        Set<String> orderCodes = new HashSet<>();
+        for (GHNWebhookPayload payload : payloads) {
+            orderCodes.add(payload.getOrderCode());
+        }
+        Map<String, ReturnRequest> byOrderCode = new HashMap<>();
+        for (ReturnRequest returnRequest : returnRequestRepository.findByGhnOrderCodeIn(orderCodes)) {
+            byOrderCode.put(returnRequest.getGhnOrderCode(), returnRequest);
+        }
+
+        // Keyed by id: @Data hashCode changes as the request is updated
+        Map<Long, ReturnRequest> touched = new LinkedHashMap<>();
+        for (GHNWebhookPayload payload : payloads) {
+            ReturnRequest returnRequest = byOrderCode.get(payload.getOrderCode());
             if (returnRequest == null) {
                 log.warn("No return request found for GHN order code: {}", payload.getOrderCode());
-                return;
+                continue;
             }
+            applyStatus(returnRequest, payload);
+            touched.put(returnRequest.getId(), returnRequest);
+        }
 
-            // Update GHN status
-            returnRequest.setGhnStatus(payload.getStatus());
+        // One batched flush for every request touched by these events
+        if (!touched.isEmpty()) {
+            returnRequestRepository.saveAll(touched.values());
+        }
+    }
 
-            // Map GHN status to internal status
-            ReturnStatus newStatus = GHN_STATUS_MAPPING.get(payload.getStatus().toLowerCase());
-            if (newStatus != null && newStatus != returnRequest.getStatus()) {
-                ReturnStatus oldStatus = returnRequest.getStatus();
-                returnRequest.setStatus(newStatus);
+    private void applyStatus(ReturnRequest returnRequest, GHNWebhookPayload payload) {
+        // Redelivered or reconciled events can arrive after newer ones; never go back in time
+        LocalDateTime reportedAt = reportedTime(payload);
+        if (reportedAt != null && returnRequest.getGhnStatusAt() != null
+                && reportedAt.isBefore(returnRequest.getGhnStatusAt())) {
+            log.info("Ignoring GHN status {} at {} for return request {}: status {} at {} is newer",
+                    payload.getStatus(), reportedAt, returnRequest.getId(),
+                    returnRequest.getGhnStatus(), returnRequest.getGhnStatusAt());
+            return;
+        }
 
-                // Update timestamps based on status
-                if (newStatus == ReturnStatus.RETURNING && payload.getStatus().equals("picked")) {
-                    returnRequest.setPickupTime(LocalDateTime.now());
-                } else if (newStatus == ReturnStatus.RETURN_RECEIVED) {
-                    returnRequest.setDeliveryTime(LocalDateTime.now());
-                }
+        // Map GHN status to internal status
+        ReturnStatus newStatus = GHN_STATUS_MAPPING.get(payload.getStatus().toLowerCase());
+        ReturnStatus oldStatus = returnRequest.getStatus();
+        if (newStatus != null && newStatus != oldStatus
+                && (oldStatus == ReturnStatus.RETURN_RECEIVED || oldStatus.isFinalState())) {
+            // The parcel already arrived or the return is closed; GHN cannot move it back
+            log.info("Ignoring GHN status {} for return request {} already in {}",
+                    payload.getStatus(), returnRequest.getId(), oldStatus);
+            return;
+        }
 
-                returnRequestRepository.save(returnRequest);
+        // Update GHN status
+        returnRequest.setGhnStatus(payload.getStatus());
+        if (reportedAt != null) {
+            returnRequest.setGhnStatusAt(reportedAt);
+        }
 
-                log.info("Updated return request {} status from {} to {} based on GHN status: {}",
-                        returnRequest.getId(), oldStatus, newStatus, payload.getStatus());
+        if (newStatus != null && newStatus != oldStatus) {
+            returnRequest.setStatus(newStatus);
 
-                // Send notification email to customer
-                sendStatusUpdateEmail(returnRequest, payload);
+            // Update timestamps based on status, as reported by GHN
+            if (newStatus == ReturnStatus.RETURNING && payload.getStatus().equals("picked")) {
+                returnRequest.setPickupTime(eventTime(payload));
+            } else if (newStatus == ReturnStatus.RETURN_RECEIVED) {
+                returnRequest.setDeliveryTime(eventTime(payload));
             }
 
-        } catch (Exception e) {
-            log.error("Error processing GHN status update for order: {}", payload.getOrderCode(), e);
+            log.info("Updated return request {} status from {} to {} based on GHN status: {}",
+                    returnRequest.getId(), oldStatus, newStatus, payload.getStatus());
+
+            // Send notification email to customer
+            sendStatusUpdateEmail(returnRequest, payload);
+        }
+    }
+
+    /**
+     * Time of the status change according to GHN; now if it is missing or unreadable.
+     */
+    private static LocalDateTime eventTime(GHNWebhookPayload payload) {
+        LocalDateTime reportedAt = reportedTime(payload);
+        return reportedAt != null ? reportedAt : LocalDateTime.now();
+    }
+
+    /**
+     * Time of the status change according to GHN, or null if it is missing or unreadable.
+     */
+    private static LocalDateTime reportedTime(GHNWebhookPayload payload) {
+        if (payload.getTime() != null) {
+            try {
+                return OffsetDateTime.parse(payload.getTime())
+                        .atZoneSameInstant(ZoneId.systemDefault())
+                        .toLocalDateTime();
+            } catch (DateTimeParseException e) {
+                log.debug("Unreadable GHN event time '{}' for order {}", payload.getTime(), payload.getOrderCode());
+            }
         }
+        return null;
     }
 
     @Override
@@ -271,10 +344,15 @@ public class GHNServiceImpl implements GHNService {
                     payload.getOrderCode(),
                     "https://yoursite.com/returns/" + returnRequest.getId());
 
-            emailService.sendEmail(
+            // Quick successive hops are merged into one email
+            notificationCoalescer.submit(
                     returnRequest.getOrder().getUser().getEmail(),
+                    NotificationServiceImpl.topicOf(returnRequest),
                     subject,
-                    content);
+                    content,
+                    false,
+                    statusText,
+                    false);
 
         } catch (Exception e) {
             log.error("Failed to send status update email for return: {}", returnRequest.getId(), e);
@@ -4,6 +4,8 @@ import com.mypkga.commerceplatformfull.entity.ReturnRequest;
 import com.mypkga.commerceplatformfull.entity.User;
 import com.mypkga.commerceplatformfull.service.EmailService;
 import com.mypkga.commerceplatformfull.service.NotificationService;
+import com.mypkga.commerceplatformfull.service.mail.EmailTemplateEngine;
+import com.mypkga.commerceplatformfull.service.mail.NotificationCoalescer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,6 +13,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Implementation of NotificationService for handling return request email
@@ -26,6 +30,8 @@ import java.time.format.DateTimeFormatter;
 public class NotificationServiceImpl implements NotificationService {
 
     private final EmailService emailService;
+    private final EmailTemplateEngine templateEngine;
+    private final NotificationCoalescer notificationCoalescer;
 
     @Value("${app.support.hotline:1900-123-456}")
     private String supportHotline;
@@ -53,7 +59,8 @@ public class NotificationServiceImpl implements NotificationService {
         String subject = "Yêu cầu hoàn trả đã được chấp nhận - " + returnRequest.getOrder().getOrderNumber();
         String htmlContent = buildApprovalEmailTemplate(returnRequest);
 
-        boolean sent = emailService.sendHtmlEmail(customerEmail, subject, htmlContent);
+        boolean sent = notificationCoalescer.submit(customerEmail, topicOf(returnRequest), subject, htmlContent,
+                true, "Yêu cầu hoàn trả đã được chấp nhận", false);
 
         if (sent) {
             log.info("Approval notification sent successfully to {} for return request {}",
@@ -81,7 +88,8 @@ public class NotificationServiceImpl implements NotificationService {
         String subject = "Yêu cầu hoàn trả đã bị từ chối - " + returnRequest.getOrder().getOrderNumber();
         String htmlContent = buildRejectionEmailTemplate(returnRequest);
 
-        boolean sent = emailService.sendHtmlEmail(customerEmail, subject, htmlContent);
+        boolean sent = notificationCoalescer.submit(customerEmail, topicOf(returnRequest), subject, htmlContent,
+                true, "Yêu cầu hoàn trả đã bị từ chối", true);
 
         if (sent) {
             log.info("Rejection notification sent successfully to {} for return request {}",
@@ -109,7 +117,8 @@ public class NotificationServiceImpl implements NotificationService {
         String subject = "Hoàn tiền thành công - " + returnRequest.getOrder().getOrderNumber();
         String htmlContent = buildCompletionEmailTemplate(returnRequest);
 
-        boolean sent = emailService.sendHtmlEmail(customerEmail, subject, htmlContent);
+        boolean sent = notificationCoalescer.submit(customerEmail, topicOf(returnRequest), subject, htmlContent,
+                true, "Hoàn tiền thành công", true);
 
         if (sent) {
             log.info("Completion notification sent successfully to {} for return request {}",
@@ -152,231 +161,12 @@ public class NotificationServiceImpl implements NotificationService {
                 ? returnRequest.getProcessedAt().format(DATE_FORMATTER)
                 : "Vừa xong";
 
-        return String.format("""
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                    <title>Yêu cầu hoàn trả đã được chấp nhận</title>
-                    <style>
-                        body {
-                            font-family: Arial, sans-serif;
-                            margin: 0;
-                            padding: 20px;
-                            background-color: #f5f5f5;
-                            color: #333;
-                        }
-                        .container {
-                            max-width: 600px;
-                            margin: 0 auto;
-                            background: white;
-                            border-radius: 12px;
-                            overflow: hidden;
-                            box-shadow: 0 4px 20px rgba(0, 0, 0, 0.1);
-                        }
-                        .header {
-                            background: linear-gradient(135deg, #4caf50, #45a049);
-                            color: white;
-                            padding: 30px 20px;
-                            text-align: center;
-                        }
-                        .header h1 {
-                            margin: 0 0 10px 0;
-                            font-size: 28px;
-                            font-weight: bold;
-                        }
-                        .header p {
-                            margin: 0;
-                            font-size: 16px;
-                            opacity: 0.9;
-                        }
-                        .content {
-                            padding: 40px 30px;
-                        }
-                        .greeting {
-                            font-size: 24px;
-                            font-weight: bold;
-                            margin-bottom: 20px;
-                            color: #333;
-                        }
-                        .message {
-                            font-size: 16px;
-                            line-height: 1.6;
-                            margin-bottom: 30px;
-                            color: #555;
-                        }
-                        .info-box {
-                            background: #e8f5e8;
-                            border-left: 4px solid #4caf50;
-                            padding: 20px;
-                            margin: 20px 0;
-                            border-radius: 4px;
-                        }
-                        .info-item {
-                            margin-bottom: 15px;
-                            display: flex;
-                            align-items: flex-start;
-                        }
-                        .info-item:last-child {
-                            margin-bottom: 0;
-                        }
-                        .info-label {
-                            font-weight: bold;
-                            min-width: 120px;
-                            color: #333;
-                        }
-                        .info-value {
-                            color: #555;
-                            flex: 1;
-                        }
-                        .return-code {
-                            background: #4caf50;
-                            color: white;
-                            font-size: 18px;
-                            font-weight: bold;
-                            padding: 10px 15px;
-                            border-radius: 6px;
-                            display: inline-block;
-                            letter-spacing: 2px;
-                        }
-                        .deadline-warning {
-                            background: #fff3cd;
-                            border: 1px solid #ffeaa7;
-                            border-radius: 6px;
-                            padding: 20px;
-                            margin: 20px 0;
-                            text-align: center;
-                        }
-                        .deadline-warning h3 {
-                            color: #856404;
-                            margin: 0 0 10px 0;
-                            font-size: 18px;
-                        }
-                        .deadline-warning p {
-                            color: #856404;
-                            margin: 0;
-                            font-weight: bold;
-                        }
-                        .instructions {
-                            background: #f8f9fa;
-                            border-radius: 6px;
-                            padding: 20px;
-                            margin: 20px 0;
-                        }
-                        .instructions h3 {
-                            color: #333;
-                            margin: 0 0 15px 0;
-                            font-size: 18px;
-                        }
-                        .instructions ol {
-                            margin: 0;
-                            padding-left: 20px;
-                        }
-                        .instructions li {
-                            margin-bottom: 10px;
-                            line-height: 1.5;
-                        }
-                        .footer {
-                            padding: 20px 30px;
-                            background: #f8f9fa;
-                            border-top: 1px solid #eee;
-                        }
-                        .footer p {
-                            margin: 5px 0;
-                            font-size: 14px;
-                            color: #666;
-                        }
-                        .signature {
-                            font-weight: bold;
-                            color: #333;
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <div class="header">
-                            <h1>✅ %s</h1>
-                            <p>Yêu cầu hoàn trả đã được chấp nhận</p>
-                        </div>
-
-                        <div class="content">
-                            <div class="greeting">Chào %s!</div>
-
-                            <div class="message">
-                                Chúng tôi vui mừng thông báo rằng yêu cầu hoàn trả của bạn đã được chấp nhận.
-                                Dưới đây là thông tin chi tiết để bạn có thể gửi hàng hoàn trả.
-                            </div>
-
-                            <div class="info-box">
-                                <div class="info-item">
-                                    <span class="info-label">Đơn hàng:</span>
-                                    <span class="info-value">%s</span>
-                                </div>
-                                <div class="info-item">
-                                    <span class="info-label">Ngày chấp nhận:</span>
-                                    <span class="info-value">%s</span>
-                                </div>
-                                <div class="info-item">
-                                    <span class="info-label">Mã hoàn trả:</span>
-                                    <span class="info-value">
-                                        <span class="return-code">%s</span>
-                                    </span>
-                                </div>
-                            </div>
-
-                            <div class="deadline-warning">
-                                <h3>⏰ Lưu ý quan trọng</h3>
-                                <p>Bạn có 48 giờ kể từ thời điểm này để gửi hàng hoàn trả</p>
-                            </div>
-
-                            <div class="instructions">
-                                <h3>📦 Hướng dẫn gửi hàng hoàn trả</h3>
-                                <ol>
-                                    <li><strong>Đóng gói sản phẩm</strong> cẩn thận trong hộp gốc (nếu có)</li>
-                                    <li><strong>In mã QR hoàn trả</strong> và dán lên bao bì</li>
-                                    <li><strong>Mang đến bưu điện</strong> được chỉ định dưới đây</li>
-                                    <li><strong>Xuất trình mã hoàn trả</strong> cho nhân viên bưu điện</li>
-                                    <li><strong>Giữ biên lai</strong> để theo dõi quá trình vận chuyển</li>
-                                </ol>
-                            </div>
-
-                            <div class="info-box">
-                                <h3 style="margin: 0 0 15px 0; color: #333;">📍 Thông tin bưu điện</h3>
-                                <div class="info-item">
-                                    <span class="info-label">Tên:</span>
-                                    <span class="info-value">%s</span>
-                                </div>
-                                <div class="info-item">
-                                    <span class="info-label">Địa chỉ:</span>
-                                    <span class="info-value">%s</span>
-                                </div>
-                            </div>
-
-                            <div class="message">
-                                Sau khi chúng tôi nhận được hàng hoàn trả và kiểm tra, chúng tôi sẽ tiến hành hoàn tiền
-                                vào tài khoản ngân hàng mà bạn đã cung cấp. Quá trình này thường mất 3-5 ngày làm việc.
-                            </div>
-
-                            <div class="message">
-                                Nếu bạn có bất kỳ câu hỏi nào, vui lòng liên hệ với chúng tôi qua hotline:
-                                <strong>%s</strong> hoặc email: <strong>%s</strong>
-                            </div>
-                        </div>
-
-                        <div class="footer">
-                            <p>Trân trọng,</p>
-                            <p class="signature">Đội ngũ %s</p>
-                            <p style="margin-top: 20px; font-size: 12px; color: #999;">
-                                Email này được gửi tự động, vui lòng không trả lời.
-                            </p>
-                        </div>
-                    </div>
-                </body>
-                </html>
-                """,
-                companyName, customerName, orderNumber, approvalDate, returnCode,
-                shippingInfo, shippingDetails, supportHotline, supportEmail, companyName);
+        Map<String, Object> model = baseModel(customerName, orderNumber);
+        model.put("approvalDate", approvalDate);
+        model.put("returnCode", returnCode);
+        model.put("shippingInfo", shippingInfo);
+        model.put("shippingDetails", shippingDetails);
+        return templateEngine.render("email/return-approved", model);
     }
 
     /**
@@ -392,228 +182,10 @@ public class NotificationServiceImpl implements NotificationService {
                 ? returnRequest.getProcessedAt().format(DATE_FORMATTER)
                 : "Vừa xong";
 
-        return String.format("""
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                    <title>Yêu cầu hoàn trả đã bị từ chối</title>
-                    <style>
-                        body {
-                            font-family: Arial, sans-serif;
-                            margin: 0;
-                            padding: 20px;
-                            background-color: #f5f5f5;
-                            color: #333;
-                        }
-                        .container {
-                            max-width: 600px;
-                            margin: 0 auto;
-                            background: white;
-                            border-radius: 12px;
-                            overflow: hidden;
-                            box-shadow: 0 4px 20px rgba(0, 0, 0, 0.1);
-                        }
-                        .header {
-                            background: linear-gradient(135deg, #f44336, #d32f2f);
-                            color: white;
-                            padding: 30px 20px;
-                            text-align: center;
-                        }
-                        .header h1 {
-                            margin: 0 0 10px 0;
-                            font-size: 28px;
-                            font-weight: bold;
-                        }
-                        .header p {
-                            margin: 0;
-                            font-size: 16px;
-                            opacity: 0.9;
-                        }
-                        .content {
-                            padding: 40px 30px;
-                        }
-                        .greeting {
-                            font-size: 24px;
-                            font-weight: bold;
-                            margin-bottom: 20px;
-                            color: #333;
-                        }
-                        .message {
-                            font-size: 16px;
-                            line-height: 1.6;
-                            margin-bottom: 30px;
-                            color: #555;
-                        }
-                        .info-box {
-                            background: #ffebee;
-                            border-left: 4px solid #f44336;
-                            padding: 20px;
-                            margin: 20px 0;
-                            border-radius: 4px;
-                        }
-                        .info-item {
-                            margin-bottom: 15px;
-                            display: flex;
-                            align-items: flex-start;
-                        }
-                        .info-item:last-child {
-                            margin-bottom: 0;
-                        }
-                        .info-label {
-                            font-weight: bold;
-                            min-width: 120px;
-                            color: #333;
-                        }
-                        .info-value {
-                            color: #555;
-                            flex: 1;
-                        }
-                        .reason-box {
-                            background: #fff3e0;
-                            border: 1px solid #ffcc02;
-                            border-radius: 6px;
-                            padding: 20px;
-                            margin: 20px 0;
-                        }
-                        .reason-box h3 {
-                            color: #e65100;
-                            margin: 0 0 10px 0;
-                            font-size: 18px;
-                        }
-                        .reason-box p {
-                            color: #bf360c;
-                            margin: 0;
-                            font-style: italic;
-                            line-height: 1.5;
-                        }
-                        .contact-box {
-                            background: #e3f2fd;
-                            border-radius: 6px;
-                            padding: 20px;
-                            margin: 20px 0;
-                            text-align: center;
-                        }
-                        .contact-box h3 {
-                            color: #1976d2;
-                            margin: 0 0 15px 0;
-                            font-size: 18px;
-                        }
-                        .contact-info {
-                            display: flex;
-                            justify-content: space-around;
-                            flex-wrap: wrap;
-                            gap: 20px;
-                        }
-                        .contact-item {
-                            flex: 1;
-                            min-width: 200px;
-                        }
-                        .contact-item h4 {
-                            color: #1976d2;
-                            margin: 0 0 5px 0;
-                            font-size: 16px;
-                        }
-                        .contact-item p {
-                            color: #333;
-                            margin: 0;
-                            font-weight: bold;
-                            font-size: 18px;
-                        }
-                        .footer {
-                            padding: 20px 30px;
-                            background: #f8f9fa;
-                            border-top: 1px solid #eee;
-                        }
-                        .footer p {
-                            margin: 5px 0;
-                            font-size: 14px;
-                            color: #666;
-                        }
-                        .signature {
-                            font-weight: bold;
-                            color: #333;
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <div class="header">
-                            <h1>❌ %s</h1>
-                            <p>Yêu cầu hoàn trả đã bị từ chối</p>
-                        </div>
-
-                        <div class="content">
-                            <div class="greeting">Chào %s!</div>
-
-                            <div class="message">
-                                Chúng tôi rất tiếc phải thông báo rằng yêu cầu hoàn trả của bạn đã bị từ chối
-                                sau khi xem xét kỹ lưỡng.
-                            </div>
-
-                            <div class="info-box">
-                                <div class="info-item">
-                                    <span class="info-label">Đơn hàng:</span>
-                                    <span class="info-value">%s</span>
-                                </div>
-                                <div class="info-item">
-                                    <span class="info-label">Ngày từ chối:</span>
-                                    <span class="info-value">%s</span>
-                                </div>
-                            </div>
-
-                            <div class="reason-box">
-                                <h3>📋 Lý do từ chối</h3>
-                                <p>%s</p>
-                            </div>
-
-                            <div class="message">
-                                Chúng tôi hiểu rằng bạn có thể không hài lòng với quyết định này.
-                                Nếu bạn có bất kỳ thắc mắc nào hoặc muốn khiếu nại về quyết định này,
-                                vui lòng liên hệ với chúng tôi ngay lập tức.
-                            </div>
-
-                            <div class="contact-box">
-                                <h3>📞 Liên hệ hỗ trợ khách hàng</h3>
-                                <div class="contact-info">
-                                    <div class="contact-item">
-                                        <h4>Hotline</h4>
-                                        <p>%s</p>
-                                    </div>
-                                    <div class="contact-item">
-                                        <h4>Email</h4>
-                                        <p>%s</p>
-                                    </div>
-                                </div>
-                                <p style="margin-top: 15px; color: #666; font-size: 14px;">
-                                    Thời gian hỗ trợ: 8:00 - 22:00 (Thứ 2 - Chủ nhật)
-                                </p>
-                            </div>
-
-                            <div class="message">
-                                Đội ngũ chăm sóc khách hàng của chúng tôi sẽ hỗ trợ bạn giải quyết vấn đề
-                                một cách nhanh chóng và thỏa đáng nhất.
-                            </div>
-
-                            <div class="message">
-                                Cảm ơn bạn đã tin tưởng và sử dụng dịch vụ của chúng tôi.
-                            </div>
-                        </div>
-
-                        <div class="footer">
-                            <p>Trân trọng,</p>
-                            <p class="signature">Đội ngũ %s</p>
-                            <p style="margin-top: 20px; font-size: 12px; color: #999;">
-                                Email này được gửi tự động, vui lòng không trả lời.
-                            </p>
-                        </div>
-                    </div>
-                </body>
-                </html>
-                """,
-                companyName, customerName, orderNumber, rejectionDate, rejectionReason,
-                supportHotline, supportEmail, companyName);
+        Map<String, Object> model = baseModel(customerName, orderNumber);
+        model.put("rejectionDate", rejectionDate);
+        model.put("rejectionReason", rejectionReason);
+        return templateEngine.render("email/return-rejected", model);
     }
 
     /**
@@ -630,248 +202,30 @@ public class NotificationServiceImpl implements NotificationService {
         // Refund info - now credited to wallet
         String refundAmount = String.format("%,.0f đ", returnRequest.getOrder().getTotalAmount());
 
-        return String.format(
-                """
-                        <!DOCTYPE html>
-                        <html>
-                        <head>
-                            <meta charset="UTF-8">
-                            <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                            <title>Hoàn tiền thành công</title>
-                            <style>
-                                body {
-                                    font-family: Arial, sans-serif;
-                                    margin: 0;
-                                    padding: 20px;
-                                    background-color: #f5f5f5;
-                                    color: #333;
-                                }
-                                .container {
-                                    max-width: 600px;
-                                    margin: 0 auto;
-                                    background: white;
-                                    border-radius: 12px;
-                                    overflow: hidden;
-                                    box-shadow: 0 4px 20px rgba(0, 0, 0, 0.1);
-                                }
-                                .header {
-                                    background: linear-gradient(135deg, #2196f3, #1976d2);
-                                    color: white;
-                                    padding: 30px 20px;
-                                    text-align: center;
-                                }
-                                .header h1 {
-                                    margin: 0 0 10px 0;
-                                    font-size: 28px;
-                                    font-weight: bold;
-                                }
-                                .header p {
-                                    margin: 0;
-                                    font-size: 16px;
-                                    opacity: 0.9;
-                                }
-                                .content {
-                                    padding: 40px 30px;
-                                }
-                                .greeting {
-                                    font-size: 24px;
-                                    font-weight: bold;
-                                    margin-bottom: 20px;
-                                    color: #333;
-                                }
-                                .message {
-                                    font-size: 16px;
-                                    line-height: 1.6;
-                                    margin-bottom: 30px;
-                                    color: #555;
-                                }
-                                .success-box {
-                                    background: #e8f5e8;
-                                    border-left: 4px solid #4caf50;
-                                    padding: 20px;
-                                    margin: 20px 0;
-                                    border-radius: 4px;
-                                    text-align: center;
-                                }
-                                .success-box h3 {
-                                    color: #2e7d32;
-                                    margin: 0 0 10px 0;
-                                    font-size: 20px;
-                                }
-                                .success-box .amount {
-                                    font-size: 32px;
-                                    font-weight: bold;
-                                    color: #2e7d32;
-                                    margin: 10px 0;
-                                }
-                                .info-box {
-                                    background: #f8f9fa;
-                                    border-radius: 6px;
-                                    padding: 20px;
-                                    margin: 20px 0;
-                                }
-                                .info-item {
-                                    margin-bottom: 15px;
-                                    display: flex;
-                                    align-items: flex-start;
-                                }
-                                .info-item:last-child {
-                                    margin-bottom: 0;
-                                }
-                                .info-label {
-                                    font-weight: bold;
-                                    min-width: 140px;
-                                    color: #333;
-                                }
-                                .info-value {
-                                    color: #555;
-                                    flex: 1;
-                                }
-                                .bank-info {
-                                    background: #e3f2fd;
-                                    border-radius: 6px;
-                                    padding: 20px;
-                                    margin: 20px 0;
-                                }
-                                .bank-info h3 {
-                                    color: #1976d2;
-                                    margin: 0 0 15px 0;
-                                    font-size: 18px;
-                                }
-                                .timeline-box {
-                                    background: #fff3e0;
-                                    border-radius: 6px;
-                                    padding: 20px;
-                                    margin: 20px 0;
-                                }
-                                .timeline-box h3 {
-                                    color: #f57c00;
-                                    margin: 0 0 15px 0;
-                                    font-size: 18px;
-                                }
-                                .timeline-box p {
-                                    color: #e65100;
-                                    margin: 0;
-                                    font-weight: bold;
-                                }
-                                .thank-you {
-                                    background: linear-gradient(135deg, #ff9800, #f57c00);
-                                    color: white;
-                                    border-radius: 6px;
-                                    padding: 30px;
-                                    margin: 30px 0;
-                                    text-align: center;
-                                }
-                                .thank-you h3 {
-                                    margin: 0 0 15px 0;
-                                    font-size: 24px;
-                                }
-                                .thank-you p {
-                                    margin: 0;
-                                    font-size: 16px;
-                                    opacity: 0.9;
-                                }
-                                .footer {
-                                    padding: 20px 30px;
-                                    background: #f8f9fa;
-                                    border-top: 1px solid #eee;
-                                }
-                                .footer p {
-                                    margin: 5px 0;
-                                    font-size: 14px;
-                                    color: #666;
-                                }
-                                .signature {
-                                    font-weight: bold;
-                                    color: #333;
-                                }
-                            </style>
-                        </head>
-                        <body>
-                            <div class="container">
-                                <div class="header">
-                                    <h1>💰 %s</h1>
-                                    <p>Hoàn tiền thành công</p>
-                                </div>
-
-                                <div class="content">
-                                    <div class="greeting">Chào %s!</div>
-
-                                    <div class="message">
-                                        Chúng tôi vui mừng thông báo rằng quá trình hoàn tiền cho đơn hàng của bạn
-                                        đã được hoàn tất thành công.
-                                    </div>
-
-                                    <div class="success-box">
-                                        <h3>✅ Hoàn tiền thành công</h3>
-                                        <div class="amount">%s</div>
-                                        <p>đã được nạp vào ví của bạn.</p>
-                                    </div>
-
-                                    <div class="info-box">
-                                        <div class="info-item">
-                                            <span class="info-label">Đơn hàng:</span>
-                                            <span class="info-value">%s</span>
-                                        </div>
-                                        <div class="info-item">
-                                            <span class="info-label">Ngày hoàn tiền:</span>
-                                            <span class="info-value">%s</span>
-                                        </div>
-                                        <div class="info-item">
-                                            <span class="info-label">Số tiền hoàn:</span>
-                                            <span class="info-value"><strong>%s</strong></span>
-                                        </div>
-                                    </div>
-
-                                    <div class="bank-info">
-                                        <h3>👛 Tiền đã được nạp vào Ví</h3>
-                                        <div class="info-item">
-                                            <span class="info-label">Hình thức:</span>
-                                            <span class="info-value">Nạp vào ví điện tử</span>
-                                        </div>
-                                        <div class="info-item">
-                                            <span class="info-label">Trạng thái:</span>
-                                            <span class="info-value"><strong style="color:#2e7d32">✅ Đã nạp ngay lập tức</strong></span>
-                                        </div>
-                                    </div>
-
-                                    <div class="timeline-box">
-                                        <h3>💡 Sử dụng ví</h3>
-                                        <p>Số dư ví có thể dùng để thanh toán các đơn hàng tiếp theo</p>
-                                    </div>
-
-                                    <div class="message">
-                                        Nếu sau 3 ngày làm việc bạn chưa nhận được tiền, vui lòng liên hệ với chúng tôi
-                                        qua hotline: <strong>%s</strong> hoặc email: <strong>%s</strong>
-                                    </div>
-
-                                    <div class="thank-you">
-                                        <h3>🙏 Cảm ơn bạn!</h3>
-                                        <p>
-                                            Cảm ơn bạn đã tin tưởng và sử dụng dịch vụ của chúng tôi.
-                                            Chúng tôi hy vọng sẽ được phục vụ bạn tốt hơn trong tương lai.
-                                        </p>
-                                    </div>
-
-                                    <div class="message">
-                                        Chúng tôi luôn nỗ lực cải thiện chất lượng sản phẩm và dịch vụ.
-                                        Ý kiến đóng góp của bạn rất quan trọng với chúng tôi.
-                                    </div>
-                                </div>
-
-                                <div class="footer">
-                                    <p>Trân trọng,</p>
-                                    <p class="signature">Đội ngũ %s</p>
-                                    <p style="margin-top: 20px; font-size: 12px; color: #999;">
-                                        Email này được gửi tự động, vui lòng không trả lời.
-                                    </p>
-                                </div>
-                            </div>
-                        </body>
-                        </html>
-                        """,
-                companyName, customerName, refundAmount, orderNumber, completionDate, refundAmount,
-                supportHotline, supportEmail, companyName);
+        Map<String, Object> model = baseModel(customerName, orderNumber);
+        model.put("completionDate", completionDate);
+        model.put("refundAmount", refundAmount);
+        return templateEngine.render("email/refund-completed", model);
+    }
+
+    /**
+     * Coalescing topic shared by every notification about one return request
+     */
+    public static String topicOf(ReturnRequest returnRequest) {
+        return "return-request:" + returnRequest.getId();
+    }
+
+    /**
+     * Values shared by every return notification template
+     */
+    private Map<String, Object> baseModel(String customerName, String orderNumber) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("companyName", companyName);
+        model.put("supportHotline", supportHotline);
+        model.put("supportEmail", supportEmail);
+        model.put("customerName", customerName);
+        model.put("orderNumber", orderNumber);
+        return model;
     }
 
     /**
@@ -4,27 +4,28 @@ import com.mypkga.commerceplatformfull.entity.OTPVerification;
 import com.mypkga.commerceplatformfull.repository.OTPRepository;
 import com.mypkga.commerceplatformfull.service.OTPService;
 import com.mypkga.commerceplatformfull.service.EmailService;
-import com.mypkga.commerceplatformfull.service.SMSService;
+import com.mypkga.commerceplatformfull.service.otp.OtpStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
-import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * OTP issuing and verification backed by the in-memory {@link OtpStore}.
+ * The otp_verifications table only receives a write-behind audit trail.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class OTPServiceImpl implements OTPService {
 
+    private final OtpStore otpStore;
     private final OTPRepository otpRepository;
     private final EmailService emailService;
-    private final PasswordEncoder passwordEncoder;
 
     @Value("${app.otp.expiry-minutes:5}")
     private int otpExpiryMinutes;
@@ -65,19 +66,10 @@ public class OTPServiceImpl implements OTPService {
             throw new IllegalStateException("Too many OTP requests. Please wait before requesting again.");
         }
 
-        // Clean up any existing OTPs for this email to avoid duplicates
-        otpRepository.deleteByEmail(normalizedEmail);
-
-        // Generate OTP
+        // Generate OTP and keep only its HMAC; this replaces any previous code for the email
         String otp = generateOTP();
-        String hashedOTP = passwordEncoder.encode(otp);
-
-        // Create OTP verification record
-        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(otpExpiryMinutes);
-        OTPVerification otpVerification = new OTPVerification(normalizedEmail, hashedOTP, expiresAt);
-
-        // Save to database
-        otpRepository.save(otpVerification);
+        long expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(otpExpiryMinutes);
+        otpStore.issue(normalizedEmail, otp, expiresAt);
 
         // Send OTP via email
         boolean sent = emailService.sendOTP(normalizedEmail, otp);
@@ -99,107 +91,72 @@ public class OTPServiceImpl implements OTPService {
 
         String normalizedEmail = email.toLowerCase().trim();
 
-        Optional<OTPVerification> otpVerificationOpt = otpRepository.findActiveOTPByEmail(
-            normalizedEmail, LocalDateTime.now()
-        );
-
-        if (otpVerificationOpt.isEmpty()) {
-            log.warn("No active OTP found for email: {}", maskEmail(normalizedEmail));
-            return false;
-        }
-
-        OTPVerification otpVerification = otpVerificationOpt.get();
-
-        // Check if already verified
-        if (otpVerification.isVerified()) {
-            log.warn("OTP already verified for email: {}", maskEmail(normalizedEmail));
-            return false;
-        }
-
-        // Check if expired
-        if (otpVerification.isExpired()) {
-            log.warn("OTP expired for email: {}", maskEmail(normalizedEmail));
-            return false;
-        }
-
-        // Increment attempts
-        otpVerification.incrementAttempts();
-        log.debug("Incremented attempts for email: {}, current attempts: {}", maskEmail(normalizedEmail), otpVerification.getAttempts());
-
-        // Validate OTP
-        boolean isValid = passwordEncoder.matches(otp, otpVerification.getOtpCode());
+        boolean isValid = otpStore.verify(normalizedEmail, otp, maxAttempts,
+                TimeUnit.MINUTES.toMillis(blockDurationMinutes));
 
         if (isValid) {
-            // Mark as verified
-            otpVerification.markAsVerified();
-            otpRepository.save(otpVerification);
             log.info("OTP verified successfully for email: {}", maskEmail(normalizedEmail));
-            return true;
         } else {
-            // Save the incremented attempts
-            otpRepository.save(otpVerification);
-            log.warn("Invalid OTP for email: {}", maskEmail(normalizedEmail));
-            return false;
+            log.warn("Invalid, expired or used OTP for email: {}", maskEmail(normalizedEmail));
         }
+        return isValid;
     }
 
     @Override
     public boolean isOTPExpired(String email) {
-        String normalizedEmail = email.toLowerCase().trim();
-
-        Optional<OTPVerification> otpVerificationOpt = otpRepository.findTopByEmailOrderByCreatedAtDesc(normalizedEmail);
-        return otpVerificationOpt.map(OTPVerification::isExpired).orElse(true);
+        OtpStore.OtpStatus status = status(email);
+        return status == null || System.currentTimeMillis() >= status.expiresAt();
     }
 
     @Override
     public void invalidateOTP(String email) {
         String normalizedEmail = email.toLowerCase().trim();
 
-        otpRepository.deleteByEmail(normalizedEmail);
+        otpStore.invalidate(normalizedEmail);
         log.info("OTP invalidated for email: {}", maskEmail(normalizedEmail));
     }
 
     @Override
     public boolean isRateLimited(String email) {
-        String normalizedEmail = email.toLowerCase().trim();
-
-        LocalDateTime since = LocalDateTime.now().minusMinutes(rateLimitMinutes);
-        long requestCount = otpRepository.countOTPRequestsSince(normalizedEmail, since);
-        return requestCount >= maxRequestsPerPeriod;
+        OtpStore.OtpStatus status = status(email);
+        return status != null && status.recentRequests() >= maxRequestsPerPeriod;
     }
 
     @Override
     public boolean isBlocked(String email) {
-        String normalizedEmail = email.toLowerCase().trim();
-
-        // Check if there's an active OTP with max attempts reached
-        Optional<OTPVerification> otpVerificationOpt = otpRepository.findActiveOTPByEmail(
-            normalizedEmail, LocalDateTime.now()
-        );
-
-        if (otpVerificationOpt.isPresent()) {
-            OTPVerification otpVerification = otpVerificationOpt.get();
-            return otpVerification.isMaxAttemptsReached(maxAttempts);
+        OtpStore.OtpStatus status = status(email);
+        if (status == null) {
+            return false;
         }
-
-        // Also check if there are recent failed attempts within block duration
-        LocalDateTime since = LocalDateTime.now().minusMinutes(blockDurationMinutes);
-        return otpRepository.isEmailBlocked(normalizedEmail, since);
+        // Blocked while the current code has no attempts left or a block is running
+        return (status.active() && status.attempts() >= maxAttempts)
+                || System.currentTimeMillis() < status.blockedUntil();
     }
 
     @Override
     public OTPVerification getLatestOTP(String email) {
         String normalizedEmail = email.toLowerCase().trim();
 
+        // Audit trail only; may lag the in-memory state by one flush interval
         return otpRepository.findTopByEmailOrderByCreatedAtDesc(normalizedEmail).orElse(null);
     }
 
+    /**
+     * Drop finished OTP state from memory and purge old audit rows.
+     */
     @Override
+    @Scheduled(fixedDelayString = "${app.otp.sweep-interval-ms:60000}")
     public int cleanupExpiredOTPs() {
-        LocalDateTime now = LocalDateTime.now();
-        otpRepository.deleteExpiredOTPs(now);
-        log.info("Cleaned up expired OTPs");
-        return 0; // Return value would need to be tracked if needed
+        int removed = otpStore.sweep(rateWindowMillis());
+        try {
+            otpStore.purgeAudit();
+        } catch (Exception e) {
+            log.warn("Failed to purge OTP audit records: {}", e.getMessage());
+        }
+        if (removed > 0) {
+            log.debug("Cleaned up {} expired OTP entries, {} still in memory", removed, otpStore.size());
+        }
+        return removed;
     }
 
     @Override
@@ -213,72 +170,52 @@ public class OTPServiceImpl implements OTPService {
             return false;
         }
         
-        // Clean up existing OTPs and generate new one
-        otpRepository.deleteByEmail(normalizedEmail);
+        // Issuing a new code replaces the existing one
         return generateAndSendOTP(normalizedEmail);
     }
 
     @Override
     public int getRemainingAttempts(String email) {
-        String normalizedEmail = email.toLowerCase().trim();
+        OtpStore.OtpStatus status = status(email);
 
-        Optional<OTPVerification> otpVerificationOpt = otpRepository.findActiveOTPByEmail(
-            normalizedEmail, LocalDateTime.now()
-        );
-
-        if (otpVerificationOpt.isEmpty()) {
-            log.debug("No active OTP found for email: {}, returning max attempts: {}", maskEmail(normalizedEmail), maxAttempts);
+        if (status == null || !status.active()) {
+            log.debug("No active OTP found for email: {}, returning max attempts: {}", maskEmail(email), maxAttempts);
             return maxAttempts;
         }
 
-        OTPVerification otpVerification = otpVerificationOpt.get();
-        int remaining = Math.max(0, maxAttempts - otpVerification.getAttempts());
+        int remaining = Math.max(0, maxAttempts - status.attempts());
         log.debug("Email: {}, Current attempts: {}, Max attempts: {}, Remaining: {}", 
-                 maskEmail(normalizedEmail), otpVerification.getAttempts(), maxAttempts, remaining);
+                 maskEmail(email), status.attempts(), maxAttempts, remaining);
         return remaining;
     }
 
     @Override
     public long getSecondsUntilNextRequest(String email) {
-        if (!isRateLimited(email)) {
-            return 0;
-        }
-
-        String normalizedEmail = email.toLowerCase().trim();
-
-        Optional<OTPVerification> latestOtp = otpRepository.findTopByEmailOrderByCreatedAtDesc(normalizedEmail);
-        if (latestOtp.isEmpty()) {
+        OtpStore.OtpStatus status = status(email);
+        if (status == null || status.recentRequests() < maxRequestsPerPeriod) {
             return 0;
         }
 
-        LocalDateTime nextAllowedTime = latestOtp.get().getCreatedAt().plusMinutes(rateLimitMinutes);
-        LocalDateTime now = LocalDateTime.now();
-        
-        if (now.isBefore(nextAllowedTime)) {
-            return java.time.Duration.between(now, nextAllowedTime).getSeconds();
-        }
-        
-        return 0;
+        // The oldest request in the window is the next one to fall out of it
+        long nextAllowed = status.oldestRecentRequest() + rateWindowMillis();
+        return Math.max(0, TimeUnit.MILLISECONDS.toSeconds(nextAllowed - System.currentTimeMillis()));
     }
 
     @Override
     public long getRemainingOTPSeconds(String email) {
-        String normalizedEmail = email.toLowerCase().trim();
-
-        Optional<OTPVerification> latestOtp = otpRepository.findTopByEmailOrderByCreatedAtDesc(normalizedEmail);
-        if (latestOtp.isEmpty()) {
+        OtpStore.OtpStatus status = status(email);
+        if (status == null) {
             return 0;
         }
+        return Math.max(0, TimeUnit.MILLISECONDS.toSeconds(status.expiresAt() - System.currentTimeMillis()));
+    }
 
-        OTPVerification otp = latestOtp.get();
-        LocalDateTime expiryTime = otp.getExpiresAt();
-        LocalDateTime now = LocalDateTime.now();
-        
-        if (now.isBefore(expiryTime)) {
-            return java.time.Duration.between(now, expiryTime).getSeconds();
-        }
-        
-        return 0;
+    private OtpStore.OtpStatus status(String email) {
+        return otpStore.status(email.toLowerCase().trim(), rateWindowMillis());
+    }
+
+    private long rateWindowMillis() {
+        return TimeUnit.MINUTES.toMillis(rateLimitMinutes);
     }
 
     /**
@@ -4,6 +4,7 @@ import com.mypkga.commerceplatformfull.entity.PasswordResetToken;
 import com.mypkga.commerceplatformfull.entity.User;
 import com.mypkga.commerceplatformfull.repository.PasswordResetTokenRepository;
 import com.mypkga.commerceplatformfull.repository.UserRepository;
+import com.mypkga.commerceplatformfull.security.UserPrincipalCache;
 import com.mypkga.commerceplatformfull.service.EmailService;
 import com.mypkga.commerceplatformfull.service.PasswordResetService;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -27,6 +29,7 @@ public class PasswordResetServiceImpl implements PasswordResetService {
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Value("${app.password-reset.expiry-minutes:30}")
     private int resetExpiryMinutes;
@@ -115,6 +118,7 @@ public class PasswordResetServiceImpl implements PasswordResetService {
         User user = userOpt.get();
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        userPrincipalCache.evictAfterCommit(user.getId());
 
         // Mark token as used
         resetToken.markAsUsed();
@@ -150,7 +154,7 @@ public class PasswordResetServiceImpl implements PasswordResetService {
             String subject = "Password Reset Request - E-Commerce Platform";
             String htmlContent = buildResetEmailContent(resetUrl);
 
-            return emailService.sendHtmlEmail(email, subject, htmlContent);
+            return emailService.sendSecretHtmlEmail(email, subject, htmlContent, Duration.ofMinutes(resetExpiryMinutes));
         } catch (Exception e) {
             log.error("Failed to send password reset email", e);
             return false;
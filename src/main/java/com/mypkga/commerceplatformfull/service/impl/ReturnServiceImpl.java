@@ -1,8 +1,6 @@
 package com.mypkga.commerceplatformfull.service.impl;
 
 import com.mypkga.commerceplatformfull.dto.CreateReturnRequestDto;
-import com.mypkga.commerceplatformfull.dto.ghn.GHNCreateOrderResponse;
-import com.mypkga.commerceplatformfull.dto.ghn.GHNFeeResponse;
 import com.mypkga.commerceplatformfull.entity.*;
 import com.mypkga.commerceplatformfull.exception.InvalidReturnStatusException;
 import com.mypkga.commerceplatformfull.exception.ReturnNotEligibleException;
@@ -12,6 +10,7 @@ import com.mypkga.commerceplatformfull.repository.ReturnRequestRepository;
 import com.mypkga.commerceplatformfull.repository.ReturnRequestHistoryRepository;
 import com.mypkga.commerceplatformfull.repository.UserRepository;
 import com.mypkga.commerceplatformfull.service.*;
+import com.mypkga.commerceplatformfull.service.ghn.GhnShipmentQueue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -33,7 +32,8 @@ public class ReturnServiceImpl implements ReturnService {
     private final FileService fileService;
     private final ReturnCodeService returnCodeService;
     private final NotificationService notificationService;
-    private final GHNReturnService ghnReturnService;
+    private final GhnShipmentQueue ghnShipmentQueue;
+    private final OrderTimelineService orderTimelineService;
 
     @Override
     @Transactional
@@ -103,6 +103,8 @@ public class ReturnServiceImpl implements ReturnService {
         // This ensures order.getReturnRequest() returns the created request
         order.setReturnRequest(returnRequest);
         orderRepository.save(order);
+        orderTimelineService.createTimelineEntry(order.getId(), OrderStatus.REFUND_REQUESTED, "CUSTOMER",
+                "Khách hàng yêu cầu hoàn trả");
         log.info("Order {} status updated to REFUND_REQUESTED and linked to return request {}", orderId,
                 returnRequest.getId());
 
@@ -133,58 +135,22 @@ public class ReturnServiceImpl implements ReturnService {
                     String.format("Cannot approve return request in status %s", returnRequest.getStatus()));
         }
 
-        // Calculate GHN shipping fee first
-        GHNFeeResponse feeResponse = null;
-        GHNCreateOrderResponse ghnResponse = null;
-
-        try {
-            log.info("Calculating GHN return shipping fee for request: {}", requestId);
-            feeResponse = ghnReturnService.calculateReturnShippingFee(returnRequest);
-
-            if (feeResponse != null && feeResponse.getCode() == 200) {
-                log.info("GHN shipping fee calculated: {} VND for request {}",
-                        feeResponse.getData().getTotal(), requestId);
-
-                // Create GHN return shipment order
-                log.info("Creating GHN return order for return request: {}", requestId);
-                ghnResponse = ghnReturnService.createReturnShippingOrder(returnRequest);
-
-                if (ghnResponse != null && ghnResponse.getCode() == 200) {
-                    // Update return request with GHN information
-                    returnRequest.setGhnOrderCode(ghnResponse.getData().getOrderCode());
-                    returnRequest.setGhnTrackingNumber(ghnResponse.getData().getSortCode());
-                    returnRequest.setGhnFee(feeResponse.getData().getTotal());
-
-                    log.info("Successfully created GHN order {} for return request {}",
-                            ghnResponse.getData().getOrderCode(), requestId);
-                } else {
-                    log.error("Failed to create GHN order for return request {}: {}",
-                            requestId, ghnResponse != null ? ghnResponse.getMessage() : "Unknown error");
-                }
-            } else {
-                log.error("Failed to calculate GHN shipping fee for return request {}: {}",
-                        requestId, feeResponse != null ? feeResponse.getMessage() : "Unknown error");
-            }
-        } catch (Exception e) {
-            log.error("Error with GHN service for return request {}, continuing with manual processing", requestId, e);
-            // Continue without GHN - manual processing
-        }
-
         // Update return request status
         returnRequest.updateStatus(ReturnStatus.RETURN_APPROVED, staff);
         returnRequest = returnRequestRepository.save(returnRequest);
 
+        // GHN return order is created in the background; staff can follow it on the detail page
+        ghnShipmentQueue.enqueue(returnRequest.getId());
+
         // Update order status
         Order order = returnRequest.getOrder();
         order.updateCurrentStatus(OrderStatus.RETURN_APPROVED);
         orderRepository.save(order);
+        orderTimelineService.createTimelineEntry(order.getId(), OrderStatus.RETURN_APPROVED, staff.getEmail(),
+                "Yêu cầu hoàn trả đã được chấp nhận");
 
         // Save history record
-        ReturnRequestHistory history = ReturnRequestHistory.createApprovalHistory(
-                returnRequest,
-                staff,
-                ghnResponse != null ? ghnResponse.getData().getOrderCode() : null,
-                feeResponse != null ? feeResponse.getData().getTotal() : null);
+        ReturnRequestHistory history = ReturnRequestHistory.createApprovalHistory(returnRequest, staff, null, null);
         historyRepository.save(history);
 
         // Send approval notification email - if this fails, rollback the entire
@@ -226,6 +192,8 @@ public class ReturnServiceImpl implements ReturnService {
         Order order = returnRequest.getOrder();
         order.updateCurrentStatus(OrderStatus.DELIVERED);
         orderRepository.save(order);
+        orderTimelineService.createTimelineEntry(order.getId(), OrderStatus.DELIVERED, staff.getEmail(),
+                "Yêu cầu hoàn trả bị từ chối: " + reason);
 
         // Save history record
         ReturnRequestHistory history = ReturnRequestHistory.createRejectionHistory(returnRequest, staff, reason);
@@ -272,6 +240,8 @@ public class ReturnServiceImpl implements ReturnService {
         Order order = returnRequest.getOrder();
         order.updateCurrentStatus(OrderStatus.RETURNING);
         orderRepository.save(order);
+        orderTimelineService.createTimelineEntry(order.getId(), OrderStatus.RETURNING, "CUSTOMER",
+                "Khách hàng đã gửi hàng hoàn trả");
 
         // Save history record
         ReturnRequestHistory history = ReturnRequestHistory.createShippingHistory(returnRequest,
@@ -307,6 +277,8 @@ public class ReturnServiceImpl implements ReturnService {
         Order order = returnRequest.getOrder();
         order.updateCurrentStatus(OrderStatus.RETURN_RECEIVED);
         orderRepository.save(order);
+        orderTimelineService.createTimelineEntry(order.getId(), OrderStatus.RETURN_RECEIVED, staff.getEmail(),
+                "Đã nhận hàng hoàn trả");
 
         // Save history record
         ReturnRequestHistory history = ReturnRequestHistory.createReceiptHistory(returnRequest, staff);
@@ -341,6 +313,8 @@ public class ReturnServiceImpl implements ReturnService {
         Order order = returnRequest.getOrder();
         order.updateCurrentStatus(OrderStatus.REFUNDED);
         orderRepository.save(order);
+        orderTimelineService.createTimelineEntry(order.getId(), OrderStatus.REFUNDED, staff.getEmail(),
+                "Đã hoàn tiền cho khách hàng");
 
         // Save history record
         ReturnRequestHistory history = ReturnRequestHistory.createRefundHistory(returnRequest, staff);
@@ -0,0 +1,387 @@
+package com.mypkga.commerceplatformfull.service.mail;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mypkga.commerceplatformfull.entity.EmailOutboxMessage;
+import com.mypkga.commerceplatformfull.entity.EmailOutboxStatus;
+import com.mypkga.commerceplatformfull.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the email outbox.
+ * Each run claims a batch of due rows, splits it across {@code smtp-pool-size} workers on
+ * {@code emailTaskExecutor}, and each worker sends its slice over one pooled SMTP
+ * connection. Failed messages are retried with exponential backoff and jitter until
+ * {@code max-attempts}, then dead-lettered; rejected recipients are dead-lettered at once.
+ * Sends to one recipient domain are spaced by a per-domain GCRA limit, and throttled
+ * messages are simply deferred. Messages with an expiry (one-time codes) are dropped instead
+ * of retried past it, and their body is blanked once they are sent or dropped.
+ * Runs happen on a virtual thread, never on the shared scheduler thread.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailDispatcher {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final SmtpTransportPool transportPool;
+    private final JavaMailSenderImpl mailSender;
+    private final MeterRegistry meterRegistry;
+    @Qualifier("emailTaskExecutor")
+    private final Executor emailTaskExecutor;
+
+    @Value("${app.email.from:noreply@ecommerce.com}")
+    private String fromEmail;
+
+    @Value("${app.email.from-name:E-Commerce Platform}")
+    private String fromName;
+
+    @Value("${app.email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email.outbox.claim-timeout:5m}")
+    private Duration claimTimeout;
+
+    @Value("${app.email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.retry-base:30s}")
+    private Duration retryBase;
+
+    @Value("${app.email.outbox.retry-max:6h}")
+    private Duration retryMax;
+
+    @Value("${app.email.outbox.per-domain-per-minute:120}")
+    private int perDomainPerMinute;
+
+    @Value("${app.email.outbox.per-domain-burst:20}")
+    private int perDomainBurst;
+
+    @Value("${app.email.outbox.sent-retention:7d}")
+    private Duration sentRetention;
+
+    @Value("${app.email.outbox.dead-retention:30d}")
+    private Duration deadRetention;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean wakeRequested = new AtomicBoolean(false);
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong deadCount = new AtomicLong();
+
+    private Cache<String, AtomicLong> domainBuckets;
+    private long domainIntervalNanos;
+    private long domainToleranceNanos;
+
+    private Counter sentCounter;
+    private Counter retryCounter;
+    private Counter deadCounter;
+    private Counter throttledCounter;
+    private Timer deliveryLatency;
+    private Timer smtpSendTimer;
+
+    @PostConstruct
+    void init() {
+        domainBuckets = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        domainIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perDomainPerMinute);
+        domainToleranceNanos = domainIntervalNanos * (Math.max(1, perDomainBurst) - 1L);
+
+        Gauge.builder("email.outbox.queue.depth", queueDepth, AtomicLong::get)
+                .description("Outbox emails waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.dead", deadCount, AtomicLong::get)
+                .description("Dead-lettered outbox emails")
+                .register(meterRegistry);
+        sentCounter = Counter.builder("email.outbox.sent").register(meterRegistry);
+        retryCounter = Counter.builder("email.outbox.retries").register(meterRegistry);
+        deadCounter = Counter.builder("email.outbox.dead.lettered").register(meterRegistry);
+        throttledCounter = Counter.builder("email.outbox.throttled").register(meterRegistry);
+        deliveryLatency = Timer.builder("email.outbox.delivery.latency")
+                .description("Time from enqueue to SMTP acceptance")
+                .register(meterRegistry);
+        smtpSendTimer = Timer.builder("email.outbox.smtp.send")
+                .description("Time to hand one message to the SMTP server")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start a run right away, e.g. after an email was enqueued.
+     */
+    public void wake() {
+        wakeRequested.set(true);
+        if (!running.get()) {
+            Thread.ofVirtual().name("email-dispatch").start(this::dispatch);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-ms:5000}")
+    public void poll() {
+        try {
+            outboxRepository.releaseExpiredClaims(LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("Failed to release stale email outbox claims: {}", e.getMessage());
+        }
+        wake();
+        try {
+            queueDepth.set(outboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+            deadCount.set(outboxRepository.countByStatus(EmailOutboxStatus.DEAD));
+        } catch (Exception e) {
+            log.debug("Failed to refresh email outbox gauges: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.email.outbox.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int sent = outboxRepository.deleteByStatusBefore(EmailOutboxStatus.SENT, now.minus(sentRetention))
+                + outboxRepository.deleteByStatusBefore(EmailOutboxStatus.SUPERSEDED, now.minus(sentRetention));
+        int dead = outboxRepository.deleteByStatusBefore(EmailOutboxStatus.DEAD, now.minus(deadRetention));
+        log.info("Email outbox purge: {} sent and {} dead messages deleted", sent, dead);
+    }
+
+    /**
+     * Drain due messages; a wake-up that arrives mid-run triggers one more pass.
+     */
+    public void dispatch() {
+        while (wakeRequested.get() && running.compareAndSet(false, true)) {
+            try {
+                wakeRequested.set(false);
+                while (dispatchBatch() >= batchSize) {
+                    // Keep draining full batches
+                }
+            } catch (Exception e) {
+                log.error("Email outbox dispatch failed: {}", e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String token = UUID.randomUUID().toString();
+        if (outboxRepository.claim(ids, token, now.plus(claimTimeout)) == 0) {
+            return ids.size();
+        }
+        List<EmailOutboxMessage> claimed = outboxRepository.findByClaimToken(token);
+
+        int workers = Math.max(1, Math.min(transportPool.getPoolSize(), claimed.size()));
+        List<List<EmailOutboxMessage>> slices = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            slices.add(new ArrayList<>());
+        }
+        for (int i = 0; i < claimed.size(); i++) {
+            slices.get(i % workers).add(claimed.get(i));
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            List<EmailOutboxMessage> slice = slices.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> sendSlice(slice), emailTaskExecutor);
+        }
+        CompletableFuture.allOf(futures).join();
+
+        // Sent rows are closed with one statement; retried, deferred and dead ones are merged
+        List<Long> sentIds = new ArrayList<>();
+        List<EmailOutboxMessage> others = new ArrayList<>();
+        for (EmailOutboxMessage message : claimed) {
+            if (message.getStatus() == EmailOutboxStatus.SENT) {
+                sentIds.add(message.getId());
+            } else {
+                message.setClaimToken(null);
+                message.setClaimedUntil(null);
+                others.add(message);
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            outboxRepository.markSent(sentIds, LocalDateTime.now());
+            if (claimed.stream().anyMatch(EmailOutboxMessage::isSecret)) {
+                outboxRepository.clearSecretBodies(sentIds);
+            }
+        }
+        if (!others.isEmpty()) {
+            outboxRepository.saveAll(others);
+        }
+        return ids.size();
+    }
+
+    private void sendSlice(List<EmailOutboxMessage> slice) {
+        SmtpTransportPool.PooledTransport pooled = null;
+        MessagingException unreachable = null;
+        try {
+            for (EmailOutboxMessage message : slice) {
+                if (message.isExpired(LocalDateTime.now())) {
+                    expire(message);
+                    continue;
+                }
+                if (unreachable != null) {
+                    // Server unreachable: retry the rest of the slice later
+                    fail(message, unreachable, false);
+                    continue;
+                }
+                long waitNanos = takeDomainPermit(message.getRecipientDomain());
+                if (waitNanos > 0) {
+                    defer(message, waitNanos);
+                    continue;
+                }
+                if (pooled == null) {
+                    try {
+                        pooled = transportPool.borrow();
+                    } catch (MessagingException e) {
+                        unreachable = e;
+                        fail(message, e, false);
+                        continue;
+                    }
+                }
+                try {
+                    send(pooled, message);
+                } catch (SendFailedException e) {
+                    // Recipient rejected; the connection itself is still fine
+                    boolean permanent = e.getInvalidAddresses() != null && e.getInvalidAddresses().length > 0;
+                    fail(message, e, permanent);
+                } catch (MessagingException e) {
+                    transportPool.discard(pooled);
+                    pooled = null;
+                    fail(message, e, false);
+                } catch (Exception e) {
+                    fail(message, e, true);
+                }
+            }
+        } finally {
+            if (pooled != null) {
+                transportPool.release(pooled);
+            }
+        }
+    }
+
+    private void send(SmtpTransportPool.PooledTransport pooled, EmailOutboxMessage message) throws Exception {
+        MimeMessage mime = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mime, message.getHtml(), "UTF-8");
+        helper.setFrom(fromEmail, fromName);
+        helper.setTo(message.getRecipient());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getBody(), message.getHtml());
+        mime.saveChanges();
+
+        long started = System.nanoTime();
+        pooled.getTransport().sendMessage(mime, mime.getAllRecipients());
+        smtpSendTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        message.setStatus(EmailOutboxStatus.SENT);
+        sentCounter.increment();
+        deliveryLatency.record(Duration.between(message.getCreatedAt(), LocalDateTime.now()));
+    }
+
+    private void defer(EmailOutboxMessage message, long waitNanos) {
+        LocalDateTime next = LocalDateTime.now().plusNanos(waitNanos);
+        if (message.isExpired(next)) {
+            expire(message);
+            return;
+        }
+        message.setStatus(EmailOutboxStatus.PENDING);
+        message.setNextAttemptAt(next);
+        throttledCounter.increment();
+    }
+
+    private void expire(EmailOutboxMessage message) {
+        message.setStatus(EmailOutboxStatus.DEAD);
+        message.setLastError("Expired before delivery");
+        clearIfSecret(message);
+        deadCounter.increment();
+        log.warn("Email {} to domain {} expired before delivery after {} attempts",
+                message.getId(), message.getRecipientDomain(), message.getAttempts());
+    }
+
+    private static void clearIfSecret(EmailOutboxMessage message) {
+        if (message.isSecret()) {
+            message.setBody("");
+        }
+    }
+
+    private void fail(EmailOutboxMessage message, Exception e, boolean permanent) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(abbreviate(e.getClass().getSimpleName() + ": " + e.getMessage()));
+        if (permanent || attempts >= maxAttempts) {
+            message.setStatus(EmailOutboxStatus.DEAD);
+            clearIfSecret(message);
+            deadCounter.increment();
+            log.error("Email {} to domain {} dead-lettered after {} attempts: {}",
+                    message.getId(), message.getRecipientDomain(), attempts, e.getMessage());
+            return;
+        }
+        long backoff = retryBase.toMillis() << Math.min(attempts - 1, 20);
+        backoff = Math.min(backoff, retryMax.toMillis());
+        backoff = (long) (backoff * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+        LocalDateTime next = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoff));
+        if (message.isExpired(next)) {
+            log.warn("Email {} to domain {} failed (attempt {}): {}",
+                    message.getId(), message.getRecipientDomain(), attempts, e.getMessage());
+            expire(message);
+            return;
+        }
+        message.setStatus(EmailOutboxStatus.PENDING);
+        message.setNextAttemptAt(next);
+        retryCounter.increment();
+        log.warn("Email {} to domain {} failed (attempt {}), retrying in {} s: {}",
+                message.getId(), message.getRecipientDomain(), attempts, backoff / 1000, e.getMessage());
+    }
+
+    /**
+     * GCRA permit for one recipient domain.
+     *
+     * @return 0 if the message may be sent now, otherwise nanoseconds to wait
+     */
+    private long takeDomainPermit(String domain) {
+        long now = System.nanoTime();
+        AtomicLong bucket = domainBuckets.get(domain, key -> new AtomicLong(now));
+        while (true) {
+            long tat = bucket.get();
+            long allowAt = tat - domainToleranceNanos;
+            if (now - allowAt < 0) {
+                return allowAt - now;
+            }
+            long next = (tat - now > 0 ? tat : now) + domainIntervalNanos;
+            if (bucket.compareAndSet(tat, next)) {
+                return 0L;
+            }
+        }
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() <= 1000 ? text : text.substring(0, 1000);
+    }
+}
@@ -0,0 +1,54 @@
+package com.mypkga.commerceplatformfull.service.mail;
+
+import com.mypkga.commerceplatformfull.entity.EmailOutboxMessage;
+import com.mypkga.commerceplatformfull.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Entry point of the email outbox. A message is stored in the caller's transaction
+ * (or its own if there is none) and the dispatcher is woken once it commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class EmailOutbox {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailDispatcher dispatcher;
+
+    public EmailOutboxMessage enqueue(String recipient, String subject, String body, boolean html) {
+        return enqueue(new EmailOutboxMessage(recipient.trim(), subject, body, html));
+    }
+
+    /**
+     * Queue a message carrying a one-time code or link. It is dropped instead of retried once
+     * {@code validFor} has passed, and its body is blanked as soon as it is sent or dropped.
+     */
+    public EmailOutboxMessage enqueueSecret(String recipient, String subject, String body, boolean html,
+                                            Duration validFor) {
+        EmailOutboxMessage message = new EmailOutboxMessage(recipient.trim(), subject, body, html);
+        message.setSecret(true);
+        message.setExpiresAt(LocalDateTime.now().plus(validFor));
+        return enqueue(message);
+    }
+
+    public EmailOutboxMessage enqueue(EmailOutboxMessage message) {
+        message = outboxRepository.save(message);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.wake();
+                }
+            });
+        } else {
+            dispatcher.wake();
+        }
+        return message;
+    }
+}
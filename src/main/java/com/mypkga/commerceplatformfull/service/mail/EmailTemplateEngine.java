@@ -0,0 +1,164 @@
+package com.mypkga.commerceplatformfull.service.mail;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renderer for the HTML email templates under {@code templates/email}.
+ * A template is parsed once into literal and variable segments, with fragment includes
+ * inlined into the surrounding literals, and rendered into a per-thread buffer that is
+ * reused between sends. Only Thymeleaf inlining and whole-template includes are supported,
+ * so the files stay valid Thymeleaf:
+ * <ul>
+ *     <li>{@code [[${name}]]} - HTML-escaped value; text that InputValidationAspect already
+ *     escaped on the way in is unescaped first, so it is not escaped twice</li>
+ *     <li>{@code [(${name})]} - raw value</li>
+ *     <li>{@code <th:block th:replace="~{email/fragments/footer}"></th:block>} - include</li>
+ * </ul>
+ * Missing or null values render as empty text, as in Thymeleaf.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailTemplateEngine {
+
+    private static final Pattern TOKEN = Pattern.compile(
+            "\\[\\[\\$\\{(\\w+)}]]|\\[\\(\\$\\{(\\w+)}\\)]|<th:block th:replace=\"~\\{([\\w/-]+)}\"></th:block>");
+
+    private static final int MAX_INCLUDE_DEPTH = 4;
+
+    // Buffers that grew past this are dropped instead of being kept per thread
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    private final ResourceLoader resourceLoader;
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(16 * 1024));
+
+    /**
+     * Render a template, e.g. {@code email/return-approved}, with the given values.
+     */
+    public String render(String name, Map<String, ?> model) {
+        Template template = templates.computeIfAbsent(name, key -> new Template(parse(key, 0)));
+        StringBuilder out = buffers.get();
+        out.setLength(0);
+        template.renderTo(out, model);
+        String html = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            buffers.remove();
+        }
+        return html;
+    }
+
+    private List<Segment> parse(String name, int depth) {
+        if (depth > MAX_INCLUDE_DEPTH) {
+            throw new IllegalStateException("Email template includes nested too deep at " + name);
+        }
+        String source = load(name);
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        Matcher matcher = TOKEN.matcher(source);
+        int last = 0;
+        while (matcher.find()) {
+            literal.append(source, last, matcher.start());
+            last = matcher.end();
+            if (matcher.group(3) != null) {
+                // Inline the fragment so its static parts merge with ours
+                for (Segment segment : parse(matcher.group(3), depth + 1)) {
+                    if (segment.variable == null) {
+                        literal.append(segment.literal);
+                    } else {
+                        flush(literal, segments);
+                        segments.add(segment);
+                    }
+                }
+                continue;
+            }
+            flush(literal, segments);
+            boolean raw = matcher.group(2) != null;
+            segments.add(new Segment(null, raw ? matcher.group(2) : matcher.group(1), raw));
+        }
+        literal.append(source, last, source.length());
+        flush(literal, segments);
+        return segments;
+    }
+
+    private static void flush(StringBuilder literal, List<Segment> segments) {
+        if (!literal.isEmpty()) {
+            segments.add(new Segment(literal.toString(), null, false));
+            literal.setLength(0);
+        }
+    }
+
+    private String load(String name) {
+        Resource resource = resourceLoader.getResource("classpath:templates/" + name + ".html");
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Email template not found: " + name, e);
+        }
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        if (value.indexOf('&') >= 0) {
+            value = HtmlUtils.htmlUnescape(value);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private record Segment(String literal, String variable, boolean raw) {
+    }
+
+    /**
+     * Parsed template: segments in render order
+     */
+    private static final class Template {
+
+        private final Segment[] segments;
+
+        Template(List<Segment> segments) {
+            this.segments = segments.toArray(new Segment[0]);
+        }
+
+        void renderTo(StringBuilder out, Map<String, ?> model) {
+            for (Segment segment : segments) {
+                if (segment.variable == null) {
+                    out.append(segment.literal);
+                    continue;
+                }
+                Object value = model.get(segment.variable);
+                if (value == null) {
+                    continue;
+                }
+                if (segment.raw) {
+                    out.append(value);
+                } else {
+                    appendEscaped(out, value.toString());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.mypkga.commerceplatformfull.service.mail;
+
+import com.mypkga.commerceplatformfull.entity.EmailOutboxMessage;
+import com.mypkga.commerceplatformfull.entity.EmailOutboxStatus;
+import com.mypkga.commerceplatformfull.repository.EmailOutboxRepository;
+import com.mypkga.commerceplatformfull.service.EmailService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Coalesces bursts of status notifications per recipient and topic.
+ * A notification is held in the outbox for {@code app.email.coalesce.window}; if another
+ * one for the same topic arrives before it is sent, the pending one is superseded and the
+ * newer email goes out instead, carrying a digest of the earlier updates. The first
+ * notification's deadline is kept, so a burst never delays delivery beyond one window.
+ * Terminal notifications (refund done, return rejected) are sent right away.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationCoalescer {
+
+    private static final DateTimeFormatter DIGEST_TIME = DateTimeFormatter.ofPattern("HH:mm dd/MM");
+    private static final int MAX_DIGEST_LENGTH = 2000;
+
+    private final EmailOutbox emailOutbox;
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailService emailService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.email.enabled:false}")
+    private boolean emailEnabled;
+
+    @Value("${app.email.mock-mode:false}")
+    private boolean mockMode;
+
+    @Value("${app.email.coalesce.window:60s}")
+    private Duration window;
+
+    private Counter coalescedCounter;
+
+    @PostConstruct
+    void init() {
+        coalescedCounter = Counter.builder("email.outbox.coalesced")
+                .description("Pending notifications merged into a later digest")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a notification that may be merged with pending ones of the same topic.
+     *
+     * @param topic    what the notification is about, e.g. {@code return-request:42}
+     * @param summary  one-line description used in a later digest
+     * @param terminal final state of the topic; sent without waiting for the window
+     * @return true if the notification was queued
+     */
+    @Transactional
+    public boolean submit(String recipient, String topic, String subject, String body, boolean html,
+                          String summary, boolean terminal) {
+        if (!emailService.isValidEmail(recipient)) {
+            log.error("Invalid email address for notification {}", topic);
+            return false;
+        }
+        if (mockMode || !emailEnabled) {
+            log.info("MOCK NOTIFICATION - {}: Subject: {}", topic, subject);
+            return true;
+        }
+
+        String email = recipient.trim();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime dueAt = terminal ? now : now.plus(window);
+        StringBuilder digest = new StringBuilder();
+
+        List<EmailOutboxMessage> pending = outboxRepository.findPendingForCoalescing(topic, email);
+        for (EmailOutboxMessage previous : pending) {
+            if (previous.getDigest() != null) {
+                digest.append(previous.getDigest()).append('\n');
+            }
+            if (previous.getNextAttemptAt().isBefore(dueAt)) {
+                dueAt = previous.getNextAttemptAt();
+            }
+            previous.setStatus(EmailOutboxStatus.SUPERSEDED);
+            coalescedCounter.increment();
+        }
+        if (!pending.isEmpty()) {
+            outboxRepository.saveAll(pending);
+            body = withDigest(body, html, digest.toString().strip());
+            log.info("Coalesced {} pending notifications for {}", pending.size(), topic);
+        }
+        digest.append(now.format(DIGEST_TIME)).append(" - ").append(summary);
+
+        EmailOutboxMessage message = new EmailOutboxMessage(email, subject, body, html);
+        message.setCoalesceKey(topic);
+        message.setDigest(tail(digest.toString()));
+        message.setNextAttemptAt(dueAt);
+        emailOutbox.enqueue(message);
+        return true;
+    }
+
+    /**
+     * Append the earlier updates to the latest email: before the closing body tag for HTML,
+     * at the end for plain text.
+     */
+    private static String withDigest(String body, boolean html, String digest) {
+        if (!html) {
+            return body + "\n\nCác cập nhật trước đó:\n" + digest.lines()
+                    .map(line -> "- " + line)
+                    .reduce((a, b) -> a + "\n" + b)
+                    .orElse("");
+        }
+        StringBuilder section = new StringBuilder()
+                .append("<div style=\"max-width:600px;margin:20px auto;padding:15px 20px;background:#f8f9fa;")
+                .append("border-radius:8px;font-family:Arial,sans-serif;color:#555\">")
+                .append("<h3 style=\"margin:0 0 10px 0;font-size:16px\">Các cập nhật trước đó</h3><ul>");
+        digest.lines().forEach(line -> section.append("<li>").append(HtmlUtils.htmlEscape(line, "UTF-8")).append("</li>"));
+        section.append("</ul></div>");
+        int end = body.lastIndexOf("</body>");
+        return end < 0 ? body + section : body.substring(0, end) + section + body.substring(end);
+    }
+
+    private static String tail(String digest) {
+        return digest.length() <= MAX_DIGEST_LENGTH ? digest : digest.substring(digest.length() - MAX_DIGEST_LENGTH);
+    }
+}
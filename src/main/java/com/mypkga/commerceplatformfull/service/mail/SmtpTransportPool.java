@@ -0,0 +1,136 @@
+package com.mypkga.commerceplatformfull.service.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Small pool of connected, authenticated SMTP transports.
+ * A dispatcher worker borrows one transport and sends its whole slice over it, so the
+ * TCP, STARTTLS and AUTH handshakes are paid once per connection instead of per message.
+ * Connections idle for longer than {@code smtp-idle-timeout} are closed before the
+ * server drops them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SmtpTransportPool {
+
+    private final JavaMailSenderImpl mailSender;
+
+    @Getter
+    @Value("${app.email.outbox.smtp-pool-size:2}")
+    private int poolSize;
+
+    @Value("${app.email.outbox.smtp-idle-timeout:60s}")
+    private Duration idleTimeout;
+
+    private final BlockingQueue<PooledTransport> idle = new LinkedBlockingQueue<>();
+
+    /**
+     * An idle connection that is still open, or a freshly connected one.
+     */
+    public PooledTransport borrow() throws MessagingException {
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            if (!pooled.idleLongerThan(idleTimeout) && pooled.transport.isConnected()) {
+                return pooled;
+            }
+            pooled.close();
+        }
+        Transport transport = newTransport();
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                mailSender.getUsername(), mailSender.getPassword());
+        log.debug("Opened SMTP connection to {}", mailSender.getHost());
+        return new PooledTransport(transport);
+    }
+
+    /**
+     * Unconnected transport for the sender's protocol, resolved the way JavaMailSenderImpl does:
+     * its protocol when set, else the session's mail.transport.protocol, else plain SMTP.
+     */
+    private Transport newTransport() throws MessagingException {
+        Session session = mailSender.getSession();
+        String protocol = mailSender.getProtocol();
+        if (protocol == null) {
+            protocol = session.getProperty("mail.transport.protocol");
+        }
+        return session.getTransport(protocol != null ? protocol : JavaMailSenderImpl.DEFAULT_PROTOCOL);
+    }
+
+    /**
+     * Give a healthy connection back for reuse.
+     */
+    public void release(PooledTransport pooled) {
+        pooled.lastUsedNanos = System.nanoTime();
+        if (idle.size() >= poolSize || !idle.offer(pooled)) {
+            pooled.close();
+        }
+    }
+
+    /**
+     * Drop a connection after a transport-level failure.
+     */
+    public void discard(PooledTransport pooled) {
+        pooled.close();
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.smtp-idle-check-ms:30000}")
+    public void closeIdle() {
+        Iterator<PooledTransport> it = idle.iterator();
+        while (it.hasNext()) {
+            PooledTransport pooled = it.next();
+            if (pooled.idleLongerThan(idleTimeout)) {
+                it.remove();
+                pooled.close();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            pooled.close();
+        }
+    }
+
+    /**
+     * Connected transport and when it was last used
+     */
+    public static final class PooledTransport {
+
+        @Getter
+        private final Transport transport;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        boolean idleLongerThan(Duration timeout) {
+            return System.nanoTime() - lastUsedNanos > timeout.toNanos();
+        }
+
+        void close() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Error closing SMTP connection: {}", e.getMessage());
+            }
+        }
+    }
+}
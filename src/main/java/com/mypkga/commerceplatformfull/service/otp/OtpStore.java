@@ -0,0 +1,345 @@
+package com.mypkga.commerceplatformfull.service.otp;
+
+import com.mypkga.commerceplatformfull.entity.OTPVerification;
+import com.mypkga.commerceplatformfull.repository.OTPRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-memory OTP state per email: the current code as an HMAC-SHA256 of email and code,
+ * its expiry and attempt counter, recent request times for rate limiting and a block
+ * deadline. Verification is a constant-time MAC compare instead of a BCrypt match.
+ * Changes are written behind to {@code otp_verifications} for audit only; the table is
+ * never read on the request path.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OtpStore {
+
+    private final OTPRepository otpRepository;
+
+    @Value("${app.otp.hmac-secret:}")
+    private String hmacSecret;
+
+    @Value("${app.otp.max-requests-per-period:3}")
+    private int maxRequestsPerPeriod;
+
+    @Value("${app.otp.audit-retention-days:7}")
+    private int auditRetentionDays;
+
+    private final Map<String, OtpState> states = new ConcurrentHashMap<>();
+    private final Queue<OtpState> pendingAudit = new ConcurrentLinkedQueue<>();
+    private final Queue<OTPVerification> retiredAudit = new ConcurrentLinkedQueue<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private SecretKeySpec key;
+    private ThreadLocal<Mac> macs;
+
+    @PostConstruct
+    void init() {
+        byte[] secret;
+        if (hmacSecret != null && !hmacSecret.isBlank()) {
+            secret = Base64.getDecoder().decode(hmacSecret.trim());
+        } else {
+            // Codes live only in this process, so a per-boot key is enough
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        }
+        key = new SecretKeySpec(secret, "HmacSHA256");
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flushAudit();
+    }
+
+    /**
+     * Store a freshly issued code, replacing any previous one, and count the request.
+     */
+    public void issue(String email, String code, long expiresAtMillis) {
+        byte[] mac = mac(email, code);
+        long now = System.currentTimeMillis();
+        while (true) {
+            OtpState state = states.computeIfAbsent(email, OtpState::new);
+            synchronized (state) {
+                if (state.removed) {
+                    // Lost a race with the sweeper; take the fresh state
+                    continue;
+                }
+                if (state.auditDirty) {
+                    // Keep the final state of the replaced code for the audit trail
+                    retiredAudit.add(state.toAuditRecord(zone));
+                }
+                state.generation++;
+                state.codeMac = mac;
+                state.auditCode = HexFormat.of().formatHex(mac);
+                state.issuedAt = now;
+                state.expiresAt = expiresAtMillis;
+                state.attempts = 0;
+                state.verified = false;
+                state.auditId = null;
+                state.recordRequest(now, maxRequestsPerPeriod);
+                markDirty(state);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Check a submitted code against the active one.
+     *
+     * @param maxAttempts attempts allowed per code; reaching it blocks the email
+     * @param blockMillis how long the email stays blocked
+     */
+    public boolean verify(String email, String code, int maxAttempts, long blockMillis) {
+        OtpState state = states.get(email);
+        if (state == null) {
+            return false;
+        }
+        byte[] submitted = mac(email, code);
+        long now = System.currentTimeMillis();
+        synchronized (state) {
+            if (state.removed || state.codeMac == null || state.verified || now >= state.expiresAt
+                    || state.attempts >= maxAttempts) {
+                return false;
+            }
+            state.attempts++;
+            boolean valid = MessageDigest.isEqual(state.codeMac, submitted);
+            if (valid) {
+                state.verified = true;
+            } else if (state.attempts >= maxAttempts) {
+                state.blockedUntil = now + blockMillis;
+            }
+            markDirty(state);
+            return valid;
+        }
+    }
+
+    /**
+     * Drop the active code; rate limit and block counters are kept.
+     */
+    public void invalidate(String email) {
+        OtpState state = states.get(email);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state.codeMac = null;
+            state.expiresAt = 0L;
+        }
+    }
+
+    /**
+     * Snapshot of an email's OTP state, or null if there is none.
+     */
+    public OtpStatus status(String email, long rateWindowMillis) {
+        OtpState state = states.get(email);
+        if (state == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (state) {
+            boolean active = state.codeMac != null && !state.verified && now < state.expiresAt;
+            return new OtpStatus(active, state.attempts, state.verified, state.issuedAt, state.expiresAt,
+                    state.blockedUntil, state.requestsSince(now - rateWindowMillis),
+                    state.oldestRequestSince(now - rateWindowMillis));
+        }
+    }
+
+    /**
+     * Remove states with nothing left to enforce: code expired or used, no block,
+     * no request inside the rate limit window.
+     *
+     * @return number of emails removed from memory
+     */
+    public int sweep(long rateWindowMillis) {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (OtpState state : states.values()) {
+            synchronized (state) {
+                boolean codeDone = state.codeMac == null || state.verified || now >= state.expiresAt;
+                if (codeDone && now >= state.blockedUntil && state.requestsSince(now - rateWindowMillis) == 0
+                        && !state.auditQueued && states.remove(state.email, state)) {
+                    state.removed = true;
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Write queued OTP changes to the audit table in one batch.
+     */
+    @Scheduled(fixedDelayString = "${app.otp.audit-flush-ms:2000}")
+    public void flushAudit() {
+        List<OTPVerification> records = new ArrayList<>();
+        OTPVerification retired;
+        while ((retired = retiredAudit.poll()) != null) {
+            records.add(retired);
+        }
+
+        List<OtpState> flushed = new ArrayList<>();
+        List<Long> generations = new ArrayList<>();
+        OtpState state;
+        while ((state = pendingAudit.poll()) != null) {
+            synchronized (state) {
+                state.auditQueued = false;
+                if (!state.auditDirty) {
+                    continue;
+                }
+                state.auditDirty = false;
+                records.add(state.toAuditRecord(zone));
+                flushed.add(state);
+                generations.add(state.generation);
+            }
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<OTPVerification> saved = otpRepository.saveAll(records);
+            // Remember row ids so later attempts update the same audit row
+            int offset = saved.size() - flushed.size();
+            for (int i = 0; i < flushed.size(); i++) {
+                OtpState target = flushed.get(i);
+                synchronized (target) {
+                    if (target.generation == generations.get(i)) {
+                        target.auditId = saved.get(offset + i).getId();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Audit only; the in-memory state stays authoritative
+            log.warn("Failed to write {} OTP audit records: {}", records.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Delete audit rows past their retention.
+     */
+    public void purgeAudit() {
+        otpRepository.deleteExpiredOTPs(LocalDateTime.now().minusDays(auditRetentionDays));
+    }
+
+    private void markDirty(OtpState state) {
+        state.auditDirty = true;
+        if (!state.auditQueued) {
+            state.auditQueued = true;
+            pendingAudit.add(state);
+        }
+    }
+
+    private byte[] mac(String email, String code) {
+        Mac mac = macs.get();
+        mac.update(email.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return mac.doFinal(code.trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read-only view of an email's OTP state
+     */
+    public record OtpStatus(boolean active, int attempts, boolean verified, long issuedAt, long expiresAt,
+                            long blockedUntil, int recentRequests, long oldestRecentRequest) {
+    }
+
+    private static final class OtpState {
+
+        private final String email;
+        private final ArrayDeque<Long> requestTimes = new ArrayDeque<>();
+
+        private boolean removed;
+        private long generation;
+        private byte[] codeMac;
+        private String auditCode;
+        private long issuedAt;
+        private long expiresAt;
+        private int attempts;
+        private boolean verified;
+        private long blockedUntil;
+
+        private Long auditId;
+        private boolean auditDirty;
+        private boolean auditQueued;
+
+        OtpState(String email) {
+            this.email = email;
+        }
+
+        void recordRequest(long now, int keep) {
+            requestTimes.addLast(now);
+            while (requestTimes.size() > Math.max(keep, 1)) {
+                requestTimes.removeFirst();
+            }
+        }
+
+        int requestsSince(long since) {
+            int count = 0;
+            for (Long time : requestTimes) {
+                if (time > since) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        long oldestRequestSince(long since) {
+            for (Long time : requestTimes) {
+                if (time > since) {
+                    return time;
+                }
+            }
+            return 0L;
+        }
+
+        OTPVerification toAuditRecord(ZoneId zone) {
+            OTPVerification record = new OTPVerification(email, auditCode,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), zone));
+            record.setId(auditId);
+            record.setCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(issuedAt), zone));
+            record.setAttempts(attempts);
+            record.setVerified(verified);
+            return record;
+        }
+    }
+}
@@ -8,13 +8,45 @@ class OrderSyncManager {
         this.lastKnownStatus = null;
         this.lastKnownTimestamp = null;
         this.syncInterval = null;
+        this.eventSource = null;
         this.conflictResolver = new ConflictResolver();
     }
 
     /**
-     * Start periodic synchronization
+     * Start synchronization: server push when the browser supports it, polling otherwise
      */
     startSync(intervalMs = 30000) { // Default 30 seconds
+        if (window.EventSource) {
+            this.startStream(intervalMs);
+            return;
+        }
+        this.startPolling(intervalMs);
+    }
+
+    /**
+     * Subscribe to pushed status updates (Server-Sent Events)
+     */
+    startStream(fallbackIntervalMs) {
+        this.eventSource = new EventSource(`/api/sync/order/${this.orderId}/stream`);
+
+        this.eventSource.addEventListener('status', (event) => {
+            this.handleStatusUpdate(JSON.parse(event.data));
+        });
+
+        this.eventSource.onerror = () => {
+            // EventSource reconnects on its own; fall back to polling only if the server refused us
+            if (this.eventSource && this.eventSource.readyState === EventSource.CLOSED) {
+                console.warn('Status stream closed, falling back to polling');
+                this.eventSource = null;
+                this.startPolling(fallbackIntervalMs);
+            }
+        };
+    }
+
+    /**
+     * Start periodic polling
+     */
+    startPolling(intervalMs) {
         this.syncInterval = setInterval(() => {
             this.syncOrderStatus();
         }, intervalMs);
@@ -27,6 +59,10 @@ class OrderSyncManager {
      * Stop synchronization
      */
     stopSync() {
+        if (this.eventSource) {
+            this.eventSource.close();
+            this.eventSource = null;
+        }
         if (this.syncInterval) {
             clearInterval(this.syncInterval);
             this.syncInterval = null;
@@ -56,8 +92,9 @@ class OrderSyncManager {
      */
     handleStatusUpdate(data) {
         const serverStatus = data.status;
-        const serverTimestamp = new Date(data.lastUpdated);
-        const isConsistent = data.isConsistent;
+        const serverTimestamp = data.lastUpdated ? new Date(data.lastUpdated) : new Date(data.timestamp);
+        // Pushed events come from the write path itself, so they carry no consistency flag
+        const isConsistent = data.isConsistent !== false;
 
         // Check if status changed
         if (this.lastKnownStatus && this.lastKnownStatus !== serverStatus) {
@@ -119,14 +156,14 @@ class OrderSyncManager {
         // Update timestamp display
         const timestampElements = document.querySelectorAll(`[data-order-timestamp="${this.orderId}"]`);
         timestampElements.forEach(element => {
-            element.textContent = new Date(data.lastUpdated).toLocaleString();
+            element.textContent = new Date(data.lastUpdated || data.timestamp).toLocaleString();
         });
 
         // Update consistency indicator
         const consistencyElements = document.querySelectorAll(`[data-order-consistency="${this.orderId}"]`);
         consistencyElements.forEach(element => {
-            element.classList.toggle('consistent', data.isConsistent);
-            element.classList.toggle('inconsistent', !data.isConsistent);
+            element.classList.toggle('consistent', data.isConsistent !== false);
+            element.classList.toggle('inconsistent', data.isConsistent === false);
         });
     }
 
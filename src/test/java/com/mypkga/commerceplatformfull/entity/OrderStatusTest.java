@@ -0,0 +1,28 @@
+package com.mypkga.commerceplatformfull.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatusTest {
+
+    @Test
+    void returnStatusesAreAheadOfDelivered() {
+        assertThat(OrderStatus.DELIVERED.canReach(OrderStatus.REFUND_REQUESTED)).isTrue();
+        assertThat(OrderStatus.DELIVERED.canReach(OrderStatus.RETURNING)).isTrue();
+        assertThat(OrderStatus.DELIVERED.canReach(OrderStatus.REFUNDED)).isTrue();
+    }
+
+    @Test
+    void earlierStatusesAreNotReachableFromLaterOnes() {
+        assertThat(OrderStatus.RETURN_RECEIVED.canReach(OrderStatus.RETURNING)).isFalse();
+        assertThat(OrderStatus.AWAITING_CONFIRMATION.canReach(OrderStatus.SHIPPING)).isFalse();
+        assertThat(OrderStatus.REFUNDED.canReach(OrderStatus.DELIVERED)).isFalse();
+    }
+
+    @Test
+    void rejectedReturnLeadsBackToDelivered() {
+        assertThat(OrderStatus.REFUND_REQUESTED.canReach(OrderStatus.DELIVERED)).isTrue();
+        assertThat(OrderStatus.CANCELLED.canReach(OrderStatus.CANCELLED)).isFalse();
+    }
+}
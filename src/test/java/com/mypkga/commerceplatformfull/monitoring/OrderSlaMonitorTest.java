@@ -0,0 +1,99 @@
+package com.mypkga.commerceplatformfull.monitoring;
+
+import com.mypkga.commerceplatformfull.config.OrderSlaConfig;
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import com.mypkga.commerceplatformfull.repository.OrderRepository;
+import com.mypkga.commerceplatformfull.repository.OrderTimelineRepository;
+import com.mypkga.commerceplatformfull.service.AuditLogService;
+import com.mypkga.commerceplatformfull.service.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderSlaMonitorTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderTimelineRepository orderTimelineRepository = mock(OrderTimelineRepository.class);
+    private final AuditLogService auditLogService = mock(AuditLogService.class);
+    private final OrderSlaConfig slaConfig = new OrderSlaConfig();
+
+    @Test
+    void ordersBreachedBeforeStartupAreListedButNotAlertedAgain() {
+        slaConfig.getThresholds().put(OrderStatus.PENDING, Duration.ofHours(24));
+        OrderSlaMonitor monitor = monitor(row(1L, OrderStatus.PENDING, LocalDateTime.now().minusDays(3)));
+
+        monitor.checkBreaches();
+
+        verify(auditLogService, never()).logSystemError(anyString(), anyLong(), anyString());
+        assertThat(monitor.breachedOrders(OrderStatus.PENDING)).extracting(order -> order.get("orderId"))
+                .containsExactly(1L);
+    }
+
+    @Test
+    void thresholdCrossedAfterStartupRaisesOneAlert() throws Exception {
+        slaConfig.getThresholds().put(OrderStatus.PENDING, Duration.ofMillis(50));
+        OrderSlaMonitor monitor = monitor();
+        monitor.onOrderStatusChanged(new OrderStatusChangedEvent(2L, 10L, OrderStatus.PENDING,
+                "customer@example.com", null, LocalDateTime.now()));
+
+        Thread.sleep(100);
+        monitor.checkBreaches();
+        monitor.checkBreaches();
+
+        verify(auditLogService).logSystemError(eq("ORDER_SLA_BREACH"), eq(2L), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deliveredOrdersAreNotWatched() {
+        slaConfig.getThresholds().put(OrderStatus.SHIPPING, Duration.ofDays(7));
+        OrderSlaMonitor monitor = monitor(row(3L, OrderStatus.SHIPPING, LocalDateTime.now().minusDays(2)));
+
+        monitor.onOrderStatusChanged(new OrderStatusChangedEvent(3L, 11L, OrderStatus.DELIVERED,
+                "SYSTEM", null, LocalDateTime.now()));
+
+        ArgumentCaptor<List<OrderStatus>> statuses = ArgumentCaptor.forClass(List.class);
+        verify(orderRepository, atLeastOnce()).findIdAndStatusAfterWithStatusIn(anyLong(), statuses.capture(), any(Pageable.class));
+        assertThat(statuses.getValue()).doesNotContain(OrderStatus.DELIVERED).contains(OrderStatus.SHIPPING);
+        Map<String, Object> summary = monitor.summary();
+        assertThat(summary).doesNotContainKey("DELIVERED");
+        assertThat(((Map<String, Object>) summary.get("SHIPPING")).get("active")).isEqualTo(0);
+        assertThat(((Map<String, Object>) summary.get("SHIPPING")).get("dwellCount")).isEqualTo(1L);
+    }
+
+    private OrderSlaMonitor monitor(Object[]... rows) {
+        List<Object[]> firstChunk = new ArrayList<>(List.of(rows));
+        when(orderRepository.findIdAndStatusAfterWithStatusIn(anyLong(), anyList(), any(Pageable.class)))
+                .thenReturn(firstChunk, List.of());
+        when(orderTimelineRepository.findLatestStatusByOrderIds(anyList())).thenReturn(List.of());
+
+        OrderSlaMonitor monitor = new OrderSlaMonitor(orderRepository, orderTimelineRepository, auditLogService,
+                slaConfig, new SimpleMeterRegistry());
+        monitor.registerMeters();
+        monitor.bootstrap();
+        return monitor;
+    }
+
+    private static Object[] row(Long orderId, OrderStatus status, LocalDateTime updatedAt) {
+        return new Object[]{orderId, status, updatedAt};
+    }
+}
@@ -0,0 +1,69 @@
+package com.mypkga.commerceplatformfull.security;
+
+import com.mypkga.commerceplatformfull.config.RateLimitConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientIpResolverTest {
+
+    @Test
+    void ignoresForwardedForWithoutTrustedProxies() {
+        ClientIpResolver resolver = resolver(List.of());
+        assertThat(resolver.resolve(request("203.0.113.7", "198.51.100.1"))).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void ignoresForwardedForFromUntrustedPeer() {
+        ClientIpResolver resolver = resolver(List.of("10.0.0.0/8"));
+        assertThat(resolver.resolve(request("203.0.113.7", "198.51.100.1"))).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void takesRightmostUntrustedHopFromTrustedProxy() {
+        ClientIpResolver resolver = resolver(List.of("10.0.0.0/8"));
+        // Client forged the first entry; the proxies appended the real address and themselves
+        String header = "6.6.6.6, 198.51.100.1, 10.0.0.5";
+        assertThat(resolver.resolve(request("10.0.0.1", header))).isEqualTo("198.51.100.1");
+    }
+
+    @Test
+    void fallsBackToPeerOnMalformedHop() {
+        ClientIpResolver resolver = resolver(List.of("10.0.0.1"));
+        assertThat(resolver.resolve(request("10.0.0.1", "198.51.100.1, evil.example"))).isEqualTo("10.0.0.1");
+        assertThat(resolver.resolve(request("10.0.0.1", ""))).isEqualTo("10.0.0.1");
+        assertThat(resolver.resolve(request("10.0.0.1", null))).isEqualTo("10.0.0.1");
+    }
+
+    @Test
+    void acceptsIpv6Hops() {
+        ClientIpResolver resolver = resolver(List.of("10.0.0.1"));
+        assertThat(resolver.resolve(request("10.0.0.1", "2001:db8::1"))).isEqualTo("2001:db8::1");
+    }
+
+    @Test
+    void allTrustedChainResolvesToPeer() {
+        ClientIpResolver resolver = resolver(List.of("10.0.0.0/8"));
+        assertThat(resolver.resolve(request("10.0.0.1", "10.0.0.9, 10.0.0.5"))).isEqualTo("10.0.0.1");
+    }
+
+    private static ClientIpResolver resolver(List<String> trustedProxies) {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setTrustedProxies(trustedProxies);
+        ClientIpResolver resolver = new ClientIpResolver(config);
+        resolver.init();
+        return resolver;
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
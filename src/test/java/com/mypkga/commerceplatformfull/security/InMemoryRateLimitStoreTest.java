@@ -0,0 +1,79 @@
+package com.mypkga.commerceplatformfull.security;
+
+import com.mypkga.commerceplatformfull.config.RateLimitConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryRateLimitStoreTest {
+
+    private final InMemoryRateLimitStore store = new InMemoryRateLimitStore();
+
+    @Test
+    void leasesUpToBurstThenReportsRetryAfter() {
+        // 1 permit per second, burst 3
+        RateLimitStore.Lease first = store.lease("login:1.1.1.1", 2, 1000L, 2000L);
+        RateLimitStore.Lease second = store.lease("login:1.1.1.1", 2, 1000L, 2000L);
+        RateLimitStore.Lease third = store.lease("login:1.1.1.1", 2, 1000L, 2000L);
+
+        assertThat(first.granted()).isEqualTo(2);
+        assertThat(second.granted()).isEqualTo(1);
+        assertThat(third.granted()).isZero();
+        assertThat(third.retryAfterMillis()).isBetween(1L, 1000L);
+    }
+
+    @Test
+    void bucketsAreSeparatePerKey() {
+        store.lease("login:1.1.1.1", 1, 60_000L, 0L);
+
+        assertThat(store.lease("login:1.1.1.1", 1, 60_000L, 0L).granted()).isZero();
+        assertThat(store.lease("login:2.2.2.2", 1, 60_000L, 0L).granted()).isEqualTo(1);
+        assertThat(store.lease("otp:1.1.1.1", 1, 60_000L, 0L).granted()).isEqualTo(1);
+    }
+
+    @Test
+    void takeGrantsLargestConformingBatch() {
+        // Empty bucket at t=0: burst of 3 permits 100 ms apart
+        assertThat(RateLimitStore.take(0L, 0L, 5, 100L, 200L)).containsExactly(3L, 300L);
+        // Arrival time 150 ms ahead leaves room for one more permit at 200 ms tolerance
+        assertThat(RateLimitStore.take(150L, 0L, 5, 100L, 200L)).containsExactly(1L, 250L);
+        // Arrival time beyond the tolerance: nothing, retry once it falls back within it
+        assertThat(RateLimitStore.take(350L, 0L, 5, 100L, 200L)).containsExactly(0L, 150L);
+    }
+
+    @Test
+    void limitHoldsAcrossNodesSharingTheStore() {
+        RateLimiter nodeA = clusteredLimiter();
+        RateLimiter nodeB = clusteredLimiter();
+
+        int allowed = 0;
+        for (int i = 0; i < 6; i++) {
+            RateLimiter node = i % 2 == 0 ? nodeA : nodeB;
+            if (node.tryAcquire(node.resolve("POST", "/login"), "1.1.1.1") == 0L) {
+                allowed++;
+            }
+        }
+        assertThat(allowed).isEqualTo(2);
+    }
+
+    private RateLimiter clusteredLimiter() {
+        RateLimitConfig config = new RateLimitConfig();
+        RateLimitConfig.Policy login = new RateLimitConfig.Policy();
+        login.setPaths(List.of("/login"));
+        login.setMethods(List.of("POST"));
+        login.setPermitsPerMinute(6);
+        login.setBurst(2);
+        config.getPolicies().put("login", login);
+        config.getCluster().setEnabled(true);
+        config.getCluster().setStore("memory");
+        config.getCluster().setPolicies(List.of("login"));
+
+        RateLimiter limiter = new RateLimiter(config, new SimpleMeterRegistry(), Optional.of(store));
+        limiter.init();
+        return limiter;
+    }
+}
@@ -0,0 +1,71 @@
+package com.mypkga.commerceplatformfull.security;
+
+import com.mypkga.commerceplatformfull.config.RateLimitConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the rate limiter on the request path: policy lookup plus one bucket update,
+ * spread over {@code clients} client IPs, with eight request threads. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=RateLimiterBenchmark}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    public int clients;
+
+    private RateLimiter rateLimiter;
+    private String[] addresses;
+
+    @Setup
+    public void setUp() {
+        RateLimitConfig config = new RateLimitConfig();
+        for (String name : List.of("login", "register", "otp", "chatbot", "checkout")) {
+            RateLimitConfig.Policy policy = new RateLimitConfig.Policy();
+            policy.setPaths(List.of("/" + name, "/api/" + name + "/**"));
+            policy.setMethods(List.of("POST"));
+            config.getPolicies().put(name, policy);
+        }
+        rateLimiter = new RateLimiter(config, new SimpleMeterRegistry(), Optional.empty());
+        rateLimiter.init();
+        addresses = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            addresses[i] = "10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF);
+        }
+    }
+
+    @Benchmark
+    public long defaultRoute() {
+        String client = addresses[ThreadLocalRandom.current().nextInt(addresses.length)];
+        return rateLimiter.tryAcquire(rateLimiter.resolve("GET", "/products/42"), client);
+    }
+
+    @Benchmark
+    public long loginRoute() {
+        String client = addresses[ThreadLocalRandom.current().nextInt(addresses.length)];
+        return rateLimiter.tryAcquire(rateLimiter.resolve("POST", "/login"), client);
+    }
+}
@@ -0,0 +1,100 @@
+package com.mypkga.commerceplatformfull.security;
+
+import com.mypkga.commerceplatformfull.config.RateLimitConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setRequestsPerMinute(60);
+        config.setBurst(3);
+        config.getPolicies().put("login", policy(List.of("/login"), List.of("post"), 6, 2));
+        config.getPolicies().put("chatbot", policy(List.of("/api/chatbot/**"), List.of(), 600, 1));
+        rateLimiter = new RateLimiter(config, new SimpleMeterRegistry(), Optional.empty());
+        rateLimiter.init();
+    }
+
+    @Test
+    void resolvesFirstMatchingPolicyByMethodAndPath() {
+        assertThat(rateLimiter.resolve("POST", "/login").getName()).isEqualTo("login");
+        assertThat(rateLimiter.resolve("GET", "/login").getName()).isEqualTo(RateLimiter.DEFAULT_POLICY);
+        assertThat(rateLimiter.resolve("GET", "/api/chatbot").getName()).isEqualTo("chatbot");
+        assertThat(rateLimiter.resolve("POST", "/api/chatbot/message").getName()).isEqualTo("chatbot");
+        assertThat(rateLimiter.resolve("GET", "/api/chatbotx").getName()).isEqualTo(RateLimiter.DEFAULT_POLICY);
+    }
+
+    @Test
+    void allowsBurstThenRejectsWithWaitOfOneInterval() {
+        RateLimiter.Policy login = rateLimiter.resolve("POST", "/login");
+
+        assertThat(rateLimiter.tryAcquire(login, "1.1.1.1")).isZero();
+        assertThat(rateLimiter.tryAcquire(login, "1.1.1.1")).isZero();
+
+        // 6 per minute: the next permit is at most 10 s away
+        long wait = rateLimiter.tryAcquire(login, "1.1.1.1");
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    void clientsHaveSeparateBuckets() {
+        RateLimiter.Policy login = rateLimiter.resolve("POST", "/login");
+        rateLimiter.tryAcquire(login, "1.1.1.1");
+        rateLimiter.tryAcquire(login, "1.1.1.1");
+
+        assertThat(rateLimiter.tryAcquire(login, "1.1.1.1")).isPositive();
+        assertThat(rateLimiter.tryAcquire(login, "2.2.2.2")).isZero();
+    }
+
+    @Test
+    void policiesHaveSeparateBuckets() {
+        RateLimiter.Policy login = rateLimiter.resolve("POST", "/login");
+        rateLimiter.tryAcquire(login, "1.1.1.1");
+        rateLimiter.tryAcquire(login, "1.1.1.1");
+
+        assertThat(rateLimiter.tryAcquire(rateLimiter.getDefaultPolicy(), "1.1.1.1")).isZero();
+    }
+
+    @Test
+    void bucketRefillsAtPolicyRate() throws InterruptedException {
+        // 600 per minute with burst 1: one permit per 100 ms
+        RateLimiter.Policy chatbot = rateLimiter.resolve("GET", "/api/chatbot");
+        assertThat(rateLimiter.tryAcquire(chatbot, "1.1.1.1")).isZero();
+        assertThat(rateLimiter.tryAcquire(chatbot, "1.1.1.1")).isPositive();
+
+        Thread.sleep(150);
+        assertThat(rateLimiter.tryAcquire(chatbot, "1.1.1.1")).isZero();
+    }
+
+    @Test
+    void idleTimeDoesNotBankMoreThanBurst() throws InterruptedException {
+        RateLimiter.Policy chatbot = rateLimiter.resolve("GET", "/api/chatbot");
+        assertThat(rateLimiter.tryAcquire(chatbot, "3.3.3.3")).isZero();
+
+        // Three intervals idle still leave a single permit
+        Thread.sleep(350);
+        assertThat(rateLimiter.tryAcquire(chatbot, "3.3.3.3")).isZero();
+        assertThat(rateLimiter.tryAcquire(chatbot, "3.3.3.3")).isPositive();
+    }
+
+    private static RateLimitConfig.Policy policy(List<String> paths, List<String> methods,
+                                                 int permitsPerMinute, int burst) {
+        RateLimitConfig.Policy policy = new RateLimitConfig.Policy();
+        policy.setPaths(paths);
+        policy.setMethods(methods);
+        policy.setPermitsPerMinute(permitsPerMinute);
+        policy.setBurst(burst);
+        return policy;
+    }
+}
@@ -0,0 +1,93 @@
+package com.mypkga.commerceplatformfull.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ThreatScannerTest {
+
+    private final ThreatScanner scanner = ThreatScanner.getDefault();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Please select a color from the list",
+            "delete the item from my cart",
+            "update my address and set it default",
+            "vui lòng update địa chỉ giao hàng",
+            "Giao hàng nhanh, đóng gói cẩn thận, sẽ ủng hộ shop dài dài",
+            "I want to create a wishlist and alter my order later",
+            "selection from the menu",
+            ""
+    })
+    void ordinaryTextPasses(String input) {
+        assertThat(scanner.scan(input, ThreatScanner.ALL)).isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1 UNION SELECT password FROM users",
+            "x' union all select null--",
+            "1;DROP TABLE orders",
+            "select * from users",
+            "select email from users",
+            "delete from carts",
+            "update users set role='ADMIN'",
+            "insert into users values (1)",
+            "1 union/**/select 1",
+            "'; exec xp_cmdshell 'dir'",
+            "1; waitfor delay '0:0:5'"
+    })
+    void sqlStatementsAreCaught(String input) {
+        assertThat(scanner.scan(input, ThreatScanner.ALL)).isEqualTo(ThreatScanner.SQL);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<script>alert(1)</script>",
+            "<SCRIPT src=x>",
+            "<img src=x onerror=alert(1)>",
+            "<a href=\"javascript:alert(1)\">",
+            "đẹp lắm<iframe src=x>"
+    })
+    void scriptMarkersAreCaught(String input) {
+        assertThat(scanner.scan(input, ThreatScanner.ALL)).isEqualTo(ThreatScanner.XSS);
+    }
+
+    @Test
+    void partnerMustBeWithinTwoWords() {
+        assertThat(scanner.scan("union all select", ThreatScanner.SQL)).isEqualTo(ThreatScanner.SQL);
+        assertThat(scanner.scan("union of all the select", ThreatScanner.SQL)).isZero();
+    }
+
+    @Test
+    void keywordsOnlyMatchWholeTokens() {
+        assertThat(scanner.scan("unionselect", ThreatScanner.SQL)).isZero();
+        assertThat(scanner.scan("reunion selected", ThreatScanner.SQL)).isZero();
+    }
+
+    @Test
+    void disabledChecksAreSkipped() {
+        assertThat(scanner.scan("drop table orders", ThreatScanner.XSS)).isZero();
+        assertThat(scanner.scan("<script>", ThreatScanner.SQL)).isZero();
+        assertThat(scanner.scan("<script>", 0)).isZero();
+        assertThat(scanner.scan(null, ThreatScanner.ALL)).isZero();
+    }
+
+    @Test
+    void customKeywordsFollowTheirPartners() {
+        ThreatScanner custom = new ThreatScanner.Builder().sql("grant").sql("all", "grant").xss("<object").build();
+
+        assertThat(custom.scan("grant all", ThreatScanner.ALL)).isEqualTo(ThreatScanner.SQL);
+        assertThat(custom.scan("all grant", ThreatScanner.ALL)).isZero();
+        assertThat(custom.scan("<OBJECT data=x>", ThreatScanner.ALL)).isEqualTo(ThreatScanner.XSS);
+    }
+
+    @Test
+    void unknownPartnerIsRejected() {
+        assertThatThrownBy(() -> new ThreatScanner.Builder().sql("from", "select"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.mypkga.commerceplatformfull.dto.CartSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartSummaryCacheTest {
+
+    private final CartSummaryCache cache = new CartSummaryCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxUsers", 100L);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(30));
+        cache.init();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void missLoadsOnceThenServesFromCache() {
+        assertThat(cache.get("a@example.com", this::load).getItemCount()).isEqualTo(3);
+        assertThat(cache.get("a@example.com", this::load).getItemCount()).isEqualTo(3);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void summariesAreKeyedPerUser() {
+        cache.get("a@example.com", email -> new CartSummary(1, BigDecimal.ONE));
+        cache.get("b@example.com", email -> new CartSummary(2, BigDecimal.TEN));
+
+        assertThat(cache.get("a@example.com", this::load).getItemCount()).isEqualTo(1);
+        assertThat(cache.get("b@example.com", this::load).getItemCount()).isEqualTo(2);
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void evictionWaitsForCommit() {
+        cache.get("a@example.com", email -> CartSummary.EMPTY);
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit("a@example.com");
+        assertThat(cache.get("a@example.com", this::load).getItemCount()).isZero();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(cache.get("a@example.com", this::load).getItemCount()).isEqualTo(3);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void summaryLoadedBeforeTheCommitIsDropped() {
+        // Two mutations in flight: the second one's read fills the cache before the first commits
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit("a@example.com");
+        cache.get("a@example.com", email -> new CartSummary(1, BigDecimal.ONE));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(cache.get("a@example.com", this::load).getItemCount()).isEqualTo(3);
+    }
+
+    @Test
+    void rolledBackEvictionKeepsTheSummary() {
+        cache.get("a@example.com", email -> CartSummary.EMPTY);
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit("a@example.com");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(cache.get("a@example.com", this::load).getItemCount()).isZero();
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void evictForcesReload() {
+        cache.get("a@example.com", this::load);
+        cache.evict("a@example.com");
+        cache.get("a@example.com", this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    private CartSummary load(String email) {
+        loads.incrementAndGet();
+        return new CartSummary(3, new BigDecimal("150000"));
+    }
+}
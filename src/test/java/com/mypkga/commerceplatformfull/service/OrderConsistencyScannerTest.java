@@ -0,0 +1,98 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.mypkga.commerceplatformfull.entity.JobCheckpoint;
+import com.mypkga.commerceplatformfull.repository.JobCheckpointRepository;
+import com.mypkga.commerceplatformfull.repository.OrderRepository;
+import com.mypkga.commerceplatformfull.repository.OrderTimelineRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderConsistencyScannerTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final JobCheckpointRepository jobCheckpointRepository = mock(JobCheckpointRepository.class);
+    private final Map<String, JobCheckpoint> checkpoints = new HashMap<>();
+
+    private final OrderConsistencyScanner scanner = new OrderConsistencyScanner(orderRepository,
+            mock(OrderTimelineRepository.class), mock(OrderTimelineService.class), jobCheckpointRepository,
+            mock(AuditLogService.class), mock(TransactionTemplate.class), mock(ApplicationEventPublisher.class),
+            Runnable::run);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scanner, "chunkSize", 500);
+        ReflectionTestUtils.setField(scanner, "parallelism", 2);
+        ReflectionTestUtils.setField(scanner, "maxChunksPerSecond", 0d);
+        when(jobCheckpointRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(checkpoints.get(invocation.<String>getArgument(0))));
+        when(jobCheckpointRepository.save(any(JobCheckpoint.class))).thenAnswer(invocation -> {
+            JobCheckpoint checkpoint = invocation.getArgument(0);
+            checkpoints.put(checkpoint.getJobName(), checkpoint);
+            return checkpoint;
+        });
+        when(orderRepository.findIdAndStatusAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+    }
+
+    @Test
+    void reportPassLeavesAPausedRepairAlone() {
+        JobCheckpoint repair = pausedAt(OrderConsistencyScanner.JOB_NAME, 500L);
+
+        scanner.runScan(false);
+
+        verify(orderRepository).findIdAndStatusAfter(eq(0L), any(Pageable.class));
+        assertThat(repair.getInProgress()).isTrue();
+        assertThat(repair.getLastProcessedId()).isEqualTo(500L);
+        assertThat(repair.getCompletedAt()).isNull();
+        assertThat(checkpoints.get(OrderConsistencyScanner.REPORT_JOB_NAME).getCompletedAt()).isNotNull();
+        assertThat(savedJobNames()).containsOnly(OrderConsistencyScanner.REPORT_JOB_NAME);
+    }
+
+    @Test
+    void repairResumesItsOwnCheckpoint() {
+        pausedAt(OrderConsistencyScanner.REPORT_JOB_NAME, 900L);
+        JobCheckpoint repair = pausedAt(OrderConsistencyScanner.JOB_NAME, 500L);
+
+        scanner.runScan(true);
+
+        verify(orderRepository).findIdAndStatusAfter(eq(500L), any(Pageable.class));
+        verify(orderRepository, never()).findIdAndStatusAfter(eq(900L), any(Pageable.class));
+        assertThat(repair.getInProgress()).isFalse();
+        assertThat(checkpoints.get(OrderConsistencyScanner.REPORT_JOB_NAME).getInProgress()).isTrue();
+        assertThat(scanner.getCheckpoint()).isSameAs(repair);
+    }
+
+    private JobCheckpoint pausedAt(String jobName, long lastProcessedId) {
+        JobCheckpoint checkpoint = new JobCheckpoint(jobName);
+        checkpoint.startNewPass();
+        checkpoint.setLastProcessedId(lastProcessedId);
+        checkpoints.put(jobName, checkpoint);
+        return checkpoint;
+    }
+
+    private List<String> savedJobNames() {
+        ArgumentCaptor<JobCheckpoint> captor = ArgumentCaptor.forClass(JobCheckpoint.class);
+        verify(jobCheckpointRepository, atLeastOnce()).save(captor.capture());
+        return captor.getAllValues().stream().map(JobCheckpoint::getJobName).toList();
+    }
+}
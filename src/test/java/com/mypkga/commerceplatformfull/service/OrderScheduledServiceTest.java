@@ -0,0 +1,59 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.mypkga.commerceplatformfull.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderScheduledServiceTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderTimelineService orderTimelineService = mock(OrderTimelineService.class);
+
+    @Test
+    void failedPostponeDoesNotStopTheBatch() {
+        OrderScheduledService service = service();
+        when(orderRepository.findDueAutoConfirmOrderIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L, 3L));
+        when(orderTimelineService.autoConfirmDeliveryIfDue(1L)).thenThrow(new IllegalStateException("Lock timeout"));
+        when(orderRepository.postponeAutoConfirm(eq(1L), any())).thenThrow(new IllegalStateException("Deadlock"));
+
+        service.autoConfirmExpiredDeliveries();
+
+        verify(orderTimelineService).autoConfirmDeliveryIfDue(2L);
+        verify(orderTimelineService).autoConfirmDeliveryIfDue(3L);
+    }
+
+    @Test
+    void onlyFailedOrdersArePostponed() {
+        OrderScheduledService service = service();
+        when(orderRepository.findDueAutoConfirmOrderIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L));
+        when(orderTimelineService.autoConfirmDeliveryIfDue(1L)).thenThrow(new IllegalStateException("Lock timeout"));
+        when(orderTimelineService.autoConfirmDeliveryIfDue(2L)).thenReturn(true);
+
+        service.autoConfirmExpiredDeliveries();
+
+        verify(orderRepository).postponeAutoConfirm(eq(1L), any());
+        verify(orderRepository, never()).postponeAutoConfirm(eq(2L), any());
+    }
+
+    private OrderScheduledService service() {
+        OrderScheduledService service = new OrderScheduledService(orderRepository, orderTimelineService, Runnable::run);
+        ReflectionTestUtils.setField(service, "chunkSize", 200);
+        ReflectionTestUtils.setField(service, "batchSize", 25);
+        ReflectionTestUtils.setField(service, "maxChunksPerRun", 50);
+        ReflectionTestUtils.setField(service, "retryDelayMinutes", 5L);
+        return service;
+    }
+}
@@ -0,0 +1,93 @@
+package com.mypkga.commerceplatformfull.service;
+
+import com.mypkga.commerceplatformfull.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class OrderStatusStreamServiceTest {
+
+    private final OrderStatusStreamService service =
+            new OrderStatusStreamService(mock(OrderRepository.class), Runnable::run);
+
+    @Test
+    void slowSubscriberHoldsUpNeitherTheSchedulerNorOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stuck = new RecordingEmitter(release);
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        watch(1L, stuck);
+        watch(2L, healthy);
+
+        long started = System.nanoTime();
+        service.sendHeartbeats();
+        long elapsed = System.nanoTime() - started;
+
+        assertThat(healthy.sent.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(healthy.threadName).startsWith("order-stream-heartbeat-");
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(elapsed)).isZero();
+        release.countDown();
+        assertThat(stuck.sent.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void deadSubscriberIsDropped() throws Exception {
+        SseEmitter dead = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        watch(1L, dead);
+
+        service.sendHeartbeats();
+
+        for (int i = 0; i < 100 && service.getSubscriberCount() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(service.getSubscriberCount()).isZero();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void watch(Long orderId, SseEmitter emitter) {
+        Map<Long, Set<SseEmitter>> subscribers =
+                (Map<Long, Set<SseEmitter>>) ReflectionTestUtils.getField(service, "subscribers");
+        subscribers.computeIfAbsent(orderId, id -> new CopyOnWriteArraySet<>()).add(emitter);
+        ((AtomicInteger) ReflectionTestUtils.getField(service, "subscriberCount")).incrementAndGet();
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        final CountDownLatch sent = new CountDownLatch(1);
+        final CountDownLatch release;
+        volatile String threadName;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            threadName = Thread.currentThread().getName();
+            if (release != null) {
+                try {
+                    // A client that stopped reading: the write blocks
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sent.countDown();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.mypkga.commerceplatformfull.service.address;
+
+import com.mypkga.commerceplatformfull.dto.ghn.AddressSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.mypkga.commerceplatformfull.service.address.AddressSearchIndex.DISTRICT;
+import static com.mypkga.commerceplatformfull.service.address.AddressSearchIndex.PROVINCE;
+import static com.mypkga.commerceplatformfull.service.address.AddressSearchIndex.WARD;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AddressSearchIndexTest {
+
+    private static final AddressSearchIndex.Names HCM =
+            new AddressSearchIndex.Names("Hồ Chí Minh", List.of("TP.HCM", "Thành phố Hồ Chí Minh"));
+    private static final AddressSearchIndex.Names HA_NOI = new AddressSearchIndex.Names("Hà Nội", List.of());
+    private static final AddressSearchIndex.Names QUAN_1 = new AddressSearchIndex.Names("Quận 1", List.of("Q.1"));
+    private static final AddressSearchIndex.Names QUAN_3 = new AddressSearchIndex.Names("Quận 3", List.of("Q.3"));
+    private static final AddressSearchIndex.Names QUAN_10 = new AddressSearchIndex.Names("Quận 10", List.of("Q.10"));
+    private static final AddressSearchIndex.Names QUAN_12 = new AddressSearchIndex.Names("Quận 12", List.of("Q.12"));
+    private static final AddressSearchIndex.Names BA_DINH = new AddressSearchIndex.Names("Quận Ba Đình", List.of());
+
+    private final AddressSearchIndex index = new AddressSearchIndex(List.of(
+            province(202, HCM),
+            province(201, HA_NOI),
+            district(202, HCM, 1442, QUAN_1),
+            district(202, HCM, 1444, QUAN_3),
+            district(202, HCM, 1452, QUAN_10),
+            district(202, HCM, 1454, QUAN_12),
+            district(201, HA_NOI, 1484, BA_DINH),
+            ward(202, HCM, 1442, QUAN_1, "20112", "Phường 12"),
+            ward(202, HCM, 1444, QUAN_3, "20303", "Phường 3"),
+            ward(202, HCM, 1452, QUAN_10, "21003", "Phường 3"),
+            ward(201, HA_NOI, 1484, BA_DINH, "1A0101", "Phường Điện Biên")));
+
+    @Test
+    void foldDropsCaseAndDiacritics() {
+        assertThat(AddressSearchIndex.fold("Thành Phố Hồ Chí Minh")).isEqualTo("thanh pho ho chi minh");
+        assertThat(AddressSearchIndex.fold("Đà Nẵng")).isEqualTo("da nang");
+        assertThat(AddressSearchIndex.fold(null)).isEmpty();
+    }
+
+    @Test
+    void tokenizeSplitsLettersAndDigits() {
+        assertThat(AddressSearchIndex.tokenize("q.12 tp hcm")).containsExactly("q", "12", "tp", "hcm");
+        assertThat(AddressSearchIndex.tokenize("phuong01")).containsExactly("phuong", "1");
+        assertThat(AddressSearchIndex.tokenize("  -- ")).isEmpty();
+    }
+
+    @Test
+    void tokenizeKeepsRepeatedNumbers() {
+        assertThat(AddressSearchIndex.tokenize("phuong 3 quan 3")).containsExactly("phuong", "3", "quan", "3");
+    }
+
+    @Test
+    void repeatedNumberKeepsTheDistrict() {
+        List<AddressSuggestion> result = index.search("phuong 3 quan 3", 5);
+
+        assertThat(result).extracting(AddressSuggestion::getWardCode).containsExactly("20303");
+        assertThat(result.get(0).getDistrictName()).isEqualTo("Quận 3");
+    }
+
+    @Test
+    void abbreviatedQueryFindsNumberedDistrict() {
+        List<AddressSuggestion> result = index.search("Q.12 TP HCM", 5);
+
+        assertThat(result).isNotEmpty();
+        assertThat(result.get(0).getLevel()).isEqualTo("DISTRICT");
+        assertThat(result.get(0).getDistrictId()).isEqualTo(1454);
+        // "q12" must not match ward 12 of Quan 1
+        assertThat(result).extracting(AddressSuggestion::getWardCode).doesNotContain("20112");
+    }
+
+    @Test
+    void nicknamesAndInitialsFindTheProvince() {
+        assertThat(index.search("sai gon", 1)).extracting(AddressSuggestion::getProvinceId).containsExactly(202);
+        assertThat(index.search("hcm", 1)).extracting(AddressSuggestion::getLevel).containsExactly("PROVINCE");
+        assertThat(index.search("ha noi", 1)).extracting(AddressSuggestion::getProvinceId).containsExactly(201);
+    }
+
+    @Test
+    void prefixesMatchAndParentsNarrow() {
+        List<AddressSuggestion> result = index.search("dien bi ba dinh", 5);
+
+        assertThat(result).extracting(AddressSuggestion::getLabel)
+                .containsExactly("Phường Điện Biên, Quận Ba Đình, Hà Nội");
+    }
+
+    @Test
+    void unknownTermsAndLimitsAreRespected() {
+        assertThat(index.search("da lat", 5)).isEmpty();
+        assertThat(index.search("", 5)).isEmpty();
+        assertThat(index.search("quan", 2)).hasSize(2);
+        assertThat(AddressSearchIndex.EMPTY.search("quan", 5)).isEmpty();
+    }
+
+    private static AddressSearchIndex.Unit province(int id, AddressSearchIndex.Names names) {
+        return new AddressSearchIndex.Unit(PROVINCE, id, names, null, null, null, null);
+    }
+
+    private static AddressSearchIndex.Unit district(int provinceId, AddressSearchIndex.Names province,
+                                                    int id, AddressSearchIndex.Names names) {
+        return new AddressSearchIndex.Unit(DISTRICT, provinceId, province, id, names, null, null);
+    }
+
+    private static AddressSearchIndex.Unit ward(int provinceId, AddressSearchIndex.Names province, int districtId,
+                                                AddressSearchIndex.Names district, String code, String name) {
+        return new AddressSearchIndex.Unit(WARD, provinceId, province, districtId, district, code,
+                new AddressSearchIndex.Names(name, List.of()));
+    }
+}
@@ -0,0 +1,140 @@
+package com.mypkga.commerceplatformfull.service.address;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.mypkga.commerceplatformfull.service.address.AddressSnapshotTest.district;
+import static com.mypkga.commerceplatformfull.service.address.AddressSnapshotTest.province;
+import static com.mypkga.commerceplatformfull.service.address.AddressSnapshotTest.ward;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AddressSnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final GhnMasterDataClient client = mock(GhnMasterDataClient.class);
+
+    @Test
+    void crawlIsPersistedAndLoadedOnRestart() {
+        answerGhn("Quận 1");
+        AddressSnapshotStore store = store();
+
+        store.refresh();
+
+        assertThat(Files.isRegularFile(file())).isTrue();
+        assertThat(store.getLastRefresh()).containsEntry("outcome", "changed");
+
+        AddressSnapshotStore restarted = store();
+        assertThat(restarted.current().districts(202)).extracting("districtName").containsExactly("Quận 1");
+        assertThat(restarted.current().wards(1442)).extracting("wardCode").containsExactly("20101");
+        assertThat(restarted.isRefreshing()).isFalse();
+    }
+
+    @Test
+    void unchangedCrawlOnlyTouchesTheFile() throws Exception {
+        answerGhn("Quận 1");
+        AddressSnapshotStore store = store();
+        store.refresh();
+        byte[] written = Files.readAllBytes(file());
+        Files.setLastModifiedTime(file(), FileTime.fromMillis(1_000L));
+
+        store.refresh();
+
+        assertThat(store.getLastRefresh()).containsEntry("outcome", "unchanged");
+        assertThat(Files.readAllBytes(file())).isEqualTo(written);
+        assertThat(Files.getLastModifiedTime(file()).toMillis()).isGreaterThan(1_000L);
+    }
+
+    @Test
+    void changedCrawlRewritesTheFile() {
+        answerGhn("Quận 1");
+        AddressSnapshotStore store = store();
+        store.refresh();
+
+        answerGhn("Quận Một");
+        store.refresh();
+
+        assertThat(store.getLastRefresh()).containsEntry("outcome", "changed").containsEntry("changed", 1);
+        assertThat(store().current().districts(202)).extracting("districtName").containsExactly("Quận Một");
+    }
+
+    @Test
+    void failedFetchKeepsPreviousChildren() {
+        answerGhn("Quận 1");
+        AddressSnapshotStore store = store();
+        store.refresh();
+
+        when(client.fetchWards(1442)).thenThrow(new IllegalStateException("GHN down"));
+        store.refresh();
+
+        assertThat(store.current().wards(1442)).extracting("wardCode").containsExactly("20101");
+        assertThat(store.getLastRefresh()).containsEntry("failedFetches", 1);
+    }
+
+    @Test
+    void unreadableFileStartsEmpty() throws Exception {
+        Files.writeString(file(), "not gzip");
+
+        assertThat(store().current().isEmpty()).isTrue();
+    }
+
+    @Test
+    void scheduledCheckCrawlsOffTheCallingThread() throws Exception {
+        answerGhn("Quận 1");
+        AddressSnapshotStore store = store();
+        store.refresh();
+        ReflectionTestUtils.setField(store, "maxAge", Duration.ZERO);
+        ReflectionTestUtils.setField(store, "retryAfter", Duration.ZERO);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch crawling = new CountDownLatch(1);
+        when(client.fetchProvinces()).thenAnswer(invocation -> {
+            crawling.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(province(202, "Hồ Chí Minh"));
+        });
+
+        Thread.sleep(5);
+        store.refreshIfStale();
+
+        assertThat(crawling.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(store.isRefreshing()).isTrue();
+        release.countDown();
+    }
+
+    private void answerGhn(String districtName) {
+        when(client.fetchProvinces()).thenReturn(List.of(province(202, "Hồ Chí Minh")));
+        when(client.fetchDistricts(202)).thenReturn(List.of(district(1442, 202, districtName)));
+        when(client.fetchWards(1442)).thenReturn(List.of(ward("20101", 1442, "Phường Bến Nghé")));
+    }
+
+    private AddressSnapshotStore store() {
+        AddressSnapshotStore store = new AddressSnapshotStore(client, new ObjectMapper(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "file", file().toString());
+        ReflectionTestUtils.setField(store, "maxAge", Duration.ofHours(24));
+        ReflectionTestUtils.setField(store, "retryAfter", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(store, "parallelism", 2);
+        // Tests crawl explicitly; skip the start-up crawl of an empty store
+        ReflectionTestUtils.setField(store, "lastAttemptAt", System.currentTimeMillis());
+        store.init();
+        return store;
+    }
+
+    private Path file() {
+        return dir.resolve("snapshot.json.gz");
+    }
+}
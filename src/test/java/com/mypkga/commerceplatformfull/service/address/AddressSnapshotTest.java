@@ -0,0 +1,93 @@
+package com.mypkga.commerceplatformfull.service.address;
+
+import com.mypkga.commerceplatformfull.dto.ghn.GHNDistrictResponse.DistrictData;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNProvinceResponse.ProvinceData;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWardResponse.WardData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AddressSnapshotTest {
+
+    @Test
+    void identicalTreesHaveNoDiff() {
+        assertThat(tree("Quận 1").diff(tree("Quận 1")).isEmpty()).isTrue();
+    }
+
+    @Test
+    void renamedDistrictIsChanged() {
+        AddressSnapshot.Diff diff = tree("Quận 1").diff(tree("Quận Một"));
+
+        assertThat(diff).isEqualTo(new AddressSnapshot.Diff(0, 0, 1));
+    }
+
+    @Test
+    void addedAndRemovedEntriesAreCounted() {
+        AddressSnapshot before = tree("Quận 1");
+        AddressSnapshot after = new AddressSnapshot(2L, 2L, List.of(province(202, "Hồ Chí Minh")),
+                Map.of(202, List.of(district(1442, 202, "Quận 1"), district(1443, 202, "Quận 2"))),
+                Map.of(1442, List.of(ward("20101", 1442, "Phường Bến Nghé"))));
+
+        // Quận 2 is new; ward 20102 is gone
+        assertThat(before.diff(after)).isEqualTo(new AddressSnapshot.Diff(1, 1, 0));
+    }
+
+    @Test
+    void knownEmptyParentDiffersFromUnknownOne() {
+        AddressSnapshot unknown = new AddressSnapshot(1L, 1L, List.of(province(202, "Hồ Chí Minh")), Map.of(), Map.of());
+        AddressSnapshot empty = new AddressSnapshot(1L, 1L, List.of(province(202, "Hồ Chí Minh")),
+                Map.of(202, List.of()), Map.of());
+
+        assertThat(unknown.districts(202)).isNull();
+        assertThat(empty.districts(202)).isEmpty();
+        assertThat(unknown.diff(empty)).isEqualTo(new AddressSnapshot.Diff(1, 0, 0));
+    }
+
+    @Test
+    void storedFormRoundTrips() {
+        AddressSnapshot original = new AddressSnapshot(5L, 9L, List.of(province(202, "Hồ Chí Minh")),
+                Map.of(202, List.of(district(1442, 202, "Quận 1"), district(1443, 202, "Quận 2"))),
+                Map.of(1442, List.of(ward("20101", 1442, "Phường Bến Nghé")), 1443, List.of()));
+
+        AddressSnapshot restored = AddressSnapshot.fromStored(original.toStored(), 42L);
+
+        assertThat(original.diff(restored).isEmpty()).isTrue();
+        assertThat(restored.changedAt()).isEqualTo(5L);
+        assertThat(restored.verifiedAt()).isEqualTo(42L);
+        assertThat(restored.wards(1443)).isEmpty();
+        assertThat(restored.districtCount()).isEqualTo(2);
+        assertThat(restored.wardCount()).isEqualTo(1);
+    }
+
+    static AddressSnapshot tree(String districtName) {
+        return new AddressSnapshot(1L, 1L, List.of(province(202, "Hồ Chí Minh")),
+                Map.of(202, List.of(district(1442, 202, districtName))),
+                Map.of(1442, List.of(ward("20101", 1442, "Phường Bến Nghé"), ward("20102", 1442, "Phường Bến Thành"))));
+    }
+
+    static ProvinceData province(int id, String name) {
+        ProvinceData province = new ProvinceData();
+        province.setProvinceID(id);
+        province.setProvinceName(name);
+        return province;
+    }
+
+    static DistrictData district(int id, int provinceId, String name) {
+        DistrictData district = new DistrictData();
+        district.setDistrictID(id);
+        district.setProvinceID(provinceId);
+        district.setDistrictName(name);
+        return district;
+    }
+
+    static WardData ward(String code, int districtId, String name) {
+        WardData ward = new WardData();
+        ward.setWardCode(code);
+        ward.setDistrictID(districtId);
+        ward.setWardName(name);
+        return ward;
+    }
+}
@@ -0,0 +1,83 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mypkga.commerceplatformfull.config.AuditLogConfig;
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Publish latency of the audit journal as seen by request threads, with p50/p99/p99.9
+ * from JMH's sample-time mode. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=AuditJournalBenchmark}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AuditJournalBenchmark {
+
+    @Param({"BLOCK", "DROP"})
+    public AuditLogConfig.Backpressure backpressure;
+
+    private Path directory;
+    private AuditSegmentStore store;
+    private AuditJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("audit-bench");
+        AuditLogConfig config = new AuditLogConfig();
+        config.setDirectory(directory.toString());
+        config.setBackpressure(backpressure);
+        config.setLatencySampleEvery(0);
+        store = new AuditSegmentStore(config, new ObjectMapper());
+        store.open();
+        journal = new AuditJournal(config, store, new SimpleMeterRegistry());
+        journal.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.stop();
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void publishStatusChange() {
+        AuditEvent event = journal.claim(AuditEventType.ORDER_STATUS_CHANGE);
+        if (event != null) {
+            journal.publish(event.orderId(42L)
+                    .fromStatus(OrderStatus.SHIPPING)
+                    .toStatus(OrderStatus.AWAITING_CONFIRMATION)
+                    .actor("staff@example.com")
+                    .detail("Benchmark status change"));
+        }
+    }
+}
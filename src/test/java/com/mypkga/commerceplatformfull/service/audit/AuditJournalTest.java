@@ -0,0 +1,89 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import com.mypkga.commerceplatformfull.config.AuditLogConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class AuditJournalTest {
+
+    private final AuditSegmentStore store = mock(AuditSegmentStore.class);
+    private final AuditLogConfig config = new AuditLogConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AuditJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void consumerSurvivesAWriteThatThrows() throws Exception {
+        doThrow(new IllegalStateException("Segment closed")).doNothing().when(store).append(any());
+        journal = start();
+
+        publish(1L);
+        verify(store, timeout(5000)).append(any());
+        publish(2L);
+
+        verify(store, timeout(5000).times(2)).append(any());
+        assertThat(meterRegistry.counter("audit.write.errors").count()).isEqualTo(1d);
+    }
+
+    @Test
+    void blockedPublisherDropsOnceTheTimeoutPasses() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            // A disk that stopped answering
+            writing.countDown();
+            release.await();
+            return null;
+        }).doNothing().when(store).append(any());
+        config.setBufferSize(8);
+        config.setBlockTimeout(Duration.ofMillis(20));
+        journal = start();
+
+        publish(1L);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long orderId = 2; orderId <= 9; orderId++) {
+            publish(orderId);
+        }
+        long started = System.nanoTime();
+        AuditEvent event = journal.claim(AuditEventType.ORDER_STATUS_CHANGE);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        release.countDown();
+
+        assertThat(event).isNull();
+        assertThat(waitedMillis).isBetween(20L, 5000L);
+        assertThat(meterRegistry.get("audit.events.dropped").tag("reason", "full").functionCounter().count())
+                .isEqualTo(1d);
+    }
+
+    private AuditJournal start() {
+        config.setLatencySampleEvery(0);
+        AuditJournal journal = new AuditJournal(config, store, meterRegistry);
+        journal.start();
+        return journal;
+    }
+
+    private void publish(long orderId) {
+        AuditEvent event = journal.claim(AuditEventType.ORDER_STATUS_CHANGE);
+        assertThat(event).isNotNull();
+        journal.publish(event.orderId(orderId).actor("staff@example.com"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(new AuditRingBuffer(5).capacity()).isEqualTo(8);
+        assertThat(new AuditRingBuffer(8).capacity()).isEqualTo(8);
+    }
+
+    @Test
+    void claimFailsWhenFullAndSucceedsAfterRelease() {
+        AuditRingBuffer ring = new AuditRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.tryClaim()).isEqualTo(i);
+        }
+        assertThat(ring.tryClaim()).isEqualTo(-1L);
+        assertThat(ring.used()).isEqualTo(4);
+
+        ring.release(1);
+        assertThat(ring.tryClaim()).isEqualTo(4L);
+        assertThat(ring.slot(4)).isSameAs(ring.slot(0));
+    }
+
+    @Test
+    void slotIsVisibleToConsumerOnlyOncePublished() {
+        AuditRingBuffer ring = new AuditRingBuffer(4);
+        long sequence = ring.tryClaim();
+        assertThat(ring.poll(sequence)).isNull();
+
+        ring.slot(sequence).sequence = sequence;
+        assertThat(ring.poll(sequence)).isSameAs(ring.slot(sequence));
+        assertThat(ring.poll(sequence + 1)).isNull();
+    }
+}
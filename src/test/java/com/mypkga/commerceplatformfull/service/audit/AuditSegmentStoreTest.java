@@ -0,0 +1,76 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mypkga.commerceplatformfull.config.AuditLogConfig;
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditSegmentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private AuditSegmentStore store;
+    private final AuditJsonEncoder encoder = new AuditJsonEncoder();
+    private final AuditLineBuffer batch = new AuditLineBuffer(1024);
+
+    @BeforeEach
+    void setUp() {
+        AuditLogConfig config = new AuditLogConfig();
+        config.setDirectory(directory.toString());
+        store = new AuditSegmentStore(config, new ObjectMapper());
+        store.open();
+    }
+
+    @Test
+    void findsEventsByOrderAndActor() throws Exception {
+        stage(1L, "alice", "alice");
+        stage(2L, "bob", "bob");
+        stage(1L, "bob", "bob");
+        store.append(batch);
+
+        assertThat(store.findByOrderId(1L, null, null, 10)).hasSize(2);
+        assertThat(store.findByActor("alice", null, null, 10)).singleElement()
+                .asString().contains("\"updatedBy\":\"alice\"");
+        assertThat(store.findByActor("bob", null, null, 10)).hasSize(2);
+    }
+
+    @Test
+    void actorHitWithDifferentActorIsFilteredOut() throws Exception {
+        // Indexed under alice's key but written for mallory: what a hash collision looks like
+        stage(1L, "alice", "mallory");
+        stage(2L, "alice", "alice");
+        store.append(batch);
+
+        assertThat(store.findByActor("alice", null, null, 10)).singleElement()
+                .asString().contains("\"orderId\":2");
+
+        // Same check once the segment is sealed and read through its index file
+        store.close();
+        assertThat(store.findByActor("alice", null, null, 10)).singleElement()
+                .asString().contains("\"orderId\":2");
+    }
+
+    @Test
+    void emptyStoreFindsNothing() {
+        List<String> lines = store.findByActor("nobody", null, null, 10);
+        assertThat(lines).isEmpty();
+    }
+
+    private void stage(long orderId, String indexedActor, String writtenActor) {
+        AuditEvent event = new AuditEvent();
+        event.reset(AuditEventType.ORDER_STATUS_CHANGE, System.currentTimeMillis());
+        event.orderId(orderId).fromStatus(OrderStatus.PENDING).toStatus(OrderStatus.CONFIRMED)
+                .actor(writtenActor).detail("test");
+        int start = batch.size();
+        encoder.encode(event, batch);
+        store.stage(event.timestamp, orderId, indexedActor, start, batch.size() - start);
+    }
+}
@@ -0,0 +1,88 @@
+package com.mypkga.commerceplatformfull.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mypkga.commerceplatformfull.config.AuditLogConfig;
+import com.mypkga.commerceplatformfull.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    private final AuditJsonEncoder encoder = new AuditJsonEncoder();
+
+    @Test
+    void sealedIndexFindsRunOfEqualKeysWithinTimeRange() throws Exception {
+        AuditSegment segment = AuditSegment.create(directory, 1L, Long.MAX_VALUE);
+        AuditLineBuffer batch = new AuditLineBuffer(1024);
+        int records = 300;
+        long[] timestamps = new long[records];
+        int[] offsets = new int[records];
+        int[] lengths = new int[records];
+        long[] orderKeys = new long[records];
+        long[] actorKeys = new long[records];
+        for (int i = 0; i < records; i++) {
+            // Order 7 gets every third record, so its run spans several index read blocks
+            long orderId = i % 3 == 0 ? 7L : 1000L + i;
+            timestamps[i] = 1_000L + i;
+            offsets[i] = batch.size();
+            encoder.encode(event(orderId, "user" + (i % 2), timestamps[i]), batch);
+            lengths[i] = batch.size() - offsets[i];
+            orderKeys[i] = orderId;
+            actorKeys[i] = AuditSegmentStore.actorKey("user" + (i % 2));
+        }
+        segment.append(batch, records, timestamps, offsets, lengths, orderKeys, actorKeys);
+
+        List<AuditSegment.Match> active = segment.find(AuditSegment.Key.ORDER, 7L, Long.MIN_VALUE, Long.MAX_VALUE);
+        segment.seal();
+        AuditSegment sealed = AuditSegment.openSealed(directory, 1L);
+
+        List<AuditSegment.Match> matches = sealed.find(AuditSegment.Key.ORDER, 7L, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(matches).hasSize(100).isEqualTo(active);
+        assertThat(sealed.find(AuditSegment.Key.ORDER, 7L, 1_000L, 1_009L)).hasSize(4);
+        assertThat(sealed.find(AuditSegment.Key.ORDER, 8L, Long.MIN_VALUE, Long.MAX_VALUE)).isEmpty();
+        assertThat(sealed.minTimestamp()).isEqualTo(1_000L);
+        assertThat(sealed.maxTimestamp()).isEqualTo(1_299L);
+    }
+
+    @Test
+    void unsealedSegmentIsRebuiltOnOpen() throws Exception {
+        long now = System.currentTimeMillis();
+        AuditSegment segment = AuditSegment.create(directory, 5L, Long.MAX_VALUE);
+        AuditLineBuffer batch = new AuditLineBuffer(1024);
+        encoder.encode(event(42L, "alice", now), batch);
+        int firstLength = batch.size();
+        encoder.encode(event(43L, "bob", now), batch);
+        segment.append(batch, 2, new long[]{now, now}, new int[]{0, firstLength},
+                new int[]{firstLength, batch.size() - firstLength}, new long[]{42L, 43L},
+                new long[]{AuditSegmentStore.actorKey("alice"), AuditSegmentStore.actorKey("bob")});
+        // Simulate a crash: data file written, index never sealed
+        assertThat(Files.exists(segment.indexFile)).isFalse();
+
+        AuditLogConfig config = new AuditLogConfig();
+        config.setDirectory(directory.toString());
+        AuditSegmentStore store = new AuditSegmentStore(config, new ObjectMapper());
+        store.open();
+
+        assertThat(Files.exists(segment.indexFile)).isTrue();
+        assertThat(store.findByOrderId(42L, null, null, 10)).singleElement()
+                .asString().contains("\"updatedBy\":\"alice\"");
+        assertThat(store.findByActor("bob", null, null, 10)).singleElement()
+                .asString().contains("\"orderId\":43");
+    }
+
+    private static AuditEvent event(long orderId, String actor, long timestamp) {
+        AuditEvent event = new AuditEvent();
+        event.reset(AuditEventType.ORDER_STATUS_CHANGE, timestamp);
+        return event.orderId(orderId).fromStatus(OrderStatus.SHIPPING).toStatus(OrderStatus.DELIVERED)
+                .actor(actor).detail("segment test");
+    }
+}
@@ -0,0 +1,117 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GhnCircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        GhnCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onFailure();
+        }
+        assertThat(breaker.getState()).isEqualTo(GhnCircuitBreaker.State.CLOSED);
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(GhnCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.remainingOpen()).isPositive();
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        GhnCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(GhnCircuitBreaker.State.CLOSED);
+        assertThat(breaker.remainingOpen()).isZero();
+    }
+
+    @Test
+    void letsOneProbeThroughAfterTheOpenDuration() {
+        GhnCircuitBreaker breaker = open(breaker(Duration.ZERO));
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(GhnCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void successfulProbeClosesTheCircuit() {
+        GhnCircuitBreaker breaker = open(breaker(Duration.ZERO));
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(GhnCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void failedProbeOpensTheCircuitAgain() {
+        GhnCircuitBreaker breaker = open(breaker(Duration.ZERO));
+        assertThat(breaker.tryAcquire()).isTrue();
+        ReflectionTestUtils.setField(breaker, "openDuration", Duration.ofMinutes(1));
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(GhnCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void releasedProbeLetsTheNextCallerProbe() {
+        GhnCircuitBreaker breaker = open(breaker(Duration.ZERO));
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.release();
+
+        assertThat(breaker.getState()).isEqualTo(GhnCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void onlyServerTroubleCountsAsOutage() {
+        assertThat(GhnCircuitBreaker.isOutage(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))).isTrue();
+        assertThat(GhnCircuitBreaker.isOutage(new ResourceAccessException("Read timed out"))).isTrue();
+        assertThat(GhnCircuitBreaker.isOutage(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS))).isTrue();
+        assertThat(GhnCircuitBreaker.isOutage(
+                new RuntimeException("wrapped", new ResourceAccessException("Connection refused")))).isTrue();
+        assertThat(GhnCircuitBreaker.isOutage(new HttpClientErrorException(HttpStatus.BAD_REQUEST))).isFalse();
+        assertThat(GhnCircuitBreaker.isOutage(new IllegalStateException("No items"))).isFalse();
+    }
+
+    private static GhnCircuitBreaker breaker(Duration openDuration) {
+        GhnCircuitBreaker breaker = new GhnCircuitBreaker(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(breaker, "failureThreshold", 3);
+        ReflectionTestUtils.setField(breaker, "openDuration", openDuration);
+        breaker.init();
+        return breaker;
+    }
+
+    private static GhnCircuitBreaker open(GhnCircuitBreaker breaker) {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        assertThat(breaker.getState()).isEqualTo(GhnCircuitBreaker.State.OPEN);
+        return breaker;
+    }
+}
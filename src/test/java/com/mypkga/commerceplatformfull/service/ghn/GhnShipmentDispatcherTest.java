@@ -0,0 +1,156 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import com.mypkga.commerceplatformfull.config.GHNConfig;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNCreateOrderResponse;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNOrderInfo;
+import com.mypkga.commerceplatformfull.entity.GhnShipmentJob;
+import com.mypkga.commerceplatformfull.entity.GhnShipmentJobStatus;
+import com.mypkga.commerceplatformfull.entity.Order;
+import com.mypkga.commerceplatformfull.entity.ReturnRequest;
+import com.mypkga.commerceplatformfull.entity.User;
+import com.mypkga.commerceplatformfull.repository.GhnShipmentJobRepository;
+import com.mypkga.commerceplatformfull.repository.ReturnRequestHistoryRepository;
+import com.mypkga.commerceplatformfull.repository.ReturnRequestRepository;
+import com.mypkga.commerceplatformfull.service.GHNReturnService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GhnShipmentDispatcherTest {
+
+    private final GhnShipmentJobRepository jobRepository = mock(GhnShipmentJobRepository.class);
+    private final ReturnRequestRepository returnRequestRepository = mock(ReturnRequestRepository.class);
+    private final GHNReturnService ghnReturnService = mock(GHNReturnService.class);
+    private final GhnCircuitBreaker circuitBreaker = mock(GhnCircuitBreaker.class);
+
+    private final ReturnRequest returnRequest = returnRequest();
+    private final GhnShipmentJob job = new GhnShipmentJob(returnRequest.getId());
+    private final GhnShipmentDispatcher dispatcher = dispatcher();
+
+    @BeforeEach
+    void setUp() {
+        job.setId(1L);
+        when(jobRepository.findDueIds(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(1L));
+        when(jobRepository.claim(anyList(), anyString(), any(LocalDateTime.class))).thenReturn(1);
+        when(jobRepository.findByClaimToken(anyString())).thenReturn(List.of(job));
+        when(returnRequestRepository.findById(returnRequest.getId())).thenReturn(Optional.of(returnRequest));
+        when(circuitBreaker.tryAcquire()).thenReturn(true);
+    }
+
+    @Test
+    void timedOutCreateThatReachedGhnIsFoundInsteadOfCreatedAgain() {
+        when(ghnReturnService.createReturnShippingOrder(returnRequest))
+                .thenThrow(new ResourceAccessException("Read timed out", new SocketTimeoutException("Read timed out")));
+        when(ghnReturnService.findReturnShippingOrder(returnRequest)).thenReturn(orderInfo("GHN1"));
+
+        drain(dispatcher);
+        assertThat(job.getState()).isEqualTo(GhnShipmentJobStatus.PENDING);
+        assertThat(job.getOutcomeUnknown()).isTrue();
+
+        drain(dispatcher);
+
+        verify(ghnReturnService, times(1)).createReturnShippingOrder(returnRequest);
+        assertThat(job.getState()).isEqualTo(GhnShipmentJobStatus.SUCCEEDED);
+        assertThat(job.getGhnOrderCode()).isEqualTo("GHN1");
+        assertThat(job.getAttempts()).isEqualTo(2);
+        assertThat(returnRequest.getGhnOrderCode()).isEqualTo("GHN1");
+        assertThat(returnRequest.getGhnTrackingNumber()).isEqualTo("SORT-GHN1");
+    }
+
+    @Test
+    void timedOutCreateThatNeverReachedGhnIsCreatedOnTheNextAttempt() {
+        when(ghnReturnService.createReturnShippingOrder(returnRequest))
+                .thenThrow(new ResourceAccessException("Read timed out", new SocketTimeoutException("Read timed out")))
+                .thenReturn(created("GHN2"));
+        when(ghnReturnService.findReturnShippingOrder(returnRequest)).thenReturn(null);
+
+        drain(dispatcher);
+        verify(ghnReturnService, never()).findReturnShippingOrder(returnRequest);
+        assertThat(job.getOutcomeUnknown()).isTrue();
+
+        drain(dispatcher);
+
+        verify(ghnReturnService).findReturnShippingOrder(returnRequest);
+        verify(ghnReturnService, times(2)).createReturnShippingOrder(returnRequest);
+        assertThat(job.getState()).isEqualTo(GhnShipmentJobStatus.SUCCEEDED);
+        assertThat(job.getOutcomeUnknown()).isFalse();
+        assertThat(returnRequest.getGhnOrderCode()).isEqualTo("GHN2");
+        assertThat(returnRequest.getGhnFee()).isEqualTo(35000);
+    }
+
+    private GhnShipmentDispatcher dispatcher() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        GhnShipmentDispatcher dispatcher = new GhnShipmentDispatcher(jobRepository, returnRequestRepository,
+                mock(ReturnRequestHistoryRepository.class), ghnReturnService, circuitBreaker, new GHNConfig(),
+                new TransactionTemplate(transactionManager), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 20);
+        ReflectionTestUtils.setField(dispatcher, "concurrency", 1);
+        ReflectionTestUtils.setField(dispatcher, "claimTimeout", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(dispatcher, "retryMax", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(dispatcher, "budgetRatio", 0.2);
+        ReflectionTestUtils.setField(dispatcher, "budgetMinPerSecond", 0.1);
+        ReflectionTestUtils.setField(dispatcher, "budgetMax", 10d);
+        dispatcher.init();
+        return dispatcher;
+    }
+
+    private static ReturnRequest returnRequest() {
+        User user = new User();
+        user.setFullName("Nguyễn Văn An");
+        Order order = new Order();
+        order.setUser(user);
+        ReturnRequest returnRequest = new ReturnRequest();
+        returnRequest.setId(7L);
+        returnRequest.setOrder(order);
+        return returnRequest;
+    }
+
+    private static GHNOrderInfo orderInfo(String orderCode) {
+        GHNOrderInfo.GHNOrderInfoData data = new GHNOrderInfo.GHNOrderInfoData();
+        data.setOrderCode(orderCode);
+        data.setSortCode("SORT-" + orderCode);
+        GHNOrderInfo info = new GHNOrderInfo();
+        info.setData(data);
+        return info;
+    }
+
+    private static GHNCreateOrderResponse created(String orderCode) {
+        return GHNCreateOrderResponse.builder()
+                .code(200)
+                .data(GHNCreateOrderResponse.GHNOrderData.builder()
+                        .orderCode(orderCode)
+                        .sortCode("SORT-" + orderCode)
+                        .totalFee(35000)
+                        .build())
+                .build();
+    }
+
+    private static void drain(GhnShipmentDispatcher dispatcher) {
+        ((AtomicBoolean) ReflectionTestUtils.getField(dispatcher, "wakeRequested")).set(true);
+        dispatcher.dispatch();
+    }
+}
@@ -0,0 +1,175 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import com.mypkga.commerceplatformfull.dto.ghn.GHNOrderInfo;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNOrderInfo.GHNLogEntry;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWebhookPayload;
+import com.mypkga.commerceplatformfull.repository.ReturnRequestRepository;
+import com.mypkga.commerceplatformfull.service.GHNService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class GhnTrackingReconcilerTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+
+    private final ReturnRequestRepository returnRequestRepository = mock(ReturnRequestRepository.class);
+
+    @Test
+    void missedTransitionsComeOldestFirst() {
+        GhnTrackingReconciler.Shipment shipment = shipment("picked");
+        // GHN does not promise any order in its log
+        GHNOrderInfo.GHNOrderInfoData data = data("delivering", "2026-10-19T15:00:00+07:00",
+                log("delivering", "2026-10-19T15:00:00+07:00"),
+                log("ready_to_pick", "2026-10-19T08:00:00+07:00"),
+                log("transporting", "2026-10-19T12:00:00+07:00"),
+                log("picked", "2026-10-19T09:00:00+07:00"));
+
+        List<GHNWebhookPayload> missed = GhnTrackingReconciler.missedUpdates(shipment, data);
+
+        assertThat(missed).extracting(GHNWebhookPayload::getStatus).containsExactly("transporting", "delivering");
+        assertThat(missed).extracting(GHNWebhookPayload::getTime)
+                .containsExactly("2026-10-19T12:00:00+07:00", "2026-10-19T15:00:00+07:00");
+        assertThat(missed).extracting(GHNWebhookPayload::getOrderCode).containsOnly("GHN1");
+    }
+
+    @Test
+    void currentStatusIsAddedWhenTheLogStopsShortOfIt() {
+        GhnTrackingReconciler.Shipment shipment = shipment("picked");
+        GHNOrderInfo.GHNOrderInfoData data = data("delivered", "2026-10-19T16:00:00+07:00",
+                log("picked", "2026-10-19T09:00:00+07:00"),
+                log("transporting", "2026-10-19T12:00:00+07:00"));
+
+        List<GHNWebhookPayload> missed = GhnTrackingReconciler.missedUpdates(shipment, data);
+
+        assertThat(missed).extracting(GHNWebhookPayload::getStatus).containsExactly("transporting", "delivered");
+        assertThat(missed.get(1).getTime()).isEqualTo("2026-10-19T16:00:00+07:00");
+    }
+
+    @Test
+    void onlyTheCurrentStatusWhenTheKnownOneIsNotInTheLog() {
+        GhnTrackingReconciler.Shipment shipment = shipment("ready_to_pick");
+        GHNOrderInfo.GHNOrderInfoData data = data("transporting", "2026-10-19T12:00:00+07:00",
+                log("picked", "2026-10-19T09:00:00+07:00"),
+                log("transporting", "2026-10-19T12:00:00+07:00"));
+
+        List<GHNWebhookPayload> missed = GhnTrackingReconciler.missedUpdates(shipment, data);
+
+        assertThat(missed).extracting(GHNWebhookPayload::getStatus).containsExactly("transporting");
+    }
+
+    @Test
+    void latestOccurrenceOfARepeatedStatusCounts() {
+        // A failed delivery sends the parcel back to delivering
+        GhnTrackingReconciler.Shipment shipment = shipment("DELIVERING");
+        GHNOrderInfo.GHNOrderInfoData data = data("delivered", "2026-10-20T10:00:00+07:00",
+                log("delivering", "2026-10-19T15:00:00+07:00"),
+                log("delivery_fail", "2026-10-19T18:00:00+07:00"),
+                log("delivering", "2026-10-20T08:00:00+07:00"),
+                log("delivered", "2026-10-20T10:00:00+07:00"));
+
+        List<GHNWebhookPayload> missed = GhnTrackingReconciler.missedUpdates(shipment, data);
+
+        assertThat(missed).extracting(GHNWebhookPayload::getStatus).containsExactly("delivered");
+    }
+
+    @Test
+    void intervalIsAFractionOfTheTimeSinceTheLastChange() {
+        GhnTrackingReconciler reconciler = reconciler();
+        long now = System.currentTimeMillis();
+
+        // 0.25 of 8 h is 2 h, give or take the 10% jitter
+        assertThat(reconciler.interval(now, now - 8 * HOUR)).isBetween(108 * MINUTE, 132 * MINUTE);
+    }
+
+    @Test
+    void intervalIsClampedToItsBounds() {
+        GhnTrackingReconciler reconciler = reconciler();
+        long now = System.currentTimeMillis();
+
+        assertThat(reconciler.interval(now, now - MINUTE)).isBetween(9 * MINUTE, 11 * MINUTE);
+        assertThat(reconciler.interval(now, now - 30 * 24 * HOUR)).isBetween(324 * MINUTE, 396 * MINUTE);
+        // A change time in the future counts as just now
+        assertThat(reconciler.interval(now, now + HOUR)).isBetween(9 * MINUTE, 11 * MINUTE);
+    }
+
+    @Test
+    void shipmentSkippedByAnOpenCircuitWaitsTheMinimumInterval() {
+        GhnCircuitBreaker circuitBreaker = mock(GhnCircuitBreaker.class);
+        GHNService ghnService = mock(GHNService.class);
+        GhnTrackingReconciler reconciler = reconciler(ghnService, circuitBreaker);
+        GhnTrackingReconciler.Shipment shipment = shipment("picked");
+        long now = System.currentTimeMillis();
+
+        ReflectionTestUtils.invokeMethod(reconciler, "poll", shipment);
+
+        verifyNoInteractions(ghnService);
+        assertThat(shipment.nextCheckAt - now).isBetween(8 * MINUTE, 12 * MINUTE);
+    }
+
+    @Test
+    void passRunsOffTheSchedulerThread() {
+        GhnTrackingReconciler reconciler = reconciler();
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        when(returnRequestRepository.findInFlightGHNTracking()).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return List.of();
+        });
+
+        reconciler.reconcile();
+
+        verify(returnRequestRepository, timeout(5000)).findInFlightGHNTracking();
+        assertThat(threads).containsExactly("ghn-reconcile-pass");
+    }
+
+    private GhnTrackingReconciler reconciler() {
+        return reconciler(mock(GHNService.class), mock(GhnCircuitBreaker.class));
+    }
+
+    private GhnTrackingReconciler reconciler(GHNService ghnService, GhnCircuitBreaker circuitBreaker) {
+        GhnTrackingReconciler reconciler = new GhnTrackingReconciler(returnRequestRepository, ghnService,
+                mock(GhnWebhookInbox.class), circuitBreaker, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reconciler, "enabled", true);
+        ReflectionTestUtils.setField(reconciler, "parallelism", 2);
+        ReflectionTestUtils.setField(reconciler, "maxPerRun", 500);
+        ReflectionTestUtils.setField(reconciler, "minInterval", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(reconciler, "maxInterval", Duration.ofHours(6));
+        ReflectionTestUtils.setField(reconciler, "intervalFactor", 0.25);
+        reconciler.init();
+        return reconciler;
+    }
+
+    private static GhnTrackingReconciler.Shipment shipment(String status) {
+        long now = System.currentTimeMillis();
+        return new GhnTrackingReconciler.Shipment("GHN1", status, now, now);
+    }
+
+    private static GHNOrderInfo.GHNOrderInfoData data(String status, String updatedDate, GHNLogEntry... logs) {
+        GHNOrderInfo.GHNOrderInfoData data = new GHNOrderInfo.GHNOrderInfoData();
+        data.setStatus(status);
+        data.setUpdatedDate(updatedDate);
+        data.setLogs(new ArrayList<>(Arrays.asList(logs)));
+        return data;
+    }
+
+    private static GHNLogEntry log(String status, String updatedDate) {
+        GHNLogEntry entry = new GHNLogEntry();
+        entry.setStatus(status);
+        entry.setUpdatedDate(updatedDate);
+        return entry;
+    }
+}
@@ -0,0 +1,199 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWebhookPayload;
+import com.mypkga.commerceplatformfull.entity.GhnWebhookEvent;
+import com.mypkga.commerceplatformfull.entity.GhnWebhookEventStatus;
+import com.mypkga.commerceplatformfull.repository.GhnWebhookEventRepository;
+import com.mypkga.commerceplatformfull.service.GHNService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GhnWebhookDispatcherTest {
+
+    private final GhnWebhookEventRepository eventRepository = mock(GhnWebhookEventRepository.class);
+    private final GHNService ghnService = mock(GHNService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Every payload handed to the service, in the order it was applied
+    private final List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+    private List<GhnWebhookEvent> claimed = List.of();
+    private long nextId = 1;
+
+    @Test
+    void appliesEachOrderInArrivalOrder() throws Exception {
+        GhnWebhookDispatcher dispatcher = dispatcher(4);
+        queue(event("A", "picking"), event("B", "picking"), event("A", "picked"),
+                event("C", "picking"), event("A", "transporting"), event("B", "picked"));
+        recordApplied(null);
+
+        drain(dispatcher);
+
+        assertThat(applied).filteredOn(entry -> entry.startsWith("A:"))
+                .containsExactly("A:picking", "A:picked", "A:transporting");
+        assertThat(applied).filteredOn(entry -> entry.startsWith("B:"))
+                .containsExactly("B:picking", "B:picked");
+        assertThat(applied).hasSize(6);
+    }
+
+    @Test
+    void failingEventHoldsBackLaterEventsOfItsOrderOnly() throws Exception {
+        GhnWebhookDispatcher dispatcher = dispatcher(1);
+        GhnWebhookEvent a1 = event("A", "picking");
+        GhnWebhookEvent b1 = event("B", "picking");
+        GhnWebhookEvent a2 = event("A", "picked");
+        GhnWebhookEvent a3 = event("A", "transporting");
+        GhnWebhookEvent b2 = event("B", "picked");
+        queue(a1, b1, a2, a3, b2);
+        recordApplied("A:picked");
+
+        drain(dispatcher);
+
+        assertThat(a1.getState()).isEqualTo(GhnWebhookEventStatus.PROCESSED);
+        assertThat(a2.getState()).isEqualTo(GhnWebhookEventStatus.PENDING);
+        assertThat(a2.getAttempts()).isEqualTo(1);
+        assertThat(a2.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(a3.getState()).isEqualTo(GhnWebhookEventStatus.PENDING);
+        assertThat(a3.getAttempts()).isZero();
+        assertThat(a3.getNextAttemptAt()).isEqualTo(a2.getNextAttemptAt());
+        assertThat(b1.getState()).isEqualTo(GhnWebhookEventStatus.PROCESSED);
+        assertThat(b2.getState()).isEqualTo(GhnWebhookEventStatus.PROCESSED);
+        assertThat(applied).doesNotContain("A:transporting");
+        verify(eventRepository).saveAll(List.of(a2, a3));
+    }
+
+    @Test
+    void eventFailsAfterMaxAttemptsAndReleasesItsOrder() throws Exception {
+        GhnWebhookDispatcher dispatcher = dispatcher(1);
+        GhnWebhookEvent a1 = event("A", "picking");
+        a1.setAttempts(9);
+        GhnWebhookEvent a2 = event("A", "picked");
+        queue(a1, a2);
+        recordApplied("A:picking");
+
+        drain(dispatcher);
+
+        assertThat(a1.getState()).isEqualTo(GhnWebhookEventStatus.FAILED);
+        assertThat(a1.getAttempts()).isEqualTo(10);
+        assertThat(a2.getState()).isEqualTo(GhnWebhookEventStatus.PROCESSED);
+    }
+
+    @Test
+    void unreadablePayloadFailsAtOnce() throws Exception {
+        GhnWebhookDispatcher dispatcher = dispatcher(1);
+        GhnWebhookEvent broken = new GhnWebhookEvent("A", "picking", "", "{\"OrderCode\":");
+        broken.setId(nextId++);
+        GhnWebhookEvent next = event("A", "picked");
+        queue(broken, next);
+        recordApplied(null);
+
+        drain(dispatcher);
+
+        assertThat(broken.getState()).isEqualTo(GhnWebhookEventStatus.FAILED);
+        assertThat(broken.getAttempts()).isEqualTo(1);
+        assertThat(broken.getLastError()).isNotBlank();
+        assertThat(next.getState()).isEqualTo(GhnWebhookEventStatus.PROCESSED);
+        assertThat(applied).containsExactly("A:picked");
+    }
+
+    @Test
+    void pollHandsTheRunToAnotherThread() throws Exception {
+        GhnWebhookDispatcher dispatcher = dispatcher(1);
+        queue(event("A", "picked"));
+        recordApplied(null);
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        when(eventRepository.findClaimed(anyString())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return claimed;
+        });
+
+        dispatcher.poll();
+
+        verify(eventRepository, timeout(5000)).markProcessed(anyList(), any());
+        assertThat(threads).containsExactly("ghn-webhook-dispatch");
+    }
+
+    private GhnWebhookDispatcher dispatcher(int workers) {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        GhnWebhookDispatcher dispatcher = new GhnWebhookDispatcher(eventRepository, ghnService,
+                new TransactionTemplate(transactionManager), objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 200);
+        ReflectionTestUtils.setField(dispatcher, "workers", workers);
+        ReflectionTestUtils.setField(dispatcher, "claimTimeout", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 10);
+        ReflectionTestUtils.setField(dispatcher, "retryBase", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(dispatcher, "retryMax", Duration.ofHours(1));
+        ReflectionTestUtils.setField(dispatcher, "processedRetention", Duration.ofDays(14));
+        ReflectionTestUtils.setField(dispatcher, "failedRetention", Duration.ofDays(60));
+        dispatcher.init();
+        return dispatcher;
+    }
+
+    private GhnWebhookEvent event(String orderCode, String status) throws Exception {
+        GHNWebhookPayload payload = new GHNWebhookPayload();
+        payload.setOrderCode(orderCode);
+        payload.setStatus(status);
+        GhnWebhookEvent event = new GhnWebhookEvent(orderCode, status, "", objectMapper.writeValueAsString(payload));
+        event.setId(nextId++);
+        event.setState(GhnWebhookEventStatus.PROCESSING);
+        return event;
+    }
+
+    private void queue(GhnWebhookEvent... events) {
+        List<Long> ids = new ArrayList<>();
+        for (GhnWebhookEvent event : events) {
+            ids.add(event.getId());
+        }
+        claimed = List.of(events);
+        when(eventRepository.findDueIds(any(LocalDateTime.class), any(Pageable.class))).thenReturn(ids, List.of());
+        when(eventRepository.claim(anyList(), anyString(), any())).thenReturn(ids.size());
+        when(eventRepository.findClaimed(anyString())).thenReturn(claimed);
+    }
+
+    /**
+     * Record applied payloads as "order:status"; a batch holding {@code failing} throws instead.
+     */
+    @SuppressWarnings("unchecked")
+    private void recordApplied(String failing) {
+        doAnswer(invocation -> {
+            List<String> batch = new ArrayList<>();
+            for (GHNWebhookPayload payload : (List<GHNWebhookPayload>) invocation.getArgument(0)) {
+                batch.add(payload.getOrderCode() + ":" + payload.getStatus());
+            }
+            if (batch.contains(failing)) {
+                throw new IllegalStateException("Return request locked");
+            }
+            applied.addAll(batch);
+            return null;
+        }).when(ghnService).applyStatusUpdates(anyList());
+    }
+
+    private static void drain(GhnWebhookDispatcher dispatcher) {
+        ((AtomicBoolean) ReflectionTestUtils.getField(dispatcher, "wakeRequested")).set(true);
+        dispatcher.dispatch();
+    }
+}
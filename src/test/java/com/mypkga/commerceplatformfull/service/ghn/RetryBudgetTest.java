@@ -0,0 +1,69 @@
+package com.mypkga.commerceplatformfull.service.ghn;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTest {
+
+    @Test
+    void startsFullAndRunsDry() {
+        RetryBudget budget = new RetryBudget(0.1, 0, 3);
+
+        assertThat(budget.tryRetry()).isTrue();
+        assertThat(budget.tryRetry()).isTrue();
+        assertThat(budget.tryRetry()).isTrue();
+        assertThat(budget.tryRetry()).isFalse();
+        assertThat(budget.available()).isZero();
+    }
+
+    @Test
+    void firstAttemptsEarnRetriesAtTheRatio() {
+        RetryBudget budget = new RetryBudget(0.25, 0, 3);
+        drain(budget);
+
+        for (int i = 0; i < 3; i++) {
+            budget.onFirstAttempt();
+        }
+        assertThat(budget.tryRetry()).isFalse();
+        budget.onFirstAttempt();
+        assertThat(budget.tryRetry()).isTrue();
+        assertThat(budget.tryRetry()).isFalse();
+    }
+
+    @Test
+    void tokensAreCappedAtTheMaximum() {
+        RetryBudget budget = new RetryBudget(0.5, 0, 2);
+
+        for (int i = 0; i < 100; i++) {
+            budget.onFirstAttempt();
+        }
+
+        assertThat(budget.available()).isEqualTo(2d);
+    }
+
+    @Test
+    void maximumIsAtLeastOneRetry() {
+        RetryBudget budget = new RetryBudget(0.1, 0, 0);
+
+        assertThat(budget.tryRetry()).isTrue();
+        assertThat(budget.tryRetry()).isFalse();
+    }
+
+    @Test
+    void refillsSlowlyWithoutNewWork() throws Exception {
+        RetryBudget budget = new RetryBudget(0.1, 50, 10);
+        drain(budget);
+
+        Thread.sleep(100);
+
+        assertThat(budget.available()).isGreaterThan(4d).isLessThanOrEqualTo(10d);
+        assertThat(budget.tryRetry()).isTrue();
+    }
+
+    private static void drain(RetryBudget budget) {
+        while (budget.tryRetry()) {
+            // Spend the initial tokens
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.mypkga.commerceplatformfull.service.impl;
+
+import com.mypkga.commerceplatformfull.dto.ghn.GHNAvailableServicesResponse;
+import com.mypkga.commerceplatformfull.service.address.AddressSnapshotStore;
+import com.mypkga.commerceplatformfull.service.address.GhnMasterDataClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GHNMasterDataServiceImplTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final GHNMasterDataServiceImpl service = new GHNMasterDataServiceImpl(restTemplate,
+            new SimpleMeterRegistry(), mock(AddressSnapshotStore.class), mock(GhnMasterDataClient.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "ghnApiUrl", "https://ghn.test");
+        ReflectionTestUtils.setField(service, "ghnShopId", 1);
+        ReflectionTestUtils.setField(service, "servicesTtl", Duration.ofDays(7));
+        ReflectionTestUtils.setField(service, "servicesRefreshAfter", Duration.ofHours(12));
+        service.init();
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(GHNAvailableServicesResponse.class))).thenReturn(ResponseEntity.ok(services(200, 53320)));
+    }
+
+    @Test
+    void servicesAreCachedPerDistrictPair() {
+        List<GHNAvailableServicesResponse.ServiceData> first = service.getAvailableServices(1201, 1454);
+        List<GHNAvailableServicesResponse.ServiceData> second = service.getAvailableServices(1201, 1454);
+
+        assertThat(first).extracting(GHNAvailableServicesResponse.ServiceData::getServiceId).containsExactly(53320);
+        assertThat(second).isSameAs(first);
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(GHNAvailableServicesResponse.class));
+    }
+
+    @Test
+    void directionOfThePairIsPartOfTheKey() {
+        service.getAvailableServices(1201, 1454);
+        service.getAvailableServices(1454, 1201);
+        service.getAvailableServices(1201, 1442);
+
+        verify(restTemplate, times(3)).exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(GHNAvailableServicesResponse.class));
+        verify(restTemplate).exchange(anyString(), eq(HttpMethod.POST),
+                argThat((HttpEntity<?> entity) -> Map.of("shop_id", 1, "from_district", 1454, "to_district", 1201)
+                        .equals(entity.getBody())),
+                eq(GHNAvailableServicesResponse.class));
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(GHNAvailableServicesResponse.class)))
+                .thenReturn(ResponseEntity.ok(services(500, null)), ResponseEntity.ok(services(200, 53321)));
+
+        assertThat(service.getAvailableServices(1201, 1454)).isEmpty();
+        assertThat(service.getAvailableServices(1201, 1454))
+                .extracting(GHNAvailableServicesResponse.ServiceData::getServiceId).containsExactly(53321);
+    }
+
+    private static GHNAvailableServicesResponse services(int code, Integer serviceId) {
+        GHNAvailableServicesResponse response = new GHNAvailableServicesResponse();
+        response.setCode(code);
+        if (serviceId != null) {
+            GHNAvailableServicesResponse.ServiceData data = new GHNAvailableServicesResponse.ServiceData();
+            data.setServiceId(serviceId);
+            response.setData(List.of(data));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,183 @@
+package com.mypkga.commerceplatformfull.service.impl;
+
+import com.mypkga.commerceplatformfull.dto.ghn.GHNAvailableServicesResponse;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNCreateOrderResponse;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNFeeRequest;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNFeeResponse;
+import com.mypkga.commerceplatformfull.entity.Category;
+import com.mypkga.commerceplatformfull.entity.Order;
+import com.mypkga.commerceplatformfull.entity.OrderItem;
+import com.mypkga.commerceplatformfull.entity.Product;
+import com.mypkga.commerceplatformfull.entity.ReturnRequest;
+import com.mypkga.commerceplatformfull.entity.User;
+import com.mypkga.commerceplatformfull.service.GHNMasterDataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GHNReturnServiceImplTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final GHNMasterDataService masterDataService = mock(GHNMasterDataService.class);
+    private final GHNReturnServiceImpl service =
+            new GHNReturnServiceImpl(restTemplate, masterDataService, new SimpleMeterRegistry());
+
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "ghnApiUrl", "https://ghn.test");
+        ReflectionTestUtils.setField(service, "ghnToken", "token");
+        ReflectionTestUtils.setField(service, "ghnShopId", "1");
+        ReflectionTestUtils.setField(service, "warehouseDistrictId", 1454);
+        ReflectionTestUtils.setField(service, "quoteTtl", Duration.ofHours(6));
+        ReflectionTestUtils.setField(service, "quoteRefreshAfter", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(service, "quoteMaxEntries", 100L);
+        service.init();
+
+        GHNAvailableServicesResponse.ServiceData standard = new GHNAvailableServicesResponse.ServiceData();
+        standard.setServiceId(53320);
+        when(masterDataService.getAvailableServices(anyInt(), anyInt())).thenReturn(List.of(standard));
+        quoteAnswers(fee(200, 32000));
+    }
+
+    @Test
+    void sameRouteAndParcelClassShareOneQuote() {
+        // 1 item at 300 g and 1 item at 200k VND both round to 500 g and 500k VND
+        GHNFeeResponse first = service.calculateReturnShippingFee(returnRequest(1201, "20107", 1, "200000"));
+        GHNFeeResponse second = service.calculateReturnShippingFee(returnRequest(1201, "20107", 1, "450000"));
+
+        assertThat(second).isSameAs(first);
+        verify(restTemplate, times(1)).postForEntity(anyString(), any(HttpEntity.class), eq(GHNFeeResponse.class));
+    }
+
+    @Test
+    void quotesAreKeyedByWard() {
+        service.calculateReturnShippingFee(returnRequest(1201, "20107", 1, "200000"));
+        service.calculateReturnShippingFee(returnRequest(1201, "20108", 1, "200000"));
+
+        verify(restTemplate, times(2)).postForEntity(anyString(), any(HttpEntity.class), eq(GHNFeeResponse.class));
+    }
+
+    @Test
+    void quotesAreKeyedByParcelClass() {
+        service.calculateReturnShippingFee(returnRequest(1201, "20107", 1, "200000"));
+        // 2 items: 600 g rounds to 1 kg
+        service.calculateReturnShippingFee(returnRequest(1201, "20107", 2, "200000"));
+        // 600k VND crosses the 500k insurance step
+        service.calculateReturnShippingFee(returnRequest(1201, "20107", 1, "600000"));
+
+        verify(restTemplate, times(3)).postForEntity(anyString(), any(HttpEntity.class), eq(GHNFeeResponse.class));
+    }
+
+    @Test
+    void quoteIsRequestedForTheRoundedParcel() {
+        service.calculateReturnShippingFee(returnRequest(1201, "20107", 2, "600000"));
+
+        GHNFeeRequest request = sentRequests().get(0);
+        assertThat(request.getWeight()).isEqualTo(1000);
+        assertThat(request.getInsuranceValue()).isEqualTo(1_000_000);
+        assertThat(request.getLength()).isEqualTo(20);
+        assertThat(request.getWidth()).isEqualTo(20);
+        assertThat(request.getHeight()).isEqualTo(20);
+        assertThat(request.getServiceId()).isEqualTo(53320);
+    }
+
+    @Test
+    void rejectedQuotesAreNotCached() {
+        quoteAnswers(fee(400, null), fee(200, 32000));
+
+        assertThatThrownBy(() -> service.calculateReturnShippingFee(returnRequest(1201, "20107", 1, "200000")))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(service.calculateReturnShippingFee(returnRequest(1201, "20107", 1, "200000"))
+                .getData().getTotal()).isEqualTo(32000);
+        verify(restTemplate, times(2)).postForEntity(anyString(), any(HttpEntity.class), eq(GHNFeeResponse.class));
+    }
+
+    @Test
+    void rejectedOrderIsReturnedWithGhnCode() {
+        ReturnRequest returnRequest = returnRequest(1201, "20107", 1, "200000");
+        Category category = new Category();
+        category.setName("Áo");
+        Product product = new Product();
+        product.setId(7L);
+        product.setName("Áo thun");
+        product.setCategory(category);
+        returnRequest.getOrder().getItems().get(0).setProduct(product);
+        GHNCreateOrderResponse rejected = GHNCreateOrderResponse.builder()
+                .code(400)
+                .message("Số điện thoại không hợp lệ")
+                .build();
+        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(GHNCreateOrderResponse.class)))
+                .thenReturn(ResponseEntity.ok(rejected));
+
+        GHNCreateOrderResponse response = service.createReturnShippingOrder(returnRequest);
+
+        assertThat(response.getCode()).isEqualTo(400);
+        assertThat(response.getData()).isNull();
+        assertThat(response.getMessage()).isEqualTo("Số điện thoại không hợp lệ");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void quoteAnswers(GHNFeeResponse first, GHNFeeResponse... rest) {
+        ResponseEntity<GHNFeeResponse>[] others = Arrays.stream(rest)
+                .map(ResponseEntity::ok).toArray(ResponseEntity[]::new);
+        when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(GHNFeeResponse.class)))
+                .thenReturn(ResponseEntity.ok(first), others);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<GHNFeeRequest> sentRequests() {
+        ArgumentCaptor<HttpEntity<GHNFeeRequest>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).postForEntity(anyString(), captor.capture(), eq(GHNFeeResponse.class));
+        return captor.getAllValues().stream().map(HttpEntity::getBody).toList();
+    }
+
+    private ReturnRequest returnRequest(int districtId, String wardCode, int quantity, String totalAmount) {
+        User customer = new User();
+        customer.setDistrictId(districtId);
+        customer.setWardCode(wardCode);
+
+        OrderItem item = new OrderItem();
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal(totalAmount));
+
+        Order order = new Order();
+        order.setUser(customer);
+        order.setTotalAmount(new BigDecimal(totalAmount));
+        order.getItems().add(item);
+
+        ReturnRequest returnRequest = new ReturnRequest();
+        returnRequest.setId(nextId++);
+        returnRequest.setOrder(order);
+        return returnRequest;
+    }
+
+    private static GHNFeeResponse fee(int code, Integer total) {
+        return GHNFeeResponse.builder()
+                .code(code)
+                .data(total != null ? GHNFeeResponse.GHNFeeData.builder().total(total).build() : null)
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.mypkga.commerceplatformfull.service.impl;
+
+import com.mypkga.commerceplatformfull.config.GHNConfig;
+import com.mypkga.commerceplatformfull.dto.ghn.GHNWebhookPayload;
+import com.mypkga.commerceplatformfull.entity.Order;
+import com.mypkga.commerceplatformfull.entity.ReturnRequest;
+import com.mypkga.commerceplatformfull.entity.ReturnStatus;
+import com.mypkga.commerceplatformfull.entity.User;
+import com.mypkga.commerceplatformfull.repository.ReturnRequestRepository;
+import com.mypkga.commerceplatformfull.service.mail.NotificationCoalescer;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GHNServiceImplTest {
+
+    private final ReturnRequestRepository returnRequestRepository = mock(ReturnRequestRepository.class);
+    private final NotificationCoalescer notificationCoalescer = mock(NotificationCoalescer.class);
+    private final GHNServiceImpl service = new GHNServiceImpl(new GHNConfig(), mock(RestTemplate.class),
+            returnRequestRepository, notificationCoalescer);
+
+    @Test
+    void appliesStatusAndRemembersItsTime() {
+        ReturnRequest returnRequest = returnRequest(ReturnStatus.RETURN_APPROVED);
+
+        service.applyStatusUpdates(List.of(payload("picked", "2026-10-19T09:00:00+07:00")));
+
+        assertThat(returnRequest.getStatus()).isEqualTo(ReturnStatus.RETURNING);
+        assertThat(returnRequest.getGhnStatus()).isEqualTo("picked");
+        assertThat(returnRequest.getGhnStatusAt()).isNotNull();
+        assertThat(returnRequest.getPickupTime()).isEqualTo(returnRequest.getGhnStatusAt());
+        verifyEmails(1);
+    }
+
+    @Test
+    void olderEventDoesNotMoveTheReturnBack() {
+        ReturnRequest returnRequest = returnRequest(ReturnStatus.RETURN_APPROVED);
+
+        service.applyStatusUpdates(List.of(payload("delivered", "2026-10-19T15:00:00+07:00")));
+        LocalDateTime deliveredAt = returnRequest.getGhnStatusAt();
+        service.applyStatusUpdates(List.of(payload("delivering", "2026-10-19T11:00:00+07:00")));
+
+        assertThat(returnRequest.getStatus()).isEqualTo(ReturnStatus.RETURN_RECEIVED);
+        assertThat(returnRequest.getGhnStatus()).isEqualTo("delivered");
+        assertThat(returnRequest.getGhnStatusAt()).isEqualTo(deliveredAt);
+        verifyEmails(1);
+    }
+
+    @Test
+    void receivedReturnIgnoresLaterTransitStatuses() {
+        // No usable time on the event, so only the forward-only rule can stop it
+        ReturnRequest returnRequest = returnRequest(ReturnStatus.RETURN_RECEIVED);
+
+        service.applyStatusUpdates(List.of(payload("delivering", null)));
+
+        assertThat(returnRequest.getStatus()).isEqualTo(ReturnStatus.RETURN_RECEIVED);
+        assertThat(returnRequest.getGhnStatus()).isNull();
+        verifyEmails(0);
+    }
+
+    @Test
+    void closedReturnIsNotReopened() {
+        ReturnRequest returnRequest = returnRequest(ReturnStatus.REFUNDED);
+
+        service.applyStatusUpdates(List.of(payload("picked", "2026-10-19T09:00:00+07:00")));
+
+        assertThat(returnRequest.getStatus()).isEqualTo(ReturnStatus.REFUNDED);
+        verifyEmails(0);
+    }
+
+    @Test
+    void newerTransitStatusWithoutStatusChangeIsRecorded() {
+        ReturnRequest returnRequest = returnRequest(ReturnStatus.RETURN_APPROVED);
+
+        service.applyStatusUpdates(List.of(
+                payload("picked", "2026-10-19T09:00:00+07:00"),
+                payload("transporting", "2026-10-19T12:00:00+07:00")));
+
+        assertThat(returnRequest.getStatus()).isEqualTo(ReturnStatus.RETURNING);
+        assertThat(returnRequest.getGhnStatus()).isEqualTo("transporting");
+        assertThat(returnRequest.getGhnStatusAt()).isAfter(returnRequest.getPickupTime());
+        verifyEmails(1);
+    }
+
+    private ReturnRequest returnRequest(ReturnStatus status) {
+        User customer = new User();
+        customer.setFullName("Nguyễn Văn An");
+        customer.setEmail("an@example.com");
+        Order order = new Order();
+        order.setUser(customer);
+
+        ReturnRequest returnRequest = new ReturnRequest();
+        returnRequest.setId(1L);
+        returnRequest.setReturnCode("RT-1");
+        returnRequest.setGhnOrderCode("GHN1");
+        returnRequest.setOrder(order);
+        returnRequest.setStatus(status);
+        when(returnRequestRepository.findByGhnOrderCodeIn(anyCollection())).thenReturn(List.of(returnRequest));
+        return returnRequest;
+    }
+
+    private static GHNWebhookPayload payload(String status, String time) {
+        GHNWebhookPayload payload = new GHNWebhookPayload();
+        payload.setOrderCode("GHN1");
+        payload.setStatus(status);
+        payload.setTime(time);
+        return payload;
+    }
+
+    private void verifyEmails(int count) {
+        verify(notificationCoalescer, count == 0 ? never() : times(count)).submit(anyString(), anyString(),
+                anyString(), anyString(), anyBoolean(), anyString(), anyBoolean());
+    }
+}
@@ -0,0 +1,189 @@
+package com.mypkga.commerceplatformfull.service.mail;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.mypkga.commerceplatformfull.entity.EmailOutboxMessage;
+import com.mypkga.commerceplatformfull.entity.EmailOutboxStatus;
+import com.mypkga.commerceplatformfull.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailDispatcherTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("shop@test.local", "secret"));
+
+    private final EmailOutboxRepository outboxRepository = mock(EmailOutboxRepository.class);
+
+    private long nextId = 1;
+
+    @Test
+    void sendsClaimedBatchOverSmtp() throws Exception {
+        EmailDispatcher dispatcher = dispatcher(greenMail.getSmtp().getPort());
+        EmailOutboxMessage text = message("a@example.com", "Đơn hàng #1", "Cảm ơn bạn!", false);
+        EmailOutboxMessage html = message("b@example.com", "Đơn hàng #2", "<p>Đã giao</p>", true);
+        queue(text, html);
+
+        dispatcher.wake();
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 2)).isTrue();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).extracting(MimeMessage::getSubject).containsExactlyInAnyOrder("Đơn hàng #1", "Đơn hàng #2");
+        assertThat(GreenMailUtil.getBody(greenMail.getReceivedMessagesForDomain("example.com")[0])).isNotBlank();
+        verify(outboxRepository, timeout(5000)).markSent(
+                argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(text.getId(), html.getId()))), any());
+        verify(outboxRepository, never()).clearSecretBodies(anyList());
+    }
+
+    @Test
+    void sentSecretBodiesAreCleared() throws Exception {
+        EmailDispatcher dispatcher = dispatcher(greenMail.getSmtp().getPort());
+        EmailOutboxMessage otp = secret(message("a@example.com", "OTP", "<b>123456</b>", true), Duration.ofMinutes(5));
+        queue(otp);
+
+        dispatcher.wake();
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        verify(outboxRepository, timeout(5000)).clearSecretBodies(List.of(otp.getId()));
+    }
+
+    @Test
+    void expiredSecretIsDroppedUnsent() {
+        EmailDispatcher dispatcher = dispatcher(greenMail.getSmtp().getPort());
+        EmailOutboxMessage otp = secret(message("a@example.com", "OTP", "<b>123456</b>", true), Duration.ofMinutes(-1));
+        queue(otp);
+
+        dispatcher.wake();
+
+        List<EmailOutboxMessage> saved = savedMessages();
+        assertThat(saved).singleElement().satisfies(message -> {
+            assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.DEAD);
+            assertThat(message.getBody()).isEmpty();
+        });
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+    }
+
+    @Test
+    void secretIsNotRetriedPastItsExpiry() {
+        // Nothing listens on this port, so every send fails and would be retried in about 30 s
+        EmailDispatcher dispatcher = dispatcher(greenMail.getSmtp().getPort() + 1);
+        EmailOutboxMessage otp = secret(message("a@example.com", "OTP", "<b>123456</b>", true), Duration.ofSeconds(10));
+        EmailOutboxMessage notice = message("b@example.com", "Notice", "Hello", false);
+        queue(otp, notice);
+
+        dispatcher.wake();
+
+        List<EmailOutboxMessage> saved = savedMessages();
+        assertThat(otp.getStatus()).isEqualTo(EmailOutboxStatus.DEAD);
+        assertThat(otp.getBody()).isEmpty();
+        assertThat(notice.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+        assertThat(notice.getBody()).isEqualTo("Hello");
+        assertThat(notice.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(20));
+        assertThat(saved).containsExactlyInAnyOrder(otp, notice);
+    }
+
+    @Test
+    void pollHandsTheRunToAnotherThread() throws Exception {
+        EmailDispatcher dispatcher = dispatcher(greenMail.getSmtp().getPort());
+        queue(message("a@example.com", "Hi", "Hello", false));
+        List<String> threads = new ArrayList<>();
+        when(outboxRepository.claim(anyList(), anyString(), any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return 1;
+        });
+
+        dispatcher.poll();
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        verify(outboxRepository, timeout(5000)).markSent(anyList(), any());
+        assertThat(threads).containsExactly("email-dispatch");
+    }
+
+    private EmailDispatcher dispatcher(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        mailSender.setUsername("shop@test.local");
+        mailSender.setPassword("secret");
+        mailSender.getJavaMailProperties().put("mail.smtp.auth", "true");
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender);
+        ReflectionTestUtils.setField(pool, "poolSize", 2);
+        ReflectionTestUtils.setField(pool, "idleTimeout", Duration.ofSeconds(60));
+
+        EmailDispatcher dispatcher = new EmailDispatcher(outboxRepository, pool, mailSender,
+                new SimpleMeterRegistry(), Runnable::run);
+        ReflectionTestUtils.setField(dispatcher, "fromEmail", "shop@test.local");
+        ReflectionTestUtils.setField(dispatcher, "fromName", "Shop");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "claimTimeout", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 8);
+        ReflectionTestUtils.setField(dispatcher, "retryBase", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(dispatcher, "retryMax", Duration.ofHours(6));
+        ReflectionTestUtils.setField(dispatcher, "perDomainPerMinute", 120);
+        ReflectionTestUtils.setField(dispatcher, "perDomainBurst", 20);
+        ReflectionTestUtils.setField(dispatcher, "sentRetention", Duration.ofDays(7));
+        ReflectionTestUtils.setField(dispatcher, "deadRetention", Duration.ofDays(30));
+        dispatcher.init();
+        return dispatcher;
+    }
+
+    private EmailOutboxMessage message(String recipient, String subject, String body, boolean html) {
+        EmailOutboxMessage message = new EmailOutboxMessage(recipient, subject, body, html);
+        message.setId(nextId++);
+        return message;
+    }
+
+    private static EmailOutboxMessage secret(EmailOutboxMessage message, Duration validFor) {
+        message.setSecret(true);
+        message.setExpiresAt(LocalDateTime.now().plus(validFor));
+        return message;
+    }
+
+    private void queue(EmailOutboxMessage... messages) {
+        List<Long> ids = new ArrayList<>();
+        for (EmailOutboxMessage message : messages) {
+            ids.add(message.getId());
+        }
+        when(outboxRepository.findDueIds(any(LocalDateTime.class), any(Pageable.class))).thenReturn(ids, List.of());
+        when(outboxRepository.claim(anyList(), anyString(), any())).thenReturn(ids.size());
+        when(outboxRepository.findByClaimToken(anyString())).thenReturn(List.of(messages));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<EmailOutboxMessage> savedMessages() {
+        ArgumentCaptor<Iterable<EmailOutboxMessage>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(outboxRepository, timeout(5000)).saveAll(captor.capture());
+        verify(outboxRepository, after(200).never()).markSent(anyList(), any());
+        List<EmailOutboxMessage> saved = new ArrayList<>();
+        captor.getValue().forEach(saved::add);
+        return saved;
+    }
+}
@@ -0,0 +1,105 @@
+package com.mypkga.commerceplatformfull.service.mail;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cost of rendering one notification email: the template engine against String.format over
+ * the same HTML, which is how the emails were built before. The format string is derived from
+ * the template file, with the footer inlined and each variable replaced by {@code %s}.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=EmailTemplateEngineBenchmark}.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailTemplateEngineBenchmark {
+
+    private static final Pattern INCLUDE = Pattern.compile("<th:block th:replace=\"~\\{([\\w/-]+)}\"></th:block>");
+    private static final Pattern VARIABLE = Pattern.compile("\\[\\[\\$\\{(\\w+)}]]|\\[\\(\\$\\{(\\w+)}\\)]");
+
+    @Param({"email/otp-verification", "email/return-approved"})
+    public String template;
+
+    private EmailTemplateEngine engine;
+    private Map<String, Object> model;
+    private String format;
+    private Object[] arguments;
+
+    @Setup
+    public void setUp() throws IOException {
+        engine = new EmailTemplateEngine(new DefaultResourceLoader());
+        model = new HashMap<>();
+        model.put("otp", "482913");
+        model.put("companyName", "E-Commerce Platform");
+        model.put("customerName", "Nguyễn Văn An");
+        model.put("orderNumber", "ORD-20261019-000123");
+        model.put("approvalDate", "19/10/2026 14:30");
+        model.put("returnCode", "RT-7F3K9Q");
+        model.put("shippingInfo", "Mã vận đơn GHN: GHN123456789");
+        model.put("shippingDetails", "Shipper sẽ liên hệ để lấy hàng trong 1-2 ngày làm việc.");
+        model.put("supportHotline", "1900 1234");
+        model.put("supportEmail", "support@ecommerce-platform.com");
+
+        String source = load(template);
+        Matcher include = INCLUDE.matcher(source);
+        StringBuilder inlined = new StringBuilder();
+        while (include.find()) {
+            include.appendReplacement(inlined, Matcher.quoteReplacement(load(include.group(1))));
+        }
+        include.appendTail(inlined);
+
+        List<Object> values = new ArrayList<>();
+        Matcher variable = VARIABLE.matcher(inlined.toString().replace("%", "%%"));
+        StringBuilder formatted = new StringBuilder();
+        while (variable.find()) {
+            values.add(model.get(variable.group(1) != null ? variable.group(1) : variable.group(2)));
+            variable.appendReplacement(formatted, "%s");
+        }
+        variable.appendTail(formatted);
+        format = formatted.toString();
+        arguments = values.toArray();
+    }
+
+    @Benchmark
+    public String templateEngine() {
+        return engine.render(template, model);
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format(format, arguments);
+    }
+
+    private static String load(String name) throws IOException {
+        try (InputStream in = EmailTemplateEngineBenchmark.class.getResourceAsStream("/templates/" + name + ".html")) {
+            if (in == null) {
+                throw new IOException("Email template not found: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.mypkga.commerceplatformfull.service.mail;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailTemplateEngineTest {
+
+    private final EmailTemplateEngine engine = new EmailTemplateEngine(new DefaultResourceLoader());
+
+    @Test
+    void valueEscapedByTheValidationAspectIsNotEscapedTwice() {
+        // What InputValidationAspect hands the service for an admin's note
+        String notes = HtmlUtils.htmlEscape("Sản phẩm không đúng mô tả <ảnh> & \"hộp móp\"");
+        assertThat(notes).contains("&ocirc;");
+
+        String html = engine.render("email/delivery-issue-rejected",
+                Map.of("orderNumber", "ORD-20261019-000123", "adminNotes", notes));
+
+        assertThat(html).contains("Sản phẩm không đúng mô tả &lt;ảnh&gt; &amp; &quot;hộp móp&quot;")
+                .doesNotContain("&amp;ocirc;", "&ocirc;", "&amp;lt;");
+    }
+
+    @Test
+    void rawValueIsEscapedOnce() {
+        String html = engine.render("email/delivery-issue-rejected",
+                Map.of("orderNumber", "ORD-1", "adminNotes", "Giao lại <b>trước</b> 17h & gọi khách"));
+
+        assertThat(html).contains("Giao lại &lt;b&gt;trước&lt;/b&gt; 17h &amp; gọi khách");
+    }
+}